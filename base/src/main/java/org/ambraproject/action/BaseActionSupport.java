@@ -175,13 +175,10 @@ public abstract class BaseActionSupport extends ActionSupport implements Request
       throw new RuntimeException("HttpServletRequest is null");
     }
 
-    HttpSession httpSession = request.getSession(true);
+    //don't create a session for anonymous users just to find out they aren't logged in
+    HttpSession httpSession = request.getSession(false);
 
-    if(httpSession == null) {
-      throw new RuntimeException("HttpSession is null");
-    }
-
-    return (String)httpSession.getAttribute(Constants.AUTH_KEY);
+    return (httpSession == null) ? null : (String)httpSession.getAttribute(Constants.AUTH_KEY);
   }
 
   /**
@@ -18,7 +18,7 @@
 
 package org.ambraproject.action;
 
-import org.ambraproject.models.UserProfile;
+import org.ambraproject.views.UserLoginView;
 import org.apache.struts2.interceptor.SessionAware;
 
 import java.util.LinkedHashMap;
@@ -45,21 +45,20 @@ public class BaseSessionAwareActionSupport extends BaseActionSupport implements
    *
    * @return Logged in user object
    */
-  public UserProfile getCurrentUser() {
-    return (UserProfile) session.get(AMBRA_USER_KEY);
+  public UserLoginView getCurrentUser() {
+    return (UserLoginView) session.get(AMBRA_USER_KEY);
   }
 
   /**
    * From the HTTP Session, get the searches performed by this user.
    * Each element in the returned Map has a key which is the link text (to be displayed to the user)
    * and a value which is the URL of that link.
-   * @return The searches performed by this user
+   * Reading them doesn't put anything in the session, so it doesn't create one for anonymous users.
+   * @return The searches performed by this user; empty, and not in the session, if there aren't any
    */
   protected LinkedHashMap<String, String> getRecentSearches() {
-    if (session.get(RECENT_SEARCHES_KEY) == null) {
-      session.put(RECENT_SEARCHES_KEY, new LinkedHashMap<String, String>());
-    }
-    return (LinkedHashMap<String, String>) session.get(RECENT_SEARCHES_KEY);
+    LinkedHashMap<String, String> recentSearches = (LinkedHashMap<String, String>) session.get(RECENT_SEARCHES_KEY);
+    return (recentSearches == null) ? new LinkedHashMap<String, String>() : recentSearches;
   }
 
   /**
@@ -68,6 +67,8 @@ public class BaseSessionAwareActionSupport extends BaseActionSupport implements
    * @param url The URL which will be executed when the user clicks on the displayText
    */
   protected void addRecentSearch(String displayText, String url) {
-    getRecentSearches().put(displayText, url);
+    LinkedHashMap<String, String> recentSearches = getRecentSearches();
+    recentSearches.put(displayText, url);
+    session.put(RECENT_SEARCHES_KEY, recentSearches);
   }
 }
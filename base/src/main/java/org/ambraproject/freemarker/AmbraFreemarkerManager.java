@@ -284,8 +284,8 @@ public class AmbraFreemarkerManager extends FreemarkerManager {
     configuration.setSharedVariable("simpleText", new SimpleTextDirective());
     configuration.setSharedVariable("URLParameters", new URLParametersDirective());
     configuration.setSharedVariable("randomNumber", new RandomNumberDirective());
-    configuration.setSharedVariable("versionedCSS", new VersionedCSSDirective());
-    configuration.setSharedVariable("versionedJS", new VersionedJSDirective());
+    configuration.setSharedVariable("versionedCSS", new VersionedCSSDirective(servletContext));
+    configuration.setSharedVariable("versionedJS", new VersionedJSDirective(servletContext));
     return configuration;
   }
 }
@@ -285,8 +285,12 @@ public class ArticleAssetServiceImpl extends HibernateServiceImpl implements Art
     long startTime = Calendar.getInstance().getTimeInMillis();
     String title = "";
 
-    //get the article
-    Article article = articleService.getArticle(assetDoi.substring(0, assetDoi.lastIndexOf('.')), authId);
+    //get the article; the citation only needs the authors, so don't load the whole article
+    String articleDoi = assetDoi.substring(0, assetDoi.lastIndexOf('.'));
+    articleService.checkArticleState(articleDoi, authId);
+    List<Article> articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.eq("doi", articleDoi)), Article.FETCH_PROFILE_HEADER);
+    Article article = articles.get(0);
 
     //get the article asset for "PNG_M"
     ArticleAsset articleAsset = getArticleAsset(assetDoi, "PNG_M", authId);
@@ -344,18 +348,7 @@ public class ArticleAssetServiceImpl extends HibernateServiceImpl implements Art
        * of source journal
        */
 
-      int index = assetDoi.lastIndexOf(".");
-      String articleDoi = assetDoi.substring(0, index);
-      String eIssn;
-
-      try {
-        eIssn = (String) hibernateTemplate.findByCriteria(
-            DetachedCriteria.forClass(Article.class)
-                .add(Restrictions.eq("doi", articleDoi))
-                .setProjection(Projections.property("eIssn")),0, 1).get(0);
-      } catch (IndexOutOfBoundsException e) {
-        throw new IllegalArgumentException("Doi " + articleDoi + " didn't correspond to an article");
-      }
+      String eIssn = article.geteIssn();
 
       String journalName = (String) hibernateTemplate.findByCriteria(
           DetachedCriteria.forClass(Journal.class)
@@ -263,6 +263,14 @@ public interface ArticleService {
    */
   public ArticleInfo getArticleInfo(final Long articleID, final String authId) throws NoSuchArticleIdException;
 
+  /**
+   * Drop the cached articleInfo and table of contents entry for an article.  Call this when the article's categories,
+   * related articles or journals are changed outside of this service.
+   *
+   * @param articleDoi the doi of the article
+   */
+  public void invalidateArticleInfo(final String articleDoi);
+
   /**
    * Get a table of Contents style list of articles
    *
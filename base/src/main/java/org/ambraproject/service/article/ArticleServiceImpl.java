@@ -39,6 +39,7 @@ import org.ambraproject.models.Journal;
 import org.ambraproject.models.UserProfile;
 import org.ambraproject.models.UserRole.Permission;
 import org.ambraproject.models.Volume;
+import org.ambraproject.service.cache.Cache;
 import org.ambraproject.service.hibernate.HibernateServiceImpl;
 import org.ambraproject.service.permission.PermissionsService;
 import org.ambraproject.views.ArticleCategory;
@@ -46,6 +47,7 @@ import org.ambraproject.views.AssetView;
 import org.ambraproject.views.JournalView;
 import org.ambraproject.views.article.BaseArticleInfo;
 import org.hibernate.Criteria;
+import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
 import org.hibernate.Session;
@@ -59,6 +61,8 @@ import org.springframework.beans.factory.annotation.Required;
 import org.springframework.orm.hibernate3.HibernateAccessor;
 import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.math.BigInteger;
 import java.net.URI;
 import java.sql.SQLException;
@@ -66,12 +70,15 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -85,6 +92,9 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
   private static final Logger log = LoggerFactory.getLogger(ArticleServiceImpl.class);
 
   private PermissionsService permissionsService;
+  private Cache parsedArticleCache;
+  private Cache articleInfoCache;
+  private Cache tocEntryCache;
 
   @Override
   public boolean containsResearchType(final Set<String> types) throws ApplicationException {
@@ -255,6 +265,9 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     Article a = (Article)articles.get(0);
     a.setState(state);
 
+    //the article shows up in the related articles of the articles it's related to
+    invalidateArticleInfos(getRelatedArticleDois(a));
+
     //Remove relationships if this article is being disabled
     //they will be created on re-ingest if necessary, but if both articles in a reciprocal relationship are
     //disabled and have the relationships removed from xml, we want to the relationships to be gone when both are reingested
@@ -264,6 +277,11 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
 
     hibernateTemplate.update(a);
 
+    //drop what was extracted from the xml so a republished article is parsed again
+    if (parsedArticleCache != null) {
+      parsedArticleCache.remove(articleDoi);
+    }
+
     //log whenever someone disables or unpublishes an article
     if ((state == Article.STATE_UNPUBLISHED ||
           state == Article.STATE_DISABLED)
@@ -480,6 +498,7 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
         for (Article article : queryResults) {
           if (matchesAuthorFilter(params.getAuthors(), article.getAuthors())
               && matchesCategoriesFilter(params.getCategories(), article.getCategories().keySet())) {
+            initializeArticle(article);
             filteredResults.add(article);
           }
         }
@@ -504,15 +523,17 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     if (articleID == null)
       throw new IllegalArgumentException("articleID == null");
 
-    Article article = (Article)hibernateTemplate.load(Article.class, articleID);
+    List<Article> articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.eq("ID", articleID)), Article.FETCH_PROFILE_PAGE);
 
-    if (article == null) {
+    if (articles.size() == 0) {
       throw new NoSuchArticleIdException(String.valueOf(articleID));
     }
 
-    checkArticleState(article, authId);
+    checkArticleState(articles.get(0), authId);
+    initializeArticle(articles.get(0));
 
-    return article;
+    return articles.get(0);
   }
 
 
@@ -528,13 +549,24 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
   @Transactional(readOnly = true, noRollbackFor = {SecurityException.class})
   @SuppressWarnings("unchecked")
   public Article getArticle(final String articleDoi, final String authId) throws NoSuchArticleIdException {
+    Article article = getArticle(articleDoi, authId, Article.FETCH_PROFILE_PAGE);
+    initializeArticle(article);
+
+    return article;
+  }
+
+  /**
+   * Get an Article by URI, join fetching what the given fetch profile names.  The other collections are left to load
+   * lazily, so the article can only be used within the current transaction.
+   */
+  private Article getArticle(final String articleDoi, final String authId, final String fetchProfile)
+      throws NoSuchArticleIdException {
     // sanity check parms
     if (articleDoi == null)
       throw new IllegalArgumentException("articleDoi == null");
 
-    List<Article> articles = (List<Article>) hibernateTemplate.findByCriteria(
-        DetachedCriteria.forClass(Article.class)
-            .add(Restrictions.eq("doi", articleDoi)));
+    List<Article> articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.eq("doi", articleDoi)), fetchProfile);
 
     if (articles.size() == 0) {
       throw new NoSuchArticleIdException(articleDoi);
@@ -545,6 +577,22 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     return articles.get(0);
   }
 
+  /**
+   * Load the collections of an article that are still lazy, for callers that use it after the transaction ends.
+   * Collections that were join fetched are left as they are, and the rest are loaded in batches across the articles
+   * in the session.
+   */
+  private static void initializeArticle(Article article) {
+    Hibernate.initialize(article.getTypes());
+    Hibernate.initialize(article.getRelatedArticles());
+    Hibernate.initialize(article.getCategories());
+    Hibernate.initialize(article.getAuthors());
+    Hibernate.initialize(article.getEditors());
+    Hibernate.initialize(article.getCollaborativeAuthors());
+    Hibernate.initialize(article.getAssets());
+    Hibernate.initialize(article.getCitedArticles());
+  }
+
   private void checkArticleState(Article article, String authId) throws NoSuchArticleIdException {
     //If the article is unpublished, it should not be returned if the user is not an admin
     if (article.getState() == Article.STATE_UNPUBLISHED) {
@@ -613,9 +661,8 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
 
     List<Article> articles = new ArrayList<Article>();
     if(!articleDois.isEmpty()) {
-      articles = (List<Article>) hibernateTemplate.findByCriteria(
-      DetachedCriteria.forClass(Article.class)
-        .add(Restrictions.in("doi", articleDois)));
+      articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.in("doi", articleDois)), Article.FETCH_PROFILE_PAGE);
     }
 
     for(int a = 0; a < articles.size(); a++) {
@@ -637,6 +684,10 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
       }
     }
 
+    for (Article article : articles) {
+      initializeArticle(article);
+    }
+
     return articlesSorted;
   }
 
@@ -702,11 +753,144 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
   @Override
   @SuppressWarnings("unchecked")
   public ArticleInfo getArticleInfo(final String articleDoi, final String authId) throws NoSuchArticleIdException {
-    final Article article;
+    //users who can see unpublished articles also see unpublished related articles, so they don't share the cache
+    if (articleInfoCache == null || canViewUnpublished(authId)) {
+      return createArticleInfo(getArticle(articleDoi, authId, Article.FETCH_PROFILE_PAGE), authId);
+    }
+
+    ArticleInfo articleInfo = articleInfoCache.get(articleDoi,
+        new Cache.Lookup<ArticleInfo, NoSuchArticleIdException>() {
+          @Override
+          public ArticleInfo lookup() throws NoSuchArticleIdException {
+            //built as an anonymous user would see it, so unpublished articles are never cached
+            return toSharedArticleInfo(createArticleInfo(
+                getArticle(articleDoi, null, Article.FETCH_PROFILE_PAGE), null));
+          }
+        });
+
+    return withFlaggedCategories(articleInfo, authId);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void invalidateArticleInfo(String articleDoi) {
+    invalidateArticleInfos(Collections.singleton(articleDoi));
+  }
+
+  private boolean canViewUnpublished(String authId) {
+    if (authId == null || authId.length() == 0) {
+      return false;
+    }
+
+    try {
+      permissionsService.checkPermission(Permission.VIEW_UNPUBBED_ARTICLES, authId);
+      return true;
+    } catch (SecurityException se) {
+      return false;
+    }
+  }
+
+  /**
+   * Detach the collections of an article info from the hibernate session and make them read-only, so the instance can
+   * be handed to any number of threads at once
+   */
+  private ArticleInfo toSharedArticleInfo(ArticleInfo articleInfo) {
+    if (articleInfo.getTypes() != null) {
+      articleInfo.setTypes(Collections.unmodifiableSet(new HashSet<String>(articleInfo.getTypes())));
+    }
+    if (articleInfo.getCitedArticles() != null) {
+      articleInfo.setCitedArticles(Collections.unmodifiableList(
+          new ArrayList<CitedArticle>(articleInfo.getCitedArticles())));
+    }
+    articleInfo.setCategories(Collections.unmodifiableSet(articleInfo.getCategories()));
+    articleInfo.setOrderedCategories(Collections.unmodifiableList(articleInfo.getOrderedCategories()));
+    articleInfo.setArticleAssets(Collections.unmodifiableList(articleInfo.getArticleAssets()));
+    articleInfo.setRelatedArticles(Collections.unmodifiableList(articleInfo.getRelatedArticles()));
+    articleInfo.setJournals(Collections.unmodifiableSet(articleInfo.getJournals()));
+
+    return articleInfo;
+  }
+
+  /**
+   * Overlay the categories the user flagged on a shared article info.  The shared instance is returned as is if there
+   * are none.
+   */
+  private ArticleInfo withFlaggedCategories(ArticleInfo articleInfo, String authId) {
+    List<Long> flaggedCategories = getFlaggedCategories(articleInfo.getId(), authId);
+
+    if (flaggedCategories.isEmpty()) {
+      return articleInfo;
+    }
 
-    article = getArticle(articleDoi, authId);
+    Set<ArticleCategory> catViews = new HashSet<ArticleCategory>(articleInfo.getCategories().size());
+    for (ArticleCategory category : articleInfo.getCategories()) {
+      catViews.add(ArticleCategory.builder(category)
+          .setFlagged(flaggedCategories.contains(category.getCategoryID()))
+          .build());
+    }
 
-    return createArticleInfo(article, authId);
+    return articleInfo.copyWithCategories(catViews, sortCategories(catViews));
+  }
+
+  /**
+   * Remove cached article infos and TOC entries, once now and once more when the current transaction (if any)
+   * completes, so that one built from the data before the change can't be put back in the meantime.
+   */
+  private void invalidateArticleInfos(final Collection<String> articleDois) {
+    if (articleInfoCache == null && tocEntryCache == null) {
+      return;
+    }
+
+    removeCachedArticleInfos(articleDois);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCompletion(int status) {
+          removeCachedArticleInfos(articleDois);
+        }
+      });
+    }
+  }
+
+  private void removeCachedArticleInfos(Collection<String> articleDois) {
+    for (String doi : articleDois) {
+      if (articleInfoCache != null) {
+        articleInfoCache.remove(doi);
+      }
+      if (tocEntryCache != null) {
+        tocEntryCache.remove(doi);
+      }
+    }
+  }
+
+  /**
+   * Get the doi of the article along with the dois of the articles related to it in either direction
+   */
+  @SuppressWarnings("unchecked")
+  private Set<String> getRelatedArticleDois(final Article article) {
+    Set<String> dois = new HashSet<String>();
+    dois.add(article.getDoi());
+
+    for (ArticleRelationship relationship : article.getRelatedArticles()) {
+      if (relationship.getOtherArticleDoi() != null) {
+        dois.add(relationship.getOtherArticleDoi());
+      }
+    }
+
+    dois.addAll(hibernateTemplate.execute(new HibernateCallback<List<String>>() {
+      @Override
+      public List<String> doInHibernate(Session session) throws HibernateException, SQLException {
+        return session.createSQLQuery("select a.doi from articleRelationship ar " +
+            "join article a on ar.parentArticleID = a.articleID where ar.otherArticleID = :articleID")
+            .setLong("articleID", article.getID())
+            .list();
+      }
+    }));
+
+    return dois;
   }
 
   /**
@@ -715,8 +899,14 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
   @Transactional(readOnly = true)
   @Override
   public ArticleInfo getArticleInfo(Long articleID, String authId) throws NoSuchArticleIdException {
-    Article article = hibernateTemplate.get(Article.class, articleID);
-    return createArticleInfo(article, authId);
+    List<Article> articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.eq("ID", articleID)), Article.FETCH_PROFILE_PAGE);
+
+    if (articles.size() == 0) {
+      throw new NoSuchArticleIdException(String.valueOf(articleID));
+    }
+
+    return createArticleInfo(articles.get(0), authId);
   }
 
   private ArticleInfo createArticleInfo(Article article, final String authId) {
@@ -739,6 +929,9 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     articleInfo.setIssue(article.getIssue());
     articleInfo.setVolume(article.getVolume());
     articleInfo.seteLocationId(article.geteLocationId());
+    //the article info outlives the session, so the lazy collections it keeps have to be loaded here
+    Hibernate.initialize(article.getCitedArticles());
+    Hibernate.initialize(article.getCollaborativeAuthors());
     articleInfo.setCitedArticles(article.getCitedArticles());
     articleInfo.setStrkImgURI(article.getStrkImgURI());
     //Set the citation info
@@ -803,10 +996,10 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     articleInfo.setJournals(journalViews);
 
     //get related articles
-    //this results in more queries than doing a join, but getArticle() already has security logic built in to it
-    //and a very small percentage of articles even have related articles
     List<RelatedArticleInfo> articleInfos = getRelatedArticleInfos(articleInfo.getDoi(), articleInfo.getTypes(),
       article.getRelatedArticles(), authId);
+    //sorted by date here, since a shared article info's list can't be sorted by its users
+    Collections.sort(articleInfos);
     articleInfo.setRelatedArticles(articleInfos);
 
     log.debug("loaded ArticleInfo: id={}, articleTypes={}, " +
@@ -820,13 +1013,16 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
   private List<RelatedArticleInfo> getRelatedArticleInfos(final String doi, final Set<String> types,
       final List<ArticleRelationship> articleRelationships, String authId) {
     List<RelatedArticleInfo> results = new ArrayList<RelatedArticleInfo>(articleRelationships.size());
+    Map<String, Article> otherArticles = getRelatedArticles(articleRelationships, authId);
 
     for (ArticleRelationship relationship : articleRelationships) {
       if (relationship.getOtherArticleDoi() != null) {
         try {
           // related articles of the article itself
-          //Just fetch the related articles for the other article
-          Article otherArticle = getArticle(relationship.getOtherArticleDoi(), authId);
+          Article otherArticle = otherArticles.get(relationship.getOtherArticleDoi());
+          if (otherArticle == null) {
+            throw new NoSuchArticleIdException(relationship.getOtherArticleDoi());
+          }
           RelatedArticleInfo relatedArticleInfo = getRelatedArticleInfo(relationship, otherArticle);
 
           if (!results.contains(relatedArticleInfo)) {
@@ -838,8 +1034,7 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
               if (isEqualOrAmmendment(doi, otherArticleRelationship.getOtherArticleDoi(),
                 otherArticleRelationship.getType()))
               {
-                Article otherRelatedArticle = getArticle(relationship.getOtherArticleDoi(), authId);
-                RelatedArticleInfo otherArticleRelatedArticleInfo = getRelatedArticleInfo(otherArticleRelationship, otherRelatedArticle);
+                RelatedArticleInfo otherArticleRelatedArticleInfo = getRelatedArticleInfo(otherArticleRelationship, otherArticle);
 
                 if (!results.contains(otherArticleRelatedArticleInfo)) {
                   results.add(otherArticleRelatedArticleInfo);
@@ -858,12 +1053,44 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     return results;
   }
 
-  @SuppressWarnings("unchecked")
-  private List<TOCRelatedArticle> getRelatedArticlesForTOC(final String doi, final Set<String> types, String authId) {
-    List<Object[]> relatedArticles = getRelatedArticles(doi, authId);
+  /**
+   * Load the other articles of some relationships with one query, keeping the same security rules as {@link
+   * #getArticle(String, String, String)}
+   *
+   * @return the articles the user may see, by doi
+   */
+  private Map<String, Article> getRelatedArticles(List<ArticleRelationship> articleRelationships, String authId) {
+    Set<String> dois = new HashSet<String>(articleRelationships.size());
+    for (ArticleRelationship relationship : articleRelationships) {
+      if (relationship.getOtherArticleDoi() != null) {
+        dois.add(relationship.getOtherArticleDoi());
+      }
+    }
+
+    Map<String, Article> results = new HashMap<String, Article>(dois.size());
+    if (dois.isEmpty()) {
+      return results;
+    }
+
+    List<Article> articles = findByCriteria(DetachedCriteria.forClass(Article.class)
+        .add(Restrictions.in("doi", dois)), Article.FETCH_PROFILE_HEADER);
+    for (Article article : articles) {
+      try {
+        checkArticleState(article, authId);
+        results.put(article.getDoi(), article);
+      } catch (NoSuchArticleIdException e) {
+        //exclude this article
+      }
+    }
+
+    return results;
+  }
+
+  private List<TOCRelatedArticle> getRelatedArticlesForTOC(final String doi, final Set<String> types,
+                                                           final Map<String, List<Object[]>> relationships) {
     List<TOCRelatedArticle> results = new ArrayList<TOCRelatedArticle>();
 
-    for (Object relationship[] : relatedArticles) {
+    for (Object relationship[] : getRows(relationships, doi)) {
       final String relatedDoi = (String)relationship[0];
       final String relatedTitle = (String)relationship[1];
       final String relatedType = (String)relationship[2];
@@ -878,9 +1105,7 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
           }
 
           if(isDisplayableRelationship(types, relatedType)) {
-            List<Object[]> otherArticleRelationships = getRelatedArticles(relatedDoi, authId);
-
-            for (Object[] otherArticleRelationship : otherArticleRelationships) {
+            for (Object[] otherArticleRelationship : getRows(relationships, relatedDoi)) {
               String otherArticleDoi = (String)otherArticleRelationship[0];
               String otherArticleTitle = (String)otherArticleRelationship[1];
               String otherArticleRelationshipType = (String)otherArticleRelationship[2];
@@ -922,116 +1147,226 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     return false;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The entries are read through the tocEntryCache, if there is one, and the ones not cached are loaded with a fixed
+   * number of IN-list queries regardless of how many there are.  The list passed in is not modified.
+   */
   @Transactional(readOnly = true)
-  @SuppressWarnings("unchecked")
   public List<TOCArticle> getArticleTOCEntries(final List<String> articleDois, final String authId) {
-    for(int a = 0; a < articleDois.size(); a++) {
-      try {
-        checkArticleState(articleDois.get(a), authId);
-      } catch(NoSuchArticleIdException ex) {
-        articleDois.remove(a);
+    if (articleDois == null || articleDois.isEmpty()) {
+      return new ArrayList<TOCArticle>();
+    }
+
+    Set<String> requestedDois = new LinkedHashSet<String>(articleDois);
+    Map<String, TOCArticle> entries;
+
+    //users who can see unpublished articles see them in the TOC as well, so they don't share the cache
+    boolean canViewUnpublished = canViewUnpublished(authId);
+    if (tocEntryCache == null || canViewUnpublished) {
+      entries = loadTOCEntries(requestedDois, canViewUnpublished);
+    } else {
+      entries = tocEntryCache.getAll(requestedDois, new Cache.BulkLookup<String, TOCArticle, RuntimeException>() {
+        @Override
+        public Map<String, TOCArticle> lookup(Collection<String> dois) {
+          //unpublished articles are left out, and so cached as missing
+          return loadTOCEntries(dois, false);
+        }
+      });
+    }
+
+    //Keep the requested order (and any repeats), dropping articles that are missing or can't be seen
+    List<TOCArticle> results = new ArrayList<TOCArticle>(articleDois.size());
+    for (String doi : articleDois) {
+      TOCArticle entry = entries.get(doi);
+      if (entry != null) {
+        results.add(entry);
       }
     }
 
-    return hibernateTemplate.execute(new HibernateCallback<List<TOCArticle>>() {
-      @Override
-      public List<TOCArticle> doInHibernate(Session session) throws HibernateException, SQLException {
-        List<TOCArticle> results = new ArrayList<TOCArticle>(articleDois.size());
+    return results;
+  }
 
-        for(String doi : articleDois) {
-          List<String> articleStringTypes = session.createSQLQuery("select articleType.type from articleType " +
-            "join article on article.articleID = articleType.articleID where article.doi = :doi")
-            .setParameter("doi", doi).list();
+  /**
+   * Load the TOC entries of some articles
+   *
+   * @param requestedDois the dois of the articles
+   * @param canViewUnpublished whether to include unpublished articles
+   * @return the entries by doi; articles that are missing or can't be seen are left out
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, TOCArticle> loadTOCEntries(final Collection<String> requestedDois,
+                                                 final boolean canViewUnpublished) {
+    return hibernateTemplate.execute(new HibernateCallback<Map<String, TOCArticle>>() {
+      @Override
+      public Map<String, TOCArticle> doInHibernate(Session session) throws HibernateException, SQLException {
+        Set<String> dois = new LinkedHashSet<String>(requestedDois.size());
+        for (Object[] row : (List<Object[]>) session.createSQLQuery(
+          "select doi, state from article where doi in (:dois)")
+          .setParameterList("dois", requestedDois)
+          .list()) {
+          if (isVisible(((Number) row[1]).intValue())) {
+            dois.add((String) row[0]);
+          }
+        }
 
-          assert(articleStringTypes != null);
+        if (dois.isEmpty()) {
+          return new HashMap<String, TOCArticle>();
+        }
 
-          Set<ArticleType> articleTypes = new HashSet<ArticleType>(articleStringTypes.size());
+        Map<String, List<String>> articleStringTypes = groupByDoi(session.createSQLQuery(
+          "select article.doi, articleType.type from articleType " +
+          "join article on article.articleID = articleType.articleID where article.doi in (:dois)")
+          .setParameterList("dois", dois)
+          .list());
+
+        Map<String, Object[]> articles = new HashMap<String, Object[]>(dois.size());
+        for (Object[] row : (List<Object[]>) session.createSQLQuery("select article.doi, article.title, " +
+          "journal.title as journal, article.date, count(*) from article " +
+          "left outer join articleAsset on article.articleID = articleAsset.articleID " +
+          "left outer join journal on article.eIssn = journal.eIssn " +
+          "where article.doi in (:dois) group by article.doi, article.title, journal.title, article.date")
+          .setParameterList("dois", dois)
+          .list()) {
+          articles.put((String) row[0], row);
+        }
 
-          for (String artType : articleStringTypes) {
-            articleTypes.add(ArticleType.getArticleTypeForURI(URI.create(artType), true));
+        Map<String, List<String>> collaborativeAuthors = groupByDoi(session.createSQLQuery("select a.doi, ca.name " +
+          "from articleCollaborativeAuthors ca join article a on ca.articleID = a.articleID " +
+          "where a.doi in (:dois) order by a.doi, ca.sortOrder asc")
+          .setParameterList("dois", dois)
+          .list());
+
+        Map<String, List<String>> authors = groupByDoi(session.createSQLQuery("select a.doi, ap.fullName " +
+          "from articlePerson ap join article a on ap.articleID = a.articleID " +
+          "where a.doi in (:dois) and ap.type = 'author' order by a.doi, ap.sortOrder asc")
+          .setParameterList("dois", dois)
+          .list());
+
+        Map<String, List<Object[]>> relationships = new HashMap<String, List<Object[]>>();
+        loadRelationships(session, dois, relationships);
+
+        //Amendments also list the other amendments of their original article, so pull in the relationships of
+        //those originals that aren't already loaded
+        Set<String> originalDois = new HashSet<String>();
+        for (String doi : dois) {
+          Set<String> types = new HashSet<String>(getRows(articleStringTypes, doi));
+          for (Object[] relationship : getRows(relationships, doi)) {
+            String relatedDoi = (String) relationship[0];
+            try {
+              if (relatedDoi != null && !dois.contains(relatedDoi)
+                && isDisplayableRelationship(types, (String) relationship[2])) {
+                originalDois.add(relatedDoi);
+              }
+            } catch (ApplicationException e) {
+              //exclude this article
+            }
           }
+        }
+        if (!originalDois.isEmpty()) {
+          loadRelationships(session, originalDois, relationships);
+        }
 
-          //Can assume here it's a valid doi from the checkArticleState query from above
-          Object[] article = ((List<Object[]>)session.createSQLQuery("select article.doi, article.title, journal.title as journal, " +
-            "article.date, count(*) from article left outer join articleAsset on article.articleID = articleAsset.articleID " +
-            "left outer join journal on article.eIssn = journal.eIssn " +
-            "where article.doi = :doi group by article.doi, article.title, journal.title, article.date")
-            .setParameter("doi", doi)
-            .list()).get(0);
-
-          List<String> collaborativeAuthors = session.createSQLQuery("select ca.name from " +
-            "articleCollaborativeAuthors ca join article a on ca.articleID = a.articleID " +
-            "where a.doi = :doi order by ca.sortOrder asc")
-            .setParameter("doi", doi)
-            .list();
+        Map<String, TOCArticle> results = new HashMap<String, TOCArticle>(dois.size());
 
-          List<String> authors = session.createSQLQuery("select ap.fullName from " +
-            "articlePerson ap join article a on ap.articleID = a.articleID " +
-            "where a.doi = :doi and ap.type = 'author' order by ap.sortOrder asc")
-            .setParameter("doi", doi)
-            .list();
+        for(String doi : dois) {
+          Object[] article = articles.get(doi);
+          List<String> stringTypes = getRows(articleStringTypes, doi);
+          Set<ArticleType> articleTypes = new HashSet<ArticleType>(stringTypes.size());
+
+          for (String artType : stringTypes) {
+            articleTypes.add(ArticleType.getArticleTypeForURI(URI.create(artType), true));
+          }
 
           List<TOCRelatedArticle> relatedArticleInfos = getRelatedArticlesForTOC(doi,
-            new HashSet<String>(articleStringTypes), authId);
+            new HashSet<String>(stringTypes), relationships);
 
+          //the entries may be shared through the cache, so their collections are read-only
           TOCArticle tocArticle = TOCArticle.builder()
             .setDoi((String)article[0])
             .setTitle((String)article[1])
-            .setAuthors(authors)
-            .setCollaborativeAuthors(collaborativeAuthors)
-            .setArticleTypes(articleTypes)
-            .setRelatedArticles(relatedArticleInfos)
+            .setAuthors(Collections.unmodifiableList(getRows(authors, doi)))
+            .setCollaborativeAuthors(Collections.unmodifiableList(getRows(collaborativeAuthors, doi)))
+            .setArticleTypes(Collections.unmodifiableSet(articleTypes))
+            .setRelatedArticles(Collections.unmodifiableList(relatedArticleInfos))
             .setPublishedJournal((String)article[2])
             .setDate((Date)article[3])
               //ignore article xml and pdf
-            .setHasFigures(((BigInteger)article[4]).intValue() > 2)
+            .setHasFigures(((Number)article[4]).intValue() > 2)
             .build();
 
-          results.add(tocArticle);
+          results.put(doi, tocArticle);
         }
 
         return results;
       }
-    });
-  }
 
-  @SuppressWarnings("unchecked")
-  @Transactional(readOnly = true)
-  private List<Object[]> getRelatedArticles(final String doi, final String authId) {
-    //Query for rows, take authId into account
-    List<Object[]> tempRes = (List<Object[]>)hibernateTemplate.execute(new HibernateCallback() {
-      @Override
-      public Object doInHibernate(Session session) throws HibernateException, SQLException {
-        String sqlQuery = "select ar.otherArticleDoi, a1.title, ar.type, a1.date " +
+      /**
+       * Load the relationships of the given articles, keyed by the parent article's doi.  Relationships of articles
+       * the user may not see are left out.
+       */
+      private void loadRelationships(Session session, Collection<String> parentDois,
+                                     Map<String, List<Object[]>> relationships) {
+        for (Object[] row : (List<Object[]>) session.createSQLQuery(
+          "select a.doi, a.state, ar.otherArticleDoi, a1.title, ar.type, a1.date " +
           "from article a " +
           "join articleRelationship ar on a.articleID = ar.parentArticleID " +
           "join article a1 on ar.otherArticleID = a1.articleID " +
-          "where a.doi = :doi";
+          "where a.doi in (:dois)")
+          .setParameterList("dois", parentDois)
+          .list()) {
+          if (isVisible(((Number) row[1]).intValue())) {
+            List<Object[]> rows = relationships.get(row[0]);
+            if (rows == null) {
+              rows = new ArrayList<Object[]>();
+              relationships.put((String) row[0], rows);
+            }
+            rows.add(new Object[] { row[2], row[3], row[4], row[5] });
+          }
+        }
+      }
 
-        return session.createSQLQuery(sqlQuery)
-          .setParameter("doi", doi)
-          .list();
+      /**
+       * Same rules as {@link #checkArticleState(String, String)}, with the permission already checked
+       */
+      private boolean isVisible(int state) {
+        if (state == Article.STATE_DISABLED) {
+          return false;
+        }
+
+        if (state == Article.STATE_UNPUBLISHED) {
+          return canViewUnpublished;
+        }
+
+        return true;
       }
     });
+  }
 
-    List<Object[]> results = new ArrayList<Object[]>();
-    for(Object[] row : tempRes) {
-      String otherArticleDoi = (String)row[0];
-      String otherArticleTitle = (String)row[1];
-      String otherArticleType = (String)row[2];
-      Date otherArticleDate = (Date)row[3];
-
-      try {
-        checkArticleState(doi, authId);
-        results.add(new Object[] { otherArticleDoi, otherArticleTitle, otherArticleType, otherArticleDate } );
-      } catch(NoSuchArticleIdException ex) {
-        //Do nothing
+  /**
+   * Group (doi, value) rows by doi, keeping the order of the values
+   */
+  private static Map<String, List<String>> groupByDoi(List<Object[]> rows) {
+    Map<String, List<String>> results = new HashMap<String, List<String>>();
+
+    for (Object[] row : rows) {
+      List<String> values = results.get(row[0]);
+      if (values == null) {
+        values = new ArrayList<String>();
+        results.put((String) row[0], values);
       }
+      values.add((String) row[1]);
     }
 
     return results;
   }
 
+  private static <T> List<T> getRows(Map<String, List<T>> rowsByDoi, String doi) {
+    List<T> rows = rowsByDoi.get(doi);
+    return rows == null ? new ArrayList<T>() : rows;
+  }
+
   @Override
   @Transactional(readOnly = true)
   public ArticleInfo getBasicArticleView(Long articleID) throws NoSuchArticleIdException {
@@ -1235,6 +1570,7 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
 
     article.setCategories(results);
     updateWithExistingCategories(article);
+    invalidateArticleInfo(article.getDoi());
 
     return results;
   }
@@ -1350,6 +1686,30 @@ public class ArticleServiceImpl extends HibernateServiceImpl implements ArticleS
     this.permissionsService = permissionsService;
   }
 
+  /**
+   * @param parsedArticleCache the cache of data extracted from article xml (see {@link FetchArticleService}), cleared
+   *                           for an article when its state changes
+   */
+  public void setParsedArticleCache(Cache parsedArticleCache) {
+    this.parsedArticleCache = parsedArticleCache;
+  }
+
+  /**
+   * @param articleInfoCache the cache of article infos by doi, shared by all users who can't see unpublished articles.
+   *                         Article infos are built without it if it isn't set.
+   */
+  public void setArticleInfoCache(Cache articleInfoCache) {
+    this.articleInfoCache = articleInfoCache;
+  }
+
+  /**
+   * @param tocEntryCache the cache of table of contents entries by doi, shared by all users who can't see unpublished
+   *                      articles.  TOC entries are loaded without it if it isn't set.
+   */
+  public void setTocEntryCache(Cache tocEntryCache) {
+    this.tocEntryCache = tocEntryCache;
+  }
+
   /**
    * This method sorts the categories in alphabetical order. It uses the overridden
    * compareTo() method in the ArticleCategory to compare the subcategories for sorting;
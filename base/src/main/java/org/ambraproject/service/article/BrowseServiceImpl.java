@@ -178,7 +178,7 @@ public class BrowseServiceImpl extends HibernateServiceImpl implements BrowseSer
       String cacheKey = DATE_LIST_KEY + journalKey;
 
       return browseSolrCache.get(cacheKey, this.cacheTimeToLive,
-          new Cache.SynchronizedLookup<Years, RuntimeException>(cacheKey.intern()) {
+          new Cache.Lookup<Years, RuntimeException>() {
             @SuppressWarnings("synthetic-access")
             @Override
             public Years lookup() throws RuntimeException {
@@ -208,7 +208,7 @@ public class BrowseServiceImpl extends HibernateServiceImpl implements BrowseSer
         "-" + params.getPageNum() + "-" + params.getPageSize();
 
       result = browseSolrCache.get(cacheKey, this.cacheTimeToLive,
-          new Cache.SynchronizedLookup<BrowseResult, RuntimeException>(cacheKey.intern()) {
+          new Cache.Lookup<BrowseResult, RuntimeException>() {
             @Override
             public BrowseResult lookup() throws RuntimeException {
               return getArticlesBySubjectViaSolr(params);
@@ -246,7 +246,7 @@ public class BrowseServiceImpl extends HibernateServiceImpl implements BrowseSer
       String cacheKey = ARTBYDATE_LIST_KEY + mod + "-" + params.getPageNum() + "-" + params.getPageSize();
 
       result = browseSolrCache.get(cacheKey, this.cacheTimeToLive,
-          new Cache.SynchronizedLookup<BrowseResult, RuntimeException>(cacheKey.intern()) {
+          new Cache.Lookup<BrowseResult, RuntimeException>() {
             @Override
             public BrowseResult lookup() throws RuntimeException {
               return getArticlesByDateViaSolr(params);
@@ -271,7 +271,7 @@ public class BrowseServiceImpl extends HibernateServiceImpl implements BrowseSer
       final String cacheKey = ARTBYCAT_LIST_KEY + journalKey;
 
       return browseSolrCache.get(cacheKey, this.cacheTimeToLive,
-          new Cache.SynchronizedLookup<SortedMap<String, Long>, RuntimeException>(cacheKey.intern()) {
+          new Cache.Lookup<SortedMap<String, Long>, RuntimeException>() {
             @Override
             public SortedMap<String, Long> lookup() throws RuntimeException {
               return getSubjectsForJournalViaSolr(journalKey);
@@ -24,6 +24,7 @@ import org.ambraproject.service.hibernate.HibernateService;
 import org.ambraproject.views.AuthorView;
 import org.ambraproject.views.CitationReference;
 import org.ambraproject.views.article.ArticleInfo;
+import org.ambraproject.views.article.ParsedArticle;
 import org.w3c.dom.Document;
 
 import javax.xml.transform.TransformerException;
@@ -53,6 +54,23 @@ public interface FetchArticleService extends HibernateService {
    */
   public Document getArticleDocument(final ArticleInfo article);
 
+  /**
+   * Get the data extracted from the article xml for display: authors, references, corresponding authors,
+   * contributions, competing interests and the journal abbreviation.  Results are cached, so prefer this to
+   * parsing the article document again.
+   *
+   * @param article the article
+   * @return the extracted data, or null if the article xml can't be found or parsed
+   */
+  public ParsedArticle getParsedArticle(final ArticleInfo article);
+
+  /**
+   * Drop the cached data extracted from the article xml, e.g. when the article is republished
+   *
+   * @param articleDoi the doi of the article
+   */
+  public void invalidateParsedArticle(final String articleDoi);
+
   /**
    * Get the author affiliations for a given article
    *
@@ -27,6 +27,7 @@ import org.ambraproject.util.XPathUtil;
 import org.ambraproject.views.AuthorView;
 import org.ambraproject.views.CitationReference;
 import org.ambraproject.views.article.ArticleInfo;
+import org.ambraproject.views.article.ParsedArticle;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
@@ -52,9 +53,11 @@ import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,12 +67,17 @@ import java.util.Map;
  */
 public class FetchArticleServiceImpl extends HibernateServiceImpl implements FetchArticleService {
   private static final Logger log = LoggerFactory.getLogger(FetchArticleServiceImpl.class);
-  private static final String ARTICLE_LOCK = "ArticleHtmlCache-Lock-";
+
+  /**
+   * Upper bound on the buffer allocated up front for an article's html
+   */
+  private static final long MAX_INITIAL_BUFFER_SIZE = 4 * 1024 * 1024;
 
   private XPathUtil xPathUtil = new XPathUtil();
   private XMLService articleTransformService;
   private FileStoreService fileStoreService;
   private Cache articleHtmlCache;
+  private Cache parsedArticleCache;
   private String guestCrossRefUrl;
 
   /**
@@ -85,12 +93,22 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
   private String getTransformedArticle(final ArticleInfo article)
       throws ApplicationException, NoSuchArticleIdException {
     try {
-      DataSource content = getArticleXML(article.getDoi());
-      Document doc = articleTransformService.createDocBuilder().parse(content.getInputStream());
+      ByteArrayDataSource content = getArticleXML(article.getDoi());
+      Document doc;
+      InputStream in = content.getInputStream();
+      try {
+        doc = articleTransformService.createDocBuilder().parse(in);
+      } finally {
+        in.close();
+      }
 
       doc = addExtraCitationInfo(doc, article.getCitedArticles());
 
-      return articleTransformService.getTransformedDocument(doc);
+      //The html comes out at roughly the size of the xml, so size the buffer for it up front rather than
+      //letting it grow through repeated copies
+      StringWriter writer = new StringWriter((int) Math.min(content.getSize(), MAX_INITIAL_BUFFER_SIZE));
+      articleTransformService.transform(doc, writer);
+      return writer.toString();
     } catch (Exception e) {
       throw new ApplicationException(e);
     }
@@ -107,10 +125,8 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
   @Override
   @Transactional(readOnly = true)
   public String getArticleAsHTML(final ArticleInfo article) throws Exception {
-    final Object lock = (ARTICLE_LOCK + article.getDoi()).intern(); //lock @ Article level
-
     String content = articleHtmlCache.get(article.getDoi(),
-        new Cache.SynchronizedLookup<String, Exception>(lock) {
+        new Cache.Lookup<String, Exception>() {
           @Override
           public String lookup() throws Exception {
             return getTransformedArticle(article);
@@ -130,7 +146,7 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
    * @throws ApplicationException
    * @throws NoSuchArticleIdException
    */
-  private DataSource getArticleXML(final String articleDoi)
+  private ByteArrayDataSource getArticleXML(final String articleDoi)
       throws NoSuchArticleIdException {
     String fsid = fileStoreService.objectIDMapper().doiTofsid(articleDoi, "XML");
 
@@ -162,7 +178,6 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
    * @return article xml
    */
   public Document getArticleDocument(final ArticleInfo article) {
-    Document doc = null;
     DataSource content = null;
     String articleURI = article.getDoi();
 
@@ -173,14 +188,92 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
       return null;
     }
 
+    return parseArticleXML(articleURI, content);
+  }
+
+  private Document parseArticleXML(String articleURI, DataSource content) {
     try {
-      doc = articleTransformService.createDocBuilder().parse(content.getInputStream());
+      InputStream in = content.getInputStream();
+      try {
+        return articleTransformService.createDocBuilder().parse(in);
+      } finally {
+        in.close();
+      }
     } catch (Exception e) {
       log.error("Error parsing the article xml for article " + articleURI, e);
       return null;
     }
+  }
 
-    return doc;
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Entries are cached by doi and checked against the version of the xml asset, so an article that has been
+   * re-ingested since it was cached is parsed again.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public ParsedArticle getParsedArticle(final ArticleInfo article) {
+    final String articleURI = article.getDoi();
+    final ByteArrayDataSource content;
+
+    try {
+      content = getArticleXML(articleURI);
+    } catch (Exception e) {
+      log.warn("Article " + articleURI + " not found.");
+      return null;
+    }
+
+    Cache.Lookup<ParsedArticle, RuntimeException> lookup = new Cache.Lookup<ParsedArticle, RuntimeException>() {
+      @Override
+      public ParsedArticle lookup() {
+        return parseArticle(articleURI, content);
+      }
+    };
+
+    ParsedArticle parsed = parsedArticleCache.get(articleURI, lookup);
+
+    if (parsed == null || !content.getVersion().equals(parsed.getVersion())) {
+      parsed = lookup.lookup();
+
+      if (parsed == null) {
+        parsedArticleCache.remove(articleURI);
+      } else {
+        parsedArticleCache.put(articleURI, new Cache.Item(parsed));
+      }
+    }
+
+    return parsed;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void invalidateParsedArticle(String articleDoi) {
+    parsedArticleCache.remove(articleDoi);
+  }
+
+  private ParsedArticle parseArticle(String articleURI, ByteArrayDataSource content) {
+    Document doc = parseArticleXML(articleURI, content);
+
+    if (doc == null) {
+      return null;
+    }
+
+    List<AuthorView> authors = getAuthors(doc);
+
+    return ParsedArticle.builder()
+        .setDoi(articleURI)
+        .setVersion(content.getVersion())
+        .setAuthors(authors)
+        .setAuthorsByAffiliation(getAuthorsByAffiliation(doc, authors))
+        .setCorrespondingAuthors(getCorrespondingAuthors(doc))
+        .setAuthorContributions(getAuthorContributions(doc))
+        .setCompetingInterests(getAuthorCompetingInterests(doc))
+        .setReferences(getReferences(doc))
+        .setJournalAbbreviation(getJournalAbbreviation(doc))
+        .build();
   }
 
   /**
@@ -790,6 +883,14 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
     this.articleHtmlCache = articleHtmlCache;
   }
 
+  /**
+   * @param parsedArticleCache The cache of data extracted from article xml
+   */
+  @Required
+  public void setParsedArticleCache(Cache parsedArticleCache) {
+    this.parsedArticleCache = parsedArticleCache;
+  }
+
   /**
    * @param fileStoreService The fileStoreService to use
    */
@@ -829,6 +930,18 @@ public class FetchArticleServiceImpl extends HibernateServiceImpl implements Fet
       return fs;
     }
 
+    public long getSize() {
+      return asset.getSize();
+    }
+
+    /**
+     * @return identifies the revision of the asset; changes whenever the article is re-ingested
+     */
+    public String getVersion() {
+      Date lastModified = asset.getLastModified();
+      return (lastModified == null ? 0 : lastModified.getTime()) + "-" + asset.getSize();
+    }
+
     public OutputStream getOutputStream() throws IOException {
       throw new IOException("writing not supported");
     }
@@ -20,6 +20,8 @@
 package org.ambraproject.service.cache;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
@@ -44,6 +46,10 @@ public interface Cache {
    * Read-thru cache that looks up from cache first and falls back to the supplied look-up.
    * The entry returned by the lookup is committed immediately to the cache and becomes available
    * to all other caches that share the same underlying cache/store. (READ_COMMITTED)
+   * <p/>
+   * Implementations that support it coalesce concurrent misses on the same key so that only one
+   * lookup is in flight at a time (see {@link SingleFlight}); the other callers receive the same
+   * value, or the same exception, as the thread that ran the lookup.
    *
    * @param <T> type of the value expected
    * @param <E> type of the exception expected to be thrown by lookup
@@ -75,6 +81,47 @@ public interface Cache {
   public <T, E extends Exception> T get(Object key, Lookup<T, E> lookup)
                                  throws E;
 
+  /**
+   * Bulk read-thru cache that looks up all the keys from the cache first and hands only the keys
+   * that were not found to a single call of the supplied bulk look-up. The looked up entries are
+   * committed to the cache in one pass.
+   *
+   * @param <K> type of the keys
+   * @param <T> type of the values expected
+   * @param <E> type of the exception expected to be thrown by lookup
+   * @param keys the keys to look up
+   * @param refresh the max-age of entries in the cache (in seconds), or -1 for indefinite
+   * @param lookup the lookup to call with the keys not found in the cache; may be null
+   *
+   * @return the values by key, in the iteration order of <var>keys</var>. Keys not found in the
+   *         cache are omitted if there is no lookup.
+   *
+   * @throws E the exception thrown by lookup
+   */
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, int refresh,
+                                                      BulkLookup<K, T, E> lookup)
+                                 throws E;
+
+  /**
+   * Bulk read-thru cache that looks up all the keys from the cache first and hands only the keys
+   * that were not found to a single call of the supplied bulk look-up. The looked up entries are
+   * committed to the cache in one pass.
+   *
+   * @param <K> type of the keys
+   * @param <T> type of the values expected
+   * @param <E> type of the exception expected to be thrown by lookup
+   * @param keys the keys to look up
+   * @param lookup the lookup to call with the keys not found in the cache; may be null
+   *
+   * @return the values by key, in the iteration order of <var>keys</var>. Keys not found in the
+   *         cache are omitted if there is no lookup.
+   *
+   * @throws E the exception thrown by lookup
+   */
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys,
+                                                      BulkLookup<K, T, E> lookup)
+                                 throws E;
+
   /**
    * Puts an object into the cache.
    *
@@ -95,6 +142,13 @@ public interface Cache {
    */
   public void removeAll();
 
+  /**
+   * Gets the hit, miss, load and eviction statistics of this cache.
+   *
+   * @return the statistics
+   */
+  public CacheStatistics getStatistics();
+
   public static interface CachedItem extends Serializable {}
 
   /**
@@ -179,6 +233,27 @@ public interface Cache {
     }
   }
 
+  /**
+   * The call back to support bulk read-thru cache lookup.
+   *
+   * @param <K> the type of the keys
+   * @param <T> the type of value looked up
+   * @param <E> the type of exception to expect on lookup
+   */
+  public static abstract class BulkLookup<K, T, E extends Exception> {
+    /**
+     * Looks up the values of the keys that were not found in the cache, typically with a single
+     * query.
+     *
+     * @param keys the keys that were not found in the cache
+     *
+     * @return the values by key; keys missing from the map are put into the cache as null
+     *
+     * @throws E from look up.
+     */
+    public abstract Map<K, T> lookup(Collection<K> keys) throws E;
+  }
+
   /**
    * A lookup implementation for Read-thru caches that synchronizes all operations via a
    * monitor lock held on the supplied lock object. This ensures that the cache is only populated
@@ -187,7 +262,9 @@ public interface Cache {
    *
    * @param <T> the type of value looked up
    * @param <E> the type of exception to expect on lookup
+   * @deprecated caches coalesce concurrent misses per key themselves; use a plain {@link Lookup}
    */
+  @Deprecated
   public static abstract class SynchronizedLookup<T, E extends Exception> extends Lookup<T, E> {
     private Object lock;
 
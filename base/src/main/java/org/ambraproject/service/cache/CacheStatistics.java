@@ -0,0 +1,173 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hit, miss, load and eviction counters for one cache region.
+ * <p/>
+ * The statistics of each region are declared as a bean named
+ * <code>org.ambraproject:type=Cache,name=&lt;region&gt;</code> in the application context, which the MBeanExporter
+ * publishes through JMX and the cache page of the debug actions lists.
+ */
+public abstract class CacheStatistics implements CacheStatisticsMBean {
+  private static final long[] LOAD_TIME_BUCKETS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000};
+
+  private final String name;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong loads = new AtomicLong();
+  private final AtomicLong loadFailures = new AtomicLong();
+  private final AtomicLong totalLoadTime = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+  private final AtomicLongArray loadTimeHistogram = new AtomicLongArray(LOAD_TIME_BUCKETS.length + 1);
+
+  protected CacheStatistics(String name) {
+    this.name = name;
+  }
+
+  public void recordHit() {
+    hits.incrementAndGet();
+  }
+
+  public void recordMiss() {
+    misses.incrementAndGet();
+  }
+
+  /**
+   * Records a lookup that populated the cache.
+   *
+   * @param elapsed time spent in the lookup, in milliseconds
+   * @param success false if the lookup threw
+   */
+  public void recordLoad(long elapsed, boolean success) {
+    loads.incrementAndGet();
+    if (!success)
+      loadFailures.incrementAndGet();
+    totalLoadTime.addAndGet(elapsed);
+
+    int bucket = 0;
+    while (bucket < LOAD_TIME_BUCKETS.length && elapsed > LOAD_TIME_BUCKETS[bucket])
+      bucket++;
+    loadTimeHistogram.incrementAndGet(bucket);
+  }
+
+  public void recordEviction() {
+    evictions.incrementAndGet();
+  }
+
+  public void recordExpiration() {
+    expirations.incrementAndGet();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public double getHitRatio() {
+    long hits = getHits();
+    long total = hits + getMisses();
+    return (total == 0) ? 0 : (double) hits / total;
+  }
+
+  public long getLoads() {
+    return loads.get();
+  }
+
+  public long getLoadFailures() {
+    return loadFailures.get();
+  }
+
+  public long getTotalLoadTime() {
+    return totalLoadTime.get();
+  }
+
+  public double getAverageLoadTime() {
+    long loads = getLoads();
+    return (loads == 0) ? 0 : (double) getTotalLoadTime() / loads;
+  }
+
+  public long[] getLoadTimeBuckets() {
+    return LOAD_TIME_BUCKETS.clone();
+  }
+
+  public long[] getLoadTimeHistogram() {
+    long[] histogram = new long[loadTimeHistogram.length()];
+    for (int i = 0; i < histogram.length; i++)
+      histogram[i] = loadTimeHistogram.get(i);
+    return histogram;
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getExpirations() {
+    return expirations.get();
+  }
+
+  public abstract long getEntryCount();
+
+  public void reset() {
+    hits.set(0);
+    misses.set(0);
+    loads.set(0);
+    loadFailures.set(0);
+    totalLoadTime.set(0);
+    evictions.set(0);
+    expirations.set(0);
+    for (int i = 0; i < loadTimeHistogram.length(); i++)
+      loadTimeHistogram.set(i, 0);
+  }
+
+  /**
+   * @return a point-in-time copy of the statistics, keyed by attribute name
+   */
+  public Map<String, Object> snapshot() {
+    Map<String, Object> snapshot = new LinkedHashMap<String, Object>();
+    snapshot.put("name", getName());
+    snapshot.put("entryCount", getEntryCount());
+    snapshot.put("hits", getHits());
+    snapshot.put("misses", getMisses());
+    snapshot.put("hitRatio", getHitRatio());
+    snapshot.put("loads", getLoads());
+    snapshot.put("loadFailures", getLoadFailures());
+    snapshot.put("totalLoadTime", getTotalLoadTime());
+    snapshot.put("averageLoadTime", getAverageLoadTime());
+    snapshot.put("evictions", getEvictions());
+    snapshot.put("expirations", getExpirations());
+
+    Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+    long[] counts = getLoadTimeHistogram();
+    for (int i = 0; i < LOAD_TIME_BUCKETS.length; i++)
+      histogram.put("<=" + LOAD_TIME_BUCKETS[i] + "ms", counts[i]);
+    histogram.put(">" + LOAD_TIME_BUCKETS[LOAD_TIME_BUCKETS.length - 1] + "ms", counts[LOAD_TIME_BUCKETS.length]);
+    snapshot.put("loadTimeHistogram", histogram);
+
+    return snapshot;
+  }
+}
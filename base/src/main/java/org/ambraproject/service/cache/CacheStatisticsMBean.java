@@ -0,0 +1,61 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.cache;
+
+/**
+ * JMX view of the statistics recorded for one cache region.
+ */
+public interface CacheStatisticsMBean {
+
+  public String getName();
+
+  public long getHits();
+
+  public long getMisses();
+
+  public double getHitRatio();
+
+  public long getLoads();
+
+  public long getLoadFailures();
+
+  /**
+   * @return the total time spent in lookups, in milliseconds
+   */
+  public long getTotalLoadTime();
+
+  /**
+   * @return the mean time of a lookup, in milliseconds
+   */
+  public double getAverageLoadTime();
+
+  /**
+   * @return the inclusive upper bounds, in milliseconds, of the buckets of {@link #getLoadTimeHistogram()}; the last
+   *         bucket of the histogram counts everything slower than the last bound
+   */
+  public long[] getLoadTimeBuckets();
+
+  public long[] getLoadTimeHistogram();
+
+  public long getEvictions();
+
+  public long getExpirations();
+
+  public long getEntryCount();
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset();
+}
@@ -24,9 +24,31 @@ import org.slf4j.LoggerFactory;
 
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A cache implementation using Ehcache.
+ * <p/>
+ * When a hard time to live is configured the cache runs in stale-while-revalidate mode: read-thru entries older
+ * than their (soft) refresh age are still returned immediately, and are reloaded on a small bounded background
+ * executor. Only entries older than the hard time to live are evicted and reloaded inline.
  *
  * @author Pradeep Krishnan
  */
@@ -36,6 +58,15 @@ public class EhcacheProvider implements Cache {
   private final Ehcache      cache;
   private final String       name;
   private final Boolean      allowNulls;
+  private final SingleFlight singleFlight = new SingleFlight();
+  private final CacheStatistics statistics;
+
+  private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<Object, Boolean>();
+  private volatile int softTimeToLive = -1;
+  private volatile int hardTimeToLive = -1;
+  private int maxConcurrentRefreshes = 2;
+  private int maxQueuedRefreshes = 100;
+  private ThreadPoolExecutor refreshExecutor;
 
   /**
    * Creates a new EhcacheProvider object.
@@ -43,9 +74,7 @@ public class EhcacheProvider implements Cache {
    * @param cache the ehcache object
    */
   public EhcacheProvider(Ehcache cache) {
-    this.cache        = cache;
-    this.name         = cache.getName();
-    this.allowNulls   = true;
+    this(cache, true);
   }
 
   /**
@@ -53,10 +82,83 @@ public class EhcacheProvider implements Cache {
    *
    * @param cache the ehcache object
    */
-  public EhcacheProvider(Ehcache cache, Boolean allowNulls) {
+  public EhcacheProvider(final Ehcache cache, Boolean allowNulls) {
     this.cache        = cache;
     this.name         = cache.getName();
     this.allowNulls   = allowNulls;
+    this.statistics   = new CacheStatistics(name) {
+      @Override
+      public long getEntryCount() {
+        return cache.getSize();
+      }
+    };
+
+    cache.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+      @Override
+      public void notifyElementEvicted(Ehcache cache, Element element) {
+        statistics.recordEviction();
+      }
+
+      @Override
+      public void notifyElementExpired(Ehcache cache, Element element) {
+        statistics.recordExpiration();
+      }
+    });
+  }
+
+  /**
+   * Sets how long a thread that misses on a key waits for another thread's in-flight lookup of the same key before
+   * degrading to a lookup of its own.
+   *
+   * @param loadTimeout the wait timeout in milliseconds
+   */
+  public void setLoadTimeout(long loadTimeout) {
+    singleFlight.setTimeout(loadTimeout);
+  }
+
+  /**
+   * Sets the age (in seconds) after which a read-thru entry is considered stale and is refreshed in the background.
+   * Defaults to the refresh age supplied by the caller.
+   *
+   * @param softTimeToLive the soft time to live in seconds, or -1 to use the caller's refresh age
+   */
+  public void setSoftTimeToLive(int softTimeToLive) {
+    this.softTimeToLive = softTimeToLive;
+  }
+
+  /**
+   * Sets the age (in seconds) after which an entry is evicted and may no longer be served stale. Setting this enables
+   * stale-while-revalidate mode.
+   *
+   * @param hardTimeToLive the hard time to live in seconds, or -1 to disable stale-while-revalidate
+   */
+  public void setHardTimeToLive(int hardTimeToLive) {
+    this.hardTimeToLive = hardTimeToLive;
+  }
+
+  /**
+   * @param maxConcurrentRefreshes the maximum number of background refreshes that run at the same time
+   */
+  public synchronized void setMaxConcurrentRefreshes(int maxConcurrentRefreshes) {
+    this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+  }
+
+  /**
+   * @param maxQueuedRefreshes the maximum number of background refreshes waiting for a thread; refreshes beyond this
+   *                           are dropped and the stale value keeps being served
+   */
+  public synchronized void setMaxQueuedRefreshes(int maxQueuedRefreshes) {
+    this.maxQueuedRefreshes = maxQueuedRefreshes;
+  }
+
+  /**
+   * Stops the background refresh executor, if it was started.
+   */
+  public synchronized void shutdown() {
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+      refreshExecutor = null;
+    }
   }
 
   /*
@@ -66,10 +168,28 @@ public class EhcacheProvider implements Cache {
     return name;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
   /*
    * inherited javadoc
    */
   public Item get(Object key) {
+    Item val = peek(key);
+
+    if (val == null)
+      statistics.recordMiss();
+    else
+      statistics.recordHit();
+
+    return val;
+  }
+
+  private Item peek(Object key) {
     CachedItem val = null;
 
     Element e = cache.get(key);
@@ -95,30 +215,34 @@ public class EhcacheProvider implements Cache {
   public <T, E extends Exception> T get(final Object key, final int refresh,
                                         final Lookup<T, E> lookup)
                                  throws E {
+    if ((lookup != null) && isStaleWhileRevalidate()) {
+      Element e = cache.get(key);
+
+      if (e != null) {
+        statistics.recordHit();
+        if (isStale(e, refresh))
+          scheduleRefresh(key, refresh, lookup);
+
+        return (T) e.getObjectValue();
+      }
+    }
+
     Item val = get(key);
 
     try {
       if ((val == null) && (lookup != null)) {
         val =
-          lookup.execute(new Lookup.Operation() {
+          singleFlight.execute(key, lookup, new Lookup.Operation() {
               public Item execute(boolean degraded) throws Exception {
                 if (degraded)
                   log.warn("Degraded mode lookup for key '" + key + "' in cache '"
                            + EhcacheProvider.this.getName() + "'");
 
-                Item val = get(key);
-
-                if (val == null) {
-                  Object o = lookup.lookup();
-                  val = new Item(o, refresh);
-                  if (allowNulls || (o != null))
-                    put(key, val);
-                  else
-                    if (log.isWarnEnabled())
-                      log.warn("Cache request to save null when allowNulls = false. '" +
-                          key + "' in cache '" + EhcacheProvider.this.getName() + "'",
-                          new Exception());
-                }
+                Item val = peek(key);
+
+                if (val == null)
+                  val = load(key, refresh, lookup);
+
                 return val;
               }
             });
@@ -132,16 +256,177 @@ public class EhcacheProvider implements Cache {
     return (val == null) ? null : (T) val.getValue();
   }
 
+  private Item load(Object key, int refresh, Lookup<?, ?> lookup) throws Exception {
+    long start = System.currentTimeMillis();
+    boolean success = false;
+    Object o;
+    try {
+      o = lookup.lookup();
+      success = true;
+    } finally {
+      statistics.recordLoad(System.currentTimeMillis() - start, success);
+    }
+
+    Item val = new Item(o, refresh);
+    if (allowNulls || (o != null))
+      put(key, val);
+    else
+      if (log.isWarnEnabled())
+        log.warn("Cache request to save null when allowNulls = false. '" +
+            key + "' in cache '" + getName() + "'",
+            new Exception());
+    return val;
+  }
+
+  private boolean isStaleWhileRevalidate() {
+    return hardTimeToLive > 0;
+  }
+
+  private boolean isStale(Element e, int refresh) {
+    int soft = (softTimeToLive > 0) ? softTimeToLive : refresh;
+
+    return (soft > 0) && (System.currentTimeMillis() - e.getLatestOfCreationAndUpdateTime() > soft * 1000L);
+  }
+
+  /**
+   * Reloads the entry for the given key on the refresh executor, unless a refresh for it is already pending. The
+   * reload shares the single in-flight lookup with any caller that misses on the same key in the meantime.
+   */
+  private void scheduleRefresh(final Object key, final int refresh, final Lookup<?, ?> lookup) {
+    if (refreshing.putIfAbsent(key, Boolean.TRUE) != null)
+      return;
+
+    try {
+      getRefreshExecutor().execute(new Runnable() {
+        public void run() {
+          try {
+            singleFlight.execute(key, lookup, new Lookup.Operation() {
+              public Item execute(boolean degraded) throws Exception {
+                return load(key, refresh, lookup);
+              }
+            });
+          } catch (Exception e) {
+            log.warn("Background refresh of key '" + key + "' in cache '" + getName() + "' failed;"
+                + " the stale value will be served until it expires", e);
+          } finally {
+            refreshing.remove(key);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      refreshing.remove(key);
+      if (log.isDebugEnabled())
+        log.debug("Refresh queue for cache '" + getName() + "' is full; skipping refresh of key '" + key + "'");
+    }
+  }
+
+  private synchronized ThreadPoolExecutor getRefreshExecutor() {
+    if (refreshExecutor == null) {
+      refreshExecutor = new ThreadPoolExecutor(maxConcurrentRefreshes, maxConcurrentRefreshes,
+          60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(maxQueuedRefreshes), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+              Thread t = new Thread(r, getName() + "-refresh-" + count.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            }
+          });
+      refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return refreshExecutor;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys,
+                                                      BulkLookup<K, T, E> lookup)
+                                 throws E {
+    return getAll(keys, (int) cache.getCacheConfiguration().getTimeToLiveSeconds(), lookup);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * In stale-while-revalidate mode stale entries are treated as missing and are reloaded with the
+   * rest of the batch.
+   */
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, int refresh,
+                                                      BulkLookup<K, T, E> lookup)
+                                 throws E {
+    Map<Object, Element> elements = cache.getAll(keys);
+    Map<K, T> found = new LinkedHashMap<K, T>();
+    Set<K> missing = new LinkedHashSet<K>();
+
+    for (K key : keys) {
+      Element e = elements.get(key);
+
+      if ((e != null) && !(isStaleWhileRevalidate() && isStale(e, refresh))) {
+        statistics.recordHit();
+        found.put(key, (T) e.getObjectValue());
+      } else if (missing.add(key)) {
+        statistics.recordMiss();
+      }
+    }
+
+    if (missing.isEmpty() || (lookup == null))
+      return found;
+
+    Map<K, T> loaded = loadAll(missing, refresh, lookup);
+    Map<K, T> result = new LinkedHashMap<K, T>();
+
+    for (K key : keys)
+      result.put(key, found.containsKey(key) ? found.get(key) : loaded.get(key));
+
+    return result;
+  }
+
+  private <K, T, E extends Exception> Map<K, T> loadAll(Set<K> keys, int refresh,
+                                                         BulkLookup<K, T, E> lookup)
+                                 throws E {
+    long start = System.currentTimeMillis();
+    boolean success = false;
+    Map<K, T> loaded;
+    try {
+      loaded = lookup.lookup(Collections.unmodifiableSet(keys));
+      success = true;
+    } finally {
+      statistics.recordLoad(System.currentTimeMillis() - start, success);
+    }
+
+    if (loaded == null)
+      loaded = Collections.emptyMap();
+
+    List<Element> elements = new ArrayList<Element>(keys.size());
+
+    for (K key : keys) {
+      T value = loaded.get(key);
+
+      if (allowNulls || (value != null))
+        elements.add(createElement(key, new Item(value, refresh)));
+    }
+
+    cache.putAll(elements);
+
+    return loaded;
+  }
+
   /*
    * inherited javadoc
    */
   public void put(final Object key, final Item val) {
+    cache.put(createElement(key, val));
+  }
+
+  private Element createElement(Object key, Item val) {
     Element e = new Element(key, val.getValue());
 
     if (val.getTtl() > 0)
-      e.setTimeToLive(val.getTtl());
+      e.setTimeToLive(isStaleWhileRevalidate() ? Math.max(val.getTtl(), hardTimeToLive) : val.getTtl());
 
-    cache.put(e);
+    return e;
   }
 
   /*
@@ -13,6 +13,9 @@
 
 package org.ambraproject.service.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
@@ -27,9 +30,20 @@ public class EternalCache implements Cache {
 
   private Map<Object, CachedItem> map;
   private String name;
+  private CacheStatistics statistics;
 
   public EternalCache() {
     map = new HashMap<Object, CachedItem>();
+    statistics = createStatistics(null);
+  }
+
+  private CacheStatistics createStatistics(String name) {
+    return new CacheStatistics(name) {
+      @Override
+      public long getEntryCount() {
+        return map.size();
+      }
+    };
   }
 
   public Map<Object, CachedItem> getMap() {
@@ -38,14 +52,26 @@ public class EternalCache implements Cache {
 
   public void setName(String name) {
     this.name = name;
+    this.statistics = createStatistics(name);
   }
 
   public String getName() {
     return name;
   }
 
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
   public Item get(Object key) {
-    return (Item) map.get(key);
+    Item val = (Item) map.get(key);
+
+    if (val == null)
+      statistics.recordMiss();
+    else
+      statistics.recordHit();
+
+    return val;
   }
 
   public <T, E extends Exception> T get(Object key, Lookup<T, E> lookup) throws E {
@@ -58,13 +84,60 @@ public class EternalCache implements Cache {
     Item val = get(key);
 
     if (val == null) {
-      val = new Item(lookup.lookup());
+      long start = System.currentTimeMillis();
+      boolean success = false;
+      try {
+        val = new Item(lookup.lookup());
+        success = true;
+      } finally {
+        statistics.recordLoad(System.currentTimeMillis() - start, success);
+      }
       put(key, val);
     }
 
     return (T)val.getValue();
   }
 
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, BulkLookup<K, T, E> lookup)
+      throws E {
+    return getAll(keys, -1, lookup);
+  }
+
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, int refresh,
+                                                      BulkLookup<K, T, E> lookup) throws E {
+    Set<K> missing = new LinkedHashSet<K>();
+    for (K key : keys) {
+      if (!map.containsKey(key) && missing.add(key))
+        statistics.recordMiss();
+    }
+
+    if (!missing.isEmpty() && lookup != null) {
+      long start = System.currentTimeMillis();
+      boolean success = false;
+      Map<K, T> loaded;
+      try {
+        loaded = lookup.lookup(missing);
+        success = true;
+      } finally {
+        statistics.recordLoad(System.currentTimeMillis() - start, success);
+      }
+      for (K key : missing) {
+        put(key, new Item(loaded == null ? null : loaded.get(key)));
+      }
+    }
+
+    Map<K, T> result = new LinkedHashMap<K, T>();
+    for (K key : keys) {
+      Item val = (Item) map.get(key);
+      if (val != null) {
+        if (!missing.contains(key))
+          statistics.recordHit();
+        result.put(key, (T) val.getValue());
+      }
+    }
+    return result;
+  }
+
   public void put(Object key, Item val) {
     map.put(key, val);
   }
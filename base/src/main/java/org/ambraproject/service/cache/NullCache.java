@@ -13,16 +13,38 @@
 
 package org.ambraproject.service.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Implementation of {@link Cache} that performs no actual caching.
  */
 public class NullCache implements Cache {
 
+  private final CacheStatistics statistics = new CacheStatistics("NullCache") {
+    @Override
+    public long getEntryCount() {
+      return 0;
+    }
+  };
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public Cache.Item get(Object key) {
+    statistics.recordMiss();
     return new Cache.Item(null);
   }
 
@@ -32,7 +54,21 @@ public class NullCache implements Cache {
   @Override
   public <T, E extends Exception> T get(Object key, int refresh, Cache.Lookup<T, E> lookup)
       throws E {
-    return lookup.lookup();
+    statistics.recordMiss();
+
+    if (lookup == null) {
+      return null;
+    }
+
+    long start = System.currentTimeMillis();
+    boolean success = false;
+    try {
+      T value = lookup.lookup();
+      success = true;
+      return value;
+    } finally {
+      statistics.recordLoad(System.currentTimeMillis() - start, success);
+    }
   }
 
   /**
@@ -40,7 +76,48 @@ public class NullCache implements Cache {
    */
   @Override
   public <T, E extends Exception> T get(Object key, Cache.Lookup<T, E> lookup) throws E {
-    return lookup.lookup();
+    return get(key, -1, lookup);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, int refresh,
+                                                      Cache.BulkLookup<K, T, E> lookup) throws E {
+    Set<K> missing = new LinkedHashSet<K>(keys);
+    for (int i = 0; i < missing.size(); i++) {
+      statistics.recordMiss();
+    }
+
+    if (lookup == null) {
+      return new LinkedHashMap<K, T>();
+    }
+
+    long start = System.currentTimeMillis();
+    boolean success = false;
+    Map<K, T> loaded;
+    try {
+      loaded = lookup.lookup(missing);
+      success = true;
+    } finally {
+      statistics.recordLoad(System.currentTimeMillis() - start, success);
+    }
+
+    Map<K, T> result = new LinkedHashMap<K, T>();
+    for (K key : missing) {
+      result.put(key, (loaded == null) ? null : loaded.get(key));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <K, T, E extends Exception> Map<K, T> getAll(Collection<? extends K> keys, Cache.BulkLookup<K, T, E> lookup)
+      throws E {
+    return getAll(keys, -1, lookup);
   }
 
   /**
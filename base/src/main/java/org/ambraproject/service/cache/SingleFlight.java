@@ -0,0 +1,131 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent read-thru loads of the same key into a single in-flight lookup.
+ * <p/>
+ * The first thread to miss on a key becomes the leader and runs the lookup; every other thread that misses on the
+ * same key while the lookup is running waits on the leader's {@link FutureTask} and receives the same value, or the
+ * same exception. Waiters give up after the configured timeout and fall back to running the lookup themselves in
+ * degraded mode, so a stuck loader can never park request threads indefinitely.
+ */
+public class SingleFlight {
+  private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+  /**
+   * Default number of milliseconds a waiter blocks on another thread's lookup
+   */
+  public static final long DEFAULT_TIMEOUT = 30000;
+
+  private final ConcurrentMap<Object, FutureTask<Cache.Item>> inFlight =
+      new ConcurrentHashMap<Object, FutureTask<Cache.Item>>();
+  private volatile long timeout = DEFAULT_TIMEOUT;
+
+  /**
+   * Runs the read-thru operation for the given key, sharing the result with any concurrent caller for the same key.
+   *
+   * @param key the cache key being loaded
+   * @param lookup the lookup whose {@link Cache.Lookup#execute} strategy wraps the leader's operation
+   * @param operation the read-thru operation
+   *
+   * @return the item produced by the leader's operation
+   *
+   * @throws Exception the exception thrown by the leader's lookup
+   */
+  public Cache.Item execute(final Object key, final Cache.Lookup<?, ?> lookup,
+                            final Cache.Lookup.Operation operation) throws Exception {
+    FutureTask<Cache.Item> task = new FutureTask<Cache.Item>(new Callable<Cache.Item>() {
+      public Cache.Item call() throws Exception {
+        return lookup.execute(operation);
+      }
+    });
+
+    FutureTask<Cache.Item> leader = inFlight.putIfAbsent(key, task);
+
+    if (leader == null) {
+      try {
+        task.run();
+        return getResult(task);
+      } finally {
+        inFlight.remove(key, task);
+      }
+    }
+
+    try {
+      return getResult(leader, timeout);
+    } catch (TimeoutException e) {
+      log.warn("Timed out after " + timeout + "ms waiting on in-flight lookup for key '" + key + "'");
+      return operation.execute(true);
+    }
+  }
+
+  /**
+   * @return the number of lookups currently in flight
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * @return the number of milliseconds a waiter blocks on another thread's lookup
+   */
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * @param timeout the number of milliseconds a waiter blocks on another thread's lookup before degrading to a lookup
+   *                of its own
+   */
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  private static Cache.Item getResult(FutureTask<Cache.Item> task) throws Exception {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  private static Cache.Item getResult(FutureTask<Cache.Item> task, long timeout) throws Exception {
+    try {
+      return task.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  private static Exception unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+
+    if (cause instanceof Error)
+      throw (Error) cause;
+
+    return (cause instanceof Exception) ? (Exception) cause : e;
+  }
+}
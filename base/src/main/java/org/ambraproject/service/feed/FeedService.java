@@ -23,7 +23,7 @@ import org.ambraproject.views.TOCArticle;
 import org.ambraproject.models.AnnotationType;
 import org.ambraproject.views.AnnotationView;
 import org.ambraproject.views.LinkbackView;
-import org.w3c.dom.Document;
+import org.ambraproject.service.search.SolrHit;
 
 import java.net.URISyntaxException;
 import java.text.ParseException;
@@ -75,17 +75,17 @@ public interface FeedService {
    * Queries for a list of articles from solr using the parameters set in searchParams
    *
    * @param searchParameters
-   * @return solr search result that contains list of articles
+   * @return the articles found by solr, or null if the request failed
    */
-  public Document getArticles(final FeedSearchParameters searchParameters);
+  public List<SolrHit> getArticles(final FeedSearchParameters searchParameters);
 
   /**
    * Queries for a list of articles from solr using the parameters set in searchParams
    *
    * @param searchParameters
-   * @return solr search result that contains list of articles
+   * @return the articles found by solr, or null if the request failed
    */
-  public Document getSearchArticles(final FeedSearchParameters searchParameters) throws ApplicationException;
+  public List<SolrHit> getSearchArticles(final FeedSearchParameters searchParameters) throws ApplicationException;
 
   /**
    * @param searchParams input parameters
@@ -26,7 +26,9 @@ import org.ambraproject.service.hibernate.HibernateServiceImpl;
 import org.ambraproject.service.journal.JournalService;
 import org.ambraproject.service.search.SolrException;
 import org.ambraproject.service.search.SolrFieldConversion;
+import org.ambraproject.service.search.SolrHit;
 import org.ambraproject.service.search.SolrHttpService;
+import org.ambraproject.service.search.SolrResponseReader;
 import org.ambraproject.service.trackback.TrackbackService;
 import org.ambraproject.views.AnnotationView;
 import org.ambraproject.views.LinkbackView;
@@ -39,7 +41,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.transaction.annotation.Transactional;
-import org.w3c.dom.Document;
 
 import java.net.URISyntaxException;
 import java.text.ParseException;
@@ -92,10 +93,10 @@ public class FeedServiceImpl extends HibernateServiceImpl implements FeedService
    * Queries for a list of articles from solr using the parameters set in searchParams
    *
    * @param searchParameters
-   * @return solr search result that contains list of articles
+   * @return the articles found by solr, or null if the request failed
    */
   @Override
-  public Document getArticles(final FeedSearchParameters searchParameters) {
+  public List<SolrHit> getArticles(final FeedSearchParameters searchParameters) {
     Map<String, String> params = new HashMap<String, String>();
     // result format
     params.put("wt", "xml");
@@ -158,9 +159,9 @@ public class FeedServiceImpl extends HibernateServiceImpl implements FeedService
       params.put("sort", "publication_date desc");
     }
 
-    Document result = null;
+    List<SolrHit> result = null;
     try {
-      result = solrHttpService.makeSolrRequest(params);
+      result = solrHttpService.makeSolrRequest(params, SolrResponseReader.HITS);
     } catch (SolrException e) {
       e.printStackTrace();
     }
@@ -169,7 +170,7 @@ public class FeedServiceImpl extends HibernateServiceImpl implements FeedService
   }
 
   @Override
-  public Document getSearchArticles(final FeedSearchParameters sParams) throws ApplicationException {
+  public List<SolrHit> getSearchArticles(final FeedSearchParameters sParams) throws ApplicationException {
 
     log.debug("Performing RSS Feed Search");
 
@@ -227,9 +228,9 @@ public class FeedServiceImpl extends HibernateServiceImpl implements FeedService
 
     query.set("wt", "xml") ;
 
-    Document result = null;
+    List<SolrHit> result = null;
     try {
-      result = solrHttpService.makeSolrRequestForRss(query.toString());
+      result = solrHttpService.makeSolrRequestForRss(query.toString(), SolrResponseReader.HITS);
     } catch (SolrException e) {
       e.printStackTrace();
     }
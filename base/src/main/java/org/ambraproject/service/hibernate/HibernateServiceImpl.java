@@ -20,10 +20,19 @@
 
 package org.ambraproject.service.hibernate;
 
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.DetachedCriteria;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The implementation for services that use hibernate
  */
@@ -34,4 +43,40 @@ public abstract class HibernateServiceImpl implements HibernateService {
   public void setSessionFactory(SessionFactory sessionFactory) {
     this.hibernateTemplate = new HibernateTemplate(sessionFactory);
   }
+
+  /**
+   * Run a criteria query with the given hibernate fetch profiles enabled, so the associations they name are join
+   * fetched instead of being loaded when first used.  Since the profiles join collections, duplicate root entities are
+   * removed from the results; don't use this with a limit on the number of results.
+   *
+   * @param criteria the criteria to run
+   * @param fetchProfiles the names of the fetch profiles to enable, as declared in the mapping files
+   * @return the matching entities
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> List<T> findByCriteria(final DetachedCriteria criteria, final String... fetchProfiles) {
+    return hibernateTemplate.execute(new HibernateCallback<List<T>>() {
+      @Override
+      public List<T> doInHibernate(Session session) throws HibernateException, SQLException {
+        //the session may be shared with the rest of the transaction, so only turn off the profiles turned on here
+        List<String> enabled = new ArrayList<String>(fetchProfiles.length);
+        for (String fetchProfile : fetchProfiles) {
+          if (!session.isFetchProfileEnabled(fetchProfile)) {
+            session.enableFetchProfile(fetchProfile);
+            enabled.add(fetchProfile);
+          }
+        }
+
+        try {
+          return criteria.getExecutableCriteria(session)
+              .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+              .list();
+        } finally {
+          for (String fetchProfile : enabled) {
+            session.disableFetchProfile(fetchProfile);
+          }
+        }
+      }
+    });
+  }
 }
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.hibernate;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.orm.hibernate3.HibernateCallback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records events to the database after the fact, so that the request thread doesn't wait on an insert.
+ * <p/>
+ * Events are put on a bounded in memory queue, and a background thread writes them out with one batched insert
+ * statement per batchSize events.  The queue is flushed every flushInterval milliseconds, and as soon as it holds
+ * batchSize events.  When the queue is full new events are dropped or the caller waits for room, depending on the
+ * overflow policy.  Events still queued at shutdown are written out before the recorder stops, and events recorded
+ * after it are dropped.
+ * <p/>
+ * Events are lost if the server dies before they're flushed, so this is only meant for usage logging.
+ *
+ * @param <T> the type of event
+ */
+public abstract class WriteBehindRecorder<T> extends HibernateServiceImpl {
+  private static final Logger log = LoggerFactory.getLogger(WriteBehindRecorder.class);
+
+  /**
+   * What to do with an event when the queue is full
+   */
+  public static enum OverflowPolicy {
+    /**
+     * Drop the event and count it
+     */
+    DROP,
+    /**
+     * Wait until the flush thread makes room
+     */
+    BLOCK
+  }
+
+  private int capacity = 10000;
+  private int batchSize = 100;
+  private long flushInterval = 1000;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+  private TransactionTemplate transactionTemplate;
+  private volatile BlockingQueue<T> queue;
+  private ScheduledExecutorService flusher;
+  private volatile boolean stopped;
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong flushed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * @return the insert statement for one event
+   */
+  protected abstract String getInsertSql();
+
+  /**
+   * Set the parameters of the insert statement for an event
+   *
+   * @param statement the statement from {@link #getInsertSql()}
+   * @param event the event to insert
+   */
+  protected abstract void bind(PreparedStatement statement, T event) throws SQLException;
+
+  /**
+   * Queue an event to be written out.
+   *
+   * @param event the event
+   * @return true if the event was queued, false if it was dropped because the queue was full or the recorder has been
+   *         shut down
+   */
+  public boolean record(T event) {
+    if (stopped) {
+      long count = dropped.incrementAndGet();
+      log.debug("{} has been shut down; {} events dropped so far", getClass().getSimpleName(), count);
+      return false;
+    }
+
+    BlockingQueue<T> queue = getQueue();
+    boolean accepted = false;
+
+    if (overflowPolicy == OverflowPolicy.BLOCK) {
+      try {
+        //stop waiting if the flush thread goes away, since nothing would make room
+        while (!accepted && !stopped) {
+          accepted = queue.offer(event, flushInterval, TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    } else {
+      accepted = queue.offer(event);
+    }
+
+    if (accepted) {
+      queued.incrementAndGet();
+      if (stopped) {
+        //queued after shutdown's last flush, so nobody else will write it out
+        flush();
+      } else if (queue.size() >= batchSize) {
+        requestFlush();
+      }
+    } else {
+      long count = dropped.incrementAndGet();
+      //don't fill up the log while the queue is backed up
+      if (count == 1 || count % 1000 == 0) {
+        log.warn("{} queue is full; {} events dropped so far", getClass().getSimpleName(), count);
+      }
+    }
+
+    return accepted;
+  }
+
+  /**
+   * Write out everything that's queued now, on the calling thread.
+   */
+  public void flush() {
+    BlockingQueue<T> queue = getQueue();
+    List<T> batch = new ArrayList<T>(batchSize);
+
+    while (queue.drainTo(batch, batchSize) > 0) {
+      try {
+        write(batch);
+        flushed.addAndGet(batch.size());
+      } catch (RuntimeException e) {
+        dropped.addAndGet(batch.size());
+        log.error("Failed to write " + batch.size() + " events from " + getClass().getSimpleName(), e);
+      }
+      batch.clear();
+    }
+  }
+
+  /**
+   * Write a batch of events with one batched insert statement, in its own transaction.
+   *
+   * @param batch the events to write
+   */
+  protected void write(final List<T> batch) {
+    transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+      @Override
+      protected void doInTransactionWithoutResult(TransactionStatus status) {
+        hibernateTemplate.execute(new HibernateCallback<Object>() {
+          @Override
+          public Object doInHibernate(Session session) throws HibernateException, SQLException {
+            session.doWork(new Work() {
+              @Override
+              public void execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(getInsertSql());
+                try {
+                  for (T event : batch) {
+                    bind(statement, event);
+                    statement.addBatch();
+                  }
+                  statement.executeBatch();
+                } finally {
+                  statement.close();
+                }
+              }
+            });
+            return null;
+          }
+        });
+      }
+    });
+  }
+
+  private void requestFlush() {
+    ScheduledExecutorService flusher = getFlusher();
+    if (flusher != null && flushRequested.compareAndSet(false, true)) {
+      try {
+        flusher.execute(new Runnable() {
+          @Override
+          public void run() {
+            flushRequested.set(false);
+            flush();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        //shut down in the meantime, which flushes the queue
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  private BlockingQueue<T> getQueue() {
+    BlockingQueue<T> queue = this.queue;
+    if (queue == null) {
+      synchronized (this) {
+        queue = this.queue;
+        if (queue == null) {
+          queue = new ArrayBlockingQueue<T>(capacity);
+          this.queue = queue;
+          getFlusher();
+        }
+      }
+    }
+    return queue;
+  }
+
+  /**
+   * @return the flush thread, started on first use, or null once the recorder has been shut down
+   */
+  private synchronized ScheduledExecutorService getFlusher() {
+    if (flusher == null && !stopped) {
+      final String name = getClass().getSimpleName();
+      flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, name + "-flush");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      flusher.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+    return flusher;
+  }
+
+  /**
+   * Stop the flush thread and write out the events that are still queued.  Events recorded afterwards are dropped.
+   */
+  public void shutdown() {
+    ScheduledExecutorService flusher;
+    synchronized (this) {
+      stopped = true;
+      flusher = this.flusher;
+      this.flusher = null;
+    }
+
+    if (flusher != null) {
+      flusher.shutdown();
+      try {
+        flusher.awaitTermination(flushInterval * 10, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    if (queue != null) {
+      flush();
+      log.info("{} stopped; queued: {}, flushed: {}, dropped: {}",
+          new Object[]{getClass().getSimpleName(), queued.get(), flushed.get(), dropped.get()});
+    }
+  }
+
+  /**
+   * @return the number of events accepted onto the queue
+   */
+  public long getQueuedCount() {
+    return queued.get();
+  }
+
+  /**
+   * @return the number of events written to the database
+   */
+  public long getFlushedCount() {
+    return flushed.get();
+  }
+
+  /**
+   * @return the number of events dropped, either because the queue was full or because writing them failed
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the number of events waiting to be written
+   */
+  public int getPendingCount() {
+    return queue == null ? 0 : queue.size();
+  }
+
+  @Required
+  public void setTransactionManager(PlatformTransactionManager transactionManager) {
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * @param capacity the most events to hold in memory
+   */
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * @param batchSize the number of events to write per statement, and the queue size that triggers a flush
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @param flushInterval milliseconds between flushes of the queue
+   */
+  public void setFlushInterval(long flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  /**
+   * @param overflowPolicy what to do with events when the queue is full
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+}
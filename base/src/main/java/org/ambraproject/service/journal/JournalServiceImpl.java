@@ -24,6 +24,7 @@ import org.ambraproject.models.Article;
 import org.apache.commons.configuration.Configuration;
 import org.apache.struts2.ServletActionContext;
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
@@ -146,7 +147,9 @@ public class JournalServiceImpl extends HibernateServiceImpl implements JournalS
     //Is there a more efficient way to do this without using inline SQL?
     List<Article> articles = (List<Article>) hibernateTemplate.findByCriteria(
       DetachedCriteria.forClass(Article.class)
-        .add(Restrictions.eq("doi", doi)));
+        .add(Restrictions.eq("doi", doi))
+        .setFetchMode("journals", FetchMode.JOIN)
+        .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY));
 
     if(articles.size() > 0) {
       journals.addAll(articles.get(0).getJournals());
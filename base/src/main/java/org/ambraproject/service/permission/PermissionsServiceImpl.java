@@ -39,7 +39,6 @@ import java.util.Set;
  * @author Joe Osowski
  */
 public class PermissionsServiceImpl extends HibernateServiceImpl implements PermissionsService {
-  private static final String ROLES_LOCK = "RolesCache-Lock-";
   private Cache rolesCache;
 
   /**
@@ -97,10 +96,8 @@ public class PermissionsServiceImpl extends HibernateServiceImpl implements Perm
   }
 
   private Set<UserRole> getRoles(final String authId) {
-    final Object lock = (ROLES_LOCK + authId).intern(); //lock @ Article level
-
     return rolesCache.get(authId,
-      new Cache.SynchronizedLookup<Set<UserRole>, SecurityException>(lock) {
+      new Cache.Lookup<Set<UserRole>, SecurityException>() {
         public Set<UserRole> lookup() throws SecurityException {
           List<UserProfile> userProfiles =
               (List<UserProfile>) hibernateTemplate.findByCriteria(DetachedCriteria.forClass(UserProfile.class)
@@ -22,6 +22,7 @@ import org.ambraproject.models.ArticleList;
 import org.ambraproject.service.article.ArticleService;
 import org.ambraproject.service.article.MostViewedArticleService;
 import org.ambraproject.service.article.NoSuchArticleIdException;
+import org.ambraproject.service.cache.CacheStatistics;
 import org.ambraproject.service.hibernate.HibernateServiceImpl;
 import org.ambraproject.util.Pair;
 import org.ambraproject.views.article.HomePageArticleInfo;
@@ -33,11 +34,7 @@ import org.hibernate.criterion.Restrictions;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.transaction.annotation.Transactional;
-import org.w3c.dom.Document;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.net.URI;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -64,19 +61,48 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
    * are 10 journals
    */
   private ConcurrentMap<String, MostViewedCache> cachedMostViewedResults = new ConcurrentHashMap<String, MostViewedCache>();
+  private final CacheStatistics statistics = new CacheStatistics("MostViewedCache") {
+    @Override
+    public long getEntryCount() {
+      return cachedMostViewedResults.size();
+    }
+  };
   private static final String DOI_ATTR = "id";
   private static final String TITLE_ATTR = "title_display";
   private static final String STRIKING_ATTR = "striking_image";
   private static final String AUTHORS_ATTR = "author_display";
   private static final String ABSTRACT_ATTR = "abstract_primary_display";
 
+  private static final SolrResponseReader.HitMapper<Pair<String, String>> ARTICLE_MAPPER =
+      new SolrResponseReader.HitMapper<Pair<String, String>>() {
+        @Override
+        public Pair<String, String> map(SolrHit hit) {
+          return new Pair<String, String>(getString(hit, DOI_ATTR), getString(hit, TITLE_ATTR));
+        }
+      };
+
+  private static final SolrResponseReader.HitMapper<HomePageArticleInfo> ARTICLE_INFO_MAPPER =
+      new SolrResponseReader.HitMapper<HomePageArticleInfo>() {
+        @Override
+        public HomePageArticleInfo map(SolrHit hit) {
+          HomePageArticleInfo article = new HomePageArticleInfo();
+          article.setDoi(getString(hit, DOI_ATTR));
+          article.setTitle(getString(hit, TITLE_ATTR));
+          article.setStrkImgURI(getString(hit, STRIKING_ATTR));
+          article.setAuthors(StringUtils.join(hit.getStrings(AUTHORS_ATTR), ", "));
+          article.setDescription(getString(hit, ABSTRACT_ATTR));
+          return article;
+        }
+      };
+
   @Override
   public List<Pair<String, String>> getMostViewedArticles(String journal, int limit, Integer numDays) throws SolrException {
     //check if we still have valid results in the cache
-    MostViewedCache cache = cachedMostViewedResults.get(journal);
-    if (cache != null && cache.isValid()) {
+    MostViewedCache cache = getValidCache(journal);
+    if (cache != null) {
       return cache.getArticles();
     }
+    long start = System.currentTimeMillis();
 
     Map<String, String> params = new HashMap<String, String>();
     params.put("fl", DOI_ATTR + "," + TITLE_ATTR);
@@ -88,25 +114,11 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
         : solrFieldConverter.getAllTimeViewsField();
     params.put("sort", sortField + " desc");
 
-    Document doc = solrHttpService.makeSolrRequest(params);
-
-    List<Pair<String, String>> articles = new ArrayList<Pair<String, String>>(limit);
-
-    //get the children of the "result" node
-    XPath xPath = XPathFactory.newInstance().newXPath();
-    try {
-      Integer count = Integer.valueOf(xPath.evaluate("count(//result/doc)", doc));
-      for (int i = 1; i <= count; i++) {
-        String doi = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + DOI_ATTR + "']/text()", doc);
-        String title = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + TITLE_ATTR + "']/text()", doc);
-        articles.add(new Pair<String, String>(doi, title));
-      }
-    } catch (XPathExpressionException e) {
-      throw new SolrException("Error parsing solr xml response", e);
-    }
+    List<Pair<String, String>> articles = solrHttpService.makeSolrRequest(params, ARTICLE_MAPPER);
 
     //cache the results
     cachedMostViewedResults.put(journal, new MostViewedCache(articles));
+    statistics.recordLoad(System.currentTimeMillis() - start, true);
     return articles;
   }
 
@@ -115,10 +127,11 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
   public List<HomePageArticleInfo> getMostViewedArticleInfo(String journal, int offset, int limit, Integer numDays) throws SolrException {
     //check if we still have valid results in the cache
     String cacheIndex = journal + ":mostviewed" + String.valueOf(offset) + ":" + String.valueOf(limit);
-    MostViewedCache cache = cachedMostViewedResults.get(cacheIndex);
-    if (cache != null && cache.isValid()) {
+    MostViewedCache cache = getValidCache(cacheIndex);
+    if (cache != null) {
       return cache.getArticleInfo();
     }
+    long start = System.currentTimeMillis();
 
     Map<String, String> params = new HashMap<String, String>();
     params.put("fl", DOI_ATTR + "," + TITLE_ATTR + "," + STRIKING_ATTR + "," + AUTHORS_ATTR + "," + ABSTRACT_ATTR);
@@ -130,10 +143,10 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
         : solrFieldConverter.getAllTimeViewsField();
     params.put("sort", sortField + " desc");
 
-    Document doc = solrHttpService.makeSolrRequest(params);
-    List<HomePageArticleInfo> articles = getArticleInfoFromSolrResponse(doc);
+    List<HomePageArticleInfo> articles = solrHttpService.makeSolrRequest(params, ARTICLE_INFO_MAPPER);
     //cache the results
     cachedMostViewedResults.put(cacheIndex, new MostViewedCache(articles));
+    statistics.recordLoad(System.currentTimeMillis() - start, true);
     return articles;
   }
 
@@ -141,10 +154,11 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
   public List<HomePageArticleInfo> getRecentArticleInfo(String journal, int offset, int limit, List<URI> articleTypes) throws SolrException {
     //check if we still have valid results in the cache
     String cacheIndex = journal + ":recent:" + String.valueOf(offset) + ":" + String.valueOf(limit);
-    MostViewedCache cache = cachedMostViewedResults.get(cacheIndex);
-    if (cache != null && cache.isValid()) {
+    MostViewedCache cache = getValidCache(cacheIndex);
+    if (cache != null) {
       return cache.getArticleInfo();
     }
+    long start = System.currentTimeMillis();
     Map<String, String> params = new HashMap<String, String>();
     params.put("fl", DOI_ATTR + "," + TITLE_ATTR + "," + STRIKING_ATTR + "," + AUTHORS_ATTR + "," + ABSTRACT_ATTR);
     params.put("fq", "doc_type:full AND !article_type_facet:\"Issue Image\" AND cross_published_journal_key:" + journal);
@@ -153,50 +167,38 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
     params.put("indent", "off");
     params.put("sort", "publication_date desc");
 
-    Document doc = solrHttpService.makeSolrRequest(params);
-    List<HomePageArticleInfo> articles = getArticleInfoFromSolrResponse(doc);
+    List<HomePageArticleInfo> articles = solrHttpService.makeSolrRequest(params, ARTICLE_INFO_MAPPER);
     //cache the results
     cachedMostViewedResults.put(cacheIndex, new MostViewedCache(articles));
+    statistics.recordLoad(System.currentTimeMillis() - start, true);
     return articles;
   }
 
-  private List<HomePageArticleInfo> getArticleInfoFromSolrResponse(Document doc) throws SolrException {
-    List<HomePageArticleInfo> articles = new ArrayList<HomePageArticleInfo>();
-
-    //get the children of the "result" node
-    XPath xPath = XPathFactory.newInstance().newXPath();
-    try {
-      Integer count = Integer.valueOf(xPath.evaluate("count(//result/doc)", doc));
-      for (int i = 1; i <= count; i++) {
-        String doi = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + DOI_ATTR + "']/text()", doc);
-        String title = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + TITLE_ATTR + "']/text()", doc);
-        String strkImg = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + STRIKING_ATTR + "']/text()", doc);
-        String description = xPath.evaluate("//result/doc[" + i + "]/str[@name = '" + ABSTRACT_ATTR + "']/text()", doc);
-
-        Integer authors_count = Integer.valueOf(xPath.evaluate("count(//result/doc[" + i + "]/arr[@name = '" + AUTHORS_ATTR + "']/str)", doc));
-
-        List<String> authors = new ArrayList<String>();
-
-        for(int j = 1; j <= authors_count; ++j) {
-          String authorName = xPath.evaluate("//result/doc[" + i + "]/arr[@name = '" + AUTHORS_ATTR + "']/str[" + j + "]/text()", doc);
-          authors.add(authorName);
-        }
-
-        String author = StringUtils.join(authors, ", ");
-
-        HomePageArticleInfo article = new HomePageArticleInfo();
-        article.setDoi(doi);
-        article.setTitle(title);
-        article.setStrkImgURI(strkImg);
-        article.setAuthors(author);
-        article.setDescription(description);
+  /**
+   * Looks up cached results, recording the hit or miss
+   *
+   * @param cacheIndex the cache key
+   * @return the cached results, or null if there are none or they are no longer valid
+   */
+  private MostViewedCache getValidCache(String cacheIndex) {
+    MostViewedCache cache = cachedMostViewedResults.get(cacheIndex);
+    if (cache != null && cache.isValid()) {
+      statistics.recordHit();
+      return cache;
+    }
 
-        articles.add(article);
-      }
-    } catch (XPathExpressionException e) {
-      throw new SolrException("Error parsing solr xml response", e);
+    if (cache != null) {
+      statistics.recordExpiration();
     }
-    return articles;
+    statistics.recordMiss();
+    return null;
+  }
+
+  /**
+   * @return the value of a field, or the empty string if the doc doesn't have it
+   */
+  private static String getString(SolrHit hit, String name) {
+    return StringUtils.defaultString(hit.getString(name));
   }
 
   /**
@@ -284,4 +286,11 @@ public class MostViewedArticleServiceImpl extends HibernateServiceImpl implement
   public void setArticleService(ArticleService articleService) {
     this.articleService = articleService;
   }
+
+  /**
+   * @return the hit, miss and load counters of the most viewed results
+   */
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
 }
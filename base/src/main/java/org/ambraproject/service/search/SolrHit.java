@@ -0,0 +1,64 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields of one <code>&lt;doc&gt;</code> of a raw Solr xml response, as read by {@link SolrResponseReader}.
+ * Single valued fields hold one value; <code>&lt;arr&gt;</code> fields hold their values in document order.
+ */
+public class SolrHit {
+  private final Map<String, List<String>> fields = new HashMap<String, List<String>>();
+
+  void add(String name, String value) {
+    List<String> values = fields.get(name);
+    if (values == null) {
+      values = new ArrayList<String>(1);
+      fields.put(name, values);
+    }
+    values.add(value);
+  }
+
+  /**
+   * @param name the field name
+   * @return the first value of the field, or null if the doc doesn't have it
+   */
+  public String getString(String name) {
+    List<String> values = fields.get(name);
+    return (values == null || values.isEmpty()) ? null : values.get(0);
+  }
+
+  /**
+   * @param name the field name
+   * @return all the values of the field, empty if the doc doesn't have it
+   */
+  public List<String> getStrings(String name) {
+    List<String> values = fields.get(name);
+    return (values == null) ? Collections.<String>emptyList() : Collections.unmodifiableList(values);
+  }
+
+  public boolean hasField(String name) {
+    return fields.containsKey(name);
+  }
+
+  @Override
+  public String toString() {
+    return "SolrHit" + fields;
+  }
+}
@@ -23,6 +23,7 @@ package org.ambraproject.service.search;
 
 import org.w3c.dom.Document;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -45,6 +46,28 @@ public interface SolrHttpService {
 
   public Document makeSolrRequestForRss(String queryString) throws SolrException;
 
+  /**
+   * Make a request to the Solr server and stream the docs of the response through <code>mapper</code>, without
+   * building a DOM of the response
+   *
+   * @param params the params to pass to solr. these are URL encoded and passed as part of the get request
+   * @param mapper maps each doc of the result
+   * @return the mapped docs, in the order Solr returned them
+   */
+  public <T> List<T> makeSolrRequest(Map<String, String> params, SolrResponseReader.HitMapper<T> mapper)
+      throws SolrException;
+
+  /**
+   * Make a request to the Solr server with an already encoded query string and stream the docs of the response through
+   * <code>mapper</code>, without building a DOM of the response
+   *
+   * @param queryString the url encoded query string, without the leading '?'
+   * @param mapper maps each doc of the result
+   * @return the mapped docs, in the order Solr returned them
+   */
+  public <T> List<T> makeSolrRequestForRss(String queryString, SolrResponseReader.HitMapper<T> mapper)
+      throws SolrException;
+
   /**
    * Basic method for making a post request to the Solr server, with a Map of key/value pairs to pass as parameters
    *
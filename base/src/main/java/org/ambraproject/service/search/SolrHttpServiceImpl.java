@@ -23,7 +23,11 @@ package org.ambraproject.service.search;
 
 import org.ambraproject.util.XPathUtil;
 import org.apache.commons.configuration.Configuration;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.multipart.ByteArrayPartSource;
 import org.apache.commons.httpclient.methods.multipart.FilePart;
@@ -33,24 +37,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
 import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathExpressionException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Implementation of {@link org.ambraproject.service.search.SolrHttpService} that uses URL objects to make http requests to
- * the solr server.
+ * Implementation of {@link org.ambraproject.service.search.SolrHttpService} that makes http requests to the solr
+ * server through an {@link HttpClient}.
+ * <p/>
+ * The http client should be backed by a pooling connection manager, so that connections to solr are kept alive and
+ * reused between requests; connect and read timeouts and the size of the pool are configured on the connection
+ * manager. Responses are requested gzip compressed.
  * <p/>
  * This bean should be injected via spring to the action classes that make use of it, so there will only be one copy of
  * the bean per ambra instance
@@ -66,22 +73,77 @@ public class SolrHttpServiceImpl implements SolrHttpService {
   private String solrUrl;
   private Configuration config;
   private HttpClient httpClient;
+  private final SolrHttpStatistics statistics = new SolrHttpStatistics();
 
   private static final String XML = "xml";
   private static final String URL_CONFIG_PARAM = "ambra.services.search.server.url";
   private static final String RETURN_TYPE_PARAM = "wt";
   private static final String Q_PARAM = "q";
   private static final String NO_FILTER = "*:*";
+
+  private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+
+  static {
+    documentBuilderFactory.setNamespaceAware(true);
+  }
+
   /**
-   * number of milliseconds to wait on a url connection to SOLR
+   * DocumentBuilders aren't thread safe, so each thread parses with its own
    */
-  private static final int CONNECTION_TIMEOUT = 100;
+  private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>() {
+    @Override
+    protected DocumentBuilder initialValue() {
+      try {
+        return documentBuilderFactory.newDocumentBuilder();
+      } catch (ParserConfigurationException e) {
+        throw new IllegalStateException("Error configuring xml parser for solr responses", e);
+      }
+    }
+  };
+
+  /**
+   * Reads an http response body
+   */
+  private static interface ResponseParser<T> {
+    public T parse(InputStream body) throws IOException, SAXException, XMLStreamException;
+  }
+
+  private static final ResponseParser<Document> DOCUMENT_PARSER = new ResponseParser<Document>() {
+    @Override
+    public Document parse(InputStream body) throws IOException, SAXException {
+      DocumentBuilder builder = documentBuilder.get();
+      builder.reset();
+      return builder.parse(body);
+    }
+  };
+
+  private static <T> ResponseParser<List<T>> streamingParser(final SolrResponseReader.HitMapper<T> mapper) {
+    return new ResponseParser<List<T>>() {
+      @Override
+      public List<T> parse(InputStream body) throws XMLStreamException {
+        return SolrResponseReader.read(body, mapper);
+      }
+    };
+  }
 
   /**
    * @inheritDoc
    */
   @Override
   public Document makeSolrRequest(Map<String, String> params) throws SolrException {
+    return executeGet(createQueryString(prepareParams(params)), DOCUMENT_PARSER);
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public <T> List<T> makeSolrRequest(Map<String, String> params, SolrResponseReader.HitMapper<T> mapper)
+      throws SolrException {
+    return executeGet(createQueryString(prepareParams(params)), streamingParser(mapper));
+  }
+
+  private Map<String, String> prepareParams(Map<String, String> params) {
     if (solrUrl == null || solrUrl.isEmpty()) {
       setSolrUrl(config.getString(URL_CONFIG_PARAM));
     }
@@ -95,53 +157,24 @@ public class SolrHttpServiceImpl implements SolrHttpService {
       params.put(Q_PARAM, NO_FILTER);
     }
 
-    String queryString = "?";
-    for (String param : params.keySet()) {
-      String value = params.get(param);
-      if (queryString.length() > 1) {
-        queryString += "&";
-      }
-      queryString += (cleanInput(param) + "=" + cleanInput(value));
-    }
-
-    URL url;
-    String urlString = solrUrl + queryString;
-    log.debug("Making Solr http request to " + urlString);
-    try {
-      url = new URL(urlString);
-    } catch (MalformedURLException e) {
-      throw new SolrException("Bad Solr Url: " + urlString, e);
-    }
+    return params;
+  }
 
-    InputStream urlStream = null;
-    Document doc = null;
-    try {
-      URLConnection connection = url.openConnection();
-      connection.setConnectTimeout(CONNECTION_TIMEOUT);
-      connection.connect();
-      urlStream = connection.getInputStream();
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      factory.setNamespaceAware(true);
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      doc = builder.parse(urlStream);
-    } catch (IOException e) {
-      throw new SolrException("Error connecting to the Solr server at " + solrUrl, e);
-    } catch (ParserConfigurationException e) {
-      throw new SolrException("Error configuring parser xml parser for solr response", e);
-    } catch (SAXException e) {
-      throw new SolrException("Solr Returned bad XML for url: " + urlString, e);
-    } finally {
-      //Close the input stream
-      if (urlStream != null) {
-        try {
-          urlStream.close();
-        } catch (IOException e) {
-          log.error("Error closing url stream to Solr", e);
-        }
+  /**
+   * Build an url encoded query string, without the leading '?'
+   *
+   * @param params the parameters
+   * @return the query string
+   */
+  private String createQueryString(Map<String, String> params) {
+    StringBuilder queryString = new StringBuilder();
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      if (queryString.length() > 0) {
+        queryString.append('&');
       }
+      queryString.append(cleanInput(param.getKey())).append('=').append(cleanInput(param.getValue()));
     }
-
-    return doc;
+    return queryString.toString();
   }
 
   /**
@@ -176,46 +209,63 @@ public class SolrHttpServiceImpl implements SolrHttpService {
       setSolrUrl(config.getString(URL_CONFIG_PARAM));
     }
 
-    queryString = "?"+queryString ;
+    return executeGet(queryString, DOCUMENT_PARSER);
+  }
 
-    URL url;
-    String urlString = solrUrl + queryString;
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public <T> List<T> makeSolrRequestForRss(String queryString, SolrResponseReader.HitMapper<T> mapper)
+      throws SolrException {
+
+    if (solrUrl == null || solrUrl.isEmpty()) {
+      setSolrUrl(config.getString(URL_CONFIG_PARAM));
+    }
+
+    return executeGet(queryString, streamingParser(mapper));
+  }
+
+  private <T> T executeGet(String queryString, ResponseParser<T> parser) throws SolrException {
+    String urlString = solrUrl + "?" + queryString;
     log.debug("Making Solr http request to " + urlString);
+
+    GetMethod get;
     try {
-      url = new URL(urlString);
-    } catch (MalformedURLException e) {
+      get = new GetMethod(solrUrl);
+    } catch (IllegalArgumentException e) {
+      throw new SolrException("Bad Solr Url: " + urlString, e);
+    } catch (IllegalStateException e) {
       throw new SolrException("Bad Solr Url: " + urlString, e);
     }
+    get.setQueryString(queryString);
+    get.setRequestHeader("Accept-Encoding", "gzip");
 
-    InputStream urlStream = null;
-    Document doc = null;
+    long start = System.currentTimeMillis();
+    boolean success = false;
     try {
-      URLConnection connection = url.openConnection();
-      connection.setConnectTimeout(CONNECTION_TIMEOUT);
-      connection.connect();
-      urlStream = connection.getInputStream();
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      factory.setNamespaceAware(true);
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      doc = builder.parse(urlStream);
+      int response = httpClient.executeMethod(get);
+      if (response != HttpStatus.SC_OK) {
+        throw new SolrException("Solr returned status " + response + " for url: " + urlString);
+      }
+
+      T result = parse(get, parser);
+      statistics.recordRequest(System.currentTimeMillis() - start, isGzip(get));
+      success = true;
+      return result;
     } catch (IOException e) {
       throw new SolrException("Error connecting to the Solr server at " + solrUrl, e);
-    } catch (ParserConfigurationException e) {
-      throw new SolrException("Error configuring parser xml parser for solr response", e);
     } catch (SAXException e) {
       throw new SolrException("Solr Returned bad XML for url: " + urlString, e);
+    } catch (XMLStreamException e) {
+      throw new SolrException("Solr Returned bad XML for url: " + urlString, e);
     } finally {
-      //Close the input stream
-      if (urlStream != null) {
-        try {
-          urlStream.close();
-        } catch (IOException e) {
-          log.error("Error closing url stream to Solr", e);
-        }
+      if (!success) {
+        statistics.recordFailure(System.currentTimeMillis() - start);
       }
+      //Hand the connection back to the pool
+      get.releaseConnection();
     }
-
-    return doc;
   }
 
   /**
@@ -224,32 +274,26 @@ public class SolrHttpServiceImpl implements SolrHttpService {
   @Override
   public void makeSolrPostRequest(Map<String, String> params, String data, boolean isCSV) throws SolrException {
     String postUrl = config.getString(URL_CONFIG_PARAM);
-
-    String queryString = "?";
-    for (String param : params.keySet()) {
-      String value = params.get(param);
-      if (queryString.length() > 1) {
-        queryString += "&";
-      }
-      queryString += (cleanInput(param) + "=" + cleanInput(value));
-    }
+    String queryString = createQueryString(params);
 
     String filename;
     String contentType;
 
     if(isCSV) {
-      postUrl = postUrl + "/update/csv" + queryString;
+      postUrl = postUrl + "/update/csv";
       filename = "data.csv";
       contentType = "text/plain";
     } else {
-      postUrl = postUrl + "/update" + queryString;
+      postUrl = postUrl + "/update";
       filename = "data.xml";
       contentType = "text/xml";
     }
 
-    log.debug("Making Solr http post request to " + postUrl);
+    log.debug("Making Solr http post request to " + postUrl + "?" + queryString);
 
     PostMethod filePost = new PostMethod(postUrl);
+    filePost.setQueryString(queryString);
+    filePost.setRequestHeader("Accept-Encoding", "gzip");
 
     try {
       filePost.setRequestEntity(
@@ -262,6 +306,8 @@ public class SolrHttpServiceImpl implements SolrHttpService {
       throw new SolrException(ex);
     }
 
+    long start = System.currentTimeMillis();
+    boolean success = false;
     try {
       int response = httpClient.executeMethod(filePost);
 
@@ -269,11 +315,7 @@ public class SolrHttpServiceImpl implements SolrHttpService {
         log.info("Request Complete: {}", response);
 
         //Confirm SOLR result status is 0
-
-        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        InputSource source = new InputSource(filePost.getResponseBodyAsStream());
-
-        Document doc = db.parse(source);
+        Document doc = parse(filePost, DOCUMENT_PARSER);
 
         String result = xPathUtil.evaluate(doc, "//int[@name=\'status\']");
 
@@ -281,21 +323,63 @@ public class SolrHttpServiceImpl implements SolrHttpService {
           log.error("SOLR Returned non zero result: {}", result);
           throw new SolrException("SOLR Returned non zero result: " + result);
         }
+
+        statistics.recordRequest(System.currentTimeMillis() - start, isGzip(filePost));
+        success = true;
       } else {
         log.error("Request Failed: {}", response);
         throw new SolrException("Request Failed: " + response);
       }
     } catch (IOException ex) {
       throw new SolrException(ex);
-    } catch (ParserConfigurationException ex) {
-      throw new SolrException(ex);
     } catch (SAXException ex) {
       throw new SolrException(ex);
+    } catch (XMLStreamException ex) {
+      throw new SolrException(ex);
     } catch (XPathExpressionException ex) {
       throw new SolrException(ex);
+    } finally {
+      if (!success) {
+        statistics.recordFailure(System.currentTimeMillis() - start);
+      }
+      //Hand the connection back to the pool
+      filePost.releaseConnection();
+    }
+  }
+
+  /**
+   * Parse the body of an executed method, decompressing it if solr sent it gzipped
+   */
+  private static <T> T parse(HttpMethod method, ResponseParser<T> parser)
+      throws IOException, SAXException, XMLStreamException {
+    InputStream body = method.getResponseBodyAsStream();
+    if (body == null) {
+      throw new IOException("Solr returned an empty response");
+    }
+
+    if (isGzip(method)) {
+      body = new GZIPInputStream(body);
+    }
+
+    try {
+      return parser.parse(body);
+    } finally {
+      body.close();
     }
   }
 
+  private static boolean isGzip(HttpMethod method) {
+    Header encoding = method.getResponseHeader("Content-Encoding");
+    return encoding != null && encoding.getValue().toLowerCase().contains("gzip");
+  }
+
+  /**
+   * @return request counters and connection pool state for this service
+   */
+  public SolrHttpStatistics getStatistics() {
+    return statistics;
+  }
+
   @Required
   public void setConfig(Configuration config) {
     this.config = config;
@@ -304,5 +388,6 @@ public class SolrHttpServiceImpl implements SolrHttpService {
   @Required
   public void setHttpClient(HttpClient httpClient) {
     this.httpClient = httpClient;
+    this.statistics.setHttpClient(httpClient);
   }
 }
@@ -0,0 +1,104 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.search;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request counters and connection pool state of a {@link SolrHttpServiceImpl}, declared in the application context as
+ * the MBean <code>org.ambraproject:type=SolrHttpService</code>.
+ */
+public class SolrHttpStatistics implements SolrHttpStatisticsMBean {
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong gzipResponses = new AtomicLong();
+  private final AtomicLong totalRequestTime = new AtomicLong();
+
+  private volatile HttpClient httpClient;
+
+  public void setHttpClient(HttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
+  public void recordRequest(long millis, boolean gzip) {
+    requests.incrementAndGet();
+    totalRequestTime.addAndGet(millis);
+    if (gzip) {
+      gzipResponses.incrementAndGet();
+    }
+  }
+
+  public void recordFailure(long millis) {
+    requests.incrementAndGet();
+    failures.incrementAndGet();
+    totalRequestTime.addAndGet(millis);
+  }
+
+  public long getRequests() {
+    return requests.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  public long getGzipResponses() {
+    return gzipResponses.get();
+  }
+
+  public long getTotalRequestTime() {
+    return totalRequestTime.get();
+  }
+
+  public double getAverageRequestTime() {
+    long count = requests.get();
+    return count == 0 ? 0 : (double) totalRequestTime.get() / count;
+  }
+
+  public int getConnectionsInPool() {
+    MultiThreadedHttpConnectionManager manager = getPool();
+    return manager == null ? -1 : manager.getConnectionsInPool();
+  }
+
+  public int getMaxConnectionsPerHost() {
+    MultiThreadedHttpConnectionManager manager = getPool();
+    return manager == null ? -1 : manager.getParams().getDefaultMaxConnectionsPerHost();
+  }
+
+  public int getMaxTotalConnections() {
+    MultiThreadedHttpConnectionManager manager = getPool();
+    return manager == null ? -1 : manager.getParams().getMaxTotalConnections();
+  }
+
+  public void reset() {
+    requests.set(0);
+    failures.set(0);
+    gzipResponses.set(0);
+    totalRequestTime.set(0);
+  }
+
+  private MultiThreadedHttpConnectionManager getPool() {
+    HttpClient client = httpClient;
+    if (client == null) {
+      return null;
+    }
+
+    HttpConnectionManager manager = client.getHttpConnectionManager();
+    return (manager instanceof MultiThreadedHttpConnectionManager) ? (MultiThreadedHttpConnectionManager) manager : null;
+  }
+}
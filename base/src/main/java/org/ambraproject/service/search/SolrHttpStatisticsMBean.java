@@ -0,0 +1,54 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.search;
+
+/**
+ * JMX view of the requests made by {@link SolrHttpServiceImpl} and of its connection pool.
+ */
+public interface SolrHttpStatisticsMBean {
+
+  public long getRequests();
+
+  public long getFailures();
+
+  /**
+   * @return the number of responses that came back gzip compressed
+   */
+  public long getGzipResponses();
+
+  /**
+   * @return the total time spent in requests, in milliseconds
+   */
+  public long getTotalRequestTime();
+
+  /**
+   * @return the mean time of a request, in milliseconds
+   */
+  public double getAverageRequestTime();
+
+  /**
+   * @return the number of connections, in use or idle, currently held by the pool; -1 if the http client is not
+   *         pooled
+   */
+  public int getConnectionsInPool();
+
+  public int getMaxConnectionsPerHost();
+
+  public int getMaxTotalConnections();
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset();
+}
@@ -0,0 +1,148 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.search;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for the raw xml responses (<code>wt=xml</code>) of the Solr select handler.
+ * <p/>
+ * The response is read in a single StAX pass; each <code>&lt;doc&gt;</code> of the <code>&lt;result&gt;</code>
+ * element is collected into a {@link SolrHit} and handed straight to a {@link HitMapper}, so only the mapped objects
+ * are kept and the cost of reading grows linearly with the number of rows. Everything outside the result (header,
+ * facets, highlighting) is skipped.
+ */
+public class SolrResponseReader {
+
+  /**
+   * Maps one doc of a Solr response into the object the caller wants to keep.
+   */
+  public static interface HitMapper<T> {
+    public T map(SolrHit hit);
+  }
+
+  /**
+   * Mapper that keeps the hits themselves
+   */
+  public static final HitMapper<SolrHit> HITS = new HitMapper<SolrHit>() {
+    @Override
+    public SolrHit map(SolrHit hit) {
+      return hit;
+    }
+  };
+
+  private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+  static {
+    xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+  }
+
+  private SolrResponseReader() {
+  }
+
+  /**
+   * Read the docs of a Solr response.  The stream is not closed.
+   *
+   * @param response the response body
+   * @param mapper   maps each doc, in the order of the response
+   * @return the mapped docs
+   * @throws XMLStreamException if the response isn't well formed xml
+   */
+  public static <T> List<T> read(InputStream response, HitMapper<T> mapper) throws XMLStreamException {
+    XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(response);
+
+    try {
+      List<T> results = new ArrayList<T>();
+      int depth = 0;
+      int resultDepth = -1;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          String element = reader.getLocalName();
+
+          if (resultDepth < 0 && "result".equals(element)) {
+            resultDepth = depth;
+          } else if (depth == resultDepth + 1 && "doc".equals(element)) {
+            results.add(mapper.map(readDoc(reader)));
+            //readDoc consumed the end of the doc
+            depth--;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == resultDepth) {
+            resultDepth = -1;
+          }
+          depth--;
+        }
+      }
+
+      return results;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Read the fields of a doc, leaving the reader on the end of the doc element
+   */
+  private static SolrHit readDoc(XMLStreamReader reader) throws XMLStreamException {
+    SolrHit hit = new SolrHit();
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        return hit;
+      }
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getAttributeValue(null, "name");
+
+        if ("arr".equals(reader.getLocalName())) {
+          readArray(reader, name, hit);
+        } else {
+          hit.add(name, reader.getElementText());
+        }
+      }
+    }
+
+    throw new XMLStreamException("Unexpected end of Solr response inside a doc");
+  }
+
+  private static void readArray(XMLStreamReader reader, String name, SolrHit hit) throws XMLStreamException {
+    while (reader.hasNext()) {
+      int event = reader.next();
+
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        return;
+      }
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        hit.add(name, reader.getElementText());
+      }
+    }
+
+    throw new XMLStreamException("Unexpected end of Solr response inside an array");
+  }
+}
@@ -47,6 +47,16 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -65,6 +75,18 @@ public class SolrSearchService implements SearchService {
   private Cache cache;
   private int queryTimeout;
 
+  // facet queries are dispatched on this executor when parallelThreads > 0
+  private int parallelThreads = 0;
+  private long facetTimeout = 5000;
+  private ThreadPoolExecutor facetExecutor;
+
+  // when set, the journal and article type facets are computed by the main query
+  private boolean consolidateFacets = false;
+
+  // local params tags for the filters that the consolidated facets exclude
+  private static final String JOURNAL_FILTER_TAG = "journal";
+  private static final String ARTICLE_TYPE_FILTER_TAG = "articleType";
+
   private static final int MAX_FACET_SIZE = 100;
   private static final int MIN_FACET_COUNT = 1;
 
@@ -96,20 +118,22 @@ public class SolrSearchService implements SearchService {
 
     log.debug("Simple Search performed on the String: " + sParams.getQuery());
 
-    //We query SOLR three times.
+    //We query SOLR up to four times.
     // 1 - The main 'big' query
     // 2 - Make the cross journals facet
-    // 3 - (If applicable) the Keywords facet
+    // 3 - Make the article types facet
+    // 4 - (If applicable) the Keywords facet
+    //With consolidateFacets, 2 and 3 are folded into the main query
 
     SolrQuery query = createQuery(sParams.getQuery(),
-        sParams.getStartPage(), sParams.getPageSize(), true);
+        sParams.getStartPage(), sParams.getPageSize(), true, consolidateFacets);
 
     //Notice: there is some code duplication here. note below
     SolrQuery journalFacetsQuery = createFacetsQuery(sParams.getQuery(), "cross_published_journal_key", true);
     SolrQuery articleTypeFacetsQuery = createFacetsQuery(sParams.getQuery(), "article_type_facet", true);
 
     //Set filters for the three queries,
-    setFilters(query, sParams, false, false);
+    setFilters(query, sParams, false, false, consolidateFacets);
 
     //The journals query doesn't get the journal filter and the articles query doesn't get the articles filter
     //Notice: there is some code duplication here. note below
@@ -137,6 +161,21 @@ public class SolrSearchService implements SearchService {
       articleTypeFacetsQuery.set("qf", fieldName);
     }
 
+    //Only execute the keyword search facet if the keyword wasn't specified
+    SolrQuery keywordFacetQuery = null;
+    if (sParams.getFilterKeyword().length() == 0) {
+      keywordFacetQuery = createKeywordFacetQuery(sParams.getQuery());
+      setFilters(keywordFacetQuery, sParams, false, false);
+    }
+
+    if (consolidateFacets) {
+      return searchConsolidated(query, keywordFacetQuery);
+    }
+
+    if (parallelThreads > 0) {
+      return searchInParallel(query, journalFacetsQuery, articleTypeFacetsQuery, keywordFacetQuery);
+    }
+
     //Perform searches!
     SearchResultSinglePage results = search(query);
 
@@ -148,10 +187,7 @@ public class SolrSearchService implements SearchService {
     results.setJournalFacet(facetCountsToHashMap(journals));
     results.setArticleTypeFacet(facetCountsToHashMap(articleTypes));
 
-    //Only execute the keyword search facet if the keyword wasn't specified
-    if (sParams.getFilterKeyword().length() == 0) {
-      SolrQuery keywordFacetQuery = createKeywordFacetQuery(sParams.getQuery());
-      setFilters(keywordFacetQuery, sParams, false, false);
+    if (keywordFacetQuery != null) {
       FacetField keywords = facetSearch(keywordFacetQuery, "doc_partial_type");
       results.setKeywordFacet(facetCountsToHashMap(keywords));
     }
@@ -178,13 +214,13 @@ public class SolrSearchService implements SearchService {
           + searchParameters.getUnformattedQuery().trim());
     }
 
-    SolrQuery query = createQuery(null, sp.getStartPage(), sp.getPageSize(), false);
+    SolrQuery query = createQuery(null, sp.getStartPage(), sp.getPageSize(), false, consolidateFacets);
     query.setQuery(searchParameters.getUnformattedQuery().trim());
 
     SolrQuery journalFacetsQuery = createFacetsQuery(query.getQuery(), "cross_published_journal_key", false);
     SolrQuery articleTypeFacetsQuery = createFacetsQuery(query.getQuery(), "article_type_facet", false);
 
-    setFilters(query, sp, false, false);
+    setFilters(query, sp, false, false, consolidateFacets);
 
     //The journals query doesn't get the journal filter and the articles query doesn't get the articles filter
     //Notice: there is some code duplication here. note above
@@ -193,6 +229,14 @@ public class SolrSearchService implements SearchService {
 
     setSort(query, sp);
 
+    if (consolidateFacets) {
+      return searchConsolidated(query, null);
+    }
+
+    if (parallelThreads > 0) {
+      return searchInParallel(query, journalFacetsQuery, articleTypeFacetsQuery, null);
+    }
+
     QueryResponse journalFacetsResponse = getSOLRResponse(journalFacetsQuery);
     QueryResponse articleTypeFacetsResponse = getSOLRResponse(articleTypeFacetsQuery);
 
@@ -459,9 +503,9 @@ public class SolrSearchService implements SearchService {
     if (cache == null) {
       return getTopSubjectsFromSOLR();
     } else {
-      String key = "topLevelCategoriesCacheKey".intern();
+      String key = "topLevelCategoriesCacheKey";
       return cache.get(key, CACHE_TTL,
-        new Cache.SynchronizedLookup<SortedMap<String, Long>, ApplicationException>(key) {
+        new Cache.Lookup<SortedMap<String, Long>, ApplicationException>() {
           @Override
           public SortedMap<String, Long> lookup() throws ApplicationException {
             return getTopSubjectsFromSOLR();
@@ -700,7 +744,41 @@ public class SolrSearchService implements SearchService {
     this.serverFactory = serverFactory;
   }
 
+  /**
+   * @param parallelThreads the number of threads facet queries are dispatched on, concurrently with the main search
+   *                        query; 0 (the default) runs all the queries of a search one after the other
+   */
+  public void setParallelThreads(int parallelThreads) {
+    this.parallelThreads = parallelThreads;
+  }
+
+  /**
+   * @param facetTimeout how long, in milliseconds, a search waits for a parallel facet query before leaving the facet
+   *                     off the results
+   */
+  public void setFacetTimeout(long facetTimeout) {
+    this.facetTimeout = facetTimeout;
+  }
+
+  /**
+   * @param consolidateFacets if true, the journal and article type facets of simple and advanced searches are computed
+   *                          by the main query, using tagged filter queries and facet exclusions, instead of by
+   *                          separate facet queries
+   */
+  public void setConsolidateFacets(boolean consolidateFacets) {
+    this.consolidateFacets = consolidateFacets;
+  }
+
   private void setFilters(SolrQuery query, SearchParameters sp, boolean ignoreJournals, boolean ignoreArticleTypes) {
+    setFilters(query, sp, ignoreJournals, ignoreArticleTypes, false);
+  }
+
+  /**
+   * @param tagFilters if true, the journal and article type filters are tagged so that facets created with
+   *                   <code>withFilterFacets</code> in {@link #createQuery} can exclude them
+   */
+  private void setFilters(SolrQuery query, SearchParameters sp, boolean ignoreJournals, boolean ignoreArticleTypes,
+      boolean tagFilters) {
     //Related to JO: http://joborder.plos.org/view.php?id=17480
     //(for now) we don't want to search on Issue Images
     query.addFilterQuery(createFilterNoIssueImageDocuments());
@@ -708,14 +786,16 @@ public class SolrSearchService implements SearchService {
     // Form field description: "Journals".  Query Filter.
     if(!ignoreJournals) {
       if (sp.getFilterJournals() != null && sp.getFilterJournals().length > 0) {
-        query.addFilterQuery(createFilterLimitForJournals(sp.getFilterJournals()));
+        String filter = createFilterLimitForJournals(sp.getFilterJournals());
+        query.addFilterQuery(tagFilters ? tag(JOURNAL_FILTER_TAG, filter) : filter);
       }
     }
 
     if(!ignoreArticleTypes) {
       // Form field description: "Article Types".  Query Filter.
       if (sp.getFilterArticleTypes() != null && sp.getFilterArticleTypes().length > 0) {
-        query.addFilterQuery(createFilterLimitForArticleTypes(sp.getFilterArticleTypes()));
+        String filter = createFilterLimitForArticleTypes(sp.getFilterArticleTypes());
+        query.addFilterQuery(tagFilters ? tag(ARTICLE_TYPE_FILTER_TAG, filter) : filter);
       }
     }
 
@@ -739,6 +819,14 @@ public class SolrSearchService implements SearchService {
     }
   }
 
+  private static String tag(String tag, String filter) {
+    return "{!tag=" + tag + "}" + filter;
+  }
+
+  private static String excludeTag(String tag, String field) {
+    return "{!ex=" + tag + "}" + field;
+  }
+
   private String createFilterLimitForPublishDate(Date startDate, Date endDate) {
     StringBuilder fq = new StringBuilder();
 
@@ -838,6 +926,183 @@ public class SolrSearchService implements SearchService {
     return readQueryResults(queryResponse, query);
   }
 
+  /**
+   * Run the main search on the calling thread while the facet queries run concurrently on the facet executor.  A
+   * facet whose query fails, does not complete within <code>facetTimeout</code> milliseconds of being dispatched, or
+   * can't be dispatched because the executor is saturated, is left off the result instead of failing the search.
+   *
+   * @param query the main query
+   * @param journalFacetsQuery the query for the journal facet
+   * @param articleTypeFacetsQuery the query for the article type facet
+   * @param keywordFacetQuery the query for the keyword facet, or null if the keyword facet is not needed
+   * @return the results of the main query, with whichever facets completed
+   * @throws ApplicationException if the main query fails
+   */
+  private SearchResultSinglePage searchInParallel(SolrQuery query, SolrQuery journalFacetsQuery,
+      SolrQuery articleTypeFacetsQuery, SolrQuery keywordFacetQuery) throws ApplicationException {
+    long deadline = System.currentTimeMillis() + facetTimeout;
+
+    Future<QueryResponse> journalFacets = submitQuery(journalFacetsQuery);
+    Future<QueryResponse> articleTypeFacets = submitQuery(articleTypeFacetsQuery);
+    Future<QueryResponse> keywordFacets = (keywordFacetQuery == null) ? null : submitQuery(keywordFacetQuery);
+
+    SearchResultSinglePage results;
+    boolean success = false;
+    try {
+      results = search(query);
+      success = true;
+    } finally {
+      if (!success) {
+        cancel(journalFacets);
+        cancel(articleTypeFacets);
+        cancel(keywordFacets);
+      }
+    }
+
+    results.setJournalFacet(facetCountsToHashMap(
+        getFacet(journalFacets, "cross_published_journal_key", deadline)));
+    results.setArticleTypeFacet(facetCountsToHashMap(
+        getFacet(articleTypeFacets, "article_type_facet", deadline)));
+
+    if (keywordFacets != null) {
+      results.setKeywordFacet(facetCountsToHashMap(getFacet(keywordFacets, "doc_partial_type", deadline)));
+    }
+
+    return results;
+  }
+
+  /**
+   * Run a main query created with <code>withFilterFacets</code>, which carries its own journal and article type
+   * facets.  The keyword facet is computed over partial documents with a different query field, so it can't be folded
+   * into the main query; when needed it still takes a request of its own, dispatched on the facet executor if there
+   * is one.
+   *
+   * @param query the main query
+   * @param keywordFacetQuery the query for the keyword facet, or null if the keyword facet is not needed
+   * @return the results of the main query, with its facets
+   * @throws ApplicationException if the main query fails
+   */
+  private SearchResultSinglePage searchConsolidated(SolrQuery query, SolrQuery keywordFacetQuery)
+      throws ApplicationException {
+    if (keywordFacetQuery == null) {
+      return search(query);
+    }
+
+    if (parallelThreads > 0) {
+      long deadline = System.currentTimeMillis() + facetTimeout;
+      Future<QueryResponse> keywordFacets = submitQuery(keywordFacetQuery);
+
+      SearchResultSinglePage results;
+      boolean success = false;
+      try {
+        results = search(query);
+        success = true;
+      } finally {
+        if (!success) {
+          cancel(keywordFacets);
+        }
+      }
+
+      results.setKeywordFacet(facetCountsToHashMap(getFacet(keywordFacets, "doc_partial_type", deadline)));
+      return results;
+    }
+
+    SearchResultSinglePage results = search(query);
+    results.setKeywordFacet(facetCountsToHashMap(facetSearch(keywordFacetQuery, "doc_partial_type")));
+    return results;
+  }
+
+  /**
+   * Dispatch a facet query on the facet executor.
+   *
+   * @return the pending response, or null if the executor is saturated
+   */
+  private Future<QueryResponse> submitQuery(final SolrQuery query) {
+    try {
+      return getFacetExecutor().submit(new Callable<QueryResponse>() {
+        @Override
+        public QueryResponse call() throws ApplicationException {
+          return getSOLRResponse(query);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stop waiting for a facet query.  A query that's already running is left to finish rather than interrupted in the
+   * middle of reading its response.
+   */
+  private static void cancel(Future<QueryResponse> response) {
+    if (response != null) {
+      response.cancel(false);
+    }
+  }
+
+  /**
+   * Wait for a dispatched facet query until the deadline.
+   *
+   * @return the facet, or null if the query wasn't dispatched, failed or timed out
+   */
+  private FacetField getFacet(Future<QueryResponse> response, String name, long deadline) {
+    if (response == null) {
+      log.warn("Too many facet queries waiting; omitting " + name + " from the search results");
+      return null;
+    }
+
+    try {
+      FacetField facet = response.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+          .getFacetField(name);
+
+      if (facet == null) {
+        log.warn("No facet found with name of: " + name + "; omitting it from the search results");
+      }
+      return facet;
+    } catch (TimeoutException e) {
+      cancel(response);
+      log.warn("Facet query for " + name + " timed out after " + facetTimeout
+          + " milliseconds; omitting it from the search results");
+    } catch (ExecutionException e) {
+      log.warn("Facet query for " + name + " failed; omitting it from the search results", e.getCause());
+    } catch (InterruptedException e) {
+      cancel(response);
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  private synchronized ThreadPoolExecutor getFacetExecutor() {
+    if (facetExecutor == null) {
+      // when the queue is full the facet query is rejected and the facet left off, rather than run on the request
+      // thread where the facet timeout wouldn't apply
+      facetExecutor = new ThreadPoolExecutor(parallelThreads, parallelThreads, 60, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<Runnable>(parallelThreads * 4), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+              Thread t = new Thread(r, "solr-facet-" + count.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            }
+          }, new ThreadPoolExecutor.AbortPolicy());
+      facetExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return facetExecutor;
+  }
+
+  /**
+   * Stops the facet executor, if it was started.
+   */
+  public synchronized void shutdown() {
+    if (facetExecutor != null) {
+      facetExecutor.shutdownNow();
+      facetExecutor = null;
+    }
+  }
+
   private FacetField facetSearch(SolrQuery query, String name) throws ApplicationException {
     QueryResponse queryResponse = getSOLRResponse(query);
 
@@ -851,6 +1116,10 @@ public class SolrSearchService implements SearchService {
   }
 
   private List<Map> facetCountsToHashMap(FacetField field) {
+    if (field == null) {
+      return null;
+    }
+
     List<FacetField.Count> counts = field.getValues();
     ArrayList<Map> result = new ArrayList<Map>();
 
@@ -868,6 +1137,16 @@ public class SolrSearchService implements SearchService {
   }
 
   private SolrQuery createQuery(String queryString, int startPage, int pageSize, boolean useDismax) {
+    return createQuery(queryString, startPage, pageSize, useDismax, false);
+  }
+
+  /**
+   * @param withFilterFacets if true, the query also facets on journals and article types, each facet excluding its
+   *                         own filter, so that it counts the values the user could switch the filter to.  The
+   *                         filters must be added with <code>tagFilters</code> set in {@link #setFilters}.
+   */
+  private SolrQuery createQuery(String queryString, int startPage, int pageSize, boolean useDismax,
+      boolean withFilterFacets) {
     SolrQuery query = new SolrQuery(queryString);
     query.setTimeAllowed(queryTimeout);
     query.setIncludeScore(true); // The relevance (of each results element) to the search terms.
@@ -890,7 +1169,12 @@ public class SolrSearchService implements SearchService {
     query.addFacetField("subject_facet");
     query.addFacetField("author_facet");
     query.addFacetField("editor_facet");
-    query.addFacetField("article_type_facet");
+    if (withFilterFacets) {
+      query.addFacetField(excludeTag(ARTICLE_TYPE_FILTER_TAG, "article_type_facet"));
+      query.addFacetField(excludeTag(JOURNAL_FILTER_TAG, "cross_published_journal_key"));
+    } else {
+      query.addFacetField("article_type_facet");
+    }
     query.addFacetField("affiliate_facet");
     query.set("facet.method", "fc");
     query.setFacetLimit(MAX_FACET_SIZE);
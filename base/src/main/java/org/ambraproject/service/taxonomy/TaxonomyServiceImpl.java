@@ -331,10 +331,10 @@ public class TaxonomyServiceImpl extends HibernateServiceImpl implements Taxonom
     if (cache == null) {
       return parseTopAndSecondLevelCategoriesWithoutCache(currentJournal);
     } else {
-      String key = ("topAndSecondLevelCategoriesCacheKey" + currentJournal).intern();
+      String key = "topAndSecondLevelCategoriesCacheKey" + currentJournal;
 
       return cache.get(key, CACHE_TTL,
-          new Cache.SynchronizedLookup<SortedMap<String, List<String>>, ApplicationException>(key) {
+          new Cache.Lookup<SortedMap<String, List<String>>, ApplicationException>() {
             @Override
             public SortedMap<String, List<String>> lookup() throws ApplicationException {
               return parseTopAndSecondLevelCategoriesWithoutCache(currentJournal);
@@ -385,10 +385,10 @@ public class TaxonomyServiceImpl extends HibernateServiceImpl implements Taxonom
     if (cache == null) {
       return parseCategoriesWithoutCache(currentJournal);
     } else {
-      String key = ("categoriesCacheKey" + ((currentJournal==null)?"":currentJournal)).intern();
+      String key = "categoriesCacheKey" + ((currentJournal==null)?"":currentJournal);
 
       return cache.get(key, CACHE_TTL,
-        new Cache.SynchronizedLookup<CategoryView, ApplicationException>(key) {
+        new Cache.Lookup<CategoryView, ApplicationException>() {
           @Override
           public CategoryView lookup() throws ApplicationException {
             return parseCategoriesWithoutCache(currentJournal);
@@ -432,9 +432,9 @@ public class TaxonomyServiceImpl extends HibernateServiceImpl implements Taxonom
     if (cache == null) {
       return getAllCountsWithoutCache(currentJournal);
     } else {
-      String key = ("categoryCountCacheKey" + ((currentJournal == null) ? "" : currentJournal)).intern();
+      String key = "categoryCountCacheKey" + ((currentJournal == null) ? "" : currentJournal);
       return cache.get(key, CACHE_TTL,
-          new Cache.SynchronizedLookup<Map<String, Long>, ApplicationException>(key) {
+          new Cache.Lookup<Map<String, Long>, ApplicationException>() {
             @Override
             public Map<String, Long> lookup() throws ApplicationException {
               return getAllCountsWithoutCache(currentJournal);
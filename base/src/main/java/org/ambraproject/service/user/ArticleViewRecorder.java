@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.ArticleView;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Writes article views and downloads to the userArticleView table in batches.  The columns here have to match
+ * ArticleView.hbm.xml.
+ */
+public class ArticleViewRecorder extends WriteBehindRecorder<ArticleView> {
+
+  @Override
+  protected String getInsertSql() {
+    return "insert into userArticleView (created, articleID, userProfileID, type) values (?, ?, ?, ?)";
+  }
+
+  @Override
+  protected void bind(PreparedStatement statement, ArticleView view) throws SQLException {
+    //the view is created when it's recorded, so this is the time of the view and not of the flush
+    statement.setTimestamp(1, new Timestamp(view.getCreated().getTime()));
+    statement.setLong(2, view.getArticleID());
+    statement.setLong(3, view.getUserID());
+    statement.setString(4, view.getType().name());
+  }
+}
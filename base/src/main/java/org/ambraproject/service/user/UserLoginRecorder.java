@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.UserLogin;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes user logins to the userLogin table in batches.  The columns here have to match UserLogin.hbm.xml.
+ * <p/>
+ * Users going back and forth between CAS and the site log in over and over with the same session, address and browser,
+ * so a login identical to one recorded less than dedupWindow milliseconds ago is skipped.
+ */
+public class UserLoginRecorder extends WriteBehindRecorder<UserLogin> {
+
+  private long dedupWindow = 5 * 60 * 1000;
+
+  //time each login was last recorded, pruned on every flush
+  private final ConcurrentMap<String, Long> recentLogins = new ConcurrentHashMap<String, Long>();
+  private final AtomicLong duplicates = new AtomicLong();
+
+  @Override
+  protected String getInsertSql() {
+    return "insert into userLogin (created, userProfileID, sessionID, IP, userAgent) values (?, ?, ?, ?, ?)";
+  }
+
+  @Override
+  protected void bind(PreparedStatement statement, UserLogin login) throws SQLException {
+    statement.setTimestamp(1, new Timestamp(login.getCreated().getTime()));
+    statement.setLong(2, login.getUserProfileID());
+    statement.setString(3, login.getSessionId());
+    statement.setString(4, login.getIP());
+    statement.setString(5, login.getUserAgent());
+  }
+
+  /**
+   * Queue a login to be written out, unless the same login was recorded within the dedup window.
+   *
+   * @param login the login, with the user profile id set
+   * @return true if the login was queued
+   */
+  @Override
+  public boolean record(UserLogin login) {
+    if (dedupWindow > 0) {
+      String key = getKey(login);
+      long now = login.getCreated().getTime();
+      //only the thread that puts or moves the time along gets to queue the login
+      Long last = recentLogins.putIfAbsent(key, now);
+      while (last != null) {
+        if (now - last < dedupWindow) {
+          duplicates.incrementAndGet();
+          return false;
+        }
+        if (recentLogins.replace(key, last, now)) {
+          break;
+        }
+        last = recentLogins.putIfAbsent(key, now);
+      }
+    }
+    return super.record(login);
+  }
+
+  @Override
+  public void flush() {
+    long expired = System.currentTimeMillis() - dedupWindow;
+    for (Iterator<Long> iterator = recentLogins.values().iterator(); iterator.hasNext(); ) {
+      if (iterator.next() < expired) {
+        iterator.remove();
+      }
+    }
+    super.flush();
+  }
+
+  private static String getKey(UserLogin login) {
+    return login.getUserProfileID() + "\n" + login.getSessionId() + "\n" + login.getIP() + "\n" + login.getUserAgent();
+  }
+
+  /**
+   * @return the number of logins skipped because they were already recorded within the dedup window
+   */
+  public long getDuplicateCount() {
+    return duplicates.get();
+  }
+
+  /**
+   * @param dedupWindow milliseconds during which an identical login isn't recorded again; 0 records every login
+   */
+  public void setDedupWindow(long dedupWindow) {
+    this.dedupWindow = dedupWindow;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.UserSearch;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes user searches to the userSearch table in batches.  The columns here have to match UserSearch.hbm.xml.
+ * <p/>
+ * Search logging must never hold up a search, so the queue always drops searches when it's full instead of waiting.
+ * For busy sites, searches can be sampled, and the rollup mode stops writing a row per search and instead logs how many
+ * times each query was run per flush to the org.ambraproject.service.user.UserSearchRecorder.rollup category, as
+ * "count, query" lines.
+ */
+public class UserSearchRecorder extends WriteBehindRecorder<UserSearch> {
+  private static final Logger log = LoggerFactory.getLogger(UserSearchRecorder.class);
+  private static final Logger rollupLog = LoggerFactory.getLogger(UserSearchRecorder.class.getName() + ".rollup");
+
+  private double sampleRate = 1.0;
+  private boolean rollup = false;
+
+  private final Random random = new Random();
+  private final AtomicLong sampledOut = new AtomicLong();
+  //only touched while flushing, which locks it
+  private final Map<String, Integer> rollupCounts = new HashMap<String, Integer>();
+
+  public UserSearchRecorder() {
+    super.setOverflowPolicy(OverflowPolicy.DROP);
+  }
+
+  @Override
+  protected String getInsertSql() {
+    return "insert into userSearch (created, userProfileID, searchString, searchTerms) values (?, ?, ?, ?)";
+  }
+
+  @Override
+  protected void bind(PreparedStatement statement, UserSearch search) throws SQLException {
+    statement.setTimestamp(1, new Timestamp(search.getCreated().getTime()));
+    statement.setLong(2, search.getUserProfileID());
+    statement.setString(3, search.getSearchParams());
+    statement.setString(4, search.getSearchTerms());
+  }
+
+  /**
+   * Queue a search to be logged, unless it's sampled out.
+   *
+   * @param search the search
+   * @return true if the search was queued
+   */
+  @Override
+  public boolean record(UserSearch search) {
+    if (sampleRate < 1.0 && random.nextDouble() >= sampleRate) {
+      sampledOut.incrementAndGet();
+      return false;
+    }
+    return super.record(search);
+  }
+
+  @Override
+  public void flush() {
+    //not synchronized on this, since the request threads lock it to start the flush thread
+    synchronized (rollupCounts) {
+      super.flush();
+
+      if (!rollupCounts.isEmpty()) {
+        for (Map.Entry<String, Integer> entry : rollupCounts.entrySet()) {
+          rollupLog.info("{}, {}", entry.getValue(), entry.getKey());
+        }
+        rollupCounts.clear();
+      }
+    }
+  }
+
+  @Override
+  protected void write(List<UserSearch> batch) {
+    if (!rollup) {
+      super.write(batch);
+      return;
+    }
+
+    for (UserSearch search : batch) {
+      Integer count = rollupCounts.get(search.getSearchTerms());
+      rollupCounts.put(search.getSearchTerms(), count == null ? 1 : count + 1);
+    }
+  }
+
+  /**
+   * Search logging doesn't block, so only {@link OverflowPolicy#DROP} is allowed
+   */
+  @Override
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    if (overflowPolicy != OverflowPolicy.DROP) {
+      log.warn("Ignoring overflow policy {} for search logging; searches are dropped when the queue is full",
+          overflowPolicy);
+    }
+  }
+
+  /**
+   * @return the number of searches that were skipped by sampling
+   */
+  public long getSampledOutCount() {
+    return sampledOut.get();
+  }
+
+  /**
+   * @param sampleRate the fraction of searches to log, between 0 and 1
+   */
+  public void setSampleRate(double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * @param rollup true to log a count per query on each flush instead of writing a row per search
+   */
+  public void setRollup(boolean rollup) {
+    this.rollup = rollup;
+  }
+}
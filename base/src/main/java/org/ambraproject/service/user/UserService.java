@@ -26,6 +26,7 @@ import org.ambraproject.service.search.SearchParameters;
 import org.ambraproject.util.Pair;
 import org.ambraproject.views.OrcidAuthorization;
 import org.ambraproject.views.SavedSearchView;
+import org.ambraproject.views.UserLoginView;
 
 import java.util.List;
 
@@ -38,13 +39,15 @@ import java.util.List;
 public interface UserService {
 
   /**
-   * Login the user for the auth id with the given login info.  Return an AmbraUser object for display/caching purposes.
+   * Login the user for the auth id with the given login info.  Return the user's login view for display/caching
+   * purposes; use {@link #getUser(Long)} for the full profile.  The login may be written to the database after this
+   * returns.
    *
    * @param authId    the auth id of the user being logged in
    * @param loginInfo detached UserLogin object holding login information (browser, ip, etc.)
-   * @return the user object
+   * @return the user's id, names and roles, or null if there's no such user
    */
-  public UserProfile login(final String authId, final UserLogin loginInfo);
+  public UserLoginView login(final String authId, final UserLogin loginInfo);
 
   /**
    * Get the user specified by the given id
@@ -216,7 +219,7 @@ public interface UserService {
    * @param userId the id of the user
    * @param articleId the id of the article
    * @param type the type of view (e.g. Article view, XML download, etc.)
-   * @return the id of the article view that was stored
+   * @return the id of the article view that was stored, or 0 if it was queued to be stored later or not stored
    */
   public Long recordArticleView(Long userId, Long articleId, ArticleView.Type type);
 
@@ -225,7 +228,7 @@ public interface UserService {
    * @param userProfileID the id of the user
    * @param searchTerms the search terms entered
    * @param searchParams all other parameters serialized
-   * @return the id of the log entry created
+   * @return the id of the log entry created, or 0 if it was queued to be stored later or not stored
    */
   public Long recordUserSearch(Long userProfileID, String searchTerms, String searchParams);
 
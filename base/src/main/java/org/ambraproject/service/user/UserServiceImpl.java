@@ -29,12 +29,14 @@ import org.ambraproject.models.UserOrcid;
 import org.ambraproject.models.UserProfile;
 import org.ambraproject.models.UserSearch;
 import org.ambraproject.service.hibernate.HibernateServiceImpl;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
 import org.ambraproject.service.permission.PermissionsService;
 import org.ambraproject.service.search.SearchParameters;
 import org.ambraproject.util.Pair;
 import org.ambraproject.util.TextUtils;
 import org.ambraproject.views.OrcidAuthorization;
 import org.ambraproject.views.SavedSearchView;
+import org.ambraproject.views.UserLoginView;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.lang.ArrayUtils;
@@ -80,19 +82,48 @@ public class UserServiceImpl extends HibernateServiceImpl implements UserService
   private PermissionsService permissionsService;
   private Configuration configuration;
   private boolean advancedLogging = false;
+  private WriteBehindRecorder<ArticleView> articleViewRecorder;
+  private WriteBehindRecorder<UserSearch> userSearchRecorder;
+  private WriteBehindRecorder<UserLogin> userLoginRecorder;
 
   @Override
   @Transactional(rollbackFor = {Throwable.class})
-  public UserProfile login(final String authId, final UserLogin loginInfo) {
+  public UserLoginView login(final String authId, final UserLogin loginInfo) {
     log.debug("logging in user with auth id {}", authId);
-    UserProfile user = getUserByAuthId(authId);
+    UserLoginView user = getLoginView(authId);
     if (user != null && this.advancedLogging) {
       loginInfo.setUserProfileID(user.getID());
-      hibernateTemplate.save(loginInfo);
+      if (userLoginRecorder != null) {
+        userLoginRecorder.record(loginInfo);
+      } else {
+        hibernateTemplate.save(loginInfo);
+      }
     }
     return user;
   }
 
+  /**
+   * Select the columns of a user profile kept in the session, and the names of its roles, rather than loading the
+   * profile along with its saved searches on every login.
+   *
+   * @param authId the auth id of the user
+   * @return the user's login view, or null if there's no such user
+   */
+  @SuppressWarnings("unchecked")
+  private UserLoginView getLoginView(String authId) {
+    List<Object[]> rows = (List<Object[]>) hibernateTemplate.find(
+        "select u.ID, u.authId, u.displayName, u.email from UserProfile u where u.authId = ?", authId);
+    if (rows.isEmpty()) {
+      log.warn("Didn't find user for authID: {}", authId);
+      return null;
+    }
+
+    Object[] row = rows.get(0);
+    List<String> roleNames = (List<String>) hibernateTemplate.find(
+        "select r.roleName from UserProfile u join u.roles r where u.ID = ?", row[0]);
+    return new UserLoginView((Long) row[0], (String) row[1], (String) row[2], (String) row[3], roleNames);
+  }
+
   @Override
   @Transactional(readOnly = true)
   public UserProfile getUserByAuthId(String authId) {
@@ -600,20 +631,26 @@ public class UserServiceImpl extends HibernateServiceImpl implements UserService
   @Override
   @Transactional
   public Long recordArticleView(Long userId, Long articleId, ArticleView.Type type) {
-    if (this.advancedLogging) {
-      return (Long) hibernateTemplate.save(new ArticleView(userId, articleId, type));
-    } else {
+    if (!this.advancedLogging) {
+      return 0L;
+    } else if (articleViewRecorder != null) {
+      articleViewRecorder.record(new ArticleView(userId, articleId, type));
       return 0L;
+    } else {
+      return (Long) hibernateTemplate.save(new ArticleView(userId, articleId, type));
     }
   }
 
   @Override
   @Transactional
   public Long recordUserSearch(Long userProfileID, String searchTerms, String searchParams) {
-    if (this.advancedLogging) {
-      return (Long) hibernateTemplate.save(new UserSearch(userProfileID, searchTerms, searchParams));
-    } else {
+    if (!this.advancedLogging) {
+      return 0L;
+    } else if (userSearchRecorder != null) {
+      userSearchRecorder.record(new UserSearch(userProfileID, searchTerms, searchParams));
       return 0L;
+    } else {
+      return (Long) hibernateTemplate.save(new UserSearch(userProfileID, searchTerms, searchParams));
     }
   }
 
@@ -694,6 +731,27 @@ public class UserServiceImpl extends HibernateServiceImpl implements UserService
     this.permissionsService = permissionsService;
   }
 
+  /**
+   * @param articleViewRecorder when set, article views are queued on this instead of being saved right away
+   */
+  public void setArticleViewRecorder(WriteBehindRecorder<ArticleView> articleViewRecorder) {
+    this.articleViewRecorder = articleViewRecorder;
+  }
+
+  /**
+   * @param userSearchRecorder when set, searches are queued on this instead of being saved right away
+   */
+  public void setUserSearchRecorder(WriteBehindRecorder<UserSearch> userSearchRecorder) {
+    this.userSearchRecorder = userSearchRecorder;
+  }
+
+  /**
+   * @param userLoginRecorder when set, logins are queued on this instead of being saved right away
+   */
+  public void setUserLoginRecorder(WriteBehindRecorder<UserLogin> userLoginRecorder) {
+    this.userLoginRecorder = userLoginRecorder;
+  }
+
   @Required
   public void setConfiguration(Configuration configuration) {
     this.configuration = configuration;
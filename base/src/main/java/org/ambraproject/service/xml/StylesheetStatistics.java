@@ -0,0 +1,77 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.xml;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compile and transform timings of one stylesheet, published by {@link XMLServiceImpl} through the MBeanExporter.
+ */
+public class StylesheetStatistics implements StylesheetStatisticsMBean {
+  private final String stylesheet;
+  private final AtomicLong compiles = new AtomicLong();
+  private final AtomicLong lastCompileTime = new AtomicLong();
+  private final AtomicLong totalCompileTime = new AtomicLong();
+  private final AtomicLong transforms = new AtomicLong();
+  private final AtomicLong totalTransformTime = new AtomicLong();
+
+  public StylesheetStatistics(String stylesheet) {
+    this.stylesheet = stylesheet;
+  }
+
+  public void recordCompile(long millis) {
+    compiles.incrementAndGet();
+    lastCompileTime.set(millis);
+    totalCompileTime.addAndGet(millis);
+  }
+
+  public void recordTransform(long millis) {
+    transforms.incrementAndGet();
+    totalTransformTime.addAndGet(millis);
+  }
+
+  public String getStylesheet() {
+    return stylesheet;
+  }
+
+  public long getCompiles() {
+    return compiles.get();
+  }
+
+  public long getLastCompileTime() {
+    return lastCompileTime.get();
+  }
+
+  public long getTotalCompileTime() {
+    return totalCompileTime.get();
+  }
+
+  public long getTransforms() {
+    return transforms.get();
+  }
+
+  public long getTotalTransformTime() {
+    return totalTransformTime.get();
+  }
+
+  public double getAverageTransformTime() {
+    long count = transforms.get();
+    return count == 0 ? 0 : (double) totalTransformTime.get() / count;
+  }
+
+  public void reset() {
+    transforms.set(0);
+    totalTransformTime.set(0);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.xml;
+
+/**
+ * JMX view of the compilations and transforms of one stylesheet used by an {@link XMLServiceImpl}.
+ */
+public interface StylesheetStatisticsMBean {
+
+  public String getStylesheet();
+
+  /**
+   * @return the number of times the stylesheet has been compiled, including reloads
+   */
+  public long getCompiles();
+
+  /**
+   * @return the time taken by the most recent compilation, in milliseconds
+   */
+  public long getLastCompileTime();
+
+  /**
+   * @return the total time spent compiling the stylesheet, in milliseconds
+   */
+  public long getTotalCompileTime();
+
+  public long getTransforms();
+
+  /**
+   * @return the total time spent in transforms, in milliseconds
+   */
+  public long getTotalTransformTime();
+
+  /**
+   * @return the mean time of a transform, in milliseconds
+   */
+  public double getAverageTransformTime();
+
+  /**
+   * Resets the transform counters to zero.
+   */
+  public void reset();
+}
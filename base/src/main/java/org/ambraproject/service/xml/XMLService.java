@@ -27,6 +27,8 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.URISyntaxException;
 
 /**
@@ -65,6 +67,26 @@ public interface XMLService {
 
   public InputStream getTransformedInputStream(InputStream xml) throws ApplicationException;
 
+  /**
+   * Transform the XML read from the given stream, writing the output straight to the caller's stream instead of
+   * buffering the whole result in memory.  Neither stream is closed.
+   *
+   * @param xml the XML to transform
+   * @param out where the transformed document is written
+   * @throws ApplicationException
+   */
+  public void transform(InputStream xml, OutputStream out) throws ApplicationException;
+
+  /**
+   * Transform the given XML Document, writing the output straight to the caller's writer instead of buffering the
+   * whole result in memory.  The writer is not closed.
+   *
+   * @param doc the XML to transform
+   * @param out where the transformed document is written
+   * @throws ApplicationException
+   */
+  public void transform(Document doc, Writer out) throws ApplicationException;
+
   /**
    * Given a string as input, will return an XML string representing the document after
    * transformation.
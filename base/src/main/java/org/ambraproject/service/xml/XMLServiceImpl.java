@@ -22,12 +22,16 @@ import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.jmx.export.MBeanExportException;
+import org.springframework.jmx.export.MBeanExportOperations;
 import org.ambraproject.ApplicationException;
 import org.ambraproject.xml.transform.cache.CachedSource;
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -38,7 +42,13 @@ import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Convenience class to aggregate common methods used to deal with XML transforms on articles.
@@ -68,12 +78,17 @@ public class XMLServiceImpl implements XMLService {
   private String articleRep;
   private Map<String, String> xmlFactoryProperty;
   private boolean validateArticleXml = true;
+  private long reloadCheckInterval = 0;
+  private MBeanExportOperations mbeanExporter;
 
-  // designed for Singleton use, set in init(), then Templates are threadsafe for reuse
-  private Templates translet;             // initialized from xslTemplate, per bean property
+  // designed for Singleton use, filled in init(), then Templates are threadsafe for reuse.  Keyed by stylesheet
+  // name, so a stylesheet mapped to several dtd versions is only compiled once
+  private final ConcurrentMap<String, CompiledStylesheet> stylesheets =
+      new ConcurrentHashMap<String, CompiledStylesheet>();
 
   /**
-   * Initialization method called by Spring.
+   * Initialization method called by Spring.  Compiles the default stylesheet and every stylesheet in the
+   * dtd-version map.
    *
    * @throws org.ambraproject.ApplicationException On Template creation Exceptions.
    */
@@ -86,16 +101,18 @@ public class XMLServiceImpl implements XMLService {
     factory.setNamespaceAware(true);
     factory.setValidating(false);
 
-    // set the Templates
-    final TransformerFactory tFactory = TransformerFactory.newInstance();
-
-    //Because we have XSL sheets with import statements.  I override the URI resolver
-    //here so the factory knows to look inside the jar files for these files
-    tFactory.setURIResolver(new XMLServiceURIResolver());
+    Set<String> templateNames = new LinkedHashSet<String>();
+    templateNames.add(xslDefaultTemplate);
+    templateNames.addAll(xslTemplateMap.values());
 
     try {
-      log.debug("Loading XSL: {}", xslDefaultTemplate);
-      translet = tFactory.newTemplates(getResourceAsStreamSource(xslDefaultTemplate));
+      for (String templateName : templateNames) {
+        if (!stylesheets.containsKey(templateName)) {
+          StylesheetStatistics statistics = new StylesheetStatistics(templateName);
+          export(statistics);
+          stylesheets.put(templateName, compile(templateName, statistics));
+        }
+      }
     } catch (TransformerConfigurationException ex) {
       throw new ApplicationException(ex.getMessage(), ex);
     } catch (IOException ex) {
@@ -141,11 +158,9 @@ public class XMLServiceImpl implements XMLService {
       if (log.isDebugEnabled())
         log.debug("Applying XSLT transform to the document...");
 
-      final DOMSource domSource = new DOMSource(doc);
-      final Transformer transformer = getTranslet(doc);
       final Writer writer = new StringWriter(1000);
 
-      transformer.transform(domSource, new StreamResult(writer));
+      applyStylesheet(doc, new StreamResult(writer));
       transformedString = writer.toString();
     } catch (Exception e) {
       throw new ApplicationException(e);
@@ -158,11 +173,9 @@ public class XMLServiceImpl implements XMLService {
     try {
 
       Document doc = createDocBuilder().parse(new ByteArrayInputStream(xml));
-      Transformer transformer = this.getTranslet(doc);
-      DOMSource domSource = new DOMSource(doc);
 
       ByteArrayOutputStream bs = new ByteArrayOutputStream();
-      transformer.transform(domSource, new StreamResult(bs));
+      applyStylesheet(doc, new StreamResult(bs));
       return bs.toByteArray();
     } catch (Exception e) {
       throw new ApplicationException(e);
@@ -171,14 +184,25 @@ public class XMLServiceImpl implements XMLService {
 
   @Override
   public InputStream getTransformedInputStream(InputStream xml) throws ApplicationException {
-    try {
-      final Writer writer = new StringWriter(1000);
+    ByteArrayOutputStream bs = new ByteArrayOutputStream();
+    transform(xml, bs);
+    return new ByteArrayInputStream(bs.toByteArray());
+  }
 
+  @Override
+  public void transform(InputStream xml, OutputStream out) throws ApplicationException {
+    try {
       Document doc = createDocBuilder().parse(xml);
-      Transformer transformer = this.getTranslet(doc);
-      DOMSource domSource = new DOMSource(doc);
-      transformer.transform(domSource, new StreamResult(writer));
-      return new ByteArrayInputStream(writer.toString().getBytes("UTF-8"));
+      applyStylesheet(doc, new StreamResult(out));
+    } catch (Exception e) {
+      throw new ApplicationException(e);
+    }
+  }
+
+  @Override
+  public void transform(Document doc, Writer out) throws ApplicationException {
+    try {
+      applyStylesheet(doc, new StreamResult(out));
     } catch (Exception e) {
       throw new ApplicationException(e);
     }
@@ -198,11 +222,9 @@ public class XMLServiceImpl implements XMLService {
     try {
       final DocumentBuilder builder = createDocBuilder();
       Document desc = builder.parse(new InputSource(new StringReader("<desc>" + description + "</desc>")));
-      final DOMSource domSource = new DOMSource(desc);
-      final Transformer transformer = getTranslet(desc);
       final Writer writer = new StringWriter();
 
-      transformer.transform(domSource,new StreamResult(writer));
+      applyStylesheet(desc, new StreamResult(writer));
       transformedString = writer.toString();
     } catch (Exception e) {
       throw new ApplicationException(e);
@@ -230,40 +252,109 @@ public class XMLServiceImpl implements XMLService {
   }
 
   /**
-   * Get a translet, compiled stylesheet, for the xslTemplate. If the doc is null
-   * use the default template. If the doc is not null then get the DTD version.
-   * IF the DTD version does not exist use the default template else use the
+   * Apply the stylesheet for the document to it, recording the transform time against that stylesheet.
+   *
+   * @param doc the document to transform
+   * @param result where the output of the transform goes
+   * @throws javax.xml.transform.TransformerException TransformerException.
+   */
+  private void applyStylesheet(Document doc, Result result) throws TransformerException {
+    CompiledStylesheet stylesheet = getStylesheet(doc);
+    Transformer transformer = stylesheet.templates.newTransformer();
+    transformer.setParameter("pubAppContext", configuration.getString("ambra.platform.appContext", ""));
+
+    long start = System.currentTimeMillis();
+    transformer.transform(new DOMSource(doc), result);
+    stylesheet.statistics.recordTransform(System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Get the compiled stylesheet for the xslTemplate. If the doc is null use the default template. If the doc is
+   * not null then get the DTD version. IF the DTD version does not exist use the default template else use the
    * template associated with that version.
+   * <p/>
+   * If a reload check interval is set and the stylesheet file has changed since it was compiled, the stylesheet is
+   * recompiled first.  Only the top level stylesheet is checked, not the files it imports.
    *
    * @param  doc  the dtd version of document
-   * @return Translet for the xslTemplate.
-   * @throws javax.xml.transform.TransformerException TransformerException.
+   * @return the compiled stylesheet
    */
-  private Transformer getTranslet(Document doc) throws TransformerException, URISyntaxException, IOException {
-    Transformer transformer;
+  private CompiledStylesheet getStylesheet(Document doc) {
     // key is "" if the Attribute does not exist
     String key = (doc == null) ? "default" : doc.getDocumentElement().getAttribute("dtd-version").trim();
 
-    if ((!xslTemplateMap.containsKey(key)) || (key.equalsIgnoreCase(""))) {
-      transformer = this.translet.newTransformer();
-    } else {
-      Templates translet;
-      String templateName = xslTemplateMap.get(key);
+    String templateName = xslDefaultTemplate;
+    if (xslTemplateMap.containsKey(key) && !key.equalsIgnoreCase("")) {
+      templateName = xslTemplateMap.get(key);
+    }
+
+    CompiledStylesheet stylesheet = stylesheets.get(templateName);
+
+    if (reloadCheckInterval > 0 && stylesheet.isCheckDue(reloadCheckInterval)) {
+      long lastModified = getLastModified(templateName);
+
+      if (lastModified != stylesheet.lastModified) {
+        log.info("Stylesheet {} has changed, recompiling", templateName);
+        try {
+          CompiledStylesheet reloaded = compile(templateName, stylesheet.statistics);
+          stylesheets.replace(templateName, stylesheet, reloaded);
+          stylesheet = reloaded;
+        } catch (Exception e) {
+          //Keep serving the last good compilation, the file gets checked again after the next interval
+          log.error("Unable to recompile stylesheet " + templateName, e);
+        }
+      }
+    }
+
+    return stylesheet;
+  }
+
+  private CompiledStylesheet compile(String templateName, StylesheetStatistics statistics)
+      throws TransformerConfigurationException, IOException {
+    final TransformerFactory tFactory = TransformerFactory.newInstance();
+
+    //Because we have XSL sheets with import statements.  I override the URI resolver
+    //here so the factory knows to look inside the jar files for these files
+    tFactory.setURIResolver(new XMLServiceURIResolver());
+
+    log.debug("Loading XSL: {}", templateName);
+    long lastModified = getLastModified(templateName);
+    long start = System.currentTimeMillis();
+    Templates templates = tFactory.newTemplates(getResourceAsStreamSource(templateName));
+    long elapsed = System.currentTimeMillis() - start;
 
-      // set the Templates
-      final TransformerFactory tFactory = TransformerFactory.newInstance();
-      //Because we have XSL sheets with import statements.  I override the URI resolver
-      //here so the factory knows to look inside the jar files for these files
-      tFactory.setURIResolver(new XMLServiceURIResolver());
+    statistics.recordCompile(elapsed);
+    log.info("Compiled stylesheet {} in {}ms", templateName, elapsed);
 
-      //TODO: (performace) We should cache the translets when this class is initialized.  We don't need
-      //to parse the XSLs for every transform.
+    return new CompiledStylesheet(templates, statistics, lastModified);
+  }
+
+  /**
+   * @return the last modified time of the stylesheet, looked up the same way as {@link
+   *         #getResourceAsStreamSource(String)}; 0 if it can't be determined
+   */
+  private long getLastModified(String filename) {
+    URL loc = getClass().getClassLoader().getResource(filename);
 
-      translet = tFactory.newTemplates(getResourceAsStreamSource(templateName));
-      transformer = translet.newTransformer();
+    if (loc == null) {
+      return new File(filename).lastModified();
+    }
+
+    try {
+      if ("file".equals(loc.getProtocol())) {
+        return new File(loc.toURI()).lastModified();
+      }
+
+      URLConnection connection = loc.openConnection();
+      try {
+        return connection.getLastModified();
+      } finally {
+        connection.getInputStream().close();
+      }
+    } catch (Exception e) {
+      log.debug("Unable to get the last modified time of " + filename, e);
+      return 0;
     }
-    transformer.setParameter("pubAppContext", configuration.getString("ambra.platform.appContext", ""));
-    return transformer;
   }
 
   /**
@@ -327,6 +418,32 @@ public class XMLServiceImpl implements XMLService {
     this.validateArticleXml = validateArticleXml;
   }
 
+  /**
+   * @param reloadCheckInterval how often, in milliseconds, to check whether a stylesheet file has changed and
+   *     recompile it.  0, the default, never reloads stylesheets.
+   */
+  public void setReloadCheckInterval(long reloadCheckInterval) {
+    this.reloadCheckInterval = reloadCheckInterval;
+  }
+
+  /**
+   * @param mbeanExporter the exporter to publish the statistics of each stylesheet through, as
+   *     <code>org.ambraproject:type=Stylesheet,service=&lt;default stylesheet&gt;,name=&lt;stylesheet&gt;</code>.
+   *     They aren't published if it isn't set.
+   */
+  public void setMbeanExporter(MBeanExportOperations mbeanExporter) {
+    this.mbeanExporter = mbeanExporter;
+  }
+
+  /**
+   * @param templateName the name of a configured stylesheet
+   * @return the compile and transform statistics of the stylesheet, or null if it isn't configured
+   */
+  public StylesheetStatistics getStatistics(String templateName) {
+    CompiledStylesheet stylesheet = stylesheets.get(templateName);
+    return stylesheet == null ? null : stylesheet.statistics;
+  }
+
   /**
    * @return Returns the articleRep.
    */
@@ -334,6 +451,23 @@ public class XMLServiceImpl implements XMLService {
     return articleRep;
   }
 
+  private void export(StylesheetStatistics statistics) {
+    if (mbeanExporter == null) {
+      return;
+    }
+
+    try {
+      //the default stylesheet tells apart services that share a stylesheet
+      mbeanExporter.registerManagedResource(statistics, new ObjectName("org.ambraproject:type=Stylesheet,service="
+          + ObjectName.quote(xslDefaultTemplate) + ",name=" + ObjectName.quote(statistics.getStylesheet())));
+    } catch (MalformedObjectNameException e) {
+      log.warn("Unable to publish statistics for stylesheet " + statistics.getStylesheet(), e);
+    } catch (MBeanExportException e) {
+      //e.g. another service with the same default stylesheet already published it
+      log.warn("Unable to publish statistics for stylesheet " + statistics.getStylesheet(), e);
+    }
+  }
+
   private StreamSource getResourceAsStreamSource(String filename) throws IOException {
     log.debug("Loading: {}", filename);
 
@@ -370,4 +504,27 @@ public class XMLServiceImpl implements XMLService {
       }
     }
   }
+
+  private static class CompiledStylesheet {
+    private final Templates templates;
+    private final StylesheetStatistics statistics;
+    private final long lastModified;
+    private final AtomicLong lastChecked;
+
+    private CompiledStylesheet(Templates templates, StylesheetStatistics statistics, long lastModified) {
+      this.templates = templates;
+      this.statistics = statistics;
+      this.lastModified = lastModified;
+      this.lastChecked = new AtomicLong(System.currentTimeMillis());
+    }
+
+    /**
+     * @return true for exactly one caller once the interval has passed since the last check
+     */
+    private boolean isCheckDue(long interval) {
+      long now = System.currentTimeMillis();
+      long checked = lastChecked.get();
+      return now - checked >= interval && lastChecked.compareAndSet(checked, now);
+    }
+  }
 }
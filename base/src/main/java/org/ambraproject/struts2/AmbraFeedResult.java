@@ -33,6 +33,7 @@ import org.ambraproject.service.article.NoSuchObjectIdException;
 import org.ambraproject.service.feed.FeedSearchParameters;
 import org.ambraproject.service.feed.FeedService;
 import org.ambraproject.service.feed.FeedService.FEED_TYPES;
+import org.ambraproject.service.search.SolrHit;
 import org.ambraproject.views.article.ArticleInfo;
 import org.ambraproject.views.article.ArticleType;
 import org.ambraproject.models.AnnotationType;
@@ -51,10 +52,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.transaction.annotation.Transactional;
 import org.ambraproject.configuration.ConfigurationStore;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -244,7 +241,7 @@ public class AmbraFeedResult extends Feed implements Result {
         entries = buildAnnotationFeed(xmlBase, null, trackbacks, searchParams.getMaxResults(), searchParams.getFormatting());
         break;
       case Article:
-        Document solrResult = (Document) ai.getStack().findValue("ResultFromSolr");
+        List<SolrHit> solrResult = (List<SolrHit>) ai.getStack().findValue("ResultFromSolr");
         entries = buildArticleFeed(searchParams, xmlBase, solrResult);
         break;
       case Issue:
@@ -385,143 +382,91 @@ public class AmbraFeedResult extends Feed implements Result {
    * @param result       list of articles
    * @return List of entries for the feed
    */
-  private List<Entry> buildArticleFeed(FeedSearchParameters searchParams, String xmlBase, Document result) {
+  private List<Entry> buildArticleFeed(FeedSearchParameters searchParams, String xmlBase, List<SolrHit> result) {
     // Add each Article as a Feed Entry
     List<Entry> entries = new ArrayList<Entry>();
 
     // default is 2pm local time
     int publishTime = CONF.getInt("ambra.services.feed.publishTime", 14);
 
-    NodeList nodes = result.getElementsByTagName("result");
-    NodeList docs = null;
-    // there should be only one 
-    if (nodes.getLength() == 1) {
-      Node node = nodes.item(0);
-      docs = node.getChildNodes();
-    }
-
-    // looping through children of result element
-    for (int i = 0; i < docs.getLength(); i++) {
-      // doc element
-      Node doc = docs.item(i);
-
+    for (SolrHit doc : result) {
       Entry entry = new Entry();
 
-      String volume = null;
-      String issue = null;
-      String articleType = null;
-      String abstractText = null;
-      String copyright = null;
-      NodeList authorsForContent = null;
-      Node subjectHierarchyNode = null;
-
-      // children elements of doc element
-      NodeList fields = doc.getChildNodes();
-
-      for (int j = 0; j < fields.getLength(); j++) {
-        Node field = fields.item(j);
-        NamedNodeMap nnm = field.getAttributes();
-        Node attrNameNode = nnm.getNamedItem("name");
-        String attrName = attrNameNode.getNodeValue();
-
-        if (attrName.equals("id")) {
-
-          // id
-          entry.setId("info:doi/" + field.getTextContent());
-
-        } else if (attrName.equals("copyright")) {
-
-          // rights
-          copyright = field.getTextContent();
-
-        } else if (attrName.equals("publication_date")) {
-
-          // published and updated dates
-
-          // the only values we care about are the month, day and year
-          String date = field.getTextContent();
-          int year = Integer.valueOf(date.substring(0, 4));
-          int month = Integer.valueOf(date.substring(5, 7));
-          int day = Integer.valueOf(date.substring(8, 10));
-
-          // we want the local time zone
-          Calendar cal = Calendar.getInstance();
-          cal.set(Calendar.YEAR, year);
-          // month value is 0 based
-          cal.set(Calendar.MONTH, month - 1);
-          cal.set(Calendar.DAY_OF_MONTH, day);
-          cal.set(Calendar.HOUR_OF_DAY, publishTime);
-          cal.set(Calendar.MINUTE, 0);
-          cal.set(Calendar.SECOND, 0);
-
-          entry.setPublished(cal.getTime());
-          entry.setUpdated(cal.getTime());
-
-        } else if (attrName.equals("title_display")) {
-
-          // title
-          if (includeformatting) {
-            Content title = new Content();
-            title.setType("html");
-            title.setValue(field.getTextContent());
-            entry.setTitleEx(title);
-          } else {
-            entry.setTitle(TextUtils.simpleStripAllTags(field.getTextContent()));
-          }
-
-        } else if (attrName.equals("author_display")) {
-
-          // display ALL the authors in the content element
-          // authors and collab authors
-          authorsForContent = field.getChildNodes();
-
-        } else if (attrName.equals("author_without_collab_display")) {
-
-          // authors (without the collaborative authors)
-          ArrayList<Person> authors = newAuthorsList(searchParams, field);
-          entry.setAuthors(authors);
-
-        } else if (attrName.equals("author_collab_only_display")) {
-
-          // contributors (collaborative authors)
-          List<Person> contributors = new ArrayList<Person>();
-          NodeList children = field.getChildNodes();
-          for (int k = 0; k < children.getLength(); k++) {
-            Node child = children.item(k);
-            Person contributor = new Person();
-            contributor.setName(child.getTextContent());
-            contributors.add(contributor);
-          }
-          entry.setContributors(contributors);
-
-        } else if (attrName.equals("volume")) {
-
-          // volume (used for ForeignMarkup)
-          volume = field.getTextContent();
-
-        } else if (attrName.equals("issue")) {
-
-          // issue (used for ForeignMarkup)
-          issue = field.getTextContent();
+      // id
+      if (doc.hasField("id")) {
+        entry.setId("info:doi/" + doc.getString("id"));
+      }
 
-        } else if (attrName.equals("article_type")) {
+      // rights
+      String copyright = doc.getString("copyright");
+
+      // published and updated dates
+      if (doc.hasField("publication_date")) {
+        // the only values we care about are the month, day and year
+        String date = doc.getString("publication_date");
+        int year = Integer.valueOf(date.substring(0, 4));
+        int month = Integer.valueOf(date.substring(5, 7));
+        int day = Integer.valueOf(date.substring(8, 10));
+
+        // we want the local time zone
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.YEAR, year);
+        // month value is 0 based
+        cal.set(Calendar.MONTH, month - 1);
+        cal.set(Calendar.DAY_OF_MONTH, day);
+        cal.set(Calendar.HOUR_OF_DAY, publishTime);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+
+        entry.setPublished(cal.getTime());
+        entry.setUpdated(cal.getTime());
+      }
 
-          // article type (used for ForeignMarkup)
-          articleType = field.getTextContent();
+      // title
+      if (doc.hasField("title_display")) {
+        if (includeformatting) {
+          Content title = new Content();
+          title.setType("html");
+          title.setValue(doc.getString("title_display"));
+          entry.setTitleEx(title);
+        } else {
+          entry.setTitle(TextUtils.simpleStripAllTags(doc.getString("title_display")));
+        }
+      }
 
-        } else if (attrName.equals("subject_hierarchy")) {
-          subjectHierarchyNode = field;
+      // display ALL the authors in the content element
+      // authors and collab authors
+      List<String> authorsForContent = doc.hasField("author_display") ? doc.getStrings("author_display") : null;
 
-        } else if (attrName.equals("abstract_primary_display")) {
+      // authors (without the collaborative authors)
+      if (doc.hasField("author_without_collab_display")) {
+        ArrayList<Person> authors = newAuthorsList(searchParams, doc.getStrings("author_without_collab_display"));
+        entry.setAuthors(authors);
+      }
 
-          // abstract (used in Contents)
-          abstractText = field.getTextContent();
+      // contributors (collaborative authors)
+      if (doc.hasField("author_collab_only_display")) {
+        List<Person> contributors = new ArrayList<Person>();
+        for (String name : doc.getStrings("author_collab_only_display")) {
+          Person contributor = new Person();
+          contributor.setName(name);
+          contributors.add(contributor);
         }
+        entry.setContributors(contributors);
       }
 
+      // volume, issue and article type (used for ForeignMarkup)
+      String volume = doc.getString("volume");
+      String issue = doc.getString("issue");
+      String articleType = doc.getString("article_type");
+      List<String> subjectHierarchy = doc.hasField("subject_hierarchy") ? doc.getStrings("subject_hierarchy") : null;
+
+      // abstract (used in Contents)
+      String abstractText = doc.getString("abstract_primary_display");
+
       // foreign markup
       if (searchParams.isExtended()) {
-        List<Element> foreignMarkup = newForeignMarkUp(subjectHierarchyNode, volume, issue, articleType);
+        List<Element> foreignMarkup = newForeignMarkUp(subjectHierarchy, volume, issue, articleType);
         if (foreignMarkup.size() > 0) {
           entry.setForeignMarkup(foreignMarkup);
         }
@@ -721,16 +666,12 @@ public class AmbraFeedResult extends Feed implements Result {
    * @param articleType article type
    * @return <code>List&lt;Elements&gt;</code> of foreign markup elements with issue, volume and category information
    */
-  private List<Element> newForeignMarkUp(Node subject, String volume, String issue, String articleType) {
+  private List<Element> newForeignMarkUp(List<String> subject, String volume, String issue, String articleType) {
     List<Element> foreignMarkup = new ArrayList<Element>();
 
     if (subject != null) {
       // subject, category
-      NodeList children = subject.getChildNodes();
-
-      for (int k = 0; k < children.getLength(); k++) {
-        Node node = children.item(k);
-        String category = node.getTextContent();
+      for (String category : subject) {
         int index = category.indexOf("/");
 
         Element feedCategory = new Element("category", ATOM_NS);
@@ -828,7 +769,7 @@ public class AmbraFeedResult extends Feed implements Result {
    * @param abstractText      abstract
    * @return List<Content> consisting of HTML descriptions of the article and author
    */
-  private List<Content> newContentsList(FeedSearchParameters searchParams, NodeList authorsForContent, String abstractText) {
+  private List<Content> newContentsList(FeedSearchParameters searchParams, List<String> authorsForContent, String abstractText) {
     // contents
     List<Content> contents = new ArrayList<Content>();
     Content description = new Content();
@@ -840,12 +781,11 @@ public class AmbraFeedResult extends Feed implements Result {
     if (authorsForContent != null) {
       if (!searchParams.isExtended()) {
         StringBuilder authorNames = new StringBuilder();
-        for (int k = 0; k < authorsForContent.getLength(); k++) {
+        for (String author : authorsForContent) {
           if (authorNames.length() > 0) {
             authorNames.append(", ");
           }
-          Node node = authorsForContent.item(k);
-          authorNames.append(node.getTextContent());
+          authorNames.append(author);
         }
         text.append("<p>by ").append(authorNames.toString()).append("</p>\n");
       }
@@ -975,26 +915,24 @@ public class AmbraFeedResult extends Feed implements Result {
    * Get the list of authors for an entry
    *
    * @param searchParams input parameters
-   * @param field        author node
+   * @param names        author names
    * @return list of authors
    */
-  private ArrayList<Person> newAuthorsList(FeedSearchParameters searchParams, Node field) {
+  private ArrayList<Person> newAuthorsList(FeedSearchParameters searchParams, List<String> names) {
     ArrayList<Person> authors = new ArrayList<Person>();
 
-    NodeList children = field.getChildNodes();
     if (searchParams.isExtended()) {
       // If extended then create a list of persons containing all the authors.
-      for (int i = 0; i < children.getLength(); i++) {
-        Node node = children.item(i);
+      for (String name : names) {
         Person person = new Person();
-        person.setName(node.getTextContent());
+        person.setName(name);
         authors.add(person);
       }
-    } else if (children.getLength() >= 1) {
+    } else if (names.size() >= 1) {
       // Not extended therefore there will only be one author.
       Person person = new Person();
-      String author = children.item(0).getTextContent();
-      if (children.getLength() > 1) {
+      String author = names.get(0);
+      if (names.size() > 1) {
         author = author + " et al.";
       }
       person.setName(author);
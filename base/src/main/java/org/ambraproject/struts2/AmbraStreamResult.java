@@ -90,23 +90,36 @@ public class AmbraStreamResult extends StreamResult {
 
     String contentType = getProperty("contentType", this.contentType, invocation);
 
-    Long contentLength = (Long) invocation.getStack().findValue("contentLength");
-    if (contentLength == null)
-      throw new IllegalArgumentException("'contentLength' must be set in '"
-        + invocation.getAction().getClass());
-
-    if (log.isDebugEnabled())
-      log.debug("Received InputStream of length="+contentLength);
-
-    resource = new HttpResourceServer.Resource(name, contentType, contentLength, lastModified) {
-      public byte[] getContent() {
-        return null;
-      }
-
-      public InputStream streamContent() throws IOException {
-        return inputStream;
-      }
-    };
+    // An action can hand back a transformer to have the stream converted while it is written to the response,
+    // in which case the length of the output isn't known up front
+    HttpResourceServer.ContentTransformer contentTransformer =
+      (HttpResourceServer.ContentTransformer) invocation.getStack().findValue("contentTransformer");
+
+    if (contentTransformer != null) {
+      resource = new HttpResourceServer.TransformedResource(name, contentType, lastModified, contentTransformer) {
+        public InputStream streamContent() throws IOException {
+          return inputStream;
+        }
+      };
+    } else {
+      Long contentLength = (Long) invocation.getStack().findValue("contentLength");
+      if (contentLength == null)
+        throw new IllegalArgumentException("'contentLength' must be set in '"
+          + invocation.getAction().getClass());
+
+      if (log.isDebugEnabled())
+        log.debug("Received InputStream of length="+contentLength);
+
+      resource = new HttpResourceServer.Resource(name, contentType, contentLength, lastModified) {
+        public byte[] getContent() {
+          return null;
+        }
+
+        public InputStream streamContent() throws IOException {
+          return inputStream;
+        }
+      };
+    }
 
     HttpServletRequest  oRequest = (HttpServletRequest) invocation.getInvocationContext().get(HTTP_REQUEST);
 
@@ -22,8 +22,8 @@ package org.ambraproject.struts2;
 import com.opensymphony.xwork2.ActionInvocation;
 import com.opensymphony.xwork2.interceptor.AbstractInterceptor;
 import org.ambraproject.models.UserLogin;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.user.UserService;
+import org.ambraproject.views.UserLoginView;
 import org.apache.struts2.ServletActionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,7 +80,7 @@ public class EnsureUserAccountInterceptor extends AbstractInterceptor {
       return actionInvocation.invoke();
     } else {
       //STEP 2: check if there's a user object in the session
-      UserProfile ambraUser = (UserProfile) session.get(AMBRA_USER_KEY);
+      UserLoginView ambraUser = (UserLoginView) session.get(AMBRA_USER_KEY);
       if (ambraUser == null) {
         //No user object, so we must just be returning from CAS.  Look up the user in the db, and record their login
         final HttpServletRequest request = ServletActionContext.getRequest();
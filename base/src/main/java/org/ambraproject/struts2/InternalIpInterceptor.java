@@ -17,32 +17,45 @@ import com.opensymphony.xwork2.ActionInvocation;
 import com.opensymphony.xwork2.interceptor.AbstractInterceptor;
 import org.apache.struts2.ServletActionContext;
 
+import javax.servlet.http.HttpServletRequest;
+
 /**
- * Struts interceptor that sets a session attribute if the request originates
+ * Struts interceptor that sets a request attribute if the request originates
  * from an "internal" IP.  The idea here is to allow certain functionality only
  * to users within the organization.
+ * <p/>
+ * The flag is kept on the request rather than in the session so that anonymous
+ * requests don't need a session; it's cheap to work out again for every request.
  */
 public class InternalIpInterceptor extends AbstractInterceptor {
 
   /**
-   * Key for the session attribute that will be set only if the request
+   * Key for the request attribute that will be set to whether the request
    * comes from an internal IP.
    */
-  public static final String INTERNAL_SESSION_KEY = "ambraproject_isInternalIp";
+  public static final String INTERNAL_REQUEST_KEY = "ambraproject_isInternalIp";
 
   @Override
   public String intercept(final ActionInvocation actionInvocation) throws Exception {
-    String ip = ServletActionContext.getRequest().getRemoteAddr();
-    boolean internal = false;
+    HttpServletRequest request = ServletActionContext.getRequest();
+    request.setAttribute(INTERNAL_REQUEST_KEY, isInternalIp(request.getRemoteAddr()));
+    return actionInvocation.invoke();
+  }
+
+  /**
+   * @param request the request
+   * @return true if the request comes from an internal IP
+   */
+  public static boolean isInternal(HttpServletRequest request) {
+    Boolean internal = (Boolean) request.getAttribute(INTERNAL_REQUEST_KEY);
+    return (internal != null) ? internal : isInternalIp(request.getRemoteAddr());
+  }
 
+  private static boolean isInternalIp(String ip) {
     // TODO: this is really bare-bones right now.  Expand this to include the external
     // IPs of offices if necessary.  Also, refactor this so that it plays nice with
     // non-PLOS installations.  (We can get away with this for now since our developers
     // are all in the SF office, accessing SF servers.)
-    if (ip.startsWith("10.135.") || "127.0.0.1".equals(ip)) {
-      internal = true;
-    }
-    actionInvocation.getInvocationContext().getSession().put(INTERNAL_SESSION_KEY, internal);
-    return actionInvocation.invoke();
+    return ip != null && (ip.startsWith("10.135.") || "127.0.0.1".equals(ip));
   }
 }
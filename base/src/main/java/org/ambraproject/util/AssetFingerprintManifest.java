@@ -0,0 +1,176 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.util;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Fingerprints of the css and javascript files under one or more directories, worked out when the webapp and the
+ * journals are built so that {@link VersionedFileDirective} doesn't have to read and hash the files at runtime.
+ * <p/>
+ * A manifest file is a properties file of paths, relative to the directory it describes, to fingerprints.  The
+ * webapp's is WEB-INF/asset-fingerprints.properties and the journals' is journals/asset-fingerprints.properties in the
+ * journal template directory.  They're written by {@link #main} during the build.
+ */
+public class AssetFingerprintManifest {
+  private static final Logger log = LoggerFactory.getLogger(AssetFingerprintManifest.class);
+
+  /**
+   * Name of manifest files
+   */
+  public static final String FILE_NAME = "asset-fingerprints.properties";
+
+  private static final String[] EXTENSIONS = {"css", "js"};
+
+  private final List<Root> roots = new ArrayList<Root>();
+
+  /**
+   * Load the manifest describing a directory, if there is one.
+   *
+   * @param directory the directory whose files are in the manifest
+   * @param manifest the manifest file
+   * @return true if the manifest was loaded
+   */
+  public boolean load(File directory, File manifest) {
+    if (!manifest.isFile()) {
+      log.info("No asset fingerprint manifest at " + manifest + "; fingerprints will be computed at runtime");
+      return false;
+    }
+
+    Properties fingerprints = new Properties();
+    try {
+      InputStream in = new FileInputStream(manifest);
+      try {
+        fingerprints.load(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      log.warn("Unable to read asset fingerprint manifest " + manifest, e);
+      return false;
+    }
+
+    roots.add(new Root(directory.getAbsolutePath(), fingerprints));
+    log.info("Loaded " + fingerprints.size() + " asset fingerprints for " + directory + " from " + manifest);
+    return true;
+  }
+
+  /**
+   * Look up the fingerprint of a file.
+   *
+   * @param filepath the real filesystem path of the file
+   * @return the fingerprint, or null if the file isn't in a manifest
+   */
+  public String getFingerprint(String filepath) {
+    String path = new File(filepath).getAbsolutePath();
+    for (Root root : roots) {
+      if (path.startsWith(root.directory) && path.length() > root.directory.length()
+          && path.charAt(root.directory.length()) == File.separatorChar) {
+        String fingerprint = root.fingerprints.getProperty(
+            path.substring(root.directory.length() + 1).replace(File.separatorChar, '/'));
+        if (fingerprint != null) {
+          return fingerprint;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if no manifest has been loaded
+   */
+  public boolean isEmpty() {
+    return roots.isEmpty();
+  }
+
+  /**
+   * Fingerprint the css and javascript files under some directories.
+   *
+   * @param directories the directories; a directory may be given as <code>prefix=directory</code> to prefix the
+   *                    paths of its files with <code>prefix/</code>.  Later directories override earlier ones.
+   * @return the relative paths and fingerprints
+   * @throws IOException on an error reading a file
+   */
+  static Properties generate(String... directories) throws IOException {
+    Properties fingerprints = new Properties();
+    for (String arg : directories) {
+      int equals = arg.indexOf('=');
+      String prefix = (equals < 0) ? "" : arg.substring(0, equals) + "/";
+      File directory = new File(equals < 0 ? arg : arg.substring(equals + 1)).getAbsoluteFile();
+      if (!directory.isDirectory()) {
+        log.warn("Not fingerprinting " + directory + ", it's not a directory");
+        continue;
+      }
+
+      for (File file : FileUtils.listFiles(directory, EXTENSIONS, true)) {
+        String path = file.getAbsolutePath().substring(directory.getPath().length() + 1)
+            .replace(File.separatorChar, '/');
+        fingerprints.setProperty(prefix + path, TextUtils.createHash(FileUtils.readFileToByteArray(file)));
+      }
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Write a manifest.  Run during the build:
+   * <pre>AssetFingerprintManifest &lt;manifest file&gt; [prefix=]&lt;directory&gt;...</pre>
+   *
+   * @param args the manifest file to write, then the directories to fingerprint as for {@link #generate}
+   * @throws IOException on an error reading a file or writing the manifest
+   */
+  public static void main(String... args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: AssetFingerprintManifest <manifest file> [prefix=]<directory>...");
+      System.exit(1);
+    }
+
+    String[] directories = new String[args.length - 1];
+    System.arraycopy(args, 1, directories, 0, directories.length);
+    Properties fingerprints = generate(directories);
+
+    File manifest = new File(args[0]);
+    if (manifest.getParentFile() != null) {
+      manifest.getParentFile().mkdirs();
+    }
+    OutputStream out = new FileOutputStream(manifest);
+    try {
+      fingerprints.store(out, "Generated by " + AssetFingerprintManifest.class.getName() + ", do not edit");
+    } finally {
+      out.close();
+    }
+    System.out.println("Wrote " + fingerprints.size() + " asset fingerprints to " + manifest);
+  }
+
+  private static class Root {
+    private final String directory;
+    private final Properties fingerprints;
+
+    private Root(String directory, Properties fingerprints) {
+      this.directory = directory;
+      this.fingerprints = fingerprints;
+    }
+  }
+}
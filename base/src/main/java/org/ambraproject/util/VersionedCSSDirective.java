@@ -16,6 +16,7 @@ package org.ambraproject.util;
 import freemarker.template.TemplateBooleanModel;
 import freemarker.template.TemplateException;
 
+import javax.servlet.ServletContext;
 import java.util.Map;
 
 /**
@@ -27,6 +28,10 @@ import java.util.Map;
  */
 public class VersionedCSSDirective extends VersionedFileDirective {
 
+  public VersionedCSSDirective(ServletContext servletContext) {
+    super(servletContext);
+  }
+
   @Override
   public String getLink(String filename, String fingerprint, Map params) throws TemplateException {
     Object mediaParam = params.get("media");
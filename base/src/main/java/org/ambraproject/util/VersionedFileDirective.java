@@ -48,6 +48,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * should function correctly--the browser will use the copy from its cache if and only if the file remains unchanged
  * on the server.
  * <p/>
+ * Fingerprints are looked up in the {@link AssetFingerprintManifest}s generated by the build for the webapp and the
+ * journals, unless ambra.platform.fingerprintManifest is false.  Files that aren't in a manifest are hashed when
+ * they're first linked to.
+ * <p/>
  * This class uses caching internally for performance, so a server restart is necessary when any static files
  * referenced by subclasses are changed.
  */
@@ -61,6 +65,8 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
    */
   private static final int CACHE_PURGE_DELAY = 15 * 60 * 1000;
 
+  private static final String CONF_FINGERPRINT_MANIFEST = "ambra.platform.fingerprintManifest";
+
   /**
    * Cache used to store fingerprint values.  We do this since it might significantly impact the performance of the
    * server if we re-checksum every file every time the server gets a request for it.
@@ -76,7 +82,23 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
    */
   private Timer cachePurgeTimer;
 
-  public VersionedFileDirective() {
+  /**
+   * Fingerprints worked out during the build; loaded when the first link is rendered.
+   */
+  private volatile AssetFingerprintManifest manifest;
+
+  /**
+   * The webapp's context, for turning application-base paths into real paths.  Passed in rather than taken from the
+   * request, since Servlet 2.5 requests only have it through their session, and most of the pages linking to static
+   * files are served without one.
+   */
+  private final ServletContext servletContext;
+
+  /**
+   * @param servletContext the context of the webapp serving the files
+   */
+  public VersionedFileDirective(ServletContext servletContext) {
+    this.servletContext = servletContext;
     cachePurgeTimer = new Timer("fingerprintCache purging timer", true);
     cachePurgeTimer.schedule(new TimerTask() {
       @Override
@@ -96,6 +118,13 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
    * @throws TemplateException
    */
   String getFingerprint(String filepath) throws IOException, TemplateException {
+    if (manifest != null) {
+      String fingerprint = manifest.getFingerprint(filepath);
+      if (fingerprint != null) {
+        return fingerprint;
+      }
+    }
+
     String cached = fingerprintCache.get(filepath);
     if (cached != null) {
       return cached;
@@ -120,9 +149,10 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
     }
     String filename = params.get("file").toString();
 
-    // We need a ServletContext in order to convert application-base paths into real paths.  It's a little
-    // cumbersome to get one from here.
     HttpServletRequest request = ((HttpRequestHashModel) environment.getDataModel().get("Request")).getRequest();
+    if (manifest == null) {
+      setManifest(loadManifest(servletContext, ConfigurationStore.getInstance().getConfiguration()));
+    }
     String path;
     try {
       path = getRealPath(filename, request);
@@ -138,6 +168,41 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
     }
   }
 
+  /**
+   * Load the webapp's and the journals' fingerprint manifests.
+   *
+   * @param servletContext the servlet context of the webapp
+   * @param configuration the configuration, which has the journal template directory
+   * @return the manifests; empty if there aren't any or they're turned off
+   */
+  static AssetFingerprintManifest loadManifest(ServletContext servletContext, Configuration configuration) {
+    AssetFingerprintManifest manifest = new AssetFingerprintManifest();
+    if (!configuration.getBoolean(CONF_FINGERPRINT_MANIFEST, true)) {
+      return manifest;
+    }
+
+    String webappPath = servletContext.getRealPath("/");
+    if (webappPath != null) {
+      File webappDir = new File(webappPath);
+      manifest.load(webappDir, new File(webappDir, "WEB-INF/" + AssetFingerprintManifest.FILE_NAME));
+    }
+
+    String templatePath = configuration.getString(ConfigurationStore.JOURNAL_TEMPLATE_DIR, null);
+    if (templatePath != null) {
+      File templateDir = new File(templatePath);
+      manifest.load(templateDir, new File(templateDir, "journals/" + AssetFingerprintManifest.FILE_NAME));
+    }
+
+    return manifest;
+  }
+
+  /**
+   * @param manifest the fingerprints to use for the files in it
+   */
+  void setManifest(AssetFingerprintManifest manifest) {
+    this.manifest = manifest;
+  }
+
   /**
    * Resolves the filesystem path based on a web request path.  This is made complicated by
    * {@link org.ambraproject.web.VirtualJournalMappingFilter}, which remaps certain paths to journal-specific paths.
@@ -151,7 +216,6 @@ public abstract class VersionedFileDirective implements TemplateDirectiveModel {
   private String getRealPath(final String path, HttpServletRequest request) throws ServletException {
     VirtualJournalContext vjc =
         (VirtualJournalContext) request.getAttribute(VirtualJournalContext.PUB_VIRTUALJOURNAL_CONTEXT);
-    ServletContext servletContext = request.getSession().getServletContext();
 
     // This is somewhat of a hack.  VirtualJournalContext.mapRequest was originally written to be called with an
     // HttpServletRequest (supplied by VirtualJournalMappingFilter).  To reuse the code, we create a fake request
@@ -15,6 +15,7 @@ package org.ambraproject.util;
 
 import freemarker.template.TemplateException;
 
+import javax.servlet.ServletContext;
 import java.util.Map;
 
 /**
@@ -26,6 +27,10 @@ import java.util.Map;
  */
 public class VersionedJSDirective extends VersionedFileDirective {
 
+  public VersionedJSDirective(ServletContext servletContext) {
+    super(servletContext);
+  }
+
   @Override
   public String getLink(String filename, String fingerprint, Map params) throws TemplateException {
     return String.format("<script type=\"text/javascript\" src=\"%s?v=%s\"></script>\n", filename, fingerprint);
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.views;
+
+import org.ambraproject.models.UserProfile;
+import org.ambraproject.models.UserRole;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The logged in user, as kept in the session.  Only holds the columns the pages and actions read off the current
+ * user, so it can't be mistaken for a loaded profile and saved back; anything that needs the rest of the profile loads
+ * it by {@link #getID()}.
+ */
+public class UserLoginView implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final Long ID;
+  private final String authId;
+  private final String displayName;
+  private final String email;
+  private final Set<String> roleNames;
+
+  public UserLoginView(UserProfile userProfile) {
+    this(userProfile.getID(), userProfile.getAuthId(), userProfile.getDisplayName(), userProfile.getEmail(),
+        toRoleNames(userProfile.getRoles()));
+  }
+
+  public UserLoginView(Long ID, String authId, String displayName, String email, Collection<String> roleNames) {
+    this.ID = ID;
+    this.authId = authId;
+    this.displayName = displayName;
+    this.email = email;
+    this.roleNames = Collections.unmodifiableSet(new HashSet<String>(roleNames));
+  }
+
+  private static Set<String> toRoleNames(Collection<UserRole> roles) {
+    Set<String> names = new HashSet<String>();
+    if (roles != null) {
+      for (UserRole role : roles) {
+        names.add(role.getRoleName());
+      }
+    }
+    return names;
+  }
+
+  public Long getID() {
+    return ID;
+  }
+
+  public String getAuthId() {
+    return authId;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  /**
+   * Get the names of the user's roles
+   *
+   * @return the role names, empty if the user has none
+   */
+  public Set<String> getRoleNames() {
+    return roleNames;
+  }
+
+  @Override
+  public String toString() {
+    return "UserLoginView{" +
+        "ID=" + ID +
+        ", authId='" + authId + '\'' +
+        ", displayName='" + displayName + '\'' +
+        '}';
+  }
+}
@@ -245,6 +245,46 @@ public class ArticleInfo extends BaseArticleInfo implements Serializable {
     this.strkImgURI = strkImgURI;
   }
 
+  /**
+   * Make a shallow copy of this article info with different categories.  Everything else is shared with this
+   * instance, so neither should be modified afterwards.
+   *
+   * @param categories the categories of the copy
+   * @param orderedCategories the categories of the copy in display order
+   * @return the copy
+   */
+  public ArticleInfo copyWithCategories(Set<ArticleCategory> categories, List<ArticleCategory> orderedCategories) {
+    ArticleInfo copy = new ArticleInfo(doi);
+
+    copy.date = date;
+    copy.title = title;
+    copy.authors = authors;
+    copy.articleTypes = articleTypes;
+    copy.journals = journals;
+    copy.eIssn = eIssn;
+    copy.types = types;
+
+    copy.id = id;
+    copy.relatedArticles = relatedArticles;
+    copy.collaborativeAuthors = collaborativeAuthors;
+    copy.publisher = publisher;
+    copy.rights = rights;
+    copy.description = description;
+    copy.journal = journal;
+    copy.pages = pages;
+    copy.eLocationId = eLocationId;
+    copy.volume = volume;
+    copy.issue = issue;
+    copy.articleAssets = articleAssets;
+    copy.citedArticles = citedArticles;
+    copy.strkImgURI = strkImgURI;
+
+    copy.categories = categories;
+    copy.orderedCategories = orderedCategories;
+
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2007-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.views.article;
+
+import org.ambraproject.views.AuthorView;
+import org.ambraproject.views.CitationReference;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The data extracted from an article's xml for display, held without the DOM it was read from so it can be cached.
+ * <p/>
+ * Instances are immutable; the collections returned are unmodifiable and shared between requests.
+ */
+public class ParsedArticle {
+  private final String doi;
+  private final String version;
+  private final List<AuthorView> authors;
+  private final Map<String, List<AuthorView>> authorsByAffiliation;
+  private final List<String> correspondingAuthors;
+  private final List<String> authorContributions;
+  private final List<String> competingInterests;
+  private final List<CitationReference> references;
+  private final String journalAbbreviation;
+
+  private ParsedArticle(Builder builder) {
+    doi = builder.doi;
+    version = builder.version;
+    authors = unmodifiable(builder.authors);
+    correspondingAuthors = unmodifiable(builder.correspondingAuthors);
+    authorContributions = unmodifiable(builder.authorContributions);
+    competingInterests = unmodifiable(builder.competingInterests);
+    references = unmodifiable(builder.references);
+    journalAbbreviation = builder.journalAbbreviation;
+
+    Map<String, List<AuthorView>> byAffiliation = new LinkedHashMap<String, List<AuthorView>>();
+    if (builder.authorsByAffiliation != null) {
+      for (Map.Entry<String, List<AuthorView>> entry : builder.authorsByAffiliation.entrySet()) {
+        byAffiliation.put(entry.getKey(), unmodifiable(entry.getValue()));
+      }
+    }
+    authorsByAffiliation = Collections.unmodifiableMap(byAffiliation);
+  }
+
+  private static <T> List<T> unmodifiable(List<T> list) {
+    return list == null ? Collections.<T>emptyList() : Collections.unmodifiableList(list);
+  }
+
+  public String getDoi() {
+    return doi;
+  }
+
+  /**
+   * @return identifies the revision of the article xml this was extracted from
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  public List<AuthorView> getAuthors() {
+    return authors;
+  }
+
+  public Map<String, List<AuthorView>> getAuthorsByAffiliation() {
+    return authorsByAffiliation;
+  }
+
+  public List<String> getCorrespondingAuthors() {
+    return correspondingAuthors;
+  }
+
+  public List<String> getAuthorContributions() {
+    return authorContributions;
+  }
+
+  public List<String> getCompetingInterests() {
+    return competingInterests;
+  }
+
+  public List<CitationReference> getReferences() {
+    return references;
+  }
+
+  public String getJournalAbbreviation() {
+    return journalAbbreviation;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+    private Builder() {
+      super();
+    }
+
+    private String doi;
+    private String version;
+    private List<AuthorView> authors;
+    private Map<String, List<AuthorView>> authorsByAffiliation;
+    private List<String> correspondingAuthors;
+    private List<String> authorContributions;
+    private List<String> competingInterests;
+    private List<CitationReference> references;
+    private String journalAbbreviation;
+
+    public Builder setDoi(String doi) {
+      this.doi = doi;
+      return this;
+    }
+
+    public Builder setVersion(String version) {
+      this.version = version;
+      return this;
+    }
+
+    public Builder setAuthors(List<AuthorView> authors) {
+      this.authors = authors;
+      return this;
+    }
+
+    public Builder setAuthorsByAffiliation(Map<String, List<AuthorView>> authorsByAffiliation) {
+      this.authorsByAffiliation = authorsByAffiliation;
+      return this;
+    }
+
+    public Builder setCorrespondingAuthors(List<String> correspondingAuthors) {
+      this.correspondingAuthors = correspondingAuthors;
+      return this;
+    }
+
+    public Builder setAuthorContributions(List<String> authorContributions) {
+      this.authorContributions = authorContributions;
+      return this;
+    }
+
+    public Builder setCompetingInterests(List<String> competingInterests) {
+      this.competingInterests = competingInterests;
+      return this;
+    }
+
+    public Builder setReferences(List<CitationReference> references) {
+      this.references = references;
+      return this;
+    }
+
+    public Builder setJournalAbbreviation(String journalAbbreviation) {
+      this.journalAbbreviation = journalAbbreviation;
+      return this;
+    }
+
+    public ParsedArticle build() {
+      return new ParsedArticle(this);
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * A response wrapper that writes through to the response and keeps a copy of what was written, up to a maximum size,
+ * so that the same response can be sent again by {@link BufferedResponse#replay}.
+ * <p/>
+ * The status and headers are recorded as they're set, since a Servlet 2.5 response can't be asked for them.  Whether
+ * to keep a copy of the content is decided by {@link #shouldCopy()} when the first of it is written.
+ */
+class BufferingResponseWrapper extends HttpServletResponseWrapper {
+  private final int maxBufferSize;
+
+  private boolean copyStarted;
+  private ByteArrayOutputStream buffer;
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+  private int status = SC_OK;
+  private boolean error;
+  private String redirect;
+  private final Map<String, List<String>> headers =
+      new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+
+  /**
+   * @param response the response to write to
+   * @param maxBufferSize the most bytes to keep a copy of; a longer response can't be replayed
+   */
+  BufferingResponseWrapper(HttpServletResponse response, int maxBufferSize) {
+    super(response);
+    this.maxBufferSize = maxBufferSize;
+  }
+
+  /**
+   * Whether to keep a copy of the response.  Asked once, just before the first of the content is written, or when
+   * the copy is taken if there wasn't any content.
+   *
+   * @return true to keep a copy; false if nothing will replay the response
+   */
+  protected boolean shouldCopy() {
+    return true;
+  }
+
+  private void startCopy() {
+    if (!copyStarted) {
+      copyStarted = true;
+      buffer = shouldCopy() ? new ByteArrayOutputStream() : null;
+    }
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (writer != null)
+      throw new IllegalStateException("getWriter() has already been called");
+    if (outputStream == null)
+      outputStream = new TeeOutputStream(super.getOutputStream());
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      if (outputStream != null)
+        throw new IllegalStateException("getOutputStream() has already been called");
+      outputStream = new TeeOutputStream(super.getOutputStream());
+      writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    if (writer != null)
+      writer.flush();
+    super.flushBuffer();
+  }
+
+  @Override
+  public void setStatus(int sc) {
+    status = sc;
+    super.setStatus(sc);
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public void setStatus(int sc, String sm) {
+    status = sc;
+    super.setStatus(sc, sm);
+  }
+
+  @Override
+  public void sendError(int sc) throws IOException {
+    status = sc;
+    error = true;
+    super.sendError(sc);
+  }
+
+  @Override
+  public void sendError(int sc, String msg) throws IOException {
+    status = sc;
+    error = true;
+    super.sendError(sc, msg);
+  }
+
+  @Override
+  public void sendRedirect(String location) throws IOException {
+    status = SC_MOVED_TEMPORARILY;
+    redirect = location;
+    super.sendRedirect(location);
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    putHeader(name, value, false);
+    super.setHeader(name, value);
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    putHeader(name, value, true);
+    super.addHeader(name, value);
+  }
+
+  @Override
+  public void setDateHeader(String name, long date) {
+    putHeader(name, formatDate(date), false);
+    super.setDateHeader(name, date);
+  }
+
+  @Override
+  public void addDateHeader(String name, long date) {
+    putHeader(name, formatDate(date), true);
+    super.addDateHeader(name, date);
+  }
+
+  @Override
+  public void setIntHeader(String name, int value) {
+    putHeader(name, String.valueOf(value), false);
+    super.setIntHeader(name, value);
+  }
+
+  @Override
+  public void addIntHeader(String name, int value) {
+    putHeader(name, String.valueOf(value), true);
+    super.addIntHeader(name, value);
+  }
+
+  private void putHeader(String name, String value, boolean add) {
+    List<String> values = headers.get(name);
+    if (values == null || !add) {
+      values = new ArrayList<String>(1);
+      headers.put(name, values);
+    }
+    values.add(value);
+  }
+
+  private static String formatDate(long date) {
+    //RFC 1123 date, as the container would send it
+    SimpleDateFormat fmt = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
+    fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return fmt.format(new Date(date));
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    if (buffer != null)
+      buffer.reset();
+    status = SC_OK;
+    error = false;
+    redirect = null;
+    headers.clear();
+  }
+
+  @Override
+  public void resetBuffer() {
+    super.resetBuffer();
+    if (buffer != null)
+      buffer.reset();
+  }
+
+  /**
+   * Take a copy of the response for replaying.  Flushes anything written to the writer.
+   *
+   * @return the response, or null if it was too long to keep or wasn't copied
+   */
+  BufferedResponse getBufferedResponse() {
+    if (writer != null)
+      writer.flush();
+    startCopy();
+    if (buffer == null)
+      return null;
+
+    Map<String, List<String>> replayed = new LinkedHashMap<String, List<String>>();
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      String name = header.getKey();
+      //cookies are the client's own, the rest are sent separately
+      if (!"Set-Cookie".equalsIgnoreCase(name) && !"Content-Type".equalsIgnoreCase(name)
+          && !"Content-Length".equalsIgnoreCase(name)) {
+        replayed.put(name, new ArrayList<String>(header.getValue()));
+      }
+    }
+
+    return new BufferedResponse(status, error, redirect, getContentType(), replayed, buffer.toByteArray());
+  }
+
+  /**
+   * A copy of a response
+   */
+  static class BufferedResponse {
+    private final int status;
+    private final boolean error;
+    private final String redirect;
+    private final String contentType;
+    private final Map<String, List<String>> headers;
+    private final byte[] content;
+
+    private BufferedResponse(int status, boolean error, String redirect, String contentType,
+        Map<String, List<String>> headers, byte[] content) {
+      this.status = status;
+      this.error = error;
+      this.redirect = redirect;
+      this.contentType = contentType;
+      this.headers = headers;
+      this.content = content;
+    }
+
+    /**
+     * Send this response again.
+     *
+     * @param response the response to send it to
+     * @throws IOException on an error writing the response
+     */
+    void replay(HttpServletResponse response) throws IOException {
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        for (String value : header.getValue()) {
+          response.addHeader(header.getKey(), value);
+        }
+      }
+
+      if (redirect != null) {
+        response.sendRedirect(redirect);
+      } else if (error) {
+        response.sendError(status);
+      } else {
+        response.setStatus(status);
+        if (contentType != null)
+          response.setContentType(contentType);
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+      }
+    }
+
+    int getStatus() {
+      return status;
+    }
+
+    byte[] getContent() {
+      return content;
+    }
+  }
+
+  private class TeeOutputStream extends ServletOutputStream {
+    private final ServletOutputStream out;
+
+    private TeeOutputStream(ServletOutputStream out) {
+      this.out = out;
+    }
+
+    private void copy(byte[] b, int off, int len) {
+      startCopy();
+      if (buffer != null) {
+        if (buffer.size() + len > maxBufferSize)
+          buffer = null;
+        else
+          buffer.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      copy(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      copy(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+
+    /*
+     * The webapp compiles against the Servlet 3.1 API but runs on 2.5 containers, which don't have non-blocking
+     * output, so these don't call through to the wrapped stream.  Writes always block.
+     */
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new IllegalStateException("The response is only written with blocking output");
+    }
+  }
+}
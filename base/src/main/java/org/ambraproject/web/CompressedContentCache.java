@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds gzipped copies of files, so that a file without a precompressed .gz sibling is only compressed once per
+ * version.  Entries are keyed by path and modification time, so a changed file is compressed again, and the least
+ * recently used entries are evicted once the compressed bytes held go over the maximum size.
+ */
+public class CompressedContentCache {
+  private static final Logger log = LoggerFactory.getLogger(CompressedContentCache.class);
+
+  private final long maxSize;
+  private final long maxFileSize;
+
+  //access ordered, so iteration starts with the least recently used
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+  private long size = 0;
+
+  /**
+   * @param maxSize the most compressed bytes to hold
+   * @param maxFileSize the largest file to compress
+   */
+  public CompressedContentCache(long maxSize, long maxFileSize) {
+    this.maxSize = maxSize;
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+   * @param length the length of a file
+   * @return true if a file of that length is small enough to compress
+   */
+  public boolean accepts(long length) {
+    return length <= maxFileSize && length <= maxSize;
+  }
+
+  /**
+   * Get the gzipped content of a file, compressing it if it's not cached.  Two threads may compress the same file at
+   * the same time; the cache isn't locked while compressing.
+   *
+   * @param file the file
+   * @param lastModified the modification time of the file
+   * @return the gzipped content
+   * @throws IOException if the file can't be read
+   */
+  public byte[] get(File file, long lastModified) throws IOException {
+    String key = file.getPath() + ":" + lastModified;
+
+    synchronized (entries) {
+      byte[] compressed = entries.get(key);
+      if (compressed != null)
+        return compressed;
+    }
+
+    byte[] compressed = compress(file);
+    if (log.isDebugEnabled())
+      log.debug("Compressed " + file + " from " + file.length() + " to " + compressed.length + " bytes");
+
+    synchronized (entries) {
+      byte[] previous = entries.put(key, compressed);
+      size += compressed.length - (previous == null ? 0 : previous.length);
+
+      for (Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+           size > maxSize && iterator.hasNext(); ) {
+        size -= iterator.next().getValue().length;
+        iterator.remove();
+      }
+    }
+
+    return compressed;
+  }
+
+  /**
+   * @return the number of compressed bytes held
+   */
+  public long getSize() {
+    synchronized (entries) {
+      return size;
+    }
+  }
+
+  private static byte[] compress(File file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(file.length() / 2 + 64, Integer.MAX_VALUE));
+    InputStream in = new FileInputStream(file);
+    try {
+      GZIPOutputStream out = new GZIPOutputStream(bytes);
+      IOUtils.copy(in, out);
+      out.close();
+    } finally {
+      in.close();
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -25,18 +25,26 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.StringTokenizer;
@@ -76,6 +84,46 @@ public class HttpResourceServer {
    */
   private static final String MIME_SEPARATION = "AMBRA_MIME_BOUNDARY";
 
+  /**
+   * Request attributes through which Tomcat lets the connector write out a file itself, with sendfile.  The end is
+   * exclusive.
+   */
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  /**
+   * Smallest response to hand to the connector's sendfile; below this it isn't worth it.  Same as Tomcat's
+   * DefaultServlet.
+   */
+  private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+  /**
+   * Smallest file to compress on the fly; below this gzip saves next to nothing.
+   */
+  private static final long GZIP_MIN_SIZE = 1024;
+
+  private final CompressedContentCache compressedContentCache;
+
+  /**
+   * Create a server that sends resources as they are.
+   */
+  public HttpResourceServer() {
+    this(null);
+  }
+
+  /**
+   * Create a server that sends compressible file resources gzipped to clients that accept it.  A precompressed
+   * sibling file with a .gz extension is sent when there is an up to date one, and otherwise the file is compressed
+   * and kept in the given cache.
+   *
+   * @param compressedContentCache holds the files compressed on the fly
+   */
+  public HttpResourceServer(CompressedContentCache compressedContentCache) {
+    this.compressedContentCache = compressedContentCache;
+  }
+
   /**
    * Serve the specified resource, optionally including the data content.
    *
@@ -106,21 +154,35 @@ public class HttpResourceServer {
                      throws IOException {
 
     InputStream resourceInputStream = null;
+    FileChannel resourceChannel = null;
+
+    if ((compressedContentCache != null) && (resource instanceof FileResource))
+      resource = negotiateEncoding(request, response, (FileResource) resource);
 
     try {
 
-      resourceInputStream = resource.streamContent();
+      // Seekable resources are only opened once we know what has to be sent, and then through a channel
+      if (!resource.isSeekable())
+        resourceInputStream = resource.streamContent();
 
       // Check if the conditions specified in the optional If headers are satisfied.
       if (!checkIfHeaders(request, response, resource))
         return;
 
+      if (resource instanceof TransformedResource) {
+        serveTransformedResource(response, content, (TransformedResource) resource, resourceInputStream);
+        return;
+      }
+
       // Parse range specifier
       ArrayList<Range> ranges = parseRange(request, response, resource);
       // ETag header
       response.setHeader("ETag", getETag(resource));
       // Last-Modified header
       response.setHeader("Last-Modified", resource.getLastModifiedHttp());
+      // Content-Encoding header; any range applies to the encoded content
+      if (resource.getContentEncoding() != null)
+        response.setHeader("Content-Encoding", resource.getContentEncoding());
 
       // Special case for zero length files, which would cause a
       // (silent) ISE when setting the output buffer size
@@ -145,6 +207,11 @@ public class HttpResourceServer {
             throw e;
           }
         }
+
+        if (ostream != null)
+          resourceChannel = resource.openChannel();
+        if (resourceChannel == null && resourceInputStream == null)
+          resourceInputStream = resource.streamContent();
       }
 
       if ((((ranges == null) || (ranges.isEmpty())) && (request.getHeader("Range") == null))
@@ -156,7 +223,14 @@ public class HttpResourceServer {
 
         // Copy the input stream to our output stream (if requested)
         if (content) {
-          if (ostream != null) {
+          if (resourceChannel != null) {
+            Range range = new Range();
+            range.start = 0;
+            range.end = contentLength - 1;
+            range.length = contentLength;
+            if (!sendFile(request, response, resource, range))
+              copy(resourceChannel, ostream, contentLength);
+          } else if (ostream != null) {
             copy(resource.getContent(), resourceInputStream, ostream);
           } else {
             copy(resourceInputStream, writer);
@@ -183,7 +257,10 @@ public class HttpResourceServer {
           setOutputHeaders(response, contentType, length, content);
 
           if (content) {
-            if (ostream != null) {
+            if (resourceChannel != null) {
+              if (!sendFile(request, response, resource, range))
+                copy(resourceChannel, ostream, range);
+            } else if (ostream != null) {
               copy(resourceInputStream, ostream, range);
             } else {
               copy(resourceInputStream, writer, range);
@@ -199,7 +276,9 @@ public class HttpResourceServer {
               // Silent catch
             }
 
-            if (ostream != null) {
+            if (resourceChannel != null) {
+              copy(resourceChannel, ostream, ranges.iterator(), contentType);
+            } else if (ostream != null) {
               copy(resourceInputStream, ostream, ranges.iterator(), contentType);
             } else {
               copy(resourceInputStream, writer, ranges.iterator(), contentType);
@@ -211,6 +290,162 @@ public class HttpResourceServer {
     } finally {
       if (resourceInputStream != null)
         resourceInputStream.close();
+      if (resourceChannel != null)
+        resourceChannel.close();
+    }
+  }
+
+  /**
+   * Pick the gzipped form of a file resource if it's compressible and the client accepts gzip.
+   *
+   * @param request The servlet request we are processing
+   * @param response The servlet response we are creating
+   * @param resource The resource to send
+   *
+   * @return the resource to send in its place, which may be the same one
+   *
+   * @throws IOException if the file can't be compressed
+   */
+  protected Resource negotiateEncoding(HttpServletRequest request, HttpServletResponse response,
+                                       FileResource resource) throws IOException {
+    if (!isCompressible(resource))
+      return resource;
+
+    // Whichever form is sent, it depends on the Accept-Encoding header
+    response.addHeader("Vary", "Accept-Encoding");
+
+    if (!acceptsGzip(request))
+      return resource;
+
+    File precompressed = new File(resource.getFile().getPath() + ".gz");
+    if (precompressed.isFile() && (precompressed.lastModified() >= resource.getLastModified()))
+      return new GzipFileResource(resource, precompressed);
+
+    if ((resource.getContentLength() >= GZIP_MIN_SIZE)
+         && compressedContentCache.accepts(resource.getContentLength()))
+      return new GzipContentResource(resource,
+          compressedContentCache.get(resource.getFile(), resource.getLastModified()));
+
+    return resource;
+  }
+
+  /**
+   * @param resource a resource
+   *
+   * @return true if the content type of the resource is text, so worth compressing
+   */
+  protected boolean isCompressible(Resource resource) {
+    String contentType = resource.getContentType();
+    if (contentType == null)
+      return false;
+
+    int paramPos = contentType.indexOf(';');
+    if (paramPos != -1)
+      contentType = contentType.substring(0, paramPos);
+    contentType = contentType.trim().toLowerCase(Locale.US);
+
+    return contentType.startsWith("text/") || contentType.endsWith("javascript") || contentType.endsWith("xml")
+           || contentType.endsWith("json");
+  }
+
+  /**
+   * Check the Accept-Encoding header for gzip.  An explicit gzip entry wins over a * entry, and either is refused
+   * with a q value of 0.
+   *
+   * @param request The servlet request we are processing
+   *
+   * @return true if the client accepts gzipped content
+   */
+  protected boolean acceptsGzip(HttpServletRequest request) {
+    Boolean gzip = null;
+    Boolean any  = null;
+
+    Enumeration headers = request.getHeaders("Accept-Encoding");
+    while ((headers != null) && headers.hasMoreElements()) {
+      StringTokenizer commaTokenizer = new StringTokenizer((String) headers.nextElement(), ",");
+
+      while (commaTokenizer.hasMoreTokens()) {
+        String coding   = commaTokenizer.nextToken().trim();
+        boolean accepted = true;
+
+        int paramPos = coding.indexOf(';');
+        if (paramPos != -1) {
+          String param = coding.substring(paramPos + 1).trim();
+          coding = coding.substring(0, paramPos).trim();
+
+          if (param.startsWith("q=")) {
+            try {
+              accepted = Double.parseDouble(param.substring(2).trim()) > 0;
+            } catch (NumberFormatException e) {
+              accepted = false;
+            }
+          }
+        }
+
+        if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip"))
+          gzip = accepted;
+        else if (coding.equals("*"))
+          any = accepted;
+      }
+    }
+
+    if (gzip != null)
+      return gzip;
+    return (any != null) && any;
+  }
+
+  /**
+   * Hand a file resource to the connector to write out with sendfile, if the container supports that.  Nothing else
+   * can be written to the response afterwards, and it mustn't be wrapped, since the connector writes the file
+   * straight to the socket.
+   *
+   * @param request The servlet request we are processing
+   * @param response The servlet response we are creating
+   * @param resource The resource to send
+   * @param range The part of the resource to send
+   *
+   * @return true if the connector will send the file, false if it has to be copied to the response
+   */
+  protected boolean sendFile(HttpServletRequest request, HttpServletResponse response, Resource resource,
+                             Range range) {
+    if (!(resource instanceof FileResource) || (response instanceof HttpServletResponseWrapper)
+         || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+         || (range.end - range.start + 1 < SENDFILE_MIN_SIZE))
+      return false;
+
+    if (log.isDebugEnabled())
+      log.debug("Sendfile response for " + resource);
+
+    request.setAttribute(SENDFILE_FILENAME, ((FileResource) resource).getFile().getAbsolutePath());
+    request.setAttribute(SENDFILE_START, range.start);
+    request.setAttribute(SENDFILE_END, range.end + 1);
+    return true;
+  }
+
+  /**
+   * Serve a resource whose content is produced while it is written out.  The length is unknown until then, so the
+   * whole content is always sent, without a content length and ignoring any Range header.
+   *
+   * @param response The servlet response we are creating
+   * @param content Should the content be included?
+   * @param resource The resource to send
+   * @param resourceInputStream The stream of the resource, handed to its transformer
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private void serveTransformedResource(HttpServletResponse response, boolean content, TransformedResource resource,
+                                        InputStream resourceInputStream) throws IOException {
+    if (log.isDebugEnabled())
+      log.debug("Transformed content response for " + resource);
+
+    response.setHeader("ETag", getETag(resource));
+    response.setHeader("Last-Modified", resource.getLastModifiedHttp());
+    setOutputHeaders(response, resource.getContentType(), -1, content);
+
+    if (content) {
+      OutputStream ostream = response.getOutputStream();
+      resource.getTransformer().transform(resourceInputStream, ostream);
+      ostream.flush();
     }
   }
 
@@ -466,7 +701,9 @@ public class HttpResourceServer {
    * @return the ETag
    */
   protected String getETag(Resource resource) {
-    return "W/\"" + resource.getContentLength() + "-" + resource.getLastModified() + "\"";
+    String encoding = resource.getContentEncoding();
+    return "W/\"" + resource.getContentLength() + "-" + resource.getLastModified()
+           + ((encoding == null) ? "" : "-" + encoding) + "\"";
   }
 
   /**
@@ -779,6 +1016,7 @@ public class HttpResourceServer {
   protected void copy(InputStream resourceInputStream, ServletOutputStream ostream, Iterator ranges,
                       String contentType) throws IOException {
     IOException exception = null;
+    long        position  = 0;
 
     while ((exception == null) && (ranges.hasNext())) {
 
@@ -795,10 +1033,15 @@ public class HttpResourceServer {
                       + currentRange.length);
       ostream.println();
 
-      // Printing content
-      exception = copyRange(resourceInputStream, ostream, currentRange.start, currentRange.end);
-
-//      resourceInputStream.close();
+      // Printing content; the stream can only go forward, so skip from where the last range ended
+      if (currentRange.start < position) {
+        exception = new IOException("Can't serve range " + currentRange.start + "-" + currentRange.end
+                                    + " after reading up to " + position + " of a stream");
+        break;
+      }
+      exception = copyRange(resourceInputStream, ostream, currentRange.start - position,
+                            currentRange.end - position);
+      position = currentRange.end + 1;
     }
 
     ostream.println();
@@ -941,7 +1184,14 @@ public class HttpResourceServer {
       log.trace("Serving bytes:" + start + "-" + end);
 
     try {
-      istream.skip(start);
+      // skip can stop short of what was asked for
+      long toSkip = start;
+      while (toSkip > 0) {
+        long skipped = istream.skip(toSkip);
+        if (skipped <= 0)
+          break;
+        toSkip -= skipped;
+      }
     } catch (IOException e) {
       return e;
     }
@@ -950,26 +1200,21 @@ public class HttpResourceServer {
     long        bytesToRead = end - start + 1;
 
     byte[]      buffer      = new byte[INPUT_BUFFER_SIZE];
-    int         len         = buffer.length;
 
-    while ((bytesToRead > 0) && (len >= buffer.length)) {
+    // Don't read past the end of the range, so that the next range can carry on from the same stream
+    while (bytesToRead > 0) {
       try {
-        len = istream.read(buffer);
+        int len = istream.read(buffer, 0, (int) Math.min(buffer.length, bytesToRead));
 
-        if (bytesToRead >= len) {
-          ostream.write(buffer, 0, len);
-          bytesToRead -= len;
-        } else {
-          ostream.write(buffer, 0, (int) bytesToRead);
-          bytesToRead = 0;
-        }
+        if (len == -1)
+          break;
+
+        ostream.write(buffer, 0, len);
+        bytesToRead -= len;
       } catch (IOException e) {
         exception   = e;
-        len         = -1;
-      }
-
-      if (len < buffer.length)
         break;
+      }
     }
 
     return exception;
@@ -1022,6 +1267,118 @@ public class HttpResourceServer {
     return exception;
   }
 
+  /**
+   * Copy the whole content from a channel to the specified output stream.  As with copying a stream, an IOException is
+   * logged rather than thrown, since it usually just means the client went away.
+   *
+   * @param channel The channel of the Resource object
+   * @param ostream The output stream to write to
+   * @param length The length of the content, as sent in the headers
+   */
+  protected void copy(FileChannel channel, ServletOutputStream ostream, long length) {
+    IOException exception = copyRange(channel, ostream, 0, length - 1);
+
+    if (exception != null)
+      log.warn("Failure while attempting to copy a File Channel to an Output Stream.", exception);
+  }
+
+  /**
+   * Copy a range of a channel to the specified output stream.
+   *
+   * @param channel The channel of the Resource object
+   * @param ostream The output stream to write to
+   * @param range Range the client wanted to retrieve
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  protected void copy(FileChannel channel, ServletOutputStream ostream, Range range) throws IOException {
+    IOException exception = copyRange(channel, ostream, range.start, range.end);
+
+    // Rethrow any exception that has occurred
+    if (exception != null)
+      throw exception;
+  }
+
+  /**
+   * Copy several ranges of a channel to the specified output stream, as a multipart/byteranges body.  Each range is
+   * read from its own offset, so the ranges can come in any order.
+   *
+   * @param channel The channel of the Resource object
+   * @param ostream The output stream to write to
+   * @param ranges Enumeration of the ranges the client wanted to retrieve
+   * @param contentType Content type of the resource
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  protected void copy(FileChannel channel, ServletOutputStream ostream, Iterator ranges, String contentType)
+               throws IOException {
+    IOException exception = null;
+
+    while ((exception == null) && (ranges.hasNext())) {
+
+      Range       currentRange = (Range) ranges.next();
+
+      // Writing MIME header.
+      ostream.println();
+      ostream.println("--" + MIME_SEPARATION);
+
+      if (contentType != null)
+        ostream.println("Content-Type: " + contentType);
+
+      ostream.println("Content-Range: bytes " + currentRange.start + "-" + currentRange.end + "/"
+                      + currentRange.length);
+      ostream.println();
+
+      // Printing content
+      exception = copyRange(channel, ostream, currentRange.start, currentRange.end);
+    }
+
+    ostream.println();
+    ostream.print("--" + MIME_SEPARATION + "--");
+
+    // Rethrow any exception that has occurred
+    if (exception != null)
+      throw exception;
+  }
+
+  /**
+   * Copy a range of a channel to the specified output stream with positional reads, so nothing before the start of
+   * the range is read.  The output stream is wrapped in a channel, so the transfer still copies through a buffer in
+   * the JVM; only {@link #sendFile} hands the file to the connector without copying it.
+   *
+   * @param channel The channel to read from
+   * @param ostream The output stream to write to
+   * @param start Start of the range which will be copied
+   * @param end End of the range which will be copied
+   *
+   * @return Exception which occurred during processing
+   */
+  protected IOException copyRange(FileChannel channel, ServletOutputStream ostream, long start, long end) {
+    if (log.isTraceEnabled())
+      log.trace("Transferring bytes:" + start + "-" + end);
+
+    WritableByteChannel out      = Channels.newChannel(ostream);
+    long                position = start;
+    long                count    = end - start + 1;
+
+    try {
+      while (count > 0) {
+        long transferred = channel.transferTo(position, count, out);
+
+        // the file got shorter
+        if (transferred <= 0)
+          break;
+
+        position += transferred;
+        count    -= transferred;
+      }
+    } catch (IOException e) {
+      return e;
+    }
+
+    return null;
+  }
+
   public static abstract class Resource {
     private final String name;
     private final long      contentLength;
@@ -1055,6 +1412,10 @@ public class HttpResourceServer {
         return "image/png";
       } else if (name.endsWith(".gif")) {
         return "image/gif";
+      } else if (name.endsWith(".svg")) {
+        return "image/svg+xml";
+      } else if (name.endsWith(".xml")) {
+        return "application/xml";
       } else if (name.endsWith(".html")) {
         return "text/html";
       } else if (name.endsWith(".txt")) {
@@ -1076,6 +1437,33 @@ public class HttpResourceServer {
 
     public abstract byte[] getContent();
 
+    /**
+     * Whether the content can be read at any offset without reading through what comes before it.  Seekable
+     * resources are served from {@link #openChannel()} rather than {@link #streamContent()}.
+     *
+     * @return true if {@link #openChannel()} returns a channel
+     */
+    public boolean isSeekable() {
+      return false;
+    }
+
+    /**
+     * @return the encoding the content is in, e.g. gzip, or null if it's sent as is
+     */
+    public String getContentEncoding() {
+      return null;
+    }
+
+    /**
+     * Open a channel on the content, for positional reads.  Only seekable resources have one.
+     *
+     * @return the channel, closed by the server; or null if the resource isn't seekable
+     * @throws IOException on an error
+     */
+    public FileChannel openChannel() throws IOException {
+      return null;
+    }
+
     public long getLastModified() {
       return lastModified;
     }
@@ -1093,6 +1481,40 @@ public class HttpResourceServer {
     }
   }
 
+  /**
+   * Produces the content that is actually served from the stream of a resource, e.g. by running it through a
+   * stylesheet.
+   */
+  public interface ContentTransformer {
+    /**
+     * @param in the stream of the resource; closed by the server
+     * @param out where the served content is written
+     * @throws IOException on an error
+     */
+    public void transform(InputStream in, OutputStream out) throws IOException;
+  }
+
+  /**
+   * A resource that is served through a {@link ContentTransformer} rather than as-is.  The output is written
+   * straight to the response, so it never has to be held in memory.
+   */
+  public static abstract class TransformedResource extends Resource {
+    private final ContentTransformer transformer;
+
+    public TransformedResource(String name, String contentType, long lastModified, ContentTransformer transformer) {
+      super(name, contentType, -1, lastModified);
+      this.transformer = transformer;
+    }
+
+    public ContentTransformer getTransformer() {
+      return transformer;
+    }
+
+    public byte[] getContent() {
+      return null;
+    }
+  }
+
   public static class FileResource extends Resource {
 
     private final File file;
@@ -1102,6 +1524,11 @@ public class HttpResourceServer {
       this.file = file;
     }
 
+    protected FileResource(String name, String contentType, File file, long lastModified) {
+      super(name, contentType, file.length(), lastModified);
+      this.file = file;
+    }
+
     public InputStream streamContent() throws IOException {
       return new FileInputStream(file);
     }
@@ -1109,11 +1536,67 @@ public class HttpResourceServer {
     public byte[] getContent() {
       return null;
     }
+
+    public boolean isSeekable() {
+      return true;
+    }
+
+    public FileChannel openChannel() throws IOException {
+      return new FileInputStream(file).getChannel();
+    }
+
+    public File getFile() {
+      return file;
+    }
+  }
+
+
+  /**
+   * A precompressed .gz sibling of a file, sent in place of the file.  It keeps the content type and modification
+   * time of the original, so that conditional requests behave the same for either form, and only differs in its
+   * length and ETag.
+   */
+  protected static class GzipFileResource extends FileResource {
+    public GzipFileResource(FileResource original, File gzipFile) {
+      super(original.getFile().getName(), original.getContentType(), gzipFile, original.getLastModified());
+    }
+
+    public String getContentEncoding() {
+      return "gzip";
+    }
   }
 
+  /**
+   * A file compressed in memory, sent in place of the file.
+   */
+  protected static class GzipContentResource extends Resource {
+    private final byte[] content;
+
+    public GzipContentResource(FileResource original, byte[] content) {
+      super(original.getFile().getName(), original.getContentType(), content.length, original.getLastModified());
+      this.content = content;
+    }
+
+    public InputStream streamContent() throws IOException {
+      return new ByteArrayInputStream(content);
+    }
+
+    public byte[] getContent() {
+      return content;
+    }
+
+    public String getContentEncoding() {
+      return "gzip";
+    }
+  }
 
+  /**
+   * A resource read from a URL.  A file: URL is seekable, since the file can be read directly; other URLs are read as
+   * streams.
+   */
   public static class URLResource extends Resource {
     private final URL url;
+    private final File file;
 
     public URLResource(URL url) throws IOException {
       this(url, url.openConnection());
@@ -1122,6 +1605,21 @@ public class HttpResourceServer {
     private URLResource(URL url, URLConnection con) {
       super(url.toString(), urlContentType(url, con), con.getContentLength(), con.getLastModified());
       this.url = url;
+      this.file = urlFile(url);
+    }
+
+    private static File urlFile(URL url) {
+      if (!"file".equals(url.getProtocol()))
+        return null;
+
+      try {
+        return new File(url.toURI());
+      } catch (URISyntaxException e) {
+        return null;
+      } catch (IllegalArgumentException e) {
+        // e.g. a file: url with an authority
+        return null;
+      }
     }
 
     private static String urlContentType(URL url, URLConnection con) {
@@ -1139,6 +1637,16 @@ public class HttpResourceServer {
     public byte[] getContent() {
       return null;
     }
+
+    public boolean isSeekable() {
+      return file != null;
+    }
+
+    public FileChannel openChannel() throws IOException {
+      if (file == null)
+        return null;
+      return new FileInputStream(file).getChannel();
+    }
   }
 
   protected static class Range {
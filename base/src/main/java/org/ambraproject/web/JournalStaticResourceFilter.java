@@ -21,6 +21,7 @@
 
 package org.ambraproject.web;
 
+import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ambraproject.configuration.ConfigurationStore;
@@ -41,6 +42,10 @@ import java.io.File;
  * override directory specified in ambra.virtualJournals.templateDir configuration parameter.</p>
  *
  * <p>It needs to be invoked after @see VirtualJournalMappingFilter and struts2 filter</p>
+ *
+ * <p>Text resources (css, javascript, svg, xml etc.) are sent gzipped to clients that accept it, unless
+ * ambra.platform.staticResources.gzip is false.  A precompressed .gz file next to the resource is sent if it's up to
+ * date, and otherwise the resource is compressed and cached in memory.</p>
  *  
  * @author Dragisa Krsmanovic
  */
@@ -48,14 +53,25 @@ public class JournalStaticResourceFilter implements Filter {
 
   private static final Logger log = LoggerFactory.getLogger(JournalStaticResourceFilter.class);
 
+  private static final String GZIP = "ambra.platform.staticResources.gzip";
+  private static final String GZIP_CACHE_SIZE = "ambra.platform.staticResources.gzipCacheSize";
+  private static final String GZIP_MAX_FILE_SIZE = "ambra.platform.staticResources.gzipMaxFileSize";
+
   private String templatePath = null;
   private HttpResourceServer server = null;
 
   public void init(FilterConfig filterConfig) throws ServletException {
     log.info("JournalStaticResourceFilter init");
-    this.templatePath = ConfigurationStore.getInstance().getConfiguration()
-        .getString(ConfigurationStore.JOURNAL_TEMPLATE_DIR, null);
-    this.server = new HttpResourceServer();
+    Configuration configuration = ConfigurationStore.getInstance().getConfiguration();
+    this.templatePath = configuration.getString(ConfigurationStore.JOURNAL_TEMPLATE_DIR, null);
+
+    if (configuration.getBoolean(GZIP, true)) {
+      this.server = new HttpResourceServer(new CompressedContentCache(
+          configuration.getLong(GZIP_CACHE_SIZE, 16 * 1024 * 1024),
+          configuration.getLong(GZIP_MAX_FILE_SIZE, 1024 * 1024)));
+    } else {
+      this.server = new HttpResourceServer();
+    }
   }
 
   public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
@@ -20,12 +20,15 @@
 package org.ambraproject.web;
 
 import java.io.IOException;
-import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,35 +39,56 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * MultipleReuquestFilter reduced load on the server caused by impatient users clicking on links
- * multiple times.  Incoming requests for the same URL within the same session are blocked until the
- * initial request completes.  Subsequent repeat requests will cause any blocked request to return
- * immediately, and will take it's place as the latest blocked request for that URL. Once the
- * original un-blocked request completes, it will remove the URL from the requestedURLSet and wake
- * any block thread on that URL. Once a block thread wakes to find the URL not in the set, it can
- * complete the request. If it wakes to find the URL still in the set, it assumes it was displaced
- * by another request and will return without performing work on the server. 
+ * MultipleRequestFilter reduces load on the server caused by impatient users clicking on links
+ * multiple times.  While a GET (or HEAD) request for a URL is being processed, the same request from
+ * the same client doesn't go down the filter chain again.  It waits for the first request to
+ * complete and is sent a copy of its response instead.
+ * <p/>
+ * A duplicate request is turned away with 429 Too Many Requests if the first request takes longer
+ * than maxWait milliseconds, if its response was longer than maxBufferSize bytes or it failed, if
+ * the first request had already started writing its response, or if maxParked duplicate requests
+ * are already waiting.  The first request only keeps a copy of its response once a duplicate is
+ * waiting for it, so requests that aren't repeated aren't buffered.  Each waiting request holds a
+ * container thread, so maxParked bounds how many threads a double-click storm can tie up.  The
+ * counts of coalesced and rejected requests are published through JMX: the filter is declared in the
+ * application context as
+ * <code>org.ambraproject:type=MultipleRequestFilter</code> and web.xml reaches it through a DelegatingFilterProxy.
+ * <p/>
+ * Requests are told apart by session, but the filter never creates one.  A request without a session goes straight
+ * down the chain: its remote address and user agent are shared by everyone behind the same proxy or NAT, so they
+ * can't tell whose response it should get.
  * 
  * @author Alex Worden
  */
-public class MultipleRequestFilter implements Filter {
+public class MultipleRequestFilter implements Filter, MultipleRequestFilterMBean {
   private static final Logger log = LoggerFactory.getLogger(MultipleRequestFilter.class);
-  private static final String REQUEST_MAP = "REQUEST_MAP";
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
   private List<Pattern> includePatterns;
+  private long maxWait = 10000;
+  private int maxParked = 100;
+  private int maxBufferSize = 1024 * 1024;
+
+  private final ConcurrentMap<String, InFlightRequest> inFlight = new ConcurrentHashMap<String, InFlightRequest>();
+  private final AtomicInteger parked = new AtomicInteger();
+  private final AtomicLong leaders = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
 
   public void destroy() {
-    // do nothing
+    log.info("Coalesced " + coalesced.get() + " and rejected " + rejected.get() + " duplicate requests");
   }
 
   public void init(FilterConfig config) throws ServletException {
-    /* parse all of the initialization parameters, collecting the exclude
-     * patterns and the max wait parameters
+    /* parse all of the initialization parameters, collecting the include
+     * patterns and the limits
      */
     Enumeration<String> paramNames = config.getInitParameterNames();
     includePatterns = new LinkedList<Pattern>();
@@ -73,8 +97,14 @@ public class MultipleRequestFilter implements Filter {
       String paramValue = config.getInitParameter(paramName);
       if (paramName.startsWith("includePattern")) {
         // compile the pattern only this once
-        Pattern excludePattern = Pattern.compile(paramValue);
-        includePatterns.add(excludePattern);
+        Pattern includePattern = Pattern.compile(paramValue);
+        includePatterns.add(includePattern);
+      } else if (paramName.equals("maxWait")) {
+        maxWait = Long.parseLong(paramValue.trim());
+      } else if (paramName.equals("maxParked")) {
+        maxParked = Integer.parseInt(paramValue.trim());
+      } else if (paramName.equals("maxBufferSize")) {
+        maxBufferSize = Integer.parseInt(paramValue.trim());
       }
     }
   }
@@ -82,9 +112,15 @@ public class MultipleRequestFilter implements Filter {
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
       throws IOException, ServletException {
     HttpServletRequest httpRequest = (HttpServletRequest)request;
-    HttpSession session = httpRequest.getSession();
+    HttpServletResponse httpResponse = (HttpServletResponse)response;
+
+    // only requests that can be answered with another request's response
+    String method = httpRequest.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method)) {
+      chain.doFilter(request, response);
+      return;
+    }
 
-    Set<String> requestedUrlSet = getRequestSet(session);
     StringBuilder buf = new StringBuilder();
     buf.append(httpRequest.getRequestURI());
     String queryString = httpRequest.getQueryString();
@@ -97,53 +133,97 @@ public class MultipleRequestFilter implements Filter {
       return;
     }
 
-    // Note, we have to add the session id since we're going to sync on this interned key. 
-    buf.insert(0, session.getId());
-    String urlKey = (buf.toString()).intern();
-
-    synchronized (urlKey) {
-      if (requestedUrlSet.contains(urlKey)) {
-        urlKey.notifyAll();
-
-        if (log.isDebugEnabled())
-          log.debug("Waiting on URL=" + urlKey);
-        try {
-          urlKey.wait(60000); // Only wait a maximum of one minute
-        } catch (InterruptedException e) {
-          if (log.isDebugEnabled())
-            log.debug("Wait interrupted", e);
-        }
-
-        /* If we are woken up and the urlKey is not null, then we were not the latest
-         * request for this URL to be woken after the first request had completed, so
-         * just return and do nothing for this request. 
-         */
-        if (requestedUrlSet.contains(urlKey)) {
-          if (log.isDebugEnabled())
-            log.debug("Blocked (or timed out) Multiple Request to '" + urlKey + "' from '" +
-                      httpRequest.getRemoteAddr() + "'");
-          return;
-        }
-
-        if (log.isDebugEnabled())
-          log.debug("Woke from blocking URL as last request. Processing URL=" + urlKey);
-      }
-
-      requestedUrlSet.add(urlKey);
+    String clientKey = getClientKey(httpRequest);
+    if (clientKey == null) {
+      chain.doFilter(request, response);
+      return;
     }
 
+    buf.insert(0, clientKey).insert(0, method + ' ');
+    String urlKey = buf.toString();
 
+    final InFlightRequest leader = new InFlightRequest();
+    InFlightRequest existing = inFlight.putIfAbsent(urlKey, leader);
+    if (existing != null) {
+      follow(existing, urlKey, httpRequest, httpResponse);
+      return;
+    }
+
+    leaders.incrementAndGet();
+    //only keep a copy of the response for duplicates that are already waiting for it
+    BufferingResponseWrapper wrapper = new BufferingResponseWrapper(httpResponse, maxBufferSize) {
+      @Override
+      protected boolean shouldCopy() {
+        return leader.startCopy();
+      }
+    };
+    BufferingResponseWrapper.BufferedResponse buffered = null;
     try {
-      chain.doFilter(request, response);
+      chain.doFilter(request, wrapper);
+      buffered = wrapper.getBufferedResponse();
     } finally {
-      /* Upon completion of this request, remove the urlKey from the requestSet, then 
-       * wake any threads that are waiting on the key. 
+      /* Upon completion of this request, stop new requests from waiting for it, then
+       * hand its response to the ones that are.
        */
-      synchronized (urlKey) {
-        requestedUrlSet.remove(urlKey);
-        urlKey.notifyAll();
+      inFlight.remove(urlKey, leader);
+      leader.complete(buffered);
+    }
+  }
+
+  /**
+   * Wait for the request that's in flight, and send its response.
+   */
+  private void follow(InFlightRequest leader, String urlKey, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+    BufferingResponseWrapper.BufferedResponse buffered = null;
+
+    if (parked.incrementAndGet() <= maxParked && leader.join()) {
+      if (log.isDebugEnabled())
+        log.debug("Waiting on URL=" + urlKey);
+      try {
+        buffered = leader.await(maxWait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        parked.decrementAndGet();
       }
+    } else {
+      parked.decrementAndGet();
     }
+
+    if (buffered == null) {
+      rejected.incrementAndGet();
+      if (log.isDebugEnabled())
+        log.debug("Rejected Multiple Request to '" + urlKey + "' from '" + request.getRemoteAddr() + "'");
+      response.setHeader("Retry-After", String.valueOf(Math.max(1, maxWait / 1000)));
+      response.sendError(SC_TOO_MANY_REQUESTS);
+      return;
+    }
+
+    coalesced.incrementAndGet();
+    if (log.isDebugEnabled())
+      log.debug("Sending response of first request to URL=" + urlKey);
+    buffered.replay(response);
+  }
+
+  public long getLeaderCount() {
+    return leaders.get();
+  }
+
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  public int getParkedCount() {
+    return parked.get();
   }
 
   /**
@@ -165,15 +245,62 @@ public class MultipleRequestFilter implements Filter {
     return false;
   }
 
-  @SuppressWarnings("unchecked")
-  private Set<String> getRequestSet(HttpSession session) {
-    Set<String> map;
-    synchronized (session) {
-      if ((map = (Set<String>) session.getAttribute(REQUEST_MAP)) == null) {
-        map = Collections.synchronizedSet(new HashSet<String>());
-        session.setAttribute(REQUEST_MAP, map);
-      }
+  /**
+   * Identify the client making a request without creating a session.
+   *
+   * @param request the request
+   * @return the session id, or null if there's no session
+   */
+  private static String getClientKey(HttpServletRequest request) {
+    HttpSession session = request.getSession(false);
+    return (session == null) ? null : session.getId() + '|';
+  }
+
+  /**
+   * A request being processed, which duplicate requests wait for
+   */
+  private static class InFlightRequest {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile BufferingResponseWrapper.BufferedResponse response;
+    private boolean joined;
+    private boolean copyStarted;
+
+    /**
+     * Wait for this request's response, if it's still going to be copied.
+     *
+     * @return false if the response was already being written without a copy
+     */
+    synchronized boolean join() {
+      if (copyStarted && !joined)
+        return false;
+      joined = true;
+      return true;
+    }
+
+    /**
+     * Decide whether to copy the response, as it starts being written.
+     *
+     * @return true if a duplicate request has joined and is waiting for it
+     */
+    synchronized boolean startCopy() {
+      copyStarted = true;
+      return joined;
+    }
+
+    /**
+     * @param response the response, or null if it can't be replayed
+     */
+    void complete(BufferingResponseWrapper.BufferedResponse response) {
+      this.response = response;
+      done.countDown();
+    }
+
+    /**
+     * @param timeout the most milliseconds to wait
+     * @return the response, or null if it can't be replayed or the request didn't complete in time
+     */
+    BufferingResponseWrapper.BufferedResponse await(long timeout) throws InterruptedException {
+      return done.await(timeout, TimeUnit.MILLISECONDS) ? response : null;
     }
-    return map;
   }
 }
@@ -0,0 +1,45 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.web;
+
+/**
+ * JMX view of the requests coalesced by {@link MultipleRequestFilter}.
+ */
+public interface MultipleRequestFilterMBean {
+
+  /**
+   * @return the number of requests that were processed and whose response could be shared
+   */
+  public long getLeaderCount();
+
+  /**
+   * @return the number of duplicate requests that were sent another request's response
+   */
+  public long getCoalescedCount();
+
+  /**
+   * @return the number of duplicate requests that were turned away with a 429
+   */
+  public long getRejectedCount();
+
+  /**
+   * @return the number of requests being processed that duplicates can wait for
+   */
+  public int getInFlightCount();
+
+  /**
+   * @return the number of duplicate requests waiting now
+   */
+  public int getParkedCount();
+}
@@ -13,26 +13,115 @@
 
 package org.ambraproject.web;
 
+import org.ambraproject.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionAttributeListener;
+import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Enumeration;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class that counts and exposes the number of active sessions in a servlet
  * container.
+ * <p/>
+ * The counts, and an estimate of the memory a session takes up, are also
+ * published through JMX by {@link SessionStatistics}.  Logged in sessions are
+ * counted by id as the auth id is set and removed on them, so the sessions
+ * themselves aren't held on to.  The size of a session is estimated from the
+ * serialized size of the attributes of the most recently created sessions,
+ * every {@link #SIZE_SAMPLE_INTERVAL}; reading it doesn't touch any sessions.
  */
-public class SessionCounter implements HttpSessionListener {
+public class SessionCounter implements HttpSessionListener, HttpSessionAttributeListener, ServletContextListener {
+  private static final Logger log = LoggerFactory.getLogger(SessionCounter.class);
+
+  /**
+   * The most sessions to serialize when estimating the size of a session
+   */
+  private static final int SIZE_SAMPLE = 100;
+
+  /**
+   * How often the size of a session is estimated, in milliseconds
+   */
+  private static final long SIZE_SAMPLE_INTERVAL = 5 * 60 * 1000;
 
   private static AtomicInteger sessionCount = new AtomicInteger();
+  private static AtomicLong sessionsCreated = new AtomicLong();
+  private static ConcurrentMap<String, Boolean> loggedInSessions = new ConcurrentHashMap<String, Boolean>();
+  private static volatile long averageSessionSize;
+
+  /**
+   * The most recently created sessions, to estimate the size of a session from.  Weakly held, so a session the
+   * container has passivated or dropped isn't kept in memory for them.
+   */
+  private static AtomicReferenceArray<WeakReference<HttpSession>> sampleSessions =
+      new AtomicReferenceArray<WeakReference<HttpSession>>(SIZE_SAMPLE);
+
+  private Timer sampleTimer;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    sampleTimer = new Timer("session size sampling timer", true);
+    sampleTimer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        sampleSessionSizes();
+      }
+    }, SIZE_SAMPLE_INTERVAL, SIZE_SAMPLE_INTERVAL);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    if (sampleTimer != null) {
+      sampleTimer.cancel();
+    }
+  }
 
   @Override
   public void sessionCreated(HttpSessionEvent arg0) {
     sessionCount.incrementAndGet();
+    long created = sessionsCreated.incrementAndGet();
+    sampleSessions.set((int) (created % SIZE_SAMPLE), new WeakReference<HttpSession>(arg0.getSession()));
   }
 
   @Override
   public void sessionDestroyed(HttpSessionEvent arg0) {
     sessionCount.decrementAndGet();
+    loggedInSessions.remove(arg0.getSession().getId());
+  }
+
+  @Override
+  public void attributeAdded(HttpSessionBindingEvent event) {
+    if (Constants.AUTH_KEY.equals(event.getName())) {
+      loggedInSessions.put(event.getSession().getId(), Boolean.TRUE);
+    }
+  }
+
+  @Override
+  public void attributeRemoved(HttpSessionBindingEvent event) {
+    if (Constants.AUTH_KEY.equals(event.getName())) {
+      loggedInSessions.remove(event.getSession().getId());
+    }
+  }
+
+  @Override
+  public void attributeReplaced(HttpSessionBindingEvent event) {
   }
 
   /**
@@ -41,4 +130,85 @@ public class SessionCounter implements HttpSessionListener {
   public static int getSessionCount() {
     return sessionCount.get();
   }
+
+  /**
+   * @return the number of sessions created since the webapp started
+   */
+  public static long getSessionsCreated() {
+    return sessionsCreated.get();
+  }
+
+  /**
+   * @return the number of active sessions that don't belong to a logged in user
+   */
+  public static int getAnonymousSessionCount() {
+    return Math.max(0, sessionCount.get() - loggedInSessions.size());
+  }
+
+  /**
+   * @return the estimated mean size of a session's attributes, in bytes, as of the last sample; 0 if there were no
+   *     sessions
+   */
+  public static long getAverageSessionSize() {
+    return averageSessionSize;
+  }
+
+  /**
+   * Estimate the mean size of a session from the serialized size of the attributes of up to {@link #SIZE_SAMPLE}
+   * recently created sessions that are still active.  Attributes that can't be serialized aren't counted.
+   */
+  static void sampleSessionSizes() {
+    long total = 0;
+    int sampled = 0;
+    for (int i = 0; i < sampleSessions.length(); i++) {
+      WeakReference<HttpSession> reference = sampleSessions.get(i);
+      HttpSession session = (reference == null) ? null : reference.get();
+      if (session == null) {
+        continue;
+      }
+      try {
+        total += estimateSize(session);
+        sampled++;
+      } catch (IllegalStateException e) {
+        //invalidated since it was created
+        sampleSessions.compareAndSet(i, reference, null);
+      }
+    }
+    averageSessionSize = (sampled == 0) ? 0 : total / sampled;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static long estimateSize(HttpSession session) {
+    long size = 0;
+    Enumeration<String> names = session.getAttributeNames();
+    while (names.hasMoreElements()) {
+      String name = names.nextElement();
+      CountingOutputStream out = new CountingOutputStream();
+      try {
+        ObjectOutputStream objects = new ObjectOutputStream(out);
+        objects.writeObject(session.getAttribute(name));
+        objects.close();
+        size += out.count + name.length() * 2;
+      } catch (IOException e) {
+        log.debug("Not counting session attribute " + name, e);
+      } catch (RuntimeException e) {
+        log.debug("Not counting session attribute " + name, e);
+      }
+    }
+    return size;
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
 }
@@ -0,0 +1,37 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.web;
+
+/**
+ * The sessions counted by {@link SessionCounter}, declared in the application context as the MBean
+ * <code>org.ambraproject:type=Sessions</code>.
+ */
+public class SessionStatistics implements SessionStatisticsMBean {
+
+  public int getSessionCount() {
+    return SessionCounter.getSessionCount();
+  }
+
+  public long getSessionsCreated() {
+    return SessionCounter.getSessionsCreated();
+  }
+
+  public int getAnonymousSessionCount() {
+    return SessionCounter.getAnonymousSessionCount();
+  }
+
+  public long getAverageSessionSize() {
+    return SessionCounter.getAverageSessionSize();
+  }
+}
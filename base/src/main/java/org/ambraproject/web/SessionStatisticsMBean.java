@@ -0,0 +1,34 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.web;
+
+/**
+ * JMX view of the sessions counted by {@link SessionCounter}.
+ */
+public interface SessionStatisticsMBean {
+
+  public int getSessionCount();
+
+  public long getSessionsCreated();
+
+  /**
+   * @return the number of active sessions that don't belong to a logged in user
+   */
+  public int getAnonymousSessionCount();
+
+  /**
+   * @return the estimated mean size of a session's attributes, in bytes, as of the last sample
+   */
+  public long getAverageSessionSize();
+}
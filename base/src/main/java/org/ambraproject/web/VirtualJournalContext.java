@@ -244,7 +244,8 @@ public class VirtualJournalContext {
    * @param configuration configuration object
    * @param servletContext servlet context for the given request
    * @return a request with paths mapped appropriately.  May be the original request passed in, if no changes were
-   *     needed.
+   *     needed.  Where the resource was found is cached if there's a {@link VirtualJournalMappingCache} in the
+   *     servlet context.
    * @throws ServletException
    */
   public HttpServletRequest mapRequest(HttpServletRequest request, Configuration configuration,
@@ -258,6 +259,35 @@ public class VirtualJournalContext {
     String sp      = request.getServletPath();
     String pi      = request.getPathInfo();
 
+    VirtualJournalMappingCache cache =
+        (VirtualJournalMappingCache) servletContext.getAttribute(VirtualJournalMappingCache.SERVLET_CONTEXT_ATTRIBUTE);
+    String[] mapped;
+    if (cache == null) {
+      mapped = findMappedPaths(cp, sp, pi, configuration, servletContext);
+    } else {
+      String key = VirtualJournalMappingCache.key(journal, cp, sp, pi);
+      mapped = cache.get(key, configuration);
+      if (mapped == null) {
+        long start = System.currentTimeMillis();
+        mapped = findMappedPaths(cp, sp, pi, configuration, servletContext);
+        cache.put(key, mapped == null ? VirtualJournalMappingCache.NOT_FOUND : mapped, configuration,
+            System.currentTimeMillis() - start);
+      } else if (mapped == VirtualJournalMappingCache.NOT_FOUND) {
+        mapped = null;
+      }
+    }
+
+    if ((mapped != null) && mapped[3].equals(request.getRequestURI()))
+      return request;
+
+    if (mapped == null)
+      return request;
+    else
+      return wrapRequest(request, mapped);
+  }
+
+  private String[] findMappedPaths(String cp, String sp, String pi, Configuration configuration,
+      ServletContext servletContext) throws ServletException {
     // Find resource in journal
     String[] mapped = getMappedPaths(virtualizeUri(cp, sp, pi), configuration, servletContext);
 
@@ -269,13 +299,7 @@ public class VirtualJournalContext {
     if (mapped == null)
       mapped = getMappedPaths(defaultUri(cp, sp, pi), configuration, servletContext);
 
-    if ((mapped != null) && mapped[3].equals(request.getRequestURI()))
-      return request;
-
-    if (mapped == null)
-      return request;
-    else
-      return wrapRequest(request, mapped);
+    return mapped;
   }
 
   private String[] getMappedPaths(String[] paths, Configuration configuration, ServletContext servletContext)
@@ -21,9 +21,6 @@
 package org.ambraproject.web;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -58,19 +55,28 @@ public class VirtualJournalContextFilter implements Filter {
   public static final String CONF_VIRTUALJOURNALS_DEFAULT  = CONF_VIRTUALJOURNALS + ".default";
   public static final String CONF_VIRTUALJOURNALS_JOURNALS = CONF_VIRTUALJOURNALS + ".journals";
 
-  private static final Configuration configuration = ConfigurationStore.getInstance().getConfiguration();
+  /**
+   * The rules compiled from the configuration, along with the configuration they came from.  Replaced as a whole when
+   * the configuration is reloaded, so a request always sees one consistent table.
+   */
+  private volatile CompiledRules compiledRules;
 
   /*
    * @see javax.servlet.Filter#init
    */
   public void init(final FilterConfig filterConfig) throws ServletException {
     // settings & overrides are in the Configuration
-    if (configuration == null) {
+    final Configuration configuration;
+    try {
+      configuration = ConfigurationStore.getInstance().getConfiguration();
+    } catch (RuntimeException e) {
       // should never happen
       final String errorMessage = "No Configuration is available to set Virtual Journal context";
-      log.error(errorMessage);
-      throw new ServletException(errorMessage);
+      log.error(errorMessage, e);
+      throw new ServletException(errorMessage, e);
     }
+
+    compiledRules = new CompiledRules(configuration);
   }
 
   /*
@@ -86,12 +92,12 @@ public class VirtualJournalContextFilter implements Filter {
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
 
-    final Collection<String> virtualJournals = configuration.getList(CONF_VIRTUALJOURNALS_JOURNALS);
+    final VirtualJournalRoutingTable routingTable = getRoutingTable();
 
-    String defaultJournal = configuration.getString(CONF_VIRTUALJOURNALS_DEFAULT);
+    String defaultJournal = routingTable.getDefaultJournal();
 
     // need to do <rule> based processing
-    String journalName = findMatchingVirtualJournal(configuration, (HttpServletRequest) request);
+    String journalName = routingTable.route((HttpServletRequest) request);
 
     if (journalName != null) {
       if (log.isTraceEnabled()) {
@@ -129,7 +135,7 @@ public class VirtualJournalContextFilter implements Filter {
           request.getScheme(),
           request.getServerPort(),
           request.getServerName(),
-          ((HttpServletRequest) request).getContextPath(), virtualJournals));
+          ((HttpServletRequest) request).getContextPath(), routingTable.getJournals()));
 
     /*
      * Establish a "Nested Diagnostic Context" for logging, e.g. prefix log entries w/journal name
@@ -148,61 +154,32 @@ public class VirtualJournalContextFilter implements Filter {
   }
 
   /**
-   * Process all &lt;${journal-name}&gt;&lt;rules&gt;&lt;${http-header-name}&gt;s looking for a match.
-   * This method is only used to fetch rules from configuration and find matching journal based on request.
+   * Get the routing table for the current configuration, compiling a new one if the configuration has been reloaded
+   * since the last one was compiled.
    *
-   * @param configuration <code>Configuration</code> that contains the rules.
-   * @param request <code>HttpServletRequest</code> to apply the rules against.
-   * @return VirtualJournalContext.  May be <code>null</code>.
+   * @return the routing table
    */
-  private String findMatchingVirtualJournal(
-    Configuration configuration, HttpServletRequest request) {
-
-    String virtualJournal = null;
+  private VirtualJournalRoutingTable getRoutingTable() {
+    final Configuration configuration = ConfigurationStore.getInstance().getConfiguration();
+    CompiledRules current = compiledRules;
+
+    if (current.configuration != configuration) {
+      log.info("Configuration reloaded; compiling virtual journal rules");
+      // two requests may both compile a table for the new configuration; either one is fine to keep
+      current = new CompiledRules(configuration);
+      compiledRules = current;
+    }
 
-    // process all <virtualjournal><journals> entries looking for a match
-    final List<String> journals = configuration.getList(CONF_VIRTUALJOURNALS_JOURNALS);
-    final Iterator<String> onJournal = journals.iterator();
-    while (onJournal.hasNext() && virtualJournal == null) {
-      final String journal = onJournal.next();
+    return current.routingTable;
+  }
 
-      if (log.isTraceEnabled()) {
-        log.trace("processing virtual journal: " + journal);
-      }
+  private static class CompiledRules {
+    private final Configuration configuration;
+    private final VirtualJournalRoutingTable routingTable;
 
-      // get the <rules> for this journal
-      final String rulesPrefix = CONF_VIRTUALJOURNALS + "." + journal + ".rules";
-      final Iterator rules = configuration.getKeys(rulesPrefix);
-      while (rules.hasNext()) {
-        final String rule       = (String) rules.next();
-        final String httpHeader = rule.substring(rulesPrefix.length() + 1);
-        final String httpValue  = configuration.getString(rule);
-
-        if (log.isTraceEnabled()) {
-          log.trace("processing rule: " + httpHeader + " = " + httpValue);
-        }
-
-        // test Request HTTP header value against match
-        final String reqHttpValue = request.getHeader(httpHeader);
-        if (log.isTraceEnabled()) {
-          log.trace("testing Request: " + httpHeader + "=" + reqHttpValue);
-        }
-        if (reqHttpValue == null) {
-          if (httpValue == null) {
-            virtualJournal = journal;
-            break;
-          }
-          continue;
-        }
-
-        if (reqHttpValue.matches(httpValue)) {
-          virtualJournal = journal;
-          break;
-        }
-      }
+    private CompiledRules(Configuration configuration) {
+      this.configuration = configuration;
+      this.routingTable = VirtualJournalRoutingTable.build(configuration);
     }
-
-    // return match or null
-    return virtualJournal;
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.ambraproject.service.cache.CacheStatistics;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers where {@link VirtualJournalContext#mapRequest} found the resource for a journal and request path, so that
+ * the journal override directory and the servlet context aren't searched again on every request.  Paths with no
+ * resource anywhere are remembered too.
+ * <p/>
+ * Nothing watches the files for changes.  Instead everything is forgotten every refreshInterval milliseconds (never,
+ * if it's 0), when the configuration is reloaded, and on deploy, since the cache is created when the webapp starts.
+ * A template or static file added to a journal in between is picked up at the next refresh.  Once the cache holds
+ * maxEntries paths the least recently used are dropped.
+ * <p/>
+ * It's declared in the application context, with the ambra.platform.resourceMapping settings, and exported to the
+ * servlet context under {@link #SERVLET_CONTEXT_ATTRIBUTE}, where mapRequest finds it.  Hits, misses, searches,
+ * evictions and entries dropped by a refresh (as expirations) are recorded in the {@link CacheStatistics} region
+ * VirtualJournalMappingCache.
+ */
+public class VirtualJournalMappingCache {
+  private static final Logger log = LoggerFactory.getLogger(VirtualJournalMappingCache.class);
+
+  /** ServletContext attribute for the cache */
+  public static final String SERVLET_CONTEXT_ATTRIBUTE = VirtualJournalMappingCache.class.getName();
+
+  /** Cached for paths with no resource in the journal, the default journal, or the webapp */
+  static final String[] NOT_FOUND = new String[0];
+
+  private final int maxEntries;
+  private final long refreshInterval;
+
+  private final LinkedHashMap<String, String[]> entries;
+  private Configuration configuration;
+  private long refreshed;
+
+  private final CacheStatistics statistics = new CacheStatistics("VirtualJournalMappingCache") {
+    @Override
+    public long getEntryCount() {
+      return getSize();
+    }
+  };
+
+  /**
+   * @param maxEntries the most paths to remember
+   * @param refreshInterval milliseconds between clearing the cache, or 0 to keep entries until they're evicted
+   */
+  public VirtualJournalMappingCache(final int maxEntries, long refreshInterval) {
+    this.maxEntries = maxEntries;
+    this.refreshInterval = refreshInterval;
+    //access ordered, so the least recently used is the eldest
+    this.entries = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+        if (size() > maxEntries) {
+          statistics.recordEviction();
+          return true;
+        }
+        return false;
+      }
+    };
+    this.refreshed = System.currentTimeMillis();
+  }
+
+  /**
+   * The key for a journal and request paths
+   */
+  static String key(String journal, String contextPath, String servletPath, String pathInfo) {
+    return journal + '\n' + contextPath + '\n' + servletPath + '\n' + pathInfo;
+  }
+
+  /**
+   * Look up the mapping for a key.
+   *
+   * @param key the key
+   * @param configuration the configuration the mapping is for
+   * @return the mapped {contextPath, servletPath, pathInfo, requestUri}, {@link #NOT_FOUND}, or null if the key isn't
+   *     cached
+   */
+  String[] get(String key, Configuration configuration) {
+    String[] mapped;
+    synchronized (entries) {
+      refreshIfStale(configuration);
+      mapped = entries.get(key);
+    }
+    if (mapped == null)
+      statistics.recordMiss();
+    else
+      statistics.recordHit();
+    return mapped;
+  }
+
+  /**
+   * Remember the mapping for a key.
+   *
+   * @param key the key
+   * @param mapped the mapped {contextPath, servletPath, pathInfo, requestUri}, or {@link #NOT_FOUND}
+   * @param configuration the configuration the mapping is for
+   * @param elapsed milliseconds spent searching for the resource
+   */
+  void put(String key, String[] mapped, Configuration configuration, long elapsed) {
+    statistics.recordLoad(elapsed, true);
+    if (maxEntries <= 0)
+      return;
+    synchronized (entries) {
+      refreshIfStale(configuration);
+      entries.put(key, mapped);
+    }
+  }
+
+  private void refreshIfStale(Configuration configuration) {
+    long now = System.currentTimeMillis();
+    if (configuration != this.configuration || (refreshInterval > 0 && now - refreshed >= refreshInterval)) {
+      if (log.isDebugEnabled())
+        log.debug("Clearing " + entries.size() + " resource mappings; " + this);
+      for (int i = entries.size(); i > 0; i--)
+        statistics.recordExpiration();
+      entries.clear();
+      this.configuration = configuration;
+      this.refreshed = now;
+    }
+  }
+
+  /**
+   * Forget every mapping, e.g. after journal templates have been deployed
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      refreshed = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * @return the number of mappings held
+   */
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * @return the hit, miss and search counters
+   */
+  public CacheStatistics getStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("VirtualJournalMappingCache: size=%d, hits=%d, misses=%d, hitRatio=%.3f, expirations=%d",
+        getSize(), statistics.getHits(), statistics.getMisses(), statistics.getHitRatio(),
+        statistics.getExpirations());
+  }
+}
@@ -32,7 +32,6 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.apache.commons.configuration.Configuration;
 import org.ambraproject.configuration.ConfigurationStore;
 
 /**
@@ -41,11 +40,14 @@ import org.ambraproject.configuration.ConfigurationStore;
  * resource exists for the virtual journal.  If so, the Request is wrapped with the override
  * values and passed on to the FilterChain.  If not, the Request is wrapped with default values
  * for the resource and then passed to the FilterChain.
+ *
+ * Where each resource was found is remembered in the {@link VirtualJournalMappingCache} the application context puts
+ * in the servlet context, see ambra.platform.resourceMapping.
  */
 public class VirtualJournalMappingFilter implements Filter {
   private static final Logger log            = LoggerFactory.getLogger(VirtualJournalMappingFilter.class);
   private ServletContext   servletContext = null;
-  private Configuration configuration = null;
+  private VirtualJournalMappingCache cache = null;
 
   /*
    * @see javax.servlet.Filter#init
@@ -53,14 +55,19 @@ public class VirtualJournalMappingFilter implements Filter {
   public void init(final FilterConfig filterConfig) throws ServletException {
     // need ServletContext to get "real" path/file names
     this.servletContext = filterConfig.getServletContext();
-    this.configuration = ConfigurationStore.getInstance().getConfiguration();
+    this.cache = (VirtualJournalMappingCache)
+        servletContext.getAttribute(VirtualJournalMappingCache.SERVLET_CONTEXT_ATTRIBUTE);
+    if (cache == null)
+      log.warn("No resource mapping cache in the servlet context; resources will be searched for on every request");
   }
 
   /*
    * @see javax.servlet.Filter#destroy
    */
   public void destroy() {
-
+    if (cache != null) {
+      log.info(cache.toString());
+    }
   }
 
   /*
@@ -102,6 +109,6 @@ public class VirtualJournalMappingFilter implements Filter {
       (VirtualJournalContext) request.getAttribute(VirtualJournalContext.PUB_VIRTUALJOURNAL_CONTEXT);
     if (context == null)
       return request;
-    return context.mapRequest(request, configuration, servletContext);
+    return context.mapRequest(request, ConfigurationStore.getInstance().getConfiguration(), servletContext);
   }
 }
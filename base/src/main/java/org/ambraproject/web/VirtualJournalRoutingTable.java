@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.ambraproject.web.VirtualJournalContextFilter.CONF_VIRTUALJOURNALS;
+import static org.ambraproject.web.VirtualJournalContextFilter.CONF_VIRTUALJOURNALS_DEFAULT;
+import static org.ambraproject.web.VirtualJournalContextFilter.CONF_VIRTUALJOURNALS_JOURNALS;
+
+/**
+ * The virtual journal &lt;rules&gt; from the configuration, compiled once so that routing a request doesn't go back to
+ * the configuration or compile any regular expressions.  Immutable; build a new one when the configuration changes.
+ * <p/>
+ * A request belongs to the first journal, in the order of ambra.virtualJournals.journals, with a rule whose regular
+ * expression matches the whole value of the named request header, or with an empty rule for a header the request
+ * doesn't have.  Host rules that are plain host names are looked up in a map, and only the rules that come before
+ * the one found have to be tried.
+ */
+public class VirtualJournalRoutingTable {
+  private static final Logger log = LoggerFactory.getLogger(VirtualJournalRoutingTable.class);
+
+  private static final String HOST = "host";
+
+  /**
+   * Host names, with an optional port.  As a regular expression the dots match any character, so these can only
+   * match values of the same length.
+   */
+  private static final Pattern PLAIN_HOST = Pattern.compile("[A-Za-z0-9.:-]+");
+
+  private final String defaultJournal;
+  private final List<String> journals;
+  private final Rule[] rules;
+  private final Map<String, Integer> plainHosts;
+
+  private VirtualJournalRoutingTable(String defaultJournal, List<String> journals, List<Rule> rules) {
+    this.defaultJournal = defaultJournal;
+    this.journals = Collections.unmodifiableList(journals);
+    this.rules = rules.toArray(new Rule[rules.size()]);
+
+    Map<String, Integer> plainHosts = new HashMap<String, Integer>();
+    for (int i = 0; i < this.rules.length; i++) {
+      if (this.rules[i].isPlainHost() && !plainHosts.containsKey(this.rules[i].value)) {
+        plainHosts.put(this.rules[i].value, i);
+      }
+    }
+    this.plainHosts = plainHosts;
+  }
+
+  /**
+   * Compile the journal rules in a configuration.
+   *
+   * @param configuration the configuration
+   * @return the routing table
+   */
+  @SuppressWarnings("unchecked")
+  public static VirtualJournalRoutingTable build(Configuration configuration) {
+    List<String> journals = new ArrayList<String>();
+    for (Object journal : configuration.getList(CONF_VIRTUALJOURNALS_JOURNALS)) {
+      journals.add(journal.toString());
+    }
+
+    List<Rule> rules = new ArrayList<Rule>();
+    for (String journal : journals) {
+      final String rulesPrefix = CONF_VIRTUALJOURNALS + "." + journal + ".rules";
+      final Iterator<String> keys = configuration.getKeys(rulesPrefix);
+      while (keys.hasNext()) {
+        final String key = keys.next();
+        final Rule rule = new Rule(journal, key.substring(rulesPrefix.length() + 1), configuration.getString(key));
+        if (log.isDebugEnabled()) {
+          log.debug("journal " + journal + ": " + rule.header + " = " + rule.value);
+        }
+        rules.add(rule);
+      }
+    }
+
+    return new VirtualJournalRoutingTable(configuration.getString(CONF_VIRTUALJOURNALS_DEFAULT), journals, rules);
+  }
+
+  /**
+   * Find the journal whose rules match a request.
+   *
+   * @param request the request
+   * @return the journal, or null if no rule matches
+   */
+  public String route(HttpServletRequest request) {
+    int limit = rules.length;
+
+    String host = request.getHeader(HOST);
+    if (host != null) {
+      Integer index = plainHosts.get(host);
+      if (index != null) {
+        limit = index;
+      }
+    }
+
+    for (int i = 0; i < limit; i++) {
+      if (rules[i].matches(request)) {
+        return rules[i].journal;
+      }
+    }
+
+    return limit < rules.length ? rules[limit].journal : null;
+  }
+
+  /**
+   * @return the configured default journal; may be null
+   */
+  public String getDefaultJournal() {
+    return defaultJournal;
+  }
+
+  /**
+   * @return the names of all the journals, unmodifiable
+   */
+  public List<String> getJournals() {
+    return journals;
+  }
+
+  private static class Rule {
+    private final String journal;
+    private final String header;
+    private final String value;
+    private final Pattern pattern;
+    private final int plainLength;
+
+    private Rule(String journal, String header, String value) {
+      this.journal = journal;
+      this.header = header;
+      this.value = value;
+      this.pattern = (value == null) ? null : Pattern.compile(value);
+      this.plainLength = (value != null && PLAIN_HOST.matcher(value).matches()) ? value.length() : -1;
+    }
+
+    private boolean isPlainHost() {
+      return plainLength >= 0 && HOST.equalsIgnoreCase(header);
+    }
+
+    private boolean matches(HttpServletRequest request) {
+      String requestValue = request.getHeader(header);
+      if (requestValue == null) {
+        return pattern == null;
+      }
+      if (pattern == null) {
+        return false;
+      }
+      if (plainLength >= 0 && requestValue.length() != plainLength) {
+        return false;
+      }
+      return pattern.matcher(requestValue).matches();
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.opensymphony.xwork2.util.ValueStack;
 import com.opensymphony.xwork2.util.ValueStackFactory;
 import org.ambraproject.Constants;
 import org.ambraproject.models.UserProfile;
+import org.ambraproject.views.UserLoginView;
 import org.ambraproject.web.VirtualJournalContext;
 import org.apache.struts2.ServletActionContext;
 import org.apache.struts2.interceptor.SessionAware;
@@ -143,7 +144,7 @@ public abstract class BaseWebTest extends BaseTest {
    * @param user
    */
   protected final void login(UserProfile user) {
-    putInSession(Constants.AMBRA_USER_KEY, user);
+    putInSession(Constants.AMBRA_USER_KEY, new UserLoginView(user));
     putInSession(Constants.AUTH_KEY, user.getAuthId());
     putInSession(Constants.SINGLE_SIGNON_EMAIL_KEY, user.getEmail());
   }
@@ -20,7 +20,9 @@ package org.ambraproject.service.article;
 
 import org.ambraproject.action.BaseTest;
 import org.ambraproject.views.SearchHit;
+import org.ambraproject.views.TOCArticle;
 import org.ambraproject.views.article.ArticleInfo;
+import org.ambraproject.views.article.RelatedArticleInfo;
 import org.ambraproject.models.Article;
 import org.ambraproject.models.ArticleAsset;
 import org.ambraproject.models.ArticleAuthor;
@@ -43,6 +45,7 @@ import java.net.URI;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,6 +57,8 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertEqualsNoOrder;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -831,6 +836,37 @@ public class ArticleServiceTest extends BaseTest {
     checkArticleInfo(result,
         expectedArticle,
         expectedRelatedArticles);
+
+    List<RelatedArticleInfo> sorted = new ArrayList<RelatedArticleInfo>(result.getRelatedArticles());
+    Collections.sort(sorted);
+    assertEquals(result.getRelatedArticles(), sorted, "related articles weren't sorted by date");
+  }
+
+  @Test
+  public void testGetArticleInfoCached() throws NoSuchArticleIdException {
+    Article article = new Article("id:doi-cached-article-info");
+    article.setState(Article.STATE_ACTIVE);
+    article.setTitle("cached article info");
+    dummyDataStore.store(article);
+
+    ArticleInfo articleInfo = articleService.getArticleInfo(article.getDoi(), DEFAULT_USER_AUTHID);
+    assertEquals(articleInfo.getTitle(), article.getTitle());
+    assertSame(articleService.getArticleInfo(article.getDoi(), null), articleInfo,
+        "Article info was not shared between users");
+    assertNotSame(articleService.getArticleInfo(article.getDoi(), DEFAULT_ADMIN_AUTHID), articleInfo,
+        "Admins should not get the shared article info");
+
+    articleService.setState(article.getDoi(), DEFAULT_ADMIN_AUTHID, Article.STATE_UNPUBLISHED);
+    try {
+      articleService.getArticleInfo(article.getDoi(), DEFAULT_USER_AUTHID);
+      fail("Article info was not invalidated when the article was unpublished");
+    } catch (NoSuchArticleIdException e) {
+      //expected
+    }
+
+    articleService.setState(article.getDoi(), DEFAULT_ADMIN_AUTHID, Article.STATE_ACTIVE);
+    assertNotSame(articleService.getArticleInfo(article.getDoi(), DEFAULT_USER_AUTHID), articleInfo,
+        "Article info was not invalidated when the article was published");
   }
 
   @Test(dataProvider = "savedArticlesURI")
@@ -965,6 +1001,65 @@ public class ArticleServiceTest extends BaseTest {
     }
   }
 
+  @Test
+  public void testGetArticleTOCEntries() {
+    Article first = new Article("id:doi-for-toc-first");
+    first.setTitle("first toc article");
+    first.setState(Article.STATE_ACTIVE);
+    List<ArticleAuthor> authors = new ArrayList<ArticleAuthor>(2);
+    for (String name : new String[]{"Second Author", "First Author"}) {
+      ArticleAuthor author = new ArticleAuthor();
+      author.setFullName(name);
+      author.setGivenNames(name.split(" ")[0]);
+      author.setSurnames(name.split(" ")[1]);
+      authors.add(author);
+    }
+    first.setAuthors(authors);
+    first.setCollaborativeAuthors(new ArrayList<String>(Arrays.asList("collab b", "collab a")));
+    dummyDataStore.store(first);
+
+    Article disabled = new Article("id:doi-for-toc-disabled");
+    disabled.setTitle("disabled toc article");
+    disabled.setState(Article.STATE_DISABLED);
+    dummyDataStore.store(disabled);
+
+    Article unpublished = new Article("id:doi-for-toc-unpublished");
+    unpublished.setTitle("unpublished toc article");
+    unpublished.setState(Article.STATE_UNPUBLISHED);
+    dummyDataStore.store(unpublished);
+
+    Article last = new Article("id:doi-for-toc-last");
+    last.setTitle("last toc article");
+    last.setState(Article.STATE_ACTIVE);
+    dummyDataStore.store(last);
+
+    List<String> dois = Arrays.asList(last.getDoi(), disabled.getDoi(), unpublished.getDoi(),
+        "id:doi-for-toc-missing", first.getDoi());
+    List<String> requested = new ArrayList<String>(dois);
+
+    List<TOCArticle> entries = articleService.getArticleTOCEntries(requested, DEFAULT_USER_AUTHID);
+    assertEquals(requested, dois, "input list was modified");
+    assertEquals(entries.size(), 2, "returned wrong number of entries");
+    assertEquals(entries.get(0).getDoi(), last.getDoi(), "entries were not in requested order");
+    assertEquals(entries.get(1).getDoi(), first.getDoi(), "entries were not in requested order");
+    assertEquals(entries.get(1).getTitle(), first.getTitle(), "entry had incorrect title");
+    assertEquals(entries.get(1).getAuthors(), Arrays.asList("Second Author", "First Author"),
+        "entry had incorrect authors");
+    assertEquals(entries.get(1).getCollaborativeAuthors(), Arrays.asList("collab b", "collab a"),
+        "entry had incorrect collaborative authors");
+    assertTrue(entries.get(0).getAuthors().isEmpty(), "entry without authors had authors");
+    assertSame(articleService.getArticleTOCEntries(requested, null).get(1), entries.get(1),
+        "TOC entry was not shared between users");
+
+    entries = articleService.getArticleTOCEntries(requested, DEFAULT_ADMIN_AUTHID);
+    assertEquals(entries.size(), 3, "admin should see the unpublished article");
+    assertEquals(entries.get(1).getDoi(), unpublished.getDoi(), "entries were not in requested order");
+
+    articleService.setState(unpublished.getDoi(), DEFAULT_ADMIN_AUTHID, Article.STATE_ACTIVE);
+    entries = articleService.getArticleTOCEntries(requested, DEFAULT_USER_AUTHID);
+    assertEquals(entries.size(), 3, "TOC entry was not invalidated when the article was published");
+  }
+
   private List<Category> addCategory(List<Category> categories, String path) {
     Category category = new Category();
     category.setPath(path);
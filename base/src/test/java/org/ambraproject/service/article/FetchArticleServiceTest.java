@@ -22,6 +22,7 @@ import org.ambraproject.models.CitedArticleAuthor;
 import org.ambraproject.service.xml.XMLService;
 import org.ambraproject.views.AuthorView;
 import org.ambraproject.views.article.ArticleInfo;
+import org.ambraproject.views.article.ParsedArticle;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +43,8 @@ import java.util.Map;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class FetchArticleServiceTest extends BaseTest {
@@ -908,6 +911,28 @@ public class FetchArticleServiceTest extends BaseTest {
     }
   }
 
+  @Test(dataProvider = "articleInfos")
+  public void testGetParsedArticle(ArticleInfo articleInfo) throws Exception {
+    String fsid = fileStoreService.objectIDMapper().doiTofsid(articleInfo.getDoi(), "XML");
+    InputStream fs = fileStoreService.getFileInStream(fsid);
+    org.w3c.dom.Document dom = xmlService.createDocBuilder().parse(fs);
+
+    ParsedArticle parsedArticle = fetchArticleService.getParsedArticle(articleInfo);
+
+    assertNotNull(parsedArticle, "Article was not parsed");
+    assertEquals(parsedArticle.getDoi(), articleInfo.getDoi());
+    assertEquals(parsedArticle.getAuthors(), fetchArticleService.getAuthors(dom), "Differing authors");
+    assertEquals(parsedArticle.getCorrespondingAuthors(), fetchArticleService.getCorrespondingAuthors(dom),
+        "Differing corresponding authors");
+    assertSame(fetchArticleService.getParsedArticle(articleInfo), parsedArticle, "Parsed article was not cached");
+
+    fetchArticleService.invalidateParsedArticle(articleInfo.getDoi());
+    ParsedArticle reparsed = fetchArticleService.getParsedArticle(articleInfo);
+
+    assertNotSame(reparsed, parsedArticle, "Parsed article was not invalidated");
+    assertEquals(reparsed.getAuthors(), parsedArticle.getAuthors());
+  }
+
   @Test(dataProvider = "articlesForCorrespondingTest")
   public void testCorrespondingAuthors(ArticleInfo article, List<String> authors) throws Exception {
     String fsid = fileStoreService.objectIDMapper().doiTofsid(article.getDoi(), "XML");
@@ -0,0 +1,149 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.cache;
+
+import net.sf.ehcache.CacheManager;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class EhcacheProviderTest {
+
+  private CacheManager cacheManager;
+
+  @BeforeClass
+  public void createCacheManager() {
+    cacheManager = CacheManager.create();
+  }
+
+  @AfterClass
+  public void shutdownCacheManager() {
+    cacheManager.shutdown();
+  }
+
+  private EhcacheProvider createProvider(String name) {
+    cacheManager.addCache(new net.sf.ehcache.Cache(name, 100, false, false, 60, 0));
+    return new EhcacheProvider(cacheManager.getEhcache(name));
+  }
+
+  private static class CountingLookup extends Cache.Lookup<String, RuntimeException> {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public String lookup() throws RuntimeException {
+      return "value" + count.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void testReadThru() {
+    EhcacheProvider provider = createProvider("readThru");
+    CountingLookup lookup = new CountingLookup();
+
+    assertEquals(provider.get("key", 60, lookup), "value1");
+    assertEquals(provider.get("key", 60, lookup), "value1", "Second read did not hit the cache");
+    assertEquals(lookup.count.get(), 1);
+  }
+
+  @Test
+  public void testStatistics() {
+    EhcacheProvider provider = createProvider("statistics");
+    CountingLookup lookup = new CountingLookup();
+
+    provider.get("key1", 60, lookup);
+    provider.get("key1", 60, lookup);
+    provider.get("key2", 60, lookup);
+
+    CacheStatistics statistics = provider.getStatistics();
+    assertEquals(statistics.getHits(), 1, "Wrong hit count");
+    assertEquals(statistics.getMisses(), 2, "Wrong miss count");
+    assertEquals(statistics.getLoads(), 2, "Wrong load count");
+    assertEquals(statistics.getEntryCount(), 2, "Wrong entry count");
+
+    long loads = 0;
+    for (long count : statistics.getLoadTimeHistogram()) {
+      loads += count;
+    }
+    assertEquals(loads, 2, "Load time histogram does not add up to the load count");
+  }
+
+  @Test
+  public void testGetAllLoadsOnlyMissingKeys() {
+    EhcacheProvider provider = createProvider("getAll");
+    provider.put("a", new Cache.Item("cached-a"));
+    final List<Collection<String>> batches = new ArrayList<Collection<String>>();
+
+    Map<String, String> values = provider.getAll(Arrays.asList("a", "b", "c"), 60,
+        new Cache.BulkLookup<String, String, RuntimeException>() {
+          @Override
+          public Map<String, String> lookup(Collection<String> keys) throws RuntimeException {
+            batches.add(new ArrayList<String>(keys));
+            Map<String, String> loaded = new HashMap<String, String>();
+            for (String key : keys) {
+              if (!key.equals("c")) {
+                loaded.put(key, "loaded-" + key);
+              }
+            }
+            return loaded;
+          }
+        });
+
+    assertEquals(batches.size(), 1, "Missing keys were not loaded in one batch");
+    assertEquals(batches.get(0), Arrays.asList("b", "c"), "Wrong keys handed to the bulk lookup");
+    assertEquals(new ArrayList<String>(values.keySet()), Arrays.asList("a", "b", "c"), "Key order was not preserved");
+    assertEquals(values.get("a"), "cached-a");
+    assertEquals(values.get("b"), "loaded-b");
+    assertNull(values.get("c"));
+    assertEquals(provider.get("b").getValue(), "loaded-b", "Loaded value was not cached");
+    assertNotNull(provider.get("c"), "Missing value was not cached as null");
+  }
+
+  @Test(timeOut = 10000)
+  public void testStaleWhileRevalidate() throws InterruptedException {
+    EhcacheProvider provider = createProvider("staleWhileRevalidate");
+    provider.setSoftTimeToLive(1);
+    provider.setHardTimeToLive(60);
+    CountingLookup lookup = new CountingLookup();
+
+    try {
+      assertEquals(provider.get("key", 60, lookup), "value1");
+      Thread.sleep(1100);
+
+      assertEquals(provider.get("key", 60, lookup), "value1", "Stale value was not served");
+
+      while (lookup.count.get() < 2) {
+        Thread.sleep(10);
+      }
+      while (!"value2".equals(provider.get("key").getValue())) {
+        Thread.sleep(10);
+      }
+      assertEquals(provider.get("key", 60, lookup), "value2", "Refreshed value was not served");
+      assertEquals(lookup.count.get(), 2, "Fresh entry should not be refreshed again");
+    } finally {
+      provider.shutdown();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SingleFlightTest {
+
+  private static final int THREADS = 8;
+
+  @Test(timeOut = 10000)
+  public void testConcurrentMissesShareOneLookup() throws Exception {
+    final SingleFlight singleFlight = new SingleFlight();
+    final AtomicInteger lookups = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final Cache.Lookup<String, Exception> lookup = new Cache.Lookup<String, Exception>() {
+      @Override
+      public String lookup() throws Exception {
+        return "value";
+      }
+    };
+
+    final Cache.Lookup.Operation operation = new Cache.Lookup.Operation() {
+      public Cache.Item execute(boolean degradedMode) throws Exception {
+        lookups.incrementAndGet();
+        started.countDown();
+        release.await();
+        return new Cache.Item(lookup.lookup());
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Cache.Item>> results = new ArrayList<Future<Cache.Item>>();
+      results.add(executor.submit(new Callable<Cache.Item>() {
+        public Cache.Item call() throws Exception {
+          return singleFlight.execute("key", lookup, operation);
+        }
+      }));
+      started.await();
+
+      for (int i = 1; i < THREADS; i++) {
+        results.add(executor.submit(new Callable<Cache.Item>() {
+          public Cache.Item call() throws Exception {
+            return singleFlight.execute("key", lookup, operation);
+          }
+        }));
+      }
+
+      //give the followers a chance to park on the leader's future
+      Thread.sleep(200);
+      release.countDown();
+
+      for (Future<Cache.Item> result : results) {
+        assertEquals(result.get().getValue(), "value", "Follower got the wrong value");
+      }
+      assertEquals(lookups.get(), 1, "Concurrent misses were not coalesced");
+      assertEquals(singleFlight.getInFlightCount(), 0, "In-flight lookup was not cleared");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 10000)
+  public void testLookupExceptionPropagatesToWaiters() throws Exception {
+    final SingleFlight singleFlight = new SingleFlight();
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final Cache.Lookup<String, IllegalStateException> lookup = new Cache.Lookup<String, IllegalStateException>() {
+      @Override
+      public String lookup() throws IllegalStateException {
+        throw new IllegalStateException("lookup failed");
+      }
+    };
+
+    final Cache.Lookup.Operation operation = new Cache.Lookup.Operation() {
+      public Cache.Item execute(boolean degradedMode) throws Exception {
+        started.countDown();
+        release.await();
+        return new Cache.Item(lookup.lookup());
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Callable<Cache.Item> call = new Callable<Cache.Item>() {
+        public Cache.Item call() throws Exception {
+          return singleFlight.execute("key", lookup, operation);
+        }
+      };
+      Future<Cache.Item> leader = executor.submit(call);
+      started.await();
+      Future<Cache.Item> follower = executor.submit(call);
+      Thread.sleep(200);
+      release.countDown();
+
+      for (Future<Cache.Item> result : new Future[]{leader, follower}) {
+        try {
+          result.get();
+          fail("Lookup exception was swallowed");
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof IllegalStateException, "Wrong exception type: " + e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 10000)
+  public void testWaiterDegradesAfterTimeout() throws Exception {
+    final SingleFlight singleFlight = new SingleFlight();
+    singleFlight.setTimeout(50);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final Cache.Lookup<String, Exception> lookup = new Cache.Lookup<String, Exception>() {
+      @Override
+      public String lookup() throws Exception {
+        return "value";
+      }
+    };
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(new Callable<Cache.Item>() {
+        public Cache.Item call() throws Exception {
+          return singleFlight.execute("key", lookup, new Cache.Lookup.Operation() {
+            public Cache.Item execute(boolean degradedMode) throws Exception {
+              started.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return new Cache.Item("slow");
+            }
+          });
+        }
+      });
+      started.await();
+
+      Cache.Item item = singleFlight.execute("key", lookup, new Cache.Lookup.Operation() {
+        public Cache.Item execute(boolean degradedMode) throws Exception {
+          assertTrue(degradedMode, "Timed out waiter should run in degraded mode");
+          return new Cache.Item(lookup.lookup());
+        }
+      });
+      assertEquals(item.getValue(), "value");
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.hibernate;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the queueing and flushing shared by the recorders, with a recorder that keeps its batches in memory.  The
+ * tests of each recorder only cover its own insert statement and extras.
+ */
+public class WriteBehindRecorderTest {
+
+  private final List<TestRecorder> recorders = new ArrayList<TestRecorder>();
+
+  private TestRecorder createRecorder(int capacity, int batchSize, long flushInterval) {
+    TestRecorder recorder = new TestRecorder();
+    recorder.setCapacity(capacity);
+    recorder.setBatchSize(batchSize);
+    recorder.setFlushInterval(flushInterval);
+    recorders.add(recorder);
+    return recorder;
+  }
+
+  private TestRecorder createRecorder(int capacity, int batchSize) {
+    //only flush when the tests ask for it, or when a batch fills up
+    return createRecorder(capacity, batchSize, 60 * 60 * 1000);
+  }
+
+  @AfterMethod
+  public void shutdownRecorders() {
+    for (TestRecorder recorder : recorders) {
+      recorder.shutdown();
+    }
+    recorders.clear();
+  }
+
+  @Test
+  public void testQueueing() {
+    TestRecorder recorder = createRecorder(10, 5);
+
+    assertTrue(recorder.record("a"), "event wasn't queued");
+    assertTrue(recorder.record("b"), "event wasn't queued");
+    assertTrue(recorder.getBatches().isEmpty(), "events were written before the flush");
+    assertEquals(recorder.getPendingCount(), 2, "incorrect pending count");
+
+    recorder.flush();
+
+    assertEquals(recorder.getBatches(), Arrays.asList(Arrays.asList("a", "b")), "incorrect batches written");
+    assertEquals(recorder.getQueuedCount(), 2, "incorrect queued count");
+    assertEquals(recorder.getFlushedCount(), 2, "incorrect flushed count");
+    assertEquals(recorder.getDroppedCount(), 0, "incorrect dropped count");
+    assertEquals(recorder.getPendingCount(), 0, "queue wasn't emptied");
+  }
+
+  @Test
+  public void testBatching() throws InterruptedException {
+    TestRecorder recorder = createRecorder(10, 3);
+
+    for (int i = 0; i < 7; i++) {
+      recorder.record(String.valueOf(i));
+    }
+    recorder.flush();
+    //full batches may also have been picked up by the flush thread
+    for (int i = 0; i < 50 && recorder.getFlushedCount() < 7; i++) {
+      Thread.sleep(100);
+    }
+
+    Set<String> written = new TreeSet<String>();
+    for (List<String> batch : recorder.getBatches()) {
+      assertTrue(batch.size() <= 3, "batch is bigger than the batch size: " + batch);
+      written.addAll(batch);
+    }
+    assertEquals(written, new TreeSet<String>(Arrays.asList("0", "1", "2", "3", "4", "5", "6")),
+        "incorrect events written");
+    assertTrue(recorder.getBatches().size() >= 3, "events weren't written in batches");
+  }
+
+  @Test
+  public void testFlushOnBatchSize() throws InterruptedException {
+    TestRecorder recorder = createRecorder(100, 3);
+
+    for (int i = 0; i < 3; i++) {
+      recorder.record(String.valueOf(i));
+    }
+
+    //a full batch is written out in the background
+    for (int i = 0; i < 50 && recorder.getFlushedCount() < 3; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(recorder.getFlushedCount(), 3, "full batch wasn't flushed");
+    assertEquals(recorder.getBatches().size(), 1, "incorrect number of batches");
+  }
+
+  @Test
+  public void testFlushOnInterval() throws InterruptedException {
+    TestRecorder recorder = createRecorder(100, 10, 50);
+
+    recorder.record("a");
+
+    for (int i = 0; i < 50 && recorder.getFlushedCount() < 1; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(recorder.getFlushedCount(), 1, "event wasn't flushed on the interval");
+  }
+
+  @Test
+  public void testDropOnOverflow() {
+    TestRecorder recorder = createRecorder(2, 10);
+    recorder.setOverflowPolicy(WriteBehindRecorder.OverflowPolicy.DROP);
+
+    assertTrue(recorder.record("a"), "event wasn't queued");
+    assertTrue(recorder.record("b"), "event wasn't queued");
+    assertFalse(recorder.record("c"), "event should have been dropped");
+
+    assertEquals(recorder.getQueuedCount(), 2, "incorrect queued count");
+    assertEquals(recorder.getDroppedCount(), 1, "incorrect dropped count");
+  }
+
+  @Test
+  public void testBlockOnOverflow() {
+    TestRecorder recorder = createRecorder(1, 10, 50);
+    recorder.setOverflowPolicy(WriteBehindRecorder.OverflowPolicy.BLOCK);
+
+    assertTrue(recorder.record("a"), "event wasn't queued");
+    //waits for the flush thread to make room
+    assertTrue(recorder.record("b"), "event wasn't queued once there was room");
+
+    assertEquals(recorder.getQueuedCount(), 2, "incorrect queued count");
+    assertEquals(recorder.getDroppedCount(), 0, "incorrect dropped count");
+  }
+
+  @Test
+  public void testFailedWriteIsDropped() {
+    TestRecorder recorder = createRecorder(10, 5);
+    recorder.setFailing(true);
+
+    recorder.record("a");
+    recorder.record("b");
+    recorder.flush();
+
+    assertEquals(recorder.getFlushedCount(), 0, "incorrect flushed count");
+    assertEquals(recorder.getDroppedCount(), 2, "failed batch wasn't counted as dropped");
+    assertEquals(recorder.getPendingCount(), 0, "failed batch was left on the queue");
+  }
+
+  @Test
+  public void testShutdownFlushes() {
+    TestRecorder recorder = createRecorder(10, 5);
+
+    recorder.record("a");
+    recorder.record("b");
+    recorder.shutdown();
+
+    assertEquals(recorder.getBatches(), Arrays.asList(Arrays.asList("a", "b")), "queue wasn't flushed on shutdown");
+    assertEquals(recorder.getFlushedCount(), 2, "incorrect flushed count");
+  }
+
+  @Test
+  public void testRecordAfterShutdown() throws InterruptedException {
+    TestRecorder recorder = createRecorder(10, 1);
+    recorder.record("a");
+    recorder.shutdown();
+
+    //would start a new flush thread for a full batch if the recorder restarted
+    assertFalse(recorder.record("b"), "event recorded after shutdown should have been dropped");
+    assertEquals(recorder.getDroppedCount(), 1, "incorrect dropped count");
+    assertEquals(recorder.getPendingCount(), 0, "event was queued after shutdown");
+    assertEquals(recorder.getFlushedCount(), 1, "incorrect flushed count");
+
+    //give the stopped thread time to exit
+    for (int i = 0; i < 50 && isFlushThreadAlive(); i++) {
+      Thread.sleep(100);
+    }
+    assertFalse(isFlushThreadAlive(), "flush thread was restarted after shutdown");
+  }
+
+  private static boolean isFlushThreadAlive() {
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals(TestRecorder.class.getSimpleName() + "-flush") && thread.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Keeps the batches it's asked to write
+   */
+  private static class TestRecorder extends WriteBehindRecorder<String> {
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+    private volatile boolean failing;
+
+    @Override
+    protected String getInsertSql() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void bind(PreparedStatement statement, String event) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void write(List<String> batch) {
+      if (failing) {
+        throw new IllegalStateException("write failed");
+      }
+      batches.add(new ArrayList<String>(batch));
+    }
+
+    List<List<String>> getBatches() {
+      synchronized (batches) {
+        return new ArrayList<List<String>>(batches);
+      }
+    }
+
+    void setFailing(boolean failing) {
+      this.failing = failing;
+    }
+  }
+}
@@ -13,8 +13,17 @@
 package org.ambraproject.service.search;
 
 import org.ambraproject.views.SearchHit;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.util.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -24,6 +33,7 @@ import org.ambraproject.action.BaseTest;
 import org.ambraproject.testutils.EmbeddedSolrServerFactory;
 import org.ambraproject.views.SearchResultSinglePage;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,9 +46,21 @@ public class SearchServiceTest extends BaseTest {
   @Autowired
   protected SearchService searchService;
 
+  @Autowired
+  @Qualifier("parallelSearchService")
+  protected SearchService parallelSearchService;
+
+  @Autowired
+  @Qualifier("consolidatedSearchService")
+  protected SearchService consolidatedSearchService;
+
   @Autowired
   protected EmbeddedSolrServerFactory solrServerFactory;
 
+  @Autowired
+  @Qualifier("ambraConfiguration")
+  protected Configuration ambraConfiguration;
+
   private static final String DOI_1         = "10.1371/journal.pgen.1000096";
   private static final String DOI_2         = "10.1371/journal.pbio.1000100";
   private static final String DOI_3         = "10.1371/journal.pbio.1000101";
@@ -188,6 +210,158 @@ public class SearchServiceTest extends BaseTest {
             + " articles, but it should have returned " + numberOfHits + " articles");
   }
 
+  @Test(dataProvider = "queryAndHitNumberForQuery")
+  public void testParallelSimpleSearch(String query, int numberOfHits) throws Exception {
+    SearchParameters searchParameters = getSearchParameters();
+    searchParameters.setQuery(query);
+    SearchResultSinglePage sequential = searchService.simpleSearch(searchParameters);
+    SearchResultSinglePage parallel = parallelSearchService.simpleSearch(searchParameters);
+
+    Assert.isTrue(parallel.getHits().size() == numberOfHits,
+        "Parallel Simple Search for '" + query + "' returned " + parallel.getHits().size()
+            + " articles, but it should have returned " + numberOfHits + " articles");
+    Assert.isTrue(ObjectUtils.equals(sequential.getJournalFacet(), parallel.getJournalFacet()),
+        "Parallel Simple Search for '" + query + "' returned a different journal facet");
+    Assert.isTrue(ObjectUtils.equals(sequential.getArticleTypeFacet(), parallel.getArticleTypeFacet()),
+        "Parallel Simple Search for '" + query + "' returned a different article type facet");
+    Assert.isTrue(ObjectUtils.equals(sequential.getKeywordFacet(), parallel.getKeywordFacet()),
+        "Parallel Simple Search for '" + query + "' returned a different keyword facet");
+  }
+
+  @Test(dataProvider = "queryAndHitNumberForUnformattedQuery")
+  public void testParallelAdvancedSearch(String query, int numberOfHits) throws Exception {
+    SearchParameters searchParameters = getSearchParameters();
+    searchParameters.setUnformattedQuery(query);
+    SearchResultSinglePage sequential = searchService.advancedSearch(searchParameters);
+    SearchResultSinglePage parallel = parallelSearchService.advancedSearch(searchParameters);
+
+    Assert.isTrue(parallel.getHits().size() == numberOfHits,
+        "Parallel Advanced Search for '" + query + "' returned " + parallel.getHits().size()
+            + " articles, but it should have returned " + numberOfHits + " articles");
+    Assert.isTrue(ObjectUtils.equals(sequential.getJournalFacet(), parallel.getJournalFacet()),
+        "Parallel Advanced Search for '" + query + "' returned a different journal facet");
+    Assert.isTrue(ObjectUtils.equals(sequential.getArticleTypeFacet(), parallel.getArticleTypeFacet()),
+        "Parallel Advanced Search for '" + query + "' returned a different article type facet");
+  }
+
+  /**
+   * Create a parallel search service whose queries for one facet fail, or stall, while every other query is answered
+   * by the embedded server
+   */
+  private SolrSearchService createFaultySearchService(final String facetField, final long stall)
+      throws Exception {
+    final SolrServer faultyServer = new FaultySolrServer(solrServerFactory.getServer(), facetField, stall);
+    SolrSearchService service = new SolrSearchService();
+    service.setServerFactory(new SolrServerFactory() {
+      @Override
+      public SolrServer getServer() {
+        return faultyServer;
+      }
+    });
+    service.setConfiguration(ambraConfiguration);
+    service.setParallelThreads(4);
+    service.setFacetTimeout(500);
+    return service;
+  }
+
+  @Test
+  public void testParallelSearchWithFailedFacet() throws Exception {
+    SolrSearchService faultySearchService = createFaultySearchService("article_type_facet", 0);
+    try {
+      SearchParameters searchParameters = getSearchParameters();
+      searchParameters.setQuery("delta");
+      SearchResultSinglePage sequential = searchService.simpleSearch(searchParameters);
+      SearchResultSinglePage parallel = faultySearchService.simpleSearch(searchParameters);
+
+      Assert.isTrue(parallel.getHits().size() == 3,
+          "Search with a failed facet query returned " + parallel.getHits().size()
+              + " articles, but it should have returned 3 articles");
+      Assert.isNull(parallel.getArticleTypeFacet(), "Failed article type facet wasn't left off the results");
+      Assert.isTrue(ObjectUtils.equals(sequential.getJournalFacet(), parallel.getJournalFacet()),
+          "Search with a failed facet query returned a different journal facet");
+    } finally {
+      faultySearchService.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelSearchWithStalledFacet() throws Exception {
+    SolrSearchService faultySearchService = createFaultySearchService("cross_published_journal_key", 5000);
+    try {
+      SearchParameters searchParameters = getSearchParameters();
+      searchParameters.setQuery("delta");
+      SearchResultSinglePage sequential = searchService.simpleSearch(searchParameters);
+
+      long start = System.currentTimeMillis();
+      SearchResultSinglePage parallel = faultySearchService.simpleSearch(searchParameters);
+      long elapsed = System.currentTimeMillis() - start;
+
+      Assert.isTrue(elapsed < 5000, "Search waited " + elapsed + " milliseconds for a stalled facet query");
+      Assert.isTrue(parallel.getHits().size() == 3,
+          "Search with a stalled facet query returned " + parallel.getHits().size()
+              + " articles, but it should have returned 3 articles");
+      Assert.isNull(parallel.getJournalFacet(), "Stalled journal facet wasn't left off the results");
+      Assert.isTrue(ObjectUtils.equals(sequential.getArticleTypeFacet(), parallel.getArticleTypeFacet()),
+          "Search with a stalled facet query returned a different article type facet");
+    } finally {
+      faultySearchService.shutdown();
+    }
+  }
+
+  @Test(dataProvider = "queryAndHitNumberForQuery")
+  public void testConsolidatedSimpleSearch(String query, int numberOfHits) throws Exception {
+    SearchParameters searchParameters = getSearchParameters();
+    searchParameters.setQuery(query);
+    SearchResultSinglePage separate = searchService.simpleSearch(searchParameters);
+    SearchResultSinglePage consolidated = consolidatedSearchService.simpleSearch(searchParameters);
+
+    Assert.isTrue(consolidated.getHits().size() == numberOfHits,
+        "Consolidated Simple Search for '" + query + "' returned " + consolidated.getHits().size()
+            + " articles, but it should have returned " + numberOfHits + " articles");
+    Assert.isTrue(ObjectUtils.equals(separate.getJournalFacet(), consolidated.getJournalFacet()),
+        "Consolidated Simple Search for '" + query + "' returned a different journal facet");
+    Assert.isTrue(ObjectUtils.equals(separate.getArticleTypeFacet(), consolidated.getArticleTypeFacet()),
+        "Consolidated Simple Search for '" + query + "' returned a different article type facet");
+    Assert.isTrue(ObjectUtils.equals(separate.getKeywordFacet(), consolidated.getKeywordFacet()),
+        "Consolidated Simple Search for '" + query + "' returned a different keyword facet");
+  }
+
+  @Test
+  public void testConsolidatedFacetsExcludeTheirOwnFilter() throws Exception {
+    SearchParameters searchParameters = getSearchParameters();
+    searchParameters.setQuery("delta");
+    searchParameters.setFilterJournals(new String[]{JOURNAL_KEY_2});
+    SearchResultSinglePage separate = searchService.simpleSearch(searchParameters);
+    SearchResultSinglePage consolidated = consolidatedSearchService.simpleSearch(searchParameters);
+
+    Assert.isTrue(consolidated.getHits().size() == 2,
+        "Consolidated Simple Search filtered on " + JOURNAL_KEY_2 + " returned " + consolidated.getHits().size()
+            + " articles, but it should have returned 2 articles");
+    Assert.isTrue(consolidated.getJournalFacet().size() == 2,
+        "Consolidated journal facet should ignore the journal filter, but it had "
+            + consolidated.getJournalFacet().size() + " journals");
+    Assert.isTrue(ObjectUtils.equals(separate.getJournalFacet(), consolidated.getJournalFacet()),
+        "Consolidated Simple Search returned a different journal facet");
+    Assert.isTrue(ObjectUtils.equals(separate.getArticleTypeFacet(), consolidated.getArticleTypeFacet()),
+        "Consolidated Simple Search returned a different article type facet");
+  }
+
+  @Test(dataProvider = "queryAndHitNumberForUnformattedQuery")
+  public void testConsolidatedAdvancedSearch(String query, int numberOfHits) throws Exception {
+    SearchParameters searchParameters = getSearchParameters();
+    searchParameters.setUnformattedQuery(query);
+    SearchResultSinglePage separate = searchService.advancedSearch(searchParameters);
+    SearchResultSinglePage consolidated = consolidatedSearchService.advancedSearch(searchParameters);
+
+    Assert.isTrue(consolidated.getHits().size() == numberOfHits,
+        "Consolidated Advanced Search for '" + query + "' returned " + consolidated.getHits().size()
+            + " articles, but it should have returned " + numberOfHits + " articles");
+    Assert.isTrue(ObjectUtils.equals(separate.getJournalFacet(), consolidated.getJournalFacet()),
+        "Consolidated Advanced Search for '" + query + "' returned a different journal facet");
+    Assert.isTrue(ObjectUtils.equals(separate.getArticleTypeFacet(), consolidated.getArticleTypeFacet()),
+        "Consolidated Advanced Search for '" + query + "' returned a different article type facet");
+  }
+
   @Test(dataProvider = "volumeAndELocationIdAndIdAndJournal")
   public void testFindAnArticleSearch(String volume, String eLocationId, String id, String journal)
       throws Exception {
@@ -243,4 +417,44 @@ public class SearchServiceTest extends BaseTest {
     Assert.isTrue(StringUtils.isNotBlank(abstractText));
   }
 
+  /**
+   * Fails, or stalls, the facet queries for one field, and passes every other request to another server
+   */
+  private static class FaultySolrServer extends SolrServer {
+    private final SolrServer server;
+    private final String facetField;
+    private final long stall;
+
+    /**
+     * @param stall milliseconds to hold the facet query for before answering it, or 0 to fail it
+     */
+    private FaultySolrServer(SolrServer server, String facetField, long stall) {
+      this.server = server;
+      this.facetField = facetField;
+      this.stall = stall;
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+      SolrParams params = request.getParams();
+      String[] facetFields = (params == null) ? null : params.getParams(FacetParams.FACET_FIELD);
+
+      //the facet queries ask for a single facet, the main query for several
+      if (facetFields != null && facetFields.length == 1 && facetFields[0].equals(facetField)) {
+        if (stall == 0) {
+          throw new SolrServerException("Facet query for " + facetField + " failed");
+        }
+        try {
+          Thread.sleep(stall);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return server.request(request);
+    }
+
+    @Override
+    public void shutdown() {
+    }
+  }
 }
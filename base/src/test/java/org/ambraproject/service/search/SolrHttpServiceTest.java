@@ -37,6 +37,9 @@ public class SolrHttpServiceTest extends BaseHttpTest {
   @Autowired
   protected SolrHttpService solrHttpService;
 
+  @Autowired
+  protected SolrHttpServiceImpl solrHttpServiceImpl;
+
 
   @DataProvider(name = "requestParameters")
   public Object[][] getRequestParameters(){
@@ -77,4 +80,34 @@ public class SolrHttpServiceTest extends BaseHttpTest {
     assertEquals(result.getElementsByTagName("doc").getLength(), 10,
         "didn't parse xml for correct number of result nodes");
   }
+
+  @Test
+  public void testRequestsGzipAndReusesConnections() throws SolrException {
+    httpEndpoint.whenAnyExchangeReceived(new Processor() {
+      @Override
+      public void process(Exchange exchange) throws Exception {
+        assertEquals(exchange.getIn().getHeader("Accept-Encoding"), "gzip",
+            "http request didn't ask for a gzipped response");
+        exchange.getOut().setBody(testSolrXml);
+      }
+    });
+
+    SolrHttpStatistics statistics = solrHttpServiceImpl.getStatistics();
+    long requests = statistics.getRequests();
+    long failures = statistics.getFailures();
+    int connections = Math.max(statistics.getConnectionsInPool(), 1);
+
+    for (int i = 0; i < 5; i++) {
+      Map<String, String> params = new HashMap<String, String>();
+      params.put("q", "mosquitoes");
+      Document result = solrHttpService.makeSolrRequest(params);
+      assertEquals(result.getElementsByTagName("doc").getLength(), 10,
+          "didn't parse xml for correct number of result nodes");
+    }
+
+    assertEquals(statistics.getRequests() - requests, 5, "requests weren't counted");
+    assertEquals(statistics.getFailures() - failures, 0, "requests were counted as failures");
+    assertTrue(statistics.getConnectionsInPool() <= connections,
+        "sequential requests didn't reuse pooled connections");
+  }
 }
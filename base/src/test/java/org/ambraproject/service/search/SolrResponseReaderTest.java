@@ -0,0 +1,82 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2014 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ambraproject.service.search;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class SolrResponseReaderTest {
+
+  @Test
+  public void testReadDocsInOrder() throws Exception {
+    InputStream response = getClass().getClassLoader().getResourceAsStream("test-solr-response.xml");
+    List<String> ids;
+    try {
+      ids = SolrResponseReader.read(response, new SolrResponseReader.HitMapper<String>() {
+        @Override
+        public String map(SolrHit hit) {
+          return hit.getString("id");
+        }
+      });
+    } finally {
+      IOUtils.closeQuietly(response);
+    }
+
+    assertEquals(ids.size(), 10, "didn't read the correct number of docs");
+    assertEquals(ids.get(0), "10.1371/journal.pcbi.0010001");
+    assertEquals(ids.get(9), "10.1371/journal.pcbi.0010010");
+  }
+
+  @Test
+  public void testReadFieldTypes() throws Exception {
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+        "<response>" +
+        "<lst name=\"responseHeader\"><int name=\"status\">0</int></lst>" +
+        "<result name=\"response\" numFound=\"1\" start=\"0\">" +
+        "<doc>" +
+        "<str name=\"id\">10.1371/journal.pone.0000001</str>" +
+        "<date name=\"publication_date\">2012-03-07T00:00:00Z</date>" +
+        "<arr name=\"author_display\"><str>Alpha</str><str>Beta &amp; Gamma</str></arr>" +
+        "<str name=\"title_display\">A &lt;i&gt;formatted&lt;/i&gt; title</str>" +
+        "</doc>" +
+        "</result>" +
+        "<lst name=\"facet_counts\"><lst name=\"facet_fields\">" +
+        "<lst name=\"doc\"><int name=\"id\">3</int></lst>" +
+        "</lst></lst>" +
+        "</response>";
+
+    List<SolrHit> hits = SolrResponseReader.read(new ByteArrayInputStream(xml.getBytes("UTF-8")),
+        SolrResponseReader.HITS);
+
+    assertEquals(hits.size(), 1, "read docs from outside the result");
+    SolrHit hit = hits.get(0);
+    assertEquals(hit.getString("id"), "10.1371/journal.pone.0000001");
+    assertEquals(hit.getString("publication_date"), "2012-03-07T00:00:00Z");
+    assertEquals(hit.getStrings("author_display"), Arrays.asList("Alpha", "Beta & Gamma"));
+    assertEquals(hit.getString("title_display"), "A <i>formatted</i> title");
+    assertTrue(hit.getStrings("subject_hierarchy").isEmpty());
+    assertNull(hit.getString("subject_hierarchy"));
+    assertFalse(hit.hasField("subject_hierarchy"));
+  }
+}
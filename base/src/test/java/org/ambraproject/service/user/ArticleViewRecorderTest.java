@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.Article;
+import org.ambraproject.models.ArticleView;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Restrictions;
+import org.testng.annotations.Test;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ArticleViewRecorderTest extends BaseRecorderTest<ArticleViewRecorder> {
+
+  @Override
+  protected ArticleViewRecorder newRecorder() {
+    return new ArticleViewRecorder();
+  }
+
+  private Long storeArticle(String doi) {
+    return Long.valueOf(dummyDataStore.store(new Article(doi)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<ArticleView> getViews(Long articleId) {
+    return dummyDataStore.findByCriteria(DetachedCriteria.forClass(ArticleView.class)
+        .add(Restrictions.eq("articleID", articleId)));
+  }
+
+  @Test
+  public void testFlush() {
+    Long articleId = storeArticle("id:test-article-for-write-behind-flush");
+    ArticleViewRecorder recorder = createRecorder(10);
+
+    Calendar viewed = Calendar.getInstance();
+    viewed.add(Calendar.HOUR, -1);
+    ArticleView view = new ArticleView(1L, articleId, ArticleView.Type.ARTICLE_VIEW);
+    view.setCreated(viewed.getTime());
+
+    assertTrue(recorder.record(view), "view wasn't queued");
+    assertTrue(recorder.record(new ArticleView(2L, articleId, ArticleView.Type.PDF_DOWNLOAD)), "view wasn't queued");
+    assertTrue(getViews(articleId).isEmpty(), "views were written before the flush");
+
+    recorder.flush();
+
+    List<ArticleView> views = getViews(articleId);
+    assertEquals(views.size(), 2, "incorrect number of views written");
+    for (ArticleView storedView : views) {
+      if (storedView.getUserID() == 1L) {
+        assertEquals(storedView.getType(), ArticleView.Type.ARTICLE_VIEW, "incorrect type");
+        assertEquals(storedView.getCreated().getTime() / 1000, viewed.getTimeInMillis() / 1000,
+            "view wasn't stored with the time it was recorded");
+      } else {
+        assertEquals(storedView.getType(), ArticleView.Type.PDF_DOWNLOAD, "incorrect type");
+      }
+    }
+    assertEquals(recorder.getFlushedCount(), 2, "incorrect flushed count");
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.action.BaseTest;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testng.annotations.AfterMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for tests of the recorders that write to the test database.  The queueing and flushing they share is
+ * tested by WriteBehindRecorderTest; these tests cover what each recorder writes and what it adds.  Recorders are
+ * shut down after each test.
+ *
+ * @param <R> the type of recorder
+ */
+public abstract class BaseRecorderTest<R extends WriteBehindRecorder<?>> extends BaseTest {
+
+  @Autowired
+  protected SessionFactory sessionFactory;
+
+  @Autowired
+  protected PlatformTransactionManager transactionManager;
+
+  private final List<R> recorders = new ArrayList<R>();
+
+  /**
+   * @return a new, unconfigured recorder
+   */
+  protected abstract R newRecorder();
+
+  /**
+   * Create a recorder that only flushes when the test asks for it or it's shut down.
+   *
+   * @param capacity the most events to hold in memory
+   * @return the recorder
+   */
+  protected R createRecorder(int capacity) {
+    R recorder = newRecorder();
+    recorder.setSessionFactory(sessionFactory);
+    recorder.setTransactionManager(transactionManager);
+    recorder.setCapacity(capacity);
+    recorder.setBatchSize(100);
+    recorder.setFlushInterval(60 * 60 * 1000);
+    recorders.add(recorder);
+    return recorder;
+  }
+
+  @AfterMethod
+  public void shutdownRecorders() {
+    for (R recorder : recorders) {
+      recorder.shutdown();
+    }
+    recorders.clear();
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.UserLogin;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Restrictions;
+import org.testng.annotations.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UserLoginRecorderTest extends BaseRecorderTest<UserLoginRecorder> {
+
+  @Override
+  protected UserLoginRecorder newRecorder() {
+    return new UserLoginRecorder();
+  }
+
+  private UserLoginRecorder createRecorder(long dedupWindow) {
+    UserLoginRecorder recorder = createRecorder(10);
+    recorder.setDedupWindow(dedupWindow);
+    return recorder;
+  }
+
+  private UserLogin createLogin(Long userProfileId, String sessionId) {
+    UserLogin login = new UserLogin(sessionId, "IP", "userAgent");
+    login.setUserProfileID(userProfileId);
+    return login;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<UserLogin> getLogins(String sessionId) {
+    return dummyDataStore.findByCriteria(DetachedCriteria.forClass(UserLogin.class)
+        .add(Restrictions.eq("sessionId", sessionId)));
+  }
+
+  @Test
+  public void testFlush() {
+    UserLoginRecorder recorder = createRecorder(60 * 1000);
+
+    assertTrue(recorder.record(createLogin(1L, "write-behind-login")), "login wasn't queued");
+    assertTrue(getLogins("write-behind-login").isEmpty(), "login was written before the flush");
+
+    recorder.flush();
+
+    List<UserLogin> logins = getLogins("write-behind-login");
+    assertEquals(logins.size(), 1, "incorrect number of logins written");
+    assertEquals(logins.get(0).getUserProfileID(), Long.valueOf(1L), "incorrect user profile id");
+    assertEquals(logins.get(0).getIP(), "IP", "incorrect IP");
+    assertEquals(logins.get(0).getUserAgent(), "userAgent", "incorrect user agent");
+  }
+
+  @Test
+  public void testDedup() {
+    UserLoginRecorder recorder = createRecorder(60 * 1000);
+
+    assertTrue(recorder.record(createLogin(1L, "deduplicated-login")), "login wasn't queued");
+    assertFalse(recorder.record(createLogin(1L, "deduplicated-login")), "duplicate login was queued");
+    //a different user on the same session isn't a duplicate
+    assertTrue(recorder.record(createLogin(2L, "deduplicated-login")), "login wasn't queued");
+
+    //a login outside the window is recorded again
+    Calendar later = Calendar.getInstance();
+    later.add(Calendar.MINUTE, 2);
+    UserLogin laterLogin = createLogin(1L, "deduplicated-login");
+    laterLogin.setCreated(later.getTime());
+    assertTrue(recorder.record(laterLogin), "login after the window wasn't queued");
+
+    assertEquals(recorder.getDuplicateCount(), 1, "incorrect duplicate count");
+
+    recorder.shutdown();
+    assertEquals(getLogins("deduplicated-login").size(), 3, "incorrect number of logins written");
+  }
+
+  @Test
+  public void testConcurrentDedup() throws InterruptedException {
+    final UserLoginRecorder recorder = createRecorder(60 * 1000);
+    final Date created = new Date();
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger queued = new AtomicInteger();
+
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          UserLogin login = createLogin(1L, "concurrent-login");
+          login.setCreated(created);
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          if (recorder.record(login)) {
+            queued.incrementAndGet();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(queued.get(), 1, "the same login was queued more than once");
+    assertEquals(recorder.getDuplicateCount(), threads.length - 1, "incorrect duplicate count");
+  }
+
+  @Test
+  public void testNoDedup() {
+    UserLoginRecorder recorder = createRecorder(0);
+
+    assertTrue(recorder.record(createLogin(1L, "login-without-dedup")), "login wasn't queued");
+    assertTrue(recorder.record(createLogin(1L, "login-without-dedup")), "login wasn't queued");
+
+    recorder.shutdown();
+    assertEquals(getLogins("login-without-dedup").size(), 2, "incorrect number of logins written");
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.service.user;
+
+import org.ambraproject.models.UserSearch;
+import org.ambraproject.service.hibernate.WriteBehindRecorder;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Restrictions;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UserSearchRecorderTest extends BaseRecorderTest<UserSearchRecorder> {
+
+  @Override
+  protected UserSearchRecorder newRecorder() {
+    return new UserSearchRecorder();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<UserSearch> getSearches(String searchTerms) {
+    return dummyDataStore.findByCriteria(DetachedCriteria.forClass(UserSearch.class)
+        .add(Restrictions.eq("searchTerms", searchTerms)));
+  }
+
+  @Test
+  public void testFlush() {
+    UserSearchRecorder recorder = createRecorder(10);
+
+    assertTrue(recorder.record(new UserSearch(5L, "write behind search", "search params")), "search wasn't queued");
+    assertTrue(recorder.record(new UserSearch(6L, "write behind search", "other params")), "search wasn't queued");
+    assertTrue(getSearches("write behind search").isEmpty(), "searches were written before the flush");
+
+    recorder.flush();
+
+    List<UserSearch> searches = getSearches("write behind search");
+    assertEquals(searches.size(), 2, "incorrect number of searches written");
+    for (UserSearch search : searches) {
+      if (search.getUserProfileID() == 5L) {
+        assertEquals(search.getSearchParams(), "search params", "incorrect search params");
+      } else {
+        assertEquals(search.getSearchParams(), "other params", "incorrect search params");
+      }
+    }
+    assertEquals(recorder.getFlushedCount(), 2, "incorrect flushed count");
+  }
+
+  @Test
+  public void testNeverBlocks() {
+    UserSearchRecorder recorder = createRecorder(1);
+    recorder.setOverflowPolicy(WriteBehindRecorder.OverflowPolicy.BLOCK);
+
+    assertTrue(recorder.record(new UserSearch(5L, "search on a full queue", "")), "search wasn't queued");
+    //would wait forever if the policy had been applied
+    assertFalse(recorder.record(new UserSearch(5L, "search on a full queue", "")), "search should have been dropped");
+    assertEquals(recorder.getDroppedCount(), 1, "incorrect dropped count");
+
+    recorder.shutdown();
+    assertEquals(getSearches("search on a full queue").size(), 1, "incorrect number of searches written");
+  }
+
+  @Test
+  public void testSampling() {
+    UserSearchRecorder recorder = createRecorder(10);
+    recorder.setSampleRate(0);
+
+    assertFalse(recorder.record(new UserSearch(5L, "sampled out search", "")), "search should have been sampled out");
+    assertEquals(recorder.getSampledOutCount(), 1, "incorrect sampled out count");
+    assertEquals(recorder.getQueuedCount(), 0, "incorrect queued count");
+
+    recorder.shutdown();
+    assertTrue(getSearches("sampled out search").isEmpty(), "sampled out search was written");
+  }
+
+  @Test
+  public void testRollup() {
+    UserSearchRecorder recorder = createRecorder(10);
+    recorder.setRollup(true);
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(recorder.record(new UserSearch(5L, "rolled up search", "")), "search wasn't queued");
+    }
+    recorder.flush();
+
+    assertEquals(recorder.getFlushedCount(), 3, "incorrect flushed count");
+    assertTrue(getSearches("rolled up search").isEmpty(), "rolled up searches shouldn't be written as rows");
+  }
+}
@@ -32,6 +32,7 @@ import org.ambraproject.models.UserSearch;
 import org.ambraproject.service.search.SearchParameters;
 import org.ambraproject.views.OrcidAuthorization;
 import org.ambraproject.views.SavedSearchView;
+import org.ambraproject.views.UserLoginView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.DataProvider;
@@ -148,6 +149,38 @@ public class UserServiceTest extends BaseTest {
         "stored login had incorrect sessionID");
   }
 
+  @Test(dataProvider = "userProfile")
+  public void testLoginProfile(Long id, UserProfile userProfile) {
+    UserLoginView result = userService.login(userProfile.getAuthId(), new UserLogin("sessionId", "IP", "userAgent"));
+    assertNotNull(result, "login returned null profile");
+    assertEquals(result.getID(), id, "login returned incorrect user profile");
+    assertEquals(result.getAuthId(), userProfile.getAuthId(), "login returned user with incorrect auth id");
+    assertEquals(result.getEmail(), userProfile.getEmail(), "login returned user with incorrect email");
+    assertEquals(result.getDisplayName(), userProfile.getDisplayName(),
+        "login returned user with incorrect display name");
+    assertNotNull(result.getRoleNames(), "login returned user without roles");
+  }
+
+  @Test
+  public void testLoginProfileRoles() {
+    UserProfile user = new UserProfile(
+        "email@loginRoles.org",
+        "displayNameForLoginRoles",
+        "pass");
+    user.setRoles(new HashSet<UserRole>(dummyDataStore.getAll(UserRole.class)));
+    assertTrue(user.getRoles().size() > 0, "There were no stored roles to assign"); //shouldn't happen
+    dummyDataStore.store(user);
+
+    Set<String> roleNames = new HashSet<String>();
+    for (UserRole role : user.getRoles()) {
+      roleNames.add(role.getRoleName());
+    }
+
+    UserLoginView result = userService.login(user.getAuthId(), new UserLogin("sessionId", "IP", "userAgent"));
+    assertNotNull(result, "login returned null profile");
+    assertEquals(result.getRoleNames(), roleNames, "login returned user with incorrect roles");
+  }
+
   /**
    * Test the save, fetch and delete of a user's orcid record
    * @param id
@@ -382,7 +415,7 @@ public class UserServiceTest extends BaseTest {
 
   @Test
   public void testLoginWithNonexistentUser() {
-    UserProfile login = userService.login("this-isnot-areal-authid", new UserLogin());
+    UserLoginView login = userService.login("this-isnot-areal-authid", new UserLogin());
     assertNull(login, "User service didn't return null for non-existent user");
   }
 
@@ -39,14 +39,22 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -116,6 +124,76 @@ public class XMLServiceTest extends BaseTest {
     assertTrue(diff.identical(), diff.toString());
   }
 
+  @Test
+  public void testTransformToStream() throws Exception {
+    String source = "<article><p>Hello <bold>World</bold></p></article>";
+    String expected = secondaryObjectService.getTransformedDocument(
+        viewNLMService.createDocBuilder().parse(new InputSource(new StringReader(source))));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    secondaryObjectService.transform(new ByteArrayInputStream(source.getBytes("UTF-8")), out);
+    assertEquals(out.toString("UTF-8"), expected, "streamed transform differs from the buffered one");
+
+    StringWriter writer = new StringWriter();
+    secondaryObjectService.transform(
+        viewNLMService.createDocBuilder().parse(new InputSource(new StringReader(source))), writer);
+    assertEquals(writer.toString(), expected, "transform to a writer differs from the buffered one");
+  }
+
+  @Test
+  public void testStylesheetsCompiledOnce() throws Exception {
+    assertEquals(secondaryObjectService.getStatistics("objInfo-v3.xsl").getCompiles(), 1,
+        "default stylesheet was not compiled exactly once");
+    assertEquals(secondaryObjectService.getStatistics("objInfo.xsl").getCompiles(), 1,
+        "dtd-version stylesheet was not compiled exactly once");
+
+    StylesheetStatistics statistics = secondaryObjectService.getStatistics("objInfo.xsl");
+    long transforms = statistics.getTransforms();
+    Document doc = viewNLMService.createDocBuilder().parse(
+        new InputSource(new StringReader("<article dtd-version=\"3.0\"><p>Hello World</p></article>")));
+    secondaryObjectService.getTransformedDocument(doc);
+    secondaryObjectService.getTransformedDocument(doc);
+
+    assertEquals(statistics.getTransforms(), transforms + 2, "transforms were not recorded against the stylesheet");
+    assertEquals(statistics.getCompiles(), 1, "stylesheet was recompiled for a transform");
+  }
+
+  @Test
+  public void testStylesheetReload() throws Exception {
+    File xsl = File.createTempFile("reload", ".xsl");
+    xsl.deleteOnExit();
+    writeStylesheet(xsl, "first");
+
+    Map<String, String> xmlFactoryProperties = new HashMap<String, String>();
+    xmlFactoryProperties.put("javax.xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+    XMLServiceImpl service = new XMLServiceImpl();
+    service.setXslDefaultTemplate(xsl.getPath());
+    service.setXslTemplateMap(new HashMap<String, String>());
+    service.setXmlFactoryProperty(xmlFactoryProperties);
+    service.setAmbraConfiguration(new BaseConfiguration());
+    service.setReloadCheckInterval(1);
+    service.init();
+
+    assertEquals(service.getTransformedDescription("text").trim(), "first");
+
+    writeStylesheet(xsl, "second");
+    assertTrue(xsl.setLastModified(xsl.lastModified() + 2000), "couldn't touch the stylesheet");
+    Thread.sleep(10);
+
+    assertEquals(service.getTransformedDescription("text").trim(), "second", "changed stylesheet was not reloaded");
+    assertEquals(service.getStatistics(xsl.getPath()).getCompiles(), 2);
+  }
+
+  private void writeStylesheet(File file, String output) throws IOException {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write("<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">" +
+          "<xsl:output method=\"text\"/><xsl:template match=\"/\">" + output + "</xsl:template></xsl:stylesheet>");
+    } finally {
+      writer.close();
+    }
+  }
+
   private String getFileAsString(String resultFilename) throws IOException {
     BufferedReader reader = new BufferedReader(
         new InputStreamReader(getClass().getResourceAsStream(resultFilename), "UTF-8"));
@@ -26,6 +26,7 @@ import org.ambraproject.models.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.Test;
 import org.ambraproject.Constants;
+import org.ambraproject.views.UserLoginView;
 
 import java.util.List;
 
@@ -55,7 +56,7 @@ public class EnsureUserAccountInterceptorTest extends BaseInterceptorTest {
 
     putInSession(Constants.AUTH_KEY, ambraUser.getAuthId());
     putInSession(Constants.SINGLE_SIGNON_EMAIL_KEY, ambraUser.getEmail());
-    putInSession(Constants.AMBRA_USER_KEY, ambraUser);
+    putInSession(Constants.AMBRA_USER_KEY, new UserLoginView(ambraUser));
 
     final String result = interceptor.intercept(actionInvocation);
     assertEquals(result, Action.SUCCESS, "Interceptor didn't allow action invocation to proceed");
@@ -76,7 +77,7 @@ public class EnsureUserAccountInterceptorTest extends BaseInterceptorTest {
 
     String result = interceptor.intercept(actionInvocation);
     assertEquals(result, Action.SUCCESS, "Interceptor didn't forward to action");
-    UserProfile cachedUser = (UserProfile) getFromSession(Constants.AMBRA_USER_KEY);
+    UserLoginView cachedUser = (UserLoginView) getFromSession(Constants.AMBRA_USER_KEY);
     assertNotNull(cachedUser, "interceptor didn't cache a user in session");
     assertEquals(cachedUser.getID(), user.getID(), "Session cached incorrect user");
     assertEquals(cachedUser.getEmail(), user.getEmail(), "cached user had incorrect email");
@@ -220,6 +220,11 @@ public class DummyHibernateDataStore implements DummyDataStore {
               while (iterator.hasNext()) {
                 iterator.next();
               }
+            } else if (Map.class.isAssignableFrom(propertyDescriptor.getPropertyType())) {
+              Map map = (Map) wrapper.getPropertyValue(propertyDescriptor.getName());
+              if (map != null) {
+                map.size();
+              }
             }
           }
         }
@@ -14,14 +14,23 @@
 package org.ambraproject.util;
 
 import freemarker.template.TemplateException;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.ambraproject.configuration.ConfigurationStore;
+import org.springframework.mock.web.MockServletContext;
 import org.testng.annotations.Test;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.Map;
+import java.util.Properties;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Tests for VersionedFileDirectiveTest
@@ -30,6 +39,10 @@ public class VersionedFileDirectiveTest {
 
   private static class VersionedFileDirectiveForTest extends VersionedFileDirective {
 
+    VersionedFileDirectiveForTest() {
+      super(new MockServletContext());
+    }
+
     @Override
     public String getLink(String filename, String fingerprint, Map params) throws TemplateException {
       return null;
@@ -57,4 +70,51 @@ public class VersionedFileDirectiveTest {
     vfd = new VersionedFileDirectiveForTest();
     assertEquals(vfd.getFingerprint(f.getAbsolutePath()), "0Eg9JYTa0RKSr3ypJplKU9DrCuA");
   }
+
+  @Test
+  public void testManifest() throws Exception {
+    File templateDir = File.createTempFile("templates", "");
+    templateDir.delete();
+    try {
+      File css = new File(templateDir, "journals/TestJournal/webapp/css/journal.css");
+      FileUtils.writeStringToFile(css, "This is a test\n");
+      File js = new File(templateDir, "journals/TestJournal/webapp/javascript/journal.js");
+      FileUtils.writeStringToFile(js, "This is a test\nfoo\n");
+      FileUtils.writeStringToFile(new File(templateDir, "journals/TestJournal/webapp/index.ftl"), "<html/>");
+
+      //generated like the journals build does it
+      File manifestFile = new File(templateDir, "journals/" + AssetFingerprintManifest.FILE_NAME);
+      AssetFingerprintManifest.main(manifestFile.getPath(),
+          "journals/TestJournal=" + new File(templateDir, "journals/TestJournal").getPath());
+
+      Properties generated = AssetFingerprintManifest.generate(
+          "journals/TestJournal=" + new File(templateDir, "journals/TestJournal").getPath());
+      assertEquals(generated.size(), 2, "only css and javascript should be fingerprinted");
+      assertEquals(generated.getProperty("journals/TestJournal/webapp/css/journal.css"), "PBuwzV1n3dwC+uUL9W06Oky8cgQ");
+
+      Configuration configuration = new BaseConfiguration();
+      configuration.setProperty(ConfigurationStore.JOURNAL_TEMPLATE_DIR, templateDir.getPath());
+      AssetFingerprintManifest manifest = VersionedFileDirective.loadManifest(new MockServletContext(), configuration);
+      assertFalse(manifest.isEmpty(), "manifest wasn't loaded");
+      assertEquals(manifest.getFingerprint(js.getAbsolutePath()), "0Eg9JYTa0RKSr3ypJplKU9DrCuA");
+
+      //the manifest is used instead of the file
+      VersionedFileDirective vfd = new VersionedFileDirectiveForTest();
+      vfd.setManifest(manifest);
+      FileUtils.writeStringToFile(css, "changed after the build\n");
+      assertEquals(vfd.getFingerprint(css.getAbsolutePath()), "PBuwzV1n3dwC+uUL9W06Oky8cgQ");
+
+      //files that aren't in the manifest are hashed
+      File other = new File(templateDir, "journals/TestJournal/webapp/css/other.css");
+      FileUtils.writeStringToFile(other, "This is a test\n");
+      assertNull(manifest.getFingerprint(other.getAbsolutePath()), "file shouldn't be in the manifest");
+      assertEquals(vfd.getFingerprint(other.getAbsolutePath()), "PBuwzV1n3dwC+uUL9W06Oky8cgQ");
+
+      configuration.setProperty("ambra.platform.fingerprintManifest", false);
+      assertTrue(VersionedFileDirective.loadManifest(new MockServletContext(), configuration).isEmpty(),
+          "manifest should be turned off");
+    } finally {
+      FileUtils.deleteDirectory(templateDir);
+    }
+  }
 }
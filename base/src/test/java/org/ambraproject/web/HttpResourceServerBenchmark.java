@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Throughput of full and ranged downloads through {@link HttpResourceServer}, served from a channel and from a stream.
+ * This isn't named like a test so it isn't part of the build; run it with
+ * <pre>mvn test -Dtest=HttpResourceServerBenchmark -Dbenchmark.fileSize=209715200</pre>
+ */
+public class HttpResourceServerBenchmark {
+  private static final Logger log = LoggerFactory.getLogger(HttpResourceServerBenchmark.class);
+
+  private static final long FILE_SIZE = Long.getLong("benchmark.fileSize", 64L * 1024 * 1024);
+  private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10);
+  private static final long RANGE_SIZE = 1024 * 1024;
+
+  private File file;
+
+  @BeforeClass
+  public void createFile() throws IOException {
+    file = File.createTempFile("HttpResourceServerBenchmark", ".bin");
+    file.deleteOnExit();
+    RandomAccessFile out = new RandomAccessFile(file, "rw");
+    try {
+      byte[] block = new byte[64 * 1024];
+      for (int i = 0; i < block.length; i++) {
+        block[i] = (byte) i;
+      }
+      for (long written = 0; written < FILE_SIZE; written += block.length) {
+        out.write(block, 0, (int) Math.min(block.length, FILE_SIZE - written));
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  @AfterClass
+  public void deleteFile() {
+    file.delete();
+  }
+
+  private HttpResourceServer.Resource createStreamResource() {
+    return new HttpResourceServer.Resource(file.getName(), "application/octet-stream", file.length(),
+        file.lastModified()) {
+      public InputStream streamContent() throws IOException {
+        return new FileInputStream(file);
+      }
+
+      public byte[] getContent() {
+        return null;
+      }
+    };
+  }
+
+  private void run(String name, HttpResourceServer.Resource resource, String range, long expectedBytes)
+      throws IOException {
+    HttpResourceServer server = new HttpResourceServer();
+
+    //warm up
+    serve(server, resource, range);
+
+    long start = System.nanoTime();
+    long bytes = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      bytes += serve(server, resource, range);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    assertEquals(bytes, expectedBytes * ITERATIONS, "wrong number of bytes served for " + name);
+    log.info("{}: {} requests of {} bytes in {} ms, {} MB/s", new Object[]{
+        name, ITERATIONS, expectedBytes, elapsed / 1000000,
+        String.format("%.1f", (bytes / (1024.0 * 1024.0)) / (elapsed / 1000000000.0))});
+  }
+
+  private long serve(HttpResourceServer server, HttpResourceServer.Resource resource, String range)
+      throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    if (range != null) {
+      request.addHeader("Range", range);
+    }
+    DiscardingResponse response = new DiscardingResponse();
+    server.serveResource(request, response, resource, null);
+    return response.out.count;
+  }
+
+  @Test
+  public void fullFromChannel() throws IOException {
+    run("full from channel", new HttpResourceServer.FileResource(file), null, FILE_SIZE);
+  }
+
+  @Test
+  public void fullFromStream() throws IOException {
+    run("full from stream", createStreamResource(), null, FILE_SIZE);
+  }
+
+  @Test
+  public void lastMegabyteFromChannel() throws IOException {
+    run("last megabyte from channel", new HttpResourceServer.FileResource(file), "bytes=-" + RANGE_SIZE, RANGE_SIZE);
+  }
+
+  @Test
+  public void lastMegabyteFromStream() throws IOException {
+    run("last megabyte from stream", createStreamResource(), "bytes=-" + RANGE_SIZE, RANGE_SIZE);
+  }
+
+  /**
+   * A response that counts the content written to it instead of keeping it
+   */
+  private static class DiscardingResponse extends MockHttpServletResponse {
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return out;
+    }
+  }
+
+  private static class CountingOutputStream extends ServletOutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+    }
+  }
+}
@@ -25,25 +25,42 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.testng.annotations.Test;
 import org.testng.annotations.BeforeClass;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import org.apache.commons.io.IOUtils;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.net.URL;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 
 /**
  * @author Dragisa Krsmanovic
- * TODO: Test ranges
  */
 public class HttpResourceServerTest {
   private static final String EXPECTED_TEXT = "Hello World !";
   private static final String EXPECTED_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
       "<test>Hello World !</test>";
+  private static final int BINARY_LENGTH = 64 * 1024;
   private URL xmlUrl;
   private URL txtUrl;
+  private File binaryFile;
+  private byte[] binaryContent;
+  private File cssFile;
+  private String cssContent;
 
   @BeforeClass
   protected void setUpClass() throws Exception {
@@ -62,6 +79,83 @@ public class HttpResourceServerTest {
     XMLUnit.setIgnoreAttributeOrder(true);
     XMLUnit.setIgnoreComments(true);
     XMLUnit.setIgnoreWhitespace(true);
+
+    binaryContent = new byte[BINARY_LENGTH];
+    for (int i = 0; i < BINARY_LENGTH; i++) {
+      binaryContent[i] = (byte) i;
+    }
+    binaryFile = File.createTempFile("HttpResourceServerTest", ".bin");
+    binaryFile.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(binaryFile);
+    try {
+      out.write(binaryContent);
+    } finally {
+      out.close();
+    }
+
+    StringBuilder css = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      css.append(".rule").append(i).append(" { margin: 0; padding: 0; }\n");
+    }
+    cssContent = css.toString();
+    cssFile = createCssFile(cssContent);
+  }
+
+  private File createCssFile(String content) throws IOException {
+    File file = File.createTempFile("HttpResourceServerTest", ".css");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private String gunzip(byte[] content) throws IOException {
+    return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(content)), "UTF-8");
+  }
+
+  private MockHttpServletResponse serveGzip(HttpResourceServer server, File file, String acceptEncoding)
+      throws IOException {
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    if (acceptEncoding != null) {
+      requestMock.addHeader("Accept-Encoding", acceptEncoding);
+    }
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    server.serveResource(requestMock, responseMock, new HttpResourceServer.FileResource(file), null);
+    return responseMock;
+  }
+
+  private byte[] expectedBytes(int start, int end) {
+    return Arrays.copyOfRange(binaryContent, start, end + 1);
+  }
+
+  /**
+   * The binary file, served as a stream instead of through a channel
+   */
+  private HttpResourceServer.Resource createStreamResource() {
+    return new HttpResourceServer.Resource("stream.bin", "application/octet-stream", BINARY_LENGTH,
+        binaryFile.lastModified()) {
+      public InputStream streamContent() throws IOException {
+        return new ByteArrayInputStream(binaryContent);
+      }
+
+      public byte[] getContent() {
+        return null;
+      }
+    };
+  }
+
+  private MockHttpServletResponse serve(HttpResourceServer.Resource resource, String range) throws IOException {
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    if (range != null) {
+      requestMock.addHeader("Range", range);
+    }
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    new HttpResourceServer().serveResource(requestMock, responseMock, resource, null);
+    return responseMock;
   }
 
 
@@ -126,4 +220,241 @@ public class HttpResourceServerTest {
     assertEquals(responseMock.getContentLength(), EXPECTED_TEXT.length(),
         "Wrong content length");
   }
+
+  @Test
+  public void testServeTransformedResource() throws IOException {
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    HttpResourceServer server = new HttpResourceServer();
+    server.serveResource(requestMock, responseMock, true, new UpperCaseResource());
+    assertEquals(responseMock.getContentAsString(), EXPECTED_TEXT.toUpperCase(), "Wrong content served");
+    assertEquals(responseMock.getContentType(), "text/plain", "Wrong content type");
+    assertNull(responseMock.getHeader("Content-Length"), "Content length set for transformed content");
+  }
+
+  @Test
+  public void testServeTransformedResourceForHead() throws IOException {
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    requestMock.setMethod("HEAD");
+    HttpResourceServer server = new HttpResourceServer();
+    server.serveResource(requestMock, responseMock, new UpperCaseResource(), null);
+    assertEquals(responseMock.getContentAsString(), "", "Content is not empty");
+    assertEquals(responseMock.getContentType(), "text/plain", "Wrong content type");
+  }
+
+  @Test
+  public void testServeFile() throws IOException {
+    MockHttpServletResponse responseMock = serve(new HttpResourceServer.FileResource(binaryFile), null);
+    assertEquals(responseMock.getStatus(), 200, "Wrong status");
+    assertEquals(responseMock.getContentLength(), BINARY_LENGTH, "Wrong content length");
+    assertEquals(responseMock.getContentAsByteArray(), binaryContent, "Wrong content served");
+  }
+
+  @Test
+  public void testURLResourceIsSeekable() throws IOException {
+    assertTrue(new HttpResourceServer.URLResource(txtUrl).isSeekable(), "file url wasn't seekable");
+    URL jarUrl = new URL("jar:" + binaryFile.toURI().toURL() + "!/none.txt");
+    assertFalse(new HttpResourceServer.URLResource(jarUrl).isSeekable(), "jar url was seekable");
+  }
+
+  @Test
+  public void testServeFileRange() throws IOException {
+    MockHttpServletResponse responseMock = serve(new HttpResourceServer.FileResource(binaryFile), "bytes=60000-60099");
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertEquals(responseMock.getHeader("Content-Range"), "bytes 60000-60099/" + BINARY_LENGTH,
+        "Wrong content range");
+    assertEquals(responseMock.getContentLength(), 100, "Wrong content length");
+    assertEquals(responseMock.getContentAsByteArray(), expectedBytes(60000, 60099), "Wrong content served");
+  }
+
+  @Test
+  public void testServeFileSuffixRange() throws IOException {
+    MockHttpServletResponse responseMock = serve(new HttpResourceServer.FileResource(binaryFile), "bytes=-10");
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertEquals(responseMock.getContentAsByteArray(), expectedBytes(BINARY_LENGTH - 10, BINARY_LENGTH - 1),
+        "Wrong content served");
+  }
+
+  @Test
+  public void testServeStreamRange() throws IOException {
+    MockHttpServletResponse responseMock = serve(createStreamResource(), "bytes=40000-40099");
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertEquals(responseMock.getContentAsByteArray(), expectedBytes(40000, 40099), "Wrong content served");
+  }
+
+  @Test
+  public void testServeFileMultipleRanges() throws IOException {
+    //out of order, which a channel can serve
+    MockHttpServletResponse responseMock = serve(new HttpResourceServer.FileResource(binaryFile),
+        "bytes=50000-50009,100-109");
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertTrue(responseMock.getContentType().startsWith("multipart/byteranges"), "Wrong content type");
+
+    String body = new String(responseMock.getContentAsByteArray(), "ISO-8859-1");
+    int first = body.indexOf("Content-Range: bytes 50000-50009/" + BINARY_LENGTH);
+    int second = body.indexOf("Content-Range: bytes 100-109/" + BINARY_LENGTH);
+    assertTrue(first >= 0 && second > first, "Missing or misordered parts: " + body);
+    assertTrue(body.contains(new String(expectedBytes(50000, 50009), "ISO-8859-1")), "Missing first part");
+    assertTrue(body.contains(new String(expectedBytes(100, 109), "ISO-8859-1")), "Missing second part");
+    assertTrue(body.endsWith("--AMBRA_MIME_BOUNDARY--"), "Missing closing boundary");
+  }
+
+  @Test
+  public void testServeStreamMultipleRanges() throws IOException {
+    MockHttpServletResponse responseMock = serve(createStreamResource(), "bytes=100-109,50000-50009");
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+
+    String body = new String(responseMock.getContentAsByteArray(), "ISO-8859-1");
+    int first = body.indexOf(new String(expectedBytes(100, 109), "ISO-8859-1"));
+    int second = body.indexOf(new String(expectedBytes(50000, 50009), "ISO-8859-1"));
+    assertTrue(first >= 0 && second > first, "Missing or misordered parts");
+  }
+
+  @Test
+  public void testSendFile() throws IOException {
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    requestMock.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+    requestMock.addHeader("Range", "bytes=1000-");
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    new HttpResourceServer().serveResource(requestMock, responseMock,
+        new HttpResourceServer.FileResource(binaryFile), null);
+
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertEquals(responseMock.getContentLength(), BINARY_LENGTH - 1000, "Wrong content length");
+    assertEquals(responseMock.getContentAsByteArray().length, 0, "Content written along with sendfile");
+    assertEquals(requestMock.getAttribute("org.apache.tomcat.sendfile.filename"), binaryFile.getAbsolutePath(),
+        "Wrong sendfile file");
+    assertEquals(requestMock.getAttribute("org.apache.tomcat.sendfile.start"), 1000L, "Wrong sendfile start");
+    assertEquals(requestMock.getAttribute("org.apache.tomcat.sendfile.end"), (long) BINARY_LENGTH,
+        "Wrong sendfile end");
+  }
+
+  @Test
+  public void testGzipOnTheFly() throws IOException {
+    CompressedContentCache cache = new CompressedContentCache(1024 * 1024, 1024 * 1024);
+    HttpResourceServer server = new HttpResourceServer(cache);
+
+    MockHttpServletResponse responseMock = serveGzip(server, cssFile, "gzip, deflate");
+    assertEquals(responseMock.getHeader("Content-Encoding"), "gzip", "Wrong content encoding");
+    assertEquals(responseMock.getHeader("Vary"), "Accept-Encoding", "Missing vary header");
+    assertEquals(responseMock.getContentType(), "text/css", "Wrong content type");
+    byte[] compressed = responseMock.getContentAsByteArray();
+    assertEquals(responseMock.getContentLength(), compressed.length, "Wrong content length");
+    assertTrue(compressed.length < cssContent.length(), "Content wasn't compressed");
+    assertEquals(gunzip(compressed), cssContent, "Wrong content served");
+
+    //the second request is served from the cache
+    long cached = cache.getSize();
+    assertEquals(cached, compressed.length, "Compressed content wasn't cached");
+    assertEquals(serveGzip(server, cssFile, "gzip").getContentAsByteArray(), compressed, "Wrong content served");
+    assertEquals(cache.getSize(), cached, "Content was cached again");
+  }
+
+  @Test
+  public void testGzipNotAccepted() throws IOException {
+    HttpResourceServer server = new HttpResourceServer(new CompressedContentCache(1024 * 1024, 1024 * 1024));
+
+    for (String acceptEncoding : new String[]{null, "deflate", "gzip;q=0", "*;q=0", "gzip;q=0, *"}) {
+      MockHttpServletResponse responseMock = serveGzip(server, cssFile, acceptEncoding);
+      assertNull(responseMock.getHeader("Content-Encoding"), "Content encoded for " + acceptEncoding);
+      assertEquals(responseMock.getHeader("Vary"), "Accept-Encoding", "Missing vary header for " + acceptEncoding);
+      assertEquals(responseMock.getContentAsString(), cssContent, "Wrong content served for " + acceptEncoding);
+    }
+  }
+
+  @Test
+  public void testGzipETag() throws IOException {
+    HttpResourceServer server = new HttpResourceServer(new CompressedContentCache(1024 * 1024, 1024 * 1024));
+    String gzipETag = serveGzip(server, cssFile, "gzip").getHeader("ETag");
+    String identityETag = serveGzip(server, cssFile, null).getHeader("ETag");
+    assertFalse(gzipETag.equals(identityETag), "Both forms have the same ETag");
+
+    //a conditional request only matches the form it was made for
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    requestMock.addHeader("Accept-Encoding", "gzip");
+    requestMock.addHeader("If-None-Match", identityETag);
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    server.serveResource(requestMock, responseMock, new HttpResourceServer.FileResource(cssFile), null);
+    assertEquals(responseMock.getStatus(), 200, "Gzipped content matched the ETag of the uncompressed content");
+  }
+
+  @Test
+  public void testGzipRange() throws IOException {
+    HttpResourceServer server = new HttpResourceServer(new CompressedContentCache(1024 * 1024, 1024 * 1024));
+    byte[] compressed = serveGzip(server, cssFile, "gzip").getContentAsByteArray();
+
+    //ranges are of the gzipped content
+    MockHttpServletRequest requestMock = new MockHttpServletRequest();
+    requestMock.addHeader("Accept-Encoding", "gzip");
+    requestMock.addHeader("Range", "bytes=10-19");
+    MockHttpServletResponse responseMock = new MockHttpServletResponse();
+    server.serveResource(requestMock, responseMock, new HttpResourceServer.FileResource(cssFile), null);
+    assertEquals(responseMock.getStatus(), 206, "Wrong status");
+    assertEquals(responseMock.getHeader("Content-Encoding"), "gzip", "Wrong content encoding");
+    assertEquals(responseMock.getHeader("Content-Range"), "bytes 10-19/" + compressed.length, "Wrong content range");
+    assertEquals(responseMock.getContentAsByteArray(), Arrays.copyOfRange(compressed, 10, 20),
+        "Wrong content served");
+  }
+
+  @Test
+  public void testPrecompressed() throws IOException {
+    File file = createCssFile(cssContent);
+    File precompressed = new File(file.getPath() + ".gz");
+    precompressed.deleteOnExit();
+    //different from what compressing the file would give, to tell them apart
+    GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(precompressed));
+    try {
+      out.write("precompressed".getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    precompressed.setLastModified(file.lastModified() + 1000);
+
+    CompressedContentCache cache = new CompressedContentCache(1024 * 1024, 1024 * 1024);
+    HttpResourceServer server = new HttpResourceServer(cache);
+    MockHttpServletResponse responseMock = serveGzip(server, file, "gzip");
+    assertEquals(responseMock.getHeader("Content-Encoding"), "gzip", "Wrong content encoding");
+    assertEquals(responseMock.getContentType(), "text/css", "Wrong content type");
+    assertEquals(gunzip(responseMock.getContentAsByteArray()), "precompressed", "Precompressed file wasn't served");
+    assertEquals(cache.getSize(), 0, "Content was compressed on the fly");
+
+    //an out of date .gz file is ignored
+    precompressed.setLastModified(file.lastModified() - 1000);
+    responseMock = serveGzip(server, file, "gzip");
+    assertEquals(gunzip(responseMock.getContentAsByteArray()), cssContent, "Out of date precompressed file was served");
+  }
+
+  @Test
+  public void testCompressedContentCacheEviction() throws IOException {
+    HttpResourceServer.FileResource first = new HttpResourceServer.FileResource(createCssFile(cssContent));
+    HttpResourceServer.FileResource second = new HttpResourceServer.FileResource(createCssFile(cssContent + " "));
+
+    //room for one of the files
+    long maxSize = new CompressedContentCache(1024 * 1024, 1024 * 1024)
+        .get(first.getFile(), first.getLastModified()).length + 10;
+    CompressedContentCache cache = new CompressedContentCache(maxSize, 1024 * 1024);
+
+    byte[] compressed = cache.get(first.getFile(), first.getLastModified());
+    assertSame(cache.get(first.getFile(), first.getLastModified()), compressed, "Compressed content wasn't cached");
+
+    cache.get(second.getFile(), second.getLastModified());
+    assertTrue(cache.getSize() <= maxSize, "Cache went over its size");
+    assertFalse(cache.get(first.getFile(), first.getLastModified()) == compressed,
+        "Least recently used content wasn't evicted");
+  }
+
+  private class UpperCaseResource extends HttpResourceServer.TransformedResource {
+    private UpperCaseResource() {
+      super("upper.txt", null, System.currentTimeMillis(), new HttpResourceServer.ContentTransformer() {
+        public void transform(InputStream in, OutputStream out) throws IOException {
+          out.write(IOUtils.toString(in, "UTF-8").toUpperCase().getBytes("UTF-8"));
+        }
+      });
+    }
+
+    public InputStream streamContent() throws IOException {
+      return txtUrl.openStream();
+    }
+  }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class MultipleRequestFilterTest {
+
+  private static final String ARTICLE_URI = "/article/info%3Adoi%2F10.1371%2Fjournal.pone.0000001";
+
+  private MultipleRequestFilter filter;
+  private MockHttpSession session;
+
+  @BeforeMethod
+  public void createFilter() throws ServletException {
+    filter = createFilter(10000, 100);
+    session = new MockHttpSession();
+  }
+
+  private static MultipleRequestFilter createFilter(long maxWait, int maxParked) throws ServletException {
+    MockFilterConfig config = new MockFilterConfig();
+    config.addInitParameter("includePattern_fetchArticle", ".*\\/article\\/info.*");
+    config.addInitParameter("maxWait", String.valueOf(maxWait));
+    config.addInitParameter("maxParked", String.valueOf(maxParked));
+    MultipleRequestFilter filter = new MultipleRequestFilter();
+    filter.init(config);
+    return filter;
+  }
+
+  private static MockHttpServletRequest createRequest(String method, MockHttpSession session) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, ARTICLE_URI);
+    request.setSession(session);
+    return request;
+  }
+
+  /**
+   * Start a request that doesn't complete until the chain is released
+   */
+  private static Thread startLeader(final MultipleRequestFilter filter, final MockHttpSession session,
+                                    final BlockingChain chain) throws InterruptedException {
+    Thread leader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          filter.doFilter(createRequest("GET", session), new MockHttpServletResponse(), chain);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    leader.start();
+    chain.started.await();
+    return leader;
+  }
+
+  @Test
+  public void testAnonymousRequestsGetNoSession() throws IOException, ServletException {
+    for (String uri : new String[]{ARTICLE_URI, "/home.action"}) {
+      MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+      MockFilterChain chain = new MockFilterChain();
+      filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+      assertEquals(chain.getRequest(), request, "request wasn't passed down the chain: " + uri);
+      assertNull(request.getSession(false), "filter created a session for " + uri);
+    }
+  }
+
+  @Test
+  public void testRequestWithSession() throws IOException, ServletException {
+    MockHttpServletRequest request = createRequest("GET", session);
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertEquals(chain.getRequest(), request, "request wasn't passed down the chain");
+    assertEquals(session.getAttributeNames().hasMoreElements(), false, "filter put something in the session");
+  }
+
+  @Test
+  public void testDuplicateGetsFirstResponse() throws Exception {
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, session, chain);
+
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+    Thread follower = new Thread() {
+      @Override
+      public void run() {
+        try {
+          filter.doFilter(createRequest("GET", session), response, new MockFilterChain());
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    follower.start();
+    while (filter.getParkedCount() == 0) {
+      Thread.sleep(5);
+    }
+
+    chain.release.countDown();
+    leader.join();
+    follower.join();
+
+    assertEquals(chain.invocations.get(), 1, "duplicate request went down the chain");
+    assertEquals(response.getStatus(), HttpServletResponse.SC_OK, "wrong status");
+    assertEquals(response.getContentAsString(), BlockingChain.CONTENT, "wrong content");
+    assertEquals(response.getHeader("X-Test"), "leader", "header wasn't copied");
+    assertEquals(filter.getCoalescedCount(), 1, "coalesced request wasn't counted");
+    assertEquals(filter.getInFlightCount(), 0, "request still in flight");
+  }
+
+  @Test
+  public void testTooManyParked() throws Exception {
+    MultipleRequestFilter filter = createFilter(10000, 0);
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, session, chain);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(createRequest("GET", session), response, new MockFilterChain());
+    chain.release.countDown();
+    leader.join();
+
+    assertEquals(response.getStatus(), 429, "duplicate request wasn't rejected");
+    assertEquals(filter.getRejectedCount(), 1, "rejected request wasn't counted");
+  }
+
+  @Test
+  public void testMaxWait() throws Exception {
+    MultipleRequestFilter filter = createFilter(50, 100);
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, session, chain);
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(createRequest("GET", session), response, new MockFilterChain());
+    chain.release.countDown();
+    leader.join();
+
+    assertEquals(response.getStatus(), 429, "duplicate request didn't time out");
+    assertTrue(response.getHeader("Retry-After") != null, "no Retry-After header");
+    assertEquals(filter.getParkedCount(), 0, "request still parked");
+  }
+
+  @Test
+  public void testDuplicateAfterResponseStarted() throws Exception {
+    BlockingChain chain = new BlockingChain(true);
+    Thread leader = startLeader(filter, session, chain);
+
+    //the leader is writing its response without a copy, so there's nothing to wait for
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(createRequest("GET", session), response, new MockFilterChain());
+    assertEquals(response.getStatus(), 429, "duplicate request wasn't rejected");
+    assertEquals(filter.getParkedCount(), 0, "duplicate request was parked");
+
+    chain.release.countDown();
+    leader.join();
+    assertEquals(chain.invocations.get(), 1, "duplicate request went down the chain");
+  }
+
+  @Test
+  public void testAnonymousRequestsAreNotCoalesced() throws Exception {
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, null, chain);
+
+    MockFilterChain anonymousChain = new MockFilterChain();
+    filter.doFilter(createRequest("GET", null), new MockHttpServletResponse(), anonymousChain);
+    chain.release.countDown();
+    leader.join();
+
+    assertTrue(anonymousChain.getRequest() != null, "anonymous duplicate didn't go down the chain");
+    assertEquals(filter.getCoalescedCount(), 0, "anonymous request was coalesced");
+  }
+
+  @Test
+  public void testOtherSessionIsNotCoalesced() throws Exception {
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, session, chain);
+
+    MockFilterChain otherChain = new MockFilterChain();
+    filter.doFilter(createRequest("GET", new MockHttpSession()), new MockHttpServletResponse(), otherChain);
+    chain.release.countDown();
+    leader.join();
+
+    assertTrue(otherChain.getRequest() != null, "another session's request didn't go down the chain");
+    assertEquals(filter.getCoalescedCount(), 0, "another session's request was coalesced");
+  }
+
+  @Test
+  public void testPostIsNotCoalesced() throws Exception {
+    BlockingChain chain = new BlockingChain();
+    Thread leader = startLeader(filter, session, chain);
+
+    MockFilterChain postChain = new MockFilterChain();
+    filter.doFilter(createRequest("POST", session), new MockHttpServletResponse(), postChain);
+    chain.release.countDown();
+    leader.join();
+
+    assertTrue(postChain.getRequest() != null, "POST didn't go down the chain");
+  }
+
+  /**
+   * A chain that writes a response once it's released, or starts writing it before and finishes once it's released
+   */
+  private static class BlockingChain implements FilterChain {
+    private static final String CONTENT = "<html>article</html>";
+
+    private final boolean writeFirst;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private BlockingChain() {
+      this(false);
+    }
+
+    private BlockingChain(boolean writeFirst) {
+      this.writeFirst = writeFirst;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+      invocations.incrementAndGet();
+      HttpServletResponse httpResponse = (HttpServletResponse) response;
+      if (writeFirst) {
+        httpResponse.getOutputStream().write(CONTENT.getBytes("UTF-8"));
+      }
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (!writeFirst) {
+        httpResponse.setHeader("X-Test", "leader");
+        httpResponse.setContentType("text/html");
+        httpResponse.getWriter().write(CONTENT);
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.ambraproject.Constants;
+import org.springframework.mock.web.MockHttpSession;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionEvent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SessionCounterTest {
+
+  @Test
+  public void testCounts() {
+    SessionCounter counter = new SessionCounter();
+    int count = SessionCounter.getSessionCount();
+    int anonymous = SessionCounter.getAnonymousSessionCount();
+    long created = SessionCounter.getSessionsCreated();
+
+    MockHttpSession anonymousSession = new MockHttpSession();
+    MockHttpSession userSession = new MockHttpSession();
+
+    counter.sessionCreated(new HttpSessionEvent(anonymousSession));
+    counter.sessionCreated(new HttpSessionEvent(userSession));
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous + 2, "wrong anonymous session count");
+
+    userSession.setAttribute(Constants.AUTH_KEY, "authId");
+    counter.attributeAdded(new HttpSessionBindingEvent(userSession, Constants.AUTH_KEY, "authId"));
+    userSession.setAttribute("padding", new byte[10000]);
+    counter.attributeAdded(new HttpSessionBindingEvent(userSession, "padding"));
+
+    assertEquals(SessionCounter.getSessionCount(), count + 2, "wrong session count");
+    assertEquals(SessionCounter.getSessionsCreated(), created + 2, "wrong number of sessions created");
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous + 1, "wrong anonymous session count");
+
+    SessionCounter.sampleSessionSizes();
+    assertTrue(SessionCounter.getAverageSessionSize() >= 10000 / (count + 2), "session size wasn't estimated");
+
+    counter.sessionDestroyed(new HttpSessionEvent(anonymousSession));
+    counter.sessionDestroyed(new HttpSessionEvent(userSession));
+
+    assertEquals(SessionCounter.getSessionCount(), count, "wrong session count");
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous, "wrong anonymous session count");
+  }
+
+  @Test
+  public void testLogout() {
+    SessionCounter counter = new SessionCounter();
+    int anonymous = SessionCounter.getAnonymousSessionCount();
+
+    MockHttpSession session = new MockHttpSession();
+    counter.sessionCreated(new HttpSessionEvent(session));
+    counter.attributeAdded(new HttpSessionBindingEvent(session, Constants.AUTH_KEY, "authId"));
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous, "wrong anonymous session count");
+
+    counter.attributeRemoved(new HttpSessionBindingEvent(session, Constants.AUTH_KEY, "authId"));
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous + 1, "logged out session wasn't anonymous");
+
+    counter.sessionDestroyed(new HttpSessionEvent(session));
+    assertEquals(SessionCounter.getAnonymousSessionCount(), anonymous, "wrong anonymous session count");
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.ambraproject.configuration.ConfigurationStore;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class VirtualJournalMappingCacheTest {
+
+  private File templateDir;
+  private File overrideFile;
+  private Configuration configuration;
+  private CountingServletContext servletContext;
+  private VirtualJournalMappingCache cache;
+  private VirtualJournalContext context;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    templateDir = File.createTempFile("VirtualJournalMappingCacheTest", "");
+    templateDir.delete();
+    overrideFile = new File(templateDir, "journals/TestJournal/webapp/css/journal.css");
+    FileUtils.writeStringToFile(overrideFile, "body {}");
+
+    configuration = new BaseConfiguration();
+    configuration.setProperty(ConfigurationStore.JOURNAL_TEMPLATE_DIR, templateDir.getPath());
+
+    servletContext = new CountingServletContext();
+    cache = new VirtualJournalMappingCache(100, 0);
+    servletContext.setAttribute(VirtualJournalMappingCache.SERVLET_CONTEXT_ATTRIBUTE, cache);
+
+    context = new VirtualJournalContext("TestJournal", "DefaultJournal", "http", 80, "localhost", "",
+        Arrays.asList("TestJournal", "DefaultJournal"));
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(templateDir);
+  }
+
+  private HttpServletRequest map(String path) throws ServletException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+    request.setServletPath(path);
+    return context.mapRequest(request, configuration, servletContext);
+  }
+
+  @Test
+  public void testOverrideIsCached() throws ServletException {
+    HttpServletRequest mapped = map("/css/journal.css");
+    assertEquals(mapped.getPathInfo(), overrideFile.getPath(), "didn't map to the journal override");
+    assertEquals(cache.getStatistics().getMisses(), 1, "first lookup should have missed");
+
+    //the mapping is remembered even after the file is gone, until the cache is cleared
+    overrideFile.delete();
+    assertEquals(map("/css/journal.css").getPathInfo(), overrideFile.getPath(), "mapping wasn't cached");
+    assertEquals(cache.getStatistics().getHits(), 1, "second lookup should have hit");
+
+    cache.clear();
+    assertEquals(map("/css/journal.css").getServletPath(), "/css/journal.css", "cleared mapping was used");
+  }
+
+  @Test
+  public void testNotFoundIsCached() throws ServletException {
+    HttpServletRequest request = new MockHttpServletRequest("GET", "/missing.css");
+    ((MockHttpServletRequest) request).setServletPath("/missing.css");
+
+    assertTrue(context.mapRequest(request, configuration, servletContext) == request, "request shouldn't be mapped");
+    int lookups = servletContext.lookups;
+    assertTrue(lookups > 0, "servlet context wasn't searched");
+
+    assertTrue(context.mapRequest(request, configuration, servletContext) == request, "request shouldn't be mapped");
+    assertEquals(servletContext.lookups, lookups, "servlet context was searched again");
+    assertEquals(cache.getStatistics().getHits(), 1, "second lookup should have hit");
+  }
+
+  @Test
+  public void testConfigurationChangeClearsCache() throws ServletException {
+    map("/css/journal.css");
+    assertEquals(cache.getSize(), 1, "mapping wasn't cached");
+
+    Configuration reloaded = new BaseConfiguration();
+    reloaded.setProperty(ConfigurationStore.JOURNAL_TEMPLATE_DIR, templateDir.getPath());
+    configuration = reloaded;
+    map("/css/journal.css");
+    assertEquals(cache.getStatistics().getMisses(), 2, "cache wasn't cleared for the new configuration");
+    assertEquals(cache.getStatistics().getExpirations(), 1, "cleared mapping wasn't counted");
+  }
+
+  @Test
+  public void testRefreshInterval() throws InterruptedException {
+    VirtualJournalMappingCache cache = new VirtualJournalMappingCache(100, 10);
+    cache.put("key", VirtualJournalMappingCache.NOT_FOUND, configuration, 0);
+    Thread.sleep(20);
+    assertNull(cache.get("key", configuration), "stale mapping was returned");
+  }
+
+  @Test
+  public void testEviction() {
+    VirtualJournalMappingCache cache = new VirtualJournalMappingCache(2, 0);
+    cache.put("a", VirtualJournalMappingCache.NOT_FOUND, configuration, 0);
+    cache.put("b", VirtualJournalMappingCache.NOT_FOUND, configuration, 0);
+    cache.get("a", configuration);
+    cache.put("c", VirtualJournalMappingCache.NOT_FOUND, configuration, 0);
+
+    assertEquals(cache.getSize(), 2, "cache went over its size");
+    assertEquals(cache.getStatistics().getEvictions(), 1, "eviction wasn't counted");
+    assertNull(cache.get("b", configuration), "least recently used entry wasn't evicted");
+    assertNotNull(cache.get("a", configuration), "recently used entry was evicted");
+  }
+
+  /**
+   * A servlet context with no resources that counts lookups
+   */
+  private static class CountingServletContext extends MockServletContext {
+    private int lookups;
+
+    @Override
+    public URL getResource(String path) {
+      lookups++;
+      return null;
+    }
+  }
+}
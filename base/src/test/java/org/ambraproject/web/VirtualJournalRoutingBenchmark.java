@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Cost of routing a request to its virtual journal as the number of journals grows.  The request is routed to the
+ * last journal, so every rule before it is tried.  This isn't named like a test so it isn't part of the build; run it
+ * with
+ * <pre>mvn test -Dtest=VirtualJournalRoutingBenchmark</pre>
+ */
+public class VirtualJournalRoutingBenchmark {
+  private static final Logger log = LoggerFactory.getLogger(VirtualJournalRoutingBenchmark.class);
+
+  private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200000);
+
+  @DataProvider(name = "journalCounts")
+  public Object[][] journalCounts() {
+    return new Object[][]{{1}, {10}, {100}, {1000}};
+  }
+
+  /**
+   * @param journals the number of journals
+   * @param plainHosts true for host rules that are host names, false for regular expressions
+   */
+  private static Configuration createConfiguration(int journals, boolean plainHosts) {
+    Configuration configuration = new BaseConfiguration();
+    for (int i = 0; i < journals; i++) {
+      String journal = "Journal" + i;
+      configuration.addProperty("ambra.virtualJournals.journals", journal);
+      configuration.addProperty("ambra.virtualJournals." + journal + ".rules.host",
+          plainHosts ? "journal" + i + ".example.org" : ".*journal" + i + "\\.example.*");
+    }
+    return configuration;
+  }
+
+  private void run(String name, int journals, boolean plainHosts) {
+    VirtualJournalRoutingTable table = VirtualJournalRoutingTable.build(createConfiguration(journals, plainHosts));
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("host", "journal" + (journals - 1) + ".example.org");
+    String expected = "Journal" + (journals - 1);
+
+    //warm up
+    for (int i = 0; i < ITERATIONS / 10; i++) {
+      table.route(request);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      assertEquals(table.route(request), expected, "wrong journal");
+    }
+    long elapsed = System.nanoTime() - start;
+
+    log.info("{} with {} journals: {} ns per request", new Object[]{name, journals, elapsed / ITERATIONS});
+  }
+
+  @Test(dataProvider = "journalCounts")
+  public void plainHostRules(int journals) {
+    run("host name rules", journals, true);
+  }
+
+  @Test(dataProvider = "journalCounts")
+  public void regexHostRules(int journals) {
+    run("regular expression rules", journals, false);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.web;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class VirtualJournalRoutingTableTest {
+
+  private static Configuration createConfiguration() {
+    Configuration configuration = new BaseConfiguration();
+    configuration.addProperty("ambra.virtualJournals.default", "DefaultJournal");
+    configuration.addProperty("ambra.virtualJournals.journals", Arrays.asList("RegexJournal", "HostJournal",
+        "HeaderJournal"));
+    configuration.addProperty("ambra.virtualJournals.RegexJournal.rules.host", ".*regex.*");
+    configuration.addProperty("ambra.virtualJournals.HostJournal.rules.host", "journal.example.org");
+    configuration.addProperty("ambra.virtualJournals.HeaderJournal.rules.plosJournal", "Header(Journal)?");
+    return configuration;
+  }
+
+  private static MockHttpServletRequest createRequest(String host) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    if (host != null) {
+      request.addHeader("host", host);
+    }
+    return request;
+  }
+
+  @Test
+  public void testRoute() {
+    VirtualJournalRoutingTable table = VirtualJournalRoutingTable.build(createConfiguration());
+
+    assertEquals(table.route(createRequest("www.regex.org")), "RegexJournal", "regex rule didn't match");
+    assertEquals(table.route(createRequest("journal.example.org")), "HostJournal", "host rule didn't match");
+    assertNull(table.route(createRequest("other.example.org")), "no rule should have matched");
+
+    MockHttpServletRequest request = createRequest("other.example.org");
+    request.addHeader("plosJournal", "HeaderJournal");
+    assertEquals(table.route(request), "HeaderJournal", "header rule didn't match");
+
+    assertNull(table.route(new MockHttpServletRequest()), "no rule should have matched a request without headers");
+  }
+
+  @Test
+  public void testRuleOrder() {
+    VirtualJournalRoutingTable table = VirtualJournalRoutingTable.build(createConfiguration());
+
+    //the regex journal comes first, so it wins over the exact host match
+    assertEquals(table.route(createRequest("regex.example.org")), "RegexJournal", "rules applied out of order");
+
+    MockHttpServletRequest request = createRequest("journal.example.org");
+    request.addHeader("plosJournal", "HeaderJournal");
+    assertEquals(table.route(request), "HostJournal", "rules applied out of order");
+  }
+
+  @Test
+  public void testPlainHostIsStillARegex() {
+    VirtualJournalRoutingTable table = VirtualJournalRoutingTable.build(createConfiguration());
+
+    //dots in a host rule match any character, same as when the rules were applied with String.matches()
+    assertEquals(table.route(createRequest("journalXexampleXorg")), "HostJournal", "host rule didn't match");
+    assertNull(table.route(createRequest("journal.example.org.uk")), "host rule matched a longer host");
+  }
+
+  @Test
+  public void testJournals() {
+    VirtualJournalRoutingTable table = VirtualJournalRoutingTable.build(createConfiguration());
+
+    assertEquals(table.getDefaultJournal(), "DefaultJournal", "wrong default journal");
+    assertEquals(table.getJournals(), Arrays.asList("RegexJournal", "HostJournal", "HeaderJournal"),
+        "wrong journals");
+  }
+}
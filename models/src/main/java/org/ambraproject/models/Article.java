@@ -38,6 +38,13 @@ public class Article extends AmbraEntity{
   /** Active article states */
   public static final int[] ACTIVE_STATES = { STATE_ACTIVE };
 
+  /** Fetch profile joining the types, authors and journals */
+  public static final String FETCH_PROFILE_HEADER = "articleHeader";
+  /** Fetch profile joining the types, related articles and categories */
+  public static final String FETCH_PROFILE_PAGE = "articlePage";
+  /** Fetch profile joining the assets */
+  public static final String FETCH_PROFILE_ASSETS = "assets";
+
   private String doi;
 
   //simple properties
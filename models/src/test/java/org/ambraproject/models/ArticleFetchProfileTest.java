@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2007-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.models;
+
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.springframework.orm.hibernate3.HibernateCallback;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Check how many statements it takes to load an article with and without the fetch profiles
+ */
+public class ArticleFetchProfileTest extends BaseHibernateTest {
+
+  private Long articleId;
+
+  @BeforeClass
+  public void saveArticle() {
+    Article article = new Article("id:doi-for-fetch-profile-test");
+
+    Set<String> types = new HashSet<String>(2);
+    types.add("fetch profile type 1");
+    types.add("fetch profile type 2");
+    article.setTypes(types);
+
+    List<ArticleAuthor> authors = new ArrayList<ArticleAuthor>(2);
+    authors.add(new ArticleAuthor());
+    authors.add(new ArticleAuthor());
+    article.setAuthors(authors);
+
+    Category category = new Category();
+    category.setPath("/fetch profile category");
+    hibernateTemplate.save(category);
+    Map<Category, Integer> categories = new HashMap<Category, Integer>(1);
+    categories.put(category, 10);
+    article.setCategories(categories);
+
+    List<ArticleAsset> assets = new ArrayList<ArticleAsset>(2);
+    for (int i = 0; i < 2; i++) {
+      ArticleAsset asset = new ArticleAsset();
+      asset.setDoi("fetchProfileAssetDoi-" + i);
+      asset.setExtension("fetchProfileExtension-" + i);
+      assets.add(asset);
+    }
+    article.setAssets(assets);
+
+    List<CitedArticle> citedArticles = new ArrayList<CitedArticle>(3);
+    for (int i = 0; i < 3; i++) {
+      CitedArticle citedArticle = new CitedArticle();
+      List<CitedArticleAuthor> citedAuthors = new ArrayList<CitedArticleAuthor>(2);
+      citedAuthors.add(new CitedArticleAuthor());
+      citedAuthors.add(new CitedArticleAuthor());
+      citedArticle.setAuthors(citedAuthors);
+      citedArticles.add(citedArticle);
+    }
+    article.setCitedArticles(citedArticles);
+
+    articleId = (Long) hibernateTemplate.save(article);
+    getStatistics().setStatisticsEnabled(true);
+  }
+
+  @Test
+  public void testCollectionsAreLazy() {
+    hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        getStatistics().clear();
+        Article article = (Article) session.get(Article.class, articleId);
+
+        assertEquals(getStatistics().getPrepareStatementCount(), 1, "loading the article ran extra statements");
+        assertFalse(Hibernate.isInitialized(article.getTypes()), "types weren't lazy");
+        assertFalse(Hibernate.isInitialized(article.getAuthors()), "authors weren't lazy");
+        assertFalse(Hibernate.isInitialized(article.getAssets()), "assets weren't lazy");
+        assertFalse(Hibernate.isInitialized(article.getCitedArticles()), "cited articles weren't lazy");
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testHeaderProfile() {
+    hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        session.enableFetchProfile(Article.FETCH_PROFILE_HEADER);
+        getStatistics().clear();
+        Article article = (Article) session.get(Article.class, articleId);
+
+        assertEquals(getStatistics().getPrepareStatementCount(), 1, "header profile didn't load in one statement");
+        assertTrue(Hibernate.isInitialized(article.getTypes()), "types weren't fetched");
+        assertTrue(Hibernate.isInitialized(article.getAuthors()), "authors weren't fetched");
+        assertTrue(Hibernate.isInitialized(article.getJournals()), "journals weren't fetched");
+        assertFalse(Hibernate.isInitialized(article.getAssets()), "assets shouldn't be in the header profile");
+        assertEquals(article.getTypes().size(), 2, "incorrect number of types");
+        assertEquals(article.getAuthors().size(), 2, "incorrect number of authors");
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testPageProfile() {
+    hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        session.enableFetchProfile(Article.FETCH_PROFILE_PAGE);
+        getStatistics().clear();
+        Article article = (Article) session.get(Article.class, articleId);
+
+        assertEquals(getStatistics().getPrepareStatementCount(), 1, "page profile didn't load in one statement");
+        assertTrue(Hibernate.isInitialized(article.getTypes()), "types weren't fetched");
+        assertTrue(Hibernate.isInitialized(article.getRelatedArticles()), "related articles weren't fetched");
+        assertTrue(Hibernate.isInitialized(article.getCategories()), "categories weren't fetched");
+        assertFalse(Hibernate.isInitialized(article.getCitedArticles()),
+            "cited articles shouldn't be in the page profile");
+        assertEquals(article.getTypes().size(), 2, "incorrect number of types");
+        assertEquals(article.getCategories().size(), 1, "incorrect number of categories");
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testAssetsProfile() {
+    hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        session.enableFetchProfile(Article.FETCH_PROFILE_ASSETS);
+        getStatistics().clear();
+        Article article = (Article) session.get(Article.class, articleId);
+
+        assertEquals(getStatistics().getPrepareStatementCount(), 1, "assets profile didn't load in one statement");
+        assertTrue(Hibernate.isInitialized(article.getAssets()), "assets weren't fetched");
+        assertEquals(article.getAssets().size(), 2, "incorrect number of assets");
+        return null;
+      }
+    });
+  }
+
+  @Test
+  public void testCitedArticlePeopleAreBatched() {
+    hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        Article article = (Article) session.get(Article.class, articleId);
+        getStatistics().clear();
+        Hibernate.initialize(article.getCitedArticles());
+
+        //one for the cited articles, and one each for their collaborative authors, authors and editors
+        assertTrue(getStatistics().getPrepareStatementCount() <= 4,
+            "cited article people weren't loaded in batches; statements: " + getStatistics().getPrepareStatementCount());
+        assertEquals(article.getCitedArticles().size(), 3, "incorrect number of cited articles");
+        for (CitedArticle citedArticle : article.getCitedArticles()) {
+          assertEquals(citedArticle.getAuthors().size(), 2, "incorrect number of cited article authors");
+        }
+        return null;
+      }
+    });
+  }
+}
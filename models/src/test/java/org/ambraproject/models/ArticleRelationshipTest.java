@@ -48,7 +48,7 @@ public class ArticleRelationshipTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article); //should cascade to relationships
 
-    articleRelationship = ((Article) hibernateTemplate.get(Article.class, id)).getRelatedArticles().get(0);
+    articleRelationship = loadArticle(id).getRelatedArticles().get(0);
 
     assertNotNull(articleRelationship, "couldn't retrieve relationship");
     assertNotNull(articleRelationship.getCreated(),"Create date didn't get generated");
@@ -100,7 +100,7 @@ public class ArticleTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article);
     assertNotNull(id, "session returned a null id");
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     assertNotNull(article, "couldn't retrieve article");
     assertEquals(article.getAuthors().size(), 2, "Incorrect number of authors");
     assertEquals(article.getEditors().size(), 2, "Incorrect number of editors");
@@ -124,7 +124,7 @@ public class ArticleTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article);
     assertNotNull(id, "session returned a null id");
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     assertNotNull(article, "couldn't retrieve article");
     assertEquals(article.getAssets().size(), 3, "Incorrect number of assets");
 
@@ -142,7 +142,7 @@ public class ArticleTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article);
     assertNotNull(id, "session returned a null id");
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     assertNotNull(article, "couldn't retrieve article");
     assertEquals(article.getCitedArticles().size(), 2, "Incorrect number of cited articles");
 
@@ -169,7 +169,7 @@ public class ArticleTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article);
     assertNotNull(id, "session returned null id");
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     assertNotNull(article, "couldn't retrieve article");
     assertEquals(article.getCategories().size(), 2, "incorrect number of categories");
 
@@ -188,7 +188,7 @@ public class ArticleTest extends BaseHibernateTest {
 
     Long id = (Long) hibernateTemplate.save(article);
     assertNotNull(id, "session returned null id");
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     assertNotNull(article, "couldn't retrieve article");
     assertEquals(article.getTypes().size(), 2, "incorrect number of types");
 
@@ -20,10 +20,14 @@
  */
 package org.ambraproject.models;
 
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.jdbc.Work;
+import org.hibernate.stat.Statistics;
+import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.testng.annotations.AfterClass;
 
@@ -73,4 +77,38 @@ public abstract class BaseHibernateTest {
     return dummyArticles;
   }
 
+  /**
+   * Load up an article with all of its collections, since they're lazy
+   *
+   * @param id the id of the article
+   * @return the article, or null if it doesn't exist
+   */
+  protected Article loadArticle(final Long id) {
+    return (Article) hibernateTemplate.execute(new HibernateCallback() {
+      @Override
+      public Object doInHibernate(Session session) throws HibernateException, SQLException {
+        Article article = (Article) session.get(Article.class, id);
+        if (article != null) {
+          Hibernate.initialize(article.getTypes());
+          Hibernate.initialize(article.getRelatedArticles());
+          Hibernate.initialize(article.getAssets());
+          Hibernate.initialize(article.getCategories());
+          Hibernate.initialize(article.getCitedArticles());
+          Hibernate.initialize(article.getCollaborativeAuthors());
+          Hibernate.initialize(article.getAuthors());
+          Hibernate.initialize(article.getEditors());
+          Hibernate.initialize(article.getJournals());
+        }
+        return article;
+      }
+    });
+  }
+
+  /**
+   * @return the statistics of the shared session factory, for tests that count the queries they run
+   */
+  protected Statistics getStatistics() {
+    return sessionFactory.getStatistics();
+  }
+
 }
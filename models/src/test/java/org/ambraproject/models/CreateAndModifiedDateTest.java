@@ -68,7 +68,7 @@ public class CreateAndModifiedDateTest extends BaseHibernateTest {
     article.setAssets(assets);
 
     Long id = (Long) hibernateTemplate.save(article);
-    article = (Article) hibernateTemplate.get(Article.class, id);
+    article = loadArticle(id);
     for (ArticleAsset asset : article.getAssets()) {
       assertNotNull(asset.getCreated(), "ArticleAsset didn't get create date set");
       assertTrue(asset.getCreated().getTime() >= testStart, "create date wasn't after test start");
@@ -90,13 +90,13 @@ public class CreateAndModifiedDateTest extends BaseHibernateTest {
     article.setAssets(assets);
     Long articleId = (Long) hibernateTemplate.save(article);
 
-    article = (Article) hibernateTemplate.get(Article.class, articleId);
+    article = loadArticle(articleId);
     article.getAssets().get(0).setContentType("new content type");
 
     Thread.sleep(1500);
     hibernateTemplate.update(article);
 
-    article = (Article) hibernateTemplate.get(Article.class, articleId);
+    article = loadArticle(articleId);
 
     ArticleAsset asset = article.getAssets().get(0);
     assertEquals(asset.getContentType(), "new content type", "asset didn't get cascaded update");
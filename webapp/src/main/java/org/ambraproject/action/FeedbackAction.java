@@ -12,10 +12,10 @@
  */
 package org.ambraproject.action;
 
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.captcha.CaptchaService;
 import org.ambraproject.service.mailer.AmbraMailer;
 import org.ambraproject.action.user.UserActionSupport;
+import org.ambraproject.views.UserLoginView;
 import org.apache.commons.collections.EnumerationUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.validator.routines.EmailValidator;
@@ -61,7 +61,7 @@ public class FeedbackAction extends UserActionSupport {
   }
 
   private void setUserDetailsFromSession() {
-    final UserProfile ambraUser = getCurrentUser();
+    final UserLoginView ambraUser = getCurrentUser();
     if (null != ambraUser) {
       name = ambraUser.getDisplayName();
       fromEmailAddress = ambraUser.getEmail();
@@ -13,8 +13,8 @@
 
 package org.ambraproject.action;
 
-import com.opensymphony.xwork2.ActionContext;
 import org.ambraproject.struts2.InternalIpInterceptor;
+import org.apache.struts2.ServletActionContext;
 
 /**
  * Abstract superclass for actions that should only be accessed by
@@ -25,16 +25,9 @@ import org.ambraproject.struts2.InternalIpInterceptor;
 public abstract class InternalIpAction extends BaseActionSupport {
 
   /**
-   * @return true if InternalIpInterceptor has flagged this session as coming
-   *     from an internal user
+   * @return true if the request comes from an internal user
    */
   public boolean checkAccess() {
-    Boolean internal = (Boolean) ActionContext.getContext().getSession().get(
-        InternalIpInterceptor.INTERNAL_SESSION_KEY);
-    if (internal == null || !internal) {
-      return false;
-    } else {
-      return true;
-    }
+    return InternalIpInterceptor.isInternal(ServletActionContext.getRequest());
   }
 }
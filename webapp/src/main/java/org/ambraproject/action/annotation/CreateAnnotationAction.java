@@ -45,7 +45,7 @@ public class CreateAnnotationAction extends DiscussionAction {
   @Override
   protected void create() {
     annotationId = annotationService.createComment(
-        getCurrentUser(),
+        getCurrentUserProfile(),
         target,
         commentTitle,
         comment,
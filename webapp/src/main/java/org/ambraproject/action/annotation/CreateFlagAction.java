@@ -23,6 +23,7 @@ import org.ambraproject.Constants;
 import org.ambraproject.action.BaseSessionAwareActionSupport;
 import org.ambraproject.models.FlagReasonCode;
 import org.ambraproject.service.annotation.AnnotationService;
+import org.ambraproject.service.user.UserService;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,7 @@ public class CreateFlagAction extends BaseSessionAwareActionSupport {
   private Long flagId;
   private String reasonCode;
   protected AnnotationService annotationService;
+  private UserService userService;
 
   private static final Logger log = LoggerFactory.getLogger(CreateFlagAction.class);
 
@@ -48,7 +50,7 @@ public class CreateFlagAction extends BaseSessionAwareActionSupport {
 
     try {
       flagId = annotationService.createFlag(
-          getCurrentUser(),
+          userService.getUser(getCurrentUser().getID()),
           target,
           FlagReasonCode.fromString(reasonCode),
           comment);
@@ -110,4 +112,9 @@ public class CreateFlagAction extends BaseSessionAwareActionSupport {
   public void setAnnotationService(final AnnotationService annotationService) {
     this.annotationService = annotationService;
   }
+
+  @Required
+  public void setUserService(final UserService userService) {
+    this.userService = userService;
+  }
 }
@@ -38,7 +38,7 @@ public class CreateReplyAction extends DiscussionAction {
 
   @Override
   protected void create() {
-    replyId = annotationService.createReply(getCurrentUser(), inReplyTo, commentTitle, comment, ciStatement);
+    replyId = annotationService.createReply(getCurrentUserProfile(), inReplyTo, commentTitle, comment, ciStatement);
   }
 
   @Override
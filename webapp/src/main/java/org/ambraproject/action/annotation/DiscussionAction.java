@@ -2,6 +2,8 @@ package org.ambraproject.action.annotation;
 
 import org.ambraproject.Constants;
 import org.ambraproject.action.BaseSessionAwareActionSupport;
+import org.ambraproject.models.UserProfile;
+import org.ambraproject.service.user.UserService;
 import org.ambraproject.util.ProfanityCheckingService;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Required;
@@ -17,6 +19,7 @@ import java.util.List;
 public abstract class DiscussionAction extends BaseSessionAwareActionSupport {
 
   private ProfanityCheckingService profanityCheckingService;
+  private UserService userService;
 
   protected String commentTitle;
   protected String ciStatement;
@@ -125,6 +128,20 @@ public abstract class DiscussionAction extends BaseSessionAwareActionSupport {
     this.profanityCheckingService = profanityCheckingService;
   }
 
+  /**
+   * Load the profile of the logged in user, for the discussion entity to refer to
+   *
+   * @return the user's profile
+   */
+  protected UserProfile getCurrentUserProfile() {
+    return userService.getUser(getCurrentUser().getID());
+  }
+
+  @Required
+  public void setUserService(UserService userService) {
+    this.userService = userService;
+  }
+
   /**
    * Set the commentTitle of the annotation
    *
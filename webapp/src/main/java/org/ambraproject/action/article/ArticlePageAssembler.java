@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.action.article;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the independent lookups that make up an article page concurrently on a bounded executor.
+ * <p/>
+ * Each lookup is a named branch with a fallback value.  A branch that fails, that hasn't finished branchTimeout
+ * milliseconds after it was forked, or that can't be started because the executor is saturated, degrades to its
+ * fallback so the rest of the page can still be shown.  Branches that are given up on are left to finish rather than
+ * interrupted, since they may be in the middle of database or file store I/O.  The time each branch took is recorded
+ * and logged at debug level when the page is done.
+ * <p/>
+ * With threads set to 0 (the default) the assembler is disabled and pages load their data one lookup at a time.
+ */
+public class ArticlePageAssembler {
+  private static final Logger log = LoggerFactory.getLogger(ArticlePageAssembler.class);
+
+  private int threads = 0;
+  private long branchTimeout = 5000;
+  private ThreadPoolExecutor executor;
+
+  /**
+   * @return true if branches should be run concurrently
+   */
+  public boolean isEnabled() {
+    return threads > 0;
+  }
+
+  /**
+   * Start assembling a page.  Call {@link Assembly#finish()} once the page has what it needs.
+   *
+   * @param articleUri the article the page is for, used in log messages
+   * @return the assembly to fork branches from
+   */
+  public Assembly start(String articleUri) {
+    return new Assembly(articleUri);
+  }
+
+  /**
+   * The branches of one page.  Not thread safe, it's meant to be used by the request thread only.
+   */
+  public class Assembly {
+    private final String articleUri;
+    private final long startTime = System.currentTimeMillis();
+    private final List<Branch<?>> branches = new ArrayList<Branch<?>>();
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+    private final List<String> degraded = new ArrayList<String>();
+
+    private Assembly(String articleUri) {
+      this.articleUri = articleUri;
+    }
+
+    /**
+     * Start a branch on the executor.  If the executor is saturated the branch isn't run and falls back.
+     *
+     * @param name name of the branch, for timings and log messages
+     * @param task the lookup to run
+     * @param fallback the value to use if the lookup fails or times out
+     * @return the branch, to collect the result from
+     */
+    public <T> Branch<T> fork(final String name, final Callable<T> task, T fallback) {
+      long deadline = System.currentTimeMillis() + branchTimeout;
+      Future<T> future;
+      try {
+        future = getExecutor().submit(new Callable<T>() {
+          @Override
+          public T call() throws Exception {
+            long start = System.currentTimeMillis();
+            try {
+              return task.call();
+            } finally {
+              timings.put(name, System.currentTimeMillis() - start);
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        future = null;
+      }
+
+      Branch<T> branch = new Branch<T>(this, name, future, fallback, branchTimeout, deadline);
+      branches.add(branch);
+      return branch;
+    }
+
+    /**
+     * @return the time each finished branch took in milliseconds, in the order they finished
+     */
+    public Map<String, Long> getTimings() {
+      synchronized (timings) {
+        return new LinkedHashMap<String, Long>(timings);
+      }
+    }
+
+    /**
+     * @return the names of the branches that fell back to their default value
+     */
+    public List<String> getDegraded() {
+      return Collections.unmodifiableList(degraded);
+    }
+
+    /**
+     * Cancel the branches that haven't started and log the timings
+     */
+    public void finish() {
+      for (Branch<?> branch : branches) {
+        branch.cancel();
+      }
+
+      if (!degraded.isEmpty()) {
+        log.warn("Article page for {} was shown without {}", articleUri, degraded);
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Assembled article page for " + articleUri + " in " + (System.currentTimeMillis() - startTime)
+            + " ms; branch timings: " + getTimings());
+      }
+    }
+  }
+
+  /**
+   * A lookup running for an article page
+   */
+  public static class Branch<T> {
+    private final Assembly assembly;
+    private final String name;
+    private final Future<T> future;
+    private final T fallback;
+    private final long timeout;
+    private final long deadline;
+
+    /**
+     * @param future the running lookup, or null if it couldn't be started
+     */
+    private Branch(Assembly assembly, String name, Future<T> future, T fallback, long timeout, long deadline) {
+      this.assembly = assembly;
+      this.name = name;
+      this.future = future;
+      this.fallback = fallback;
+      this.timeout = timeout;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Wait for the branch until its timeout.
+     *
+     * @return the result of the lookup, or the fallback if it failed, timed out or wasn't started
+     */
+    public T get() {
+      return get((Class<RuntimeException>) null);
+    }
+
+    /**
+     * Wait for the branch until its timeout, passing on the exceptions that would fail the page if the lookup were
+     * made on the request thread.
+     *
+     * @param propagate the type of exception to throw instead of falling back, or null to always fall back
+     * @return the result of the lookup, or the fallback if it failed with another exception, timed out or wasn't
+     *         started
+     * @throws E if the lookup threw it
+     */
+    public <E extends Exception> T get(Class<E> propagate) throws E {
+      if (future == null) {
+        log.warn("Article page branch '" + name + "' for " + assembly.articleUri
+            + " wasn't started, too many branches are waiting");
+        assembly.degraded.add(name);
+        return fallback;
+      }
+
+      try {
+        return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        cancel();
+        log.warn("Article page branch '" + name + "' for " + assembly.articleUri + " timed out after "
+            + timeout + " milliseconds");
+      } catch (ExecutionException e) {
+        if (propagate != null && propagate.isInstance(e.getCause())) {
+          throw propagate.cast(e.getCause());
+        }
+        log.warn("Article page branch '" + name + "' for " + assembly.articleUri + " failed", e.getCause());
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+      }
+
+      assembly.degraded.add(name);
+      return fallback;
+    }
+
+    private void cancel() {
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private synchronized ThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      // when the queue is full the branch is rejected and falls back, rather than run on the request thread where
+      // its timeout wouldn't apply
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+              Thread t = new Thread(r, "article-page-" + count.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            }
+          }, new ThreadPoolExecutor.AbortPolicy());
+      executor.allowCoreThreadTimeOut(true);
+    }
+
+    return executor;
+  }
+
+  /**
+   * Stops the executor, if it was started.
+   */
+  public synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * @param threads the number of threads to run branches on; 0 disables concurrent assembly
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * @param branchTimeout milliseconds to wait for a branch before falling back
+   */
+  public void setBranchTimeout(long branchTimeout) {
+    this.branchTimeout = branchTimeout;
+  }
+}
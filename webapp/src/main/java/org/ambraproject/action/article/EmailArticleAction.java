@@ -15,7 +15,6 @@ package org.ambraproject.action.article;
 import org.ambraproject.ApplicationException;
 import org.ambraproject.action.user.UserActionSupport;
 import org.ambraproject.models.Article;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.article.ArticleService;
 import org.ambraproject.service.article.NoSuchArticleIdException;
 import org.ambraproject.service.captcha.CaptchaService;
@@ -29,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
 import org.ambraproject.email.impl.FreemarkerTemplateMailer;
+import org.ambraproject.views.UserLoginView;
 import javax.servlet.http.HttpServletRequest;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
@@ -72,7 +72,7 @@ public class EmailArticleAction extends UserActionSupport {
     if (!validatesArticleURI())
       return INPUT;
 
-    final UserProfile ambraUser = getCurrentUser();
+    final UserLoginView ambraUser = getCurrentUser();
     if (null != ambraUser) {
       senderName = ambraUser.getDisplayName();
       emailFrom = ambraUser.getEmail();
@@ -29,7 +29,6 @@ import org.ambraproject.web.Cookies;
 import org.ambraproject.freemarker.AmbraFreemarkerConfig;
 import org.ambraproject.models.AnnotationType;
 import org.ambraproject.models.ArticleView;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.annotation.AnnotationService;
 import org.ambraproject.service.article.ArticleAssetService;
 import org.ambraproject.service.article.ArticleAssetWrapper;
@@ -45,7 +44,9 @@ import org.ambraproject.views.ArticleCategory;
 import org.ambraproject.views.AuthorView;
 import org.ambraproject.views.CitationReference;
 import org.ambraproject.views.JournalView;
+import org.ambraproject.views.UserLoginView;
 import org.ambraproject.views.article.ArticleInfo;
+import org.ambraproject.views.article.ParsedArticle;
 import org.ambraproject.views.article.ArticleType;
 import org.ambraproject.views.article.RelatedArticleInfo;
 import org.apache.commons.collections.CollectionUtils;
@@ -60,6 +61,7 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.ambraproject.service.annotation.AnnotationService.AnnotationOrder;
 
@@ -114,7 +116,7 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
   private boolean isResearchArticle;
   private String publishedJournal = "";
   private ArticleInfo articleInfoX;
-  private Document doc;
+  private ParsedArticle parsedArticle;
   private ArticleType articleType;
   private List<List<String>> articleIssues;
   private int trackbackCount;
@@ -131,9 +133,10 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
   private TrackbackService trackbackService;
   private UserService userService;
   private ArticleAssetService articleAssetService;
+  private ArticlePageAssembler articlePageAssembler;
   private Set<ArticleCategory> categories;
   private CaptchaService captchaService;
-  private UserProfile user;
+  private UserLoginView user;
   private String reCaptchaPublicKey;
   private boolean hasPDF;
 
@@ -177,13 +180,11 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
             // currently, we don't have many related articles; therefore, these lines
             // shouldn't cause performance overhead.
             Article article = articleService.getArticle(relatedArticleInfo.getDoi(), getAuthId());
-            ArticleInfo articleInfo = articleService.getArticleInfo(relatedArticleInfo.getDoi(), getAuthId());
-            Document document = this.fetchArticleService.getArticleDocument(articleInfo);
 
             if (RETRACTION_RELATION.equalsIgnoreCase(relatedArticleInfo.getRelationType()) &&
                     articleService.isRetractionArticle(relatedArticleInfo)) {
 
-              retraction = this.fetchArticleService.getAmendmentBody(document);
+              retraction = getAmendmentBody(relatedArticleInfo);
               retractionCitation = buildCitationFromArticle(article);
 
               break;
@@ -192,7 +193,7 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
             if (EXPRESSION_OF_CONCERN_RELATION.equalsIgnoreCase(relatedArticleInfo.getRelationType()) &&
                     articleService.isEocArticle(relatedArticleInfo)) {
 
-              expressionOfConcern = this.fetchArticleService.getAmendmentBody(document);
+              expressionOfConcern = getAmendmentBody(relatedArticleInfo);
               eocCitation = buildCitationFromArticle(article);
               break;
             }
@@ -214,6 +215,16 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
     return SUCCESS;
   }
 
+  /**
+   * Parse the body of a retraction or expression of concern.  Only done for those two amendment types, so related
+   * articles that are merely cited don't get their xml parsed.
+   */
+  private String getAmendmentBody(RelatedArticleInfo relatedArticleInfo) throws Exception {
+    ArticleInfo articleInfo = articleService.getArticleInfo(relatedArticleInfo.getDoi(), getAuthId());
+    Document document = this.fetchArticleService.getArticleDocument(articleInfo);
+    return this.fetchArticleService.getAmendmentBody(document);
+  }
+
   private CitationView buildCitationFromArticle(Article article)  {
     CitationView citation =  CitationView.builder()
             .setDoi(article.getDoi())
@@ -332,16 +343,90 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
    */
   private void setCommonData() throws ApplicationException, NoSuchArticleIdException, NoSuchObjectIdException {
     validateArticleURI();
+    if (articlePageAssembler != null && articlePageAssembler.isEnabled()) {
+      setCommonDataInParallel();
+      return;
+    }
+
     articleInfoX = articleService.getArticleInfo(articleURI, getAuthId());
     hasPDF = true;
     if (articleAssetService.getArticleAsset(articleURI, "PDF", getAuthId()) == null) {
       hasPDF = false;
     }
-    // sort the related articles by date
-    Collections.sort(articleInfoX.getRelatedArticles());
-    journalList = articleInfoX.getJournals();
     isResearchArticle = articleService.isResearchArticle(articleInfoX);
     articleIssues = articleService.getArticleIssues(articleURI);
+    parsedArticle = this.fetchArticleService.getParsedArticle(articleInfoX);
+    commentary = this.annotationService.listAnnotations(articleInfoX.getId(),
+        EnumSet.of(AnnotationType.COMMENT), 
+        AnnotationOrder.MOST_RECENT_REPLY);
+
+    setArticleInfoData();
+  }
+
+  /**
+   * Same as the sequential path of setCommonData, but the PDF check, issue lookup, xml parsing and comment listing run
+   * concurrently on the article page assembler.  The article info is loaded on the request thread since the parsing
+   * and comments need it.  A branch that fails or times out is left at its default and the rest of the page is shown,
+   * except that a NoSuchObjectIdException from the PDF check fails the page like it does in the sequential path.
+   */
+  private void setCommonDataInParallel()
+      throws ApplicationException, NoSuchArticleIdException, NoSuchObjectIdException {
+    final String articleDoi = articleURI;
+    final String authId = getAuthId();
+    ArticlePageAssembler.Assembly assembly = articlePageAssembler.start(articleDoi);
+
+    try {
+      ArticlePageAssembler.Branch<Boolean> pdf = assembly.fork("pdf", new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return articleAssetService.getArticleAsset(articleDoi, "PDF", authId) != null;
+        }
+      }, Boolean.FALSE);
+      ArticlePageAssembler.Branch<List<List<String>>> issues = assembly.fork("issues",
+          new Callable<List<List<String>>>() {
+            @Override
+            public List<List<String>> call() throws Exception {
+              return articleService.getArticleIssues(articleDoi);
+            }
+          }, Collections.<List<String>>emptyList());
+
+      articleInfoX = articleService.getArticleInfo(articleDoi, authId);
+      final ArticleInfo articleInfo = articleInfoX;
+
+      ArticlePageAssembler.Branch<ParsedArticle> parsed = assembly.fork("parse", new Callable<ParsedArticle>() {
+        @Override
+        public ParsedArticle call() throws Exception {
+          return fetchArticleService.getParsedArticle(articleInfo);
+        }
+      }, null);
+      ArticlePageAssembler.Branch<AnnotationView[]> comments = assembly.fork("comments",
+          new Callable<AnnotationView[]>() {
+            @Override
+            public AnnotationView[] call() throws Exception {
+              return annotationService.listAnnotations(articleInfo.getId(),
+                  EnumSet.of(AnnotationType.COMMENT),
+                  AnnotationOrder.MOST_RECENT_REPLY);
+            }
+          }, new AnnotationView[0]);
+
+      isResearchArticle = articleService.isResearchArticle(articleInfoX);
+      //a missing asset fails the page, as it does when the lookups are made one at a time
+      hasPDF = pdf.get(NoSuchObjectIdException.class);
+      articleIssues = issues.get();
+      parsedArticle = parsed.get();
+      commentary = comments.get();
+    } finally {
+      assembly.finish();
+    }
+
+    setArticleInfoData();
+  }
+
+  /**
+   * Set the properties that are derived from the article info and parsed article
+   */
+  private void setArticleInfoData() {
+    journalList = articleInfoX.getJournals();
     articleType = articleInfoX.getKnownArticleType();
 
     String pages = this.articleInfoX.getPages();
@@ -360,16 +445,14 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
     //TODO: Refactor this to not be spaghetti, all these properties should be made
     //to be part of articleInfo.  Rename articleInfo to articleView and populate articleView
     //In the service tier in whatever way is appropriate
-    doc = this.fetchArticleService.getArticleDocument(articleInfoX);
-    authors = this.fetchArticleService.getAuthors(doc);
-    correspondingAuthor = this.fetchArticleService.getCorrespondingAuthors(doc);
-    authorContributions = this.fetchArticleService.getAuthorContributions(doc);
-    competingInterest = this.fetchArticleService.getAuthorCompetingInterests(doc);
-    references = this.fetchArticleService.getReferences(doc);
-    journalAbbrev = this.fetchArticleService.getJournalAbbreviation(doc);
-    commentary = this.annotationService.listAnnotations(articleInfoX.getId(),
-        EnumSet.of(AnnotationType.COMMENT), 
-        AnnotationOrder.MOST_RECENT_REPLY);
+    if (parsedArticle != null) {
+      authors = parsedArticle.getAuthors();
+      correspondingAuthor = parsedArticle.getCorrespondingAuthors();
+      authorContributions = parsedArticle.getAuthorContributions();
+      competingInterest = parsedArticle.getCompetingInterests();
+      references = parsedArticle.getReferences();
+      journalAbbrev = parsedArticle.getJournalAbbreviation();
+    }
     /**
      An article can be cross published, but we want the source journal.
      If in this collection an article eIssn matches the article's eIssn keep that value.
@@ -455,11 +538,13 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
     try {
       validateArticleURI();
       articleInfoX = articleService.getArticleInfo(articleURI, getAuthId());
-      doc = this.fetchArticleService.getArticleDocument(articleInfoX);
-      authors = this.fetchArticleService.getAuthors(doc);
-      correspondingAuthor = this.fetchArticleService.getCorrespondingAuthors(doc);
-      authorContributions = this.fetchArticleService.getAuthorContributions(doc);
-      competingInterest = this.fetchArticleService.getAuthorCompetingInterests(doc);
+      parsedArticle = this.fetchArticleService.getParsedArticle(articleInfoX);
+      if (parsedArticle != null) {
+        authors = parsedArticle.getAuthors();
+        correspondingAuthor = parsedArticle.getCorrespondingAuthors();
+        authorContributions = parsedArticle.getAuthorContributions();
+        competingInterest = parsedArticle.getCompetingInterests();
+      }
     } catch (Exception e) {
       populateErrorMessages(e);
       return ERROR;
@@ -569,7 +654,7 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
    */
   private void recordArticleView() {
     //If the user is logged in, record this as an article view
-    UserProfile user = getCurrentUser();
+    UserLoginView user = getCurrentUser();
     if (user != null) {
       try {
         userService.recordArticleView(user.getID(), articleInfoX.getId(), ArticleView.Type.ARTICLE_VIEW);
@@ -623,6 +708,13 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
     this.articleAssetService = articleAssetService;
   }
 
+  /**
+   * @param articlePageAssembler runs the lookups of setCommonData concurrently when it's enabled
+   */
+  public void setArticlePageAssembler(ArticlePageAssembler articlePageAssembler) {
+    this.articlePageAssembler = articlePageAssembler;
+  }
+
   /**
    * @return articleURI
    */
@@ -882,7 +974,10 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
    */
   public Set<Map.Entry<String, List<AuthorView>>> getAuthorsByAffiliation() throws RuntimeException{
 
-    return fetchArticleService.getAuthorsByAffiliation(doc, authors).entrySet();
+    if (parsedArticle == null) {
+      return Collections.<String, List<AuthorView>>emptyMap().entrySet();
+    }
+    return parsedArticle.getAuthorsByAffiliation().entrySet();
 
   }
 
@@ -925,7 +1020,7 @@ public class FetchArticleTabsAction extends BaseSessionAwareActionSupport implem
     return relatedAuthorSearchQuery;
   }
 
-  public UserProfile getUser() {
+  public UserLoginView getUser() {
     return user;
   }
 
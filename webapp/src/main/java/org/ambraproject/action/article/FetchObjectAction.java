@@ -20,16 +20,18 @@
 package org.ambraproject.action.article;
 
 import com.opensymphony.xwork2.validator.annotations.RequiredStringValidator;
+import org.ambraproject.ApplicationException;
 import org.ambraproject.action.BaseSessionAwareActionSupport;
 import org.ambraproject.filestore.FileStoreService;
 import org.ambraproject.models.ArticleAsset;
 import org.ambraproject.models.ArticleView;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.article.ArticleAssetService;
 import org.ambraproject.service.article.NoSuchObjectIdException;
 import org.ambraproject.service.user.UserService;
 import org.ambraproject.service.xml.XMLService;
 import org.ambraproject.util.FileUtils;
+import org.ambraproject.views.UserLoginView;
+import org.ambraproject.web.HttpResourceServer;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +39,7 @@ import org.springframework.beans.factory.annotation.Required;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.Date;
 
@@ -63,6 +66,7 @@ public class FetchObjectAction extends BaseSessionAwareActionSupport {
   private String xReproxyList;
   private String reproxyCacheSettings;
   private InputStream inputStream;
+  private HttpResourceServer.ContentTransformer contentTransformer;
   private Long contentLength;
   private Date lastModified;
 
@@ -102,8 +106,22 @@ public class FetchObjectAction extends BaseSessionAwareActionSupport {
       } else {
         // x-reproxy not available so return the xml document stream
         // or a transformed document if requested.
-        InputStream fsStream = fileStoreService.getFileInStream(fsid);
-        inputStream = needTransformedXML ? xmlService.getTransformedInputStream(fsStream) : fsStream;
+        inputStream = fileStoreService.getFileInStream(fsid);
+
+        if (needTransformedXML) {
+          // the transformed document is written straight to the response, so its length is unknown here
+          contentLength = -1L;
+          contentTransformer = new HttpResourceServer.ContentTransformer() {
+            @Override
+            public void transform(InputStream in, OutputStream out) throws IOException {
+              try {
+                xmlService.transform(in, out);
+              } catch (ApplicationException e) {
+                throw new IOException("Unable to transform " + uri, e);
+              }
+            }
+          };
+        }
       }
     } catch (NoSuchObjectIdException e) {
       log.info("Object not found: " + uri, e);
@@ -114,7 +132,7 @@ public class FetchObjectAction extends BaseSessionAwareActionSupport {
     }
 
     //If the user is logged in, record this as an xml or pdf download
-    UserProfile user = getCurrentUser();
+    UserLoginView user = getCurrentUser();
     if (user != null) {
       try {
         if ("XML".equalsIgnoreCase(representation) && !fullDOI) {
@@ -254,6 +272,15 @@ public class FetchObjectAction extends BaseSessionAwareActionSupport {
     return inputStream;
   }
 
+  /**
+   * Returns the transformer the InputStream is run through while it is served, or null to serve it as-is
+   *
+   * @return
+   */
+  public HttpResourceServer.ContentTransformer getContentTransformer() {
+    return contentTransformer;
+  }
+
   public Long getContentLength() {
     return contentLength;
   }
@@ -0,0 +1,55 @@
+/*
+ * $HeadURL$
+ * $Id$
+ * Copyright (c) 2006-2012 by Public Library of Science http://plos.org http://ambraproject.org
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ambraproject.action.debug;
+
+import org.ambraproject.action.InternalIpAction;
+import org.ambraproject.service.cache.CacheStatistics;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Action that reports the hit, miss, load and eviction statistics of every cache region as JSON.  The regions are the
+ * {@link CacheStatistics} beans of the application context.
+ */
+public class CacheStatsAction extends InternalIpAction implements ApplicationContextAware {
+
+  private ApplicationContext applicationContext;
+  private List<Map<String, Object>> caches;
+
+  @Override
+  public String execute() throws Exception {
+    if (!checkAccess()) {
+      return ERROR;
+    }
+    caches = new ArrayList<Map<String, Object>>();
+    for (CacheStatistics statistics : applicationContext.getBeansOfType(CacheStatistics.class).values()) {
+      caches.add(statistics.snapshot());
+    }
+    return SUCCESS;
+  }
+
+  @Override
+  public void setApplicationContext(ApplicationContext applicationContext) {
+    this.applicationContext = applicationContext;
+  }
+
+  public List<Map<String, Object>> getCaches() {
+    return caches;
+  }
+}
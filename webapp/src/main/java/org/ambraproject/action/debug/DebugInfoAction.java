@@ -65,6 +65,12 @@ public class DebugInfoAction extends InternalIpAction {
 
   private int sessionCount;
 
+  private int anonymousSessionCount;
+
+  private long sessionsCreated;
+
+  private long averageSessionSize;
+
   private String configuration;
 
   private String dbUrl;
@@ -90,6 +96,9 @@ public class DebugInfoAction extends InternalIpAction {
     HttpServletRequest req = ServletActionContext.getRequest();
     tomcatVersion = ServletActionContext.getServletContext().getServerInfo();
     sessionCount = SessionCounter.getSessionCount();
+    anonymousSessionCount = SessionCounter.getAnonymousSessionCount();
+    sessionsCreated = SessionCounter.getSessionsCreated();
+    averageSessionSize = SessionCounter.getAverageSessionSize();
     host = req.getLocalName();
     hostIp = req.getLocalAddr();
     buildInfo = generateBuildInfo();
@@ -260,6 +269,18 @@ public class DebugInfoAction extends InternalIpAction {
     return sessionCount;
   }
 
+  public int getAnonymousSessionCount() {
+    return anonymousSessionCount;
+  }
+
+  public long getSessionsCreated() {
+    return sessionsCreated;
+  }
+
+  public long getAverageSessionSize() {
+    return averageSessionSize;
+  }
+
   public String getConfiguration() {
     return configuration;
   }
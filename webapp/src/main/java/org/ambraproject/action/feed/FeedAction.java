@@ -25,13 +25,13 @@ import org.ambraproject.service.feed.AnnotationFeedSearchParameters;
 import org.ambraproject.service.feed.FeedSearchParameters;
 import org.ambraproject.service.feed.FeedService;
 import org.ambraproject.service.feed.FeedService.FEED_TYPES;
+import org.ambraproject.service.search.SolrHit;
 import org.ambraproject.views.AnnotationView;
 import org.ambraproject.views.LinkbackView;
 import org.ambraproject.views.TOCArticle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
-import org.w3c.dom.Document;
 
 import java.util.List;
 
@@ -97,7 +97,7 @@ public class FeedAction extends BaseActionSupport implements ModelDriven {
   private List<TOCArticle> articles;        // List of Article IDs; result of search
   private List<AnnotationView> annotations;     // List of Annotations; result of search
   private List<LinkbackView> trackbacks;      // List of tracks; results of search
-  private Document resultFromSolr;  // list of articles for the rss feed
+  private List<SolrHit> resultFromSolr;  // list of articles for the rss feed
 
   /**
    * Try and find the query in the feed cache or query the Article OTM Service if nothing is found. The parameters are
@@ -245,7 +245,7 @@ public class FeedAction extends BaseActionSupport implements ModelDriven {
    *
    * @return solr search result
    */
-  public Document getResultFromSolr() {
+  public List<SolrHit> getResultFromSolr() {
     return resultFromSolr;
   }
 }
@@ -17,8 +17,8 @@
  */
 package org.ambraproject.action.search;
 
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.user.UserService;
+import org.ambraproject.views.UserLoginView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -43,7 +43,7 @@ public class SaveJournalAlertAction extends BaseSearchAction {
   @Transactional(rollbackFor = { Throwable.class })
   @SuppressWarnings("unchecked")
   public String execute() {
-    final UserProfile user = getCurrentUser();
+    final UserLoginView user = getCurrentUser();
 
     if (user == null) {
       log.info("User is null for saving search");
@@ -77,7 +77,7 @@ public class SaveJournalAlertAction extends BaseSearchAction {
   @Transactional(rollbackFor = { Throwable.class })
   @SuppressWarnings("unchecked")
   public String executeUnsubscribe() {
-    final UserProfile user = getCurrentUser();
+    final UserLoginView user = getCurrentUser();
 
     if (user == null) {
       log.info("User is null for unsubscribe alert");
@@ -20,9 +20,9 @@
  */
 package org.ambraproject.action.search;
 
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.user.UserService;
 import org.ambraproject.views.SavedSearchView;
+import org.ambraproject.views.UserLoginView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -49,7 +49,7 @@ public class SaveSearchAction extends BaseSearchAction {
   @Transactional(rollbackFor = { Throwable.class })
   @SuppressWarnings("unchecked")
   public String saveSearch() {
-    final UserProfile user = getCurrentUser();
+    final UserLoginView user = getCurrentUser();
 
     if (user == null) {
       log.info("User is null for saving search");
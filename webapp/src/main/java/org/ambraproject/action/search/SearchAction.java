@@ -41,6 +41,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.ambraproject.Constants.RECENT_SEARCHES_KEY;
+
 /**
  * Manage the user interactions for all searches.
  */
@@ -436,12 +438,14 @@ public class SearchAction extends BaseSearchAction {
         + displayText + "\' and url = \'" + url + "\'");
       return;
     }
-    if (getRecentSearches().containsKey(displayText)) {
-      getRecentSearches().remove(displayText);
-    } else if (getRecentSearches().size() >= RECENT_SEARCHES_NUMBER_TO_SHOW) {
-      getRecentSearches().remove(getRecentSearches().keySet().iterator().next()); // Remove the first element.
+    LinkedHashMap<String, String> recentSearches = getRecentSearches();
+    if (recentSearches.containsKey(displayText)) {
+      recentSearches.remove(displayText);
+    } else if (recentSearches.size() >= RECENT_SEARCHES_NUMBER_TO_SHOW) {
+      recentSearches.remove(recentSearches.keySet().iterator().next()); // Remove the first element.
     }
-    getRecentSearches().put(displayText, url);
+    recentSearches.put(displayText, url);
+    session.put(RECENT_SEARCHES_KEY, recentSearches);
   }
 
   /**
@@ -19,12 +19,12 @@
 package org.ambraproject.action.taxonomy;
 
 import org.ambraproject.action.search.BaseSearchAction;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.taxonomy.TaxonomyService;
 import org.ambraproject.service.user.UserService;
 import org.ambraproject.util.CategoryUtils;
 import org.ambraproject.util.Pair;
 import org.ambraproject.views.CategoryView;
+import org.ambraproject.views.UserLoginView;
 import org.ambraproject.views.article.FeaturedArticle;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -105,7 +105,7 @@ public class BrowseAction extends BaseSearchAction {
     if(resultsSinglePage.getHits().size() == 0) {
       return INPUT;
     } else {
-      UserProfile user = getCurrentUser();
+      UserLoginView user = getCurrentUser();
       if (user != null && category != null && !category.isEmpty()) {
         Pair<Boolean, Integer> result = userService.getJournalAlertAndSubjectCount(user.getID(), this.getCurrentJournal(), category);
         subscribed = result != null ? result.getFirst() : false;
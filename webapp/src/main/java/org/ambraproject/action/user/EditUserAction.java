@@ -26,6 +26,7 @@ import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.orcid.OrcidService;
 import org.ambraproject.service.user.UserAlert;
 import org.ambraproject.views.SavedSearchView;
+import org.ambraproject.views.UserLoginView;
 import org.apache.http.HttpHeaders;
 import org.apache.struts2.interceptor.ServletRequestAware;
 import javax.servlet.ServletException;
@@ -145,7 +146,7 @@ public class EditUserAction extends UserActionSupport implements ServletRequestA
 
     UserProfile savedProfile = userService.updateProfile(profile);
 
-    session.put(Constants.AMBRA_USER_KEY, savedProfile);
+    session.put(Constants.AMBRA_USER_KEY, new UserLoginView(savedProfile));
 
     return execute();
   }
@@ -203,7 +204,7 @@ public class EditUserAction extends UserActionSupport implements ServletRequestA
 
       profile = userService.setAlerts(authId, monthlyAlerts, weeklyAlerts);
 
-      session.put(Constants.AMBRA_USER_KEY, profile);
+      session.put(Constants.AMBRA_USER_KEY, new UserLoginView(profile));
     }
 
     return retrieveAlerts();
@@ -244,7 +245,7 @@ public class EditUserAction extends UserActionSupport implements ServletRequestA
     }
 
     UserProfile profile = userService.setSavedSearchAlerts(authId, monthlyAlerts, weeklyAlerts, deleteAlerts);
-    session.put(Constants.AMBRA_USER_KEY, profile);
+    session.put(Constants.AMBRA_USER_KEY, new UserLoginView(profile));
 
     return retrieveSearchAlerts();
   }
@@ -19,9 +19,9 @@
 package org.ambraproject.action.user;
 
 import org.ambraproject.models.UserOrcid;
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.user.DuplicateOrcidException;
 import org.ambraproject.views.OrcidAuthorization;
+import org.ambraproject.views.UserLoginView;
 import org.apache.struts2.ServletActionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,7 +58,7 @@ public class OrcidConfirmAction extends EditUserAction {
       return ERROR;
     } else {
       Map<String, Object> session = ServletActionContext.getContext().getSession();
-      UserProfile user = (UserProfile)session.get(AMBRA_USER_KEY);
+      UserLoginView user = (UserLoginView) session.get(AMBRA_USER_KEY);
 
       if(user == null) {
         //User not authenticated
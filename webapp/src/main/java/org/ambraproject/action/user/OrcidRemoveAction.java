@@ -18,8 +18,8 @@
 */
 package org.ambraproject.action.user;
 
-import org.ambraproject.models.UserProfile;
 import org.ambraproject.service.user.UserService;
+import org.ambraproject.views.UserLoginView;
 import org.apache.struts2.ServletActionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,7 +42,7 @@ public class OrcidRemoveAction extends UserActionSupport {
   @Override
   public String execute() throws Exception {
     Map<String, Object> session = ServletActionContext.getContext().getSession();
-    UserProfile user = (UserProfile)session.get(AMBRA_USER_KEY);
+    UserLoginView user = (UserLoginView) session.get(AMBRA_USER_KEY);
 
     if(user == null) {
       //User not authenticated, some how the user got here with out this?  URL Hacking?
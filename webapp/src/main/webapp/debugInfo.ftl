@@ -5,7 +5,7 @@ Host: ${host} (${hostIp})
 ${buildInfo}
 Command Line: ${cmdLine}
 Tomcat Version: ${tomcatVersion}
-Active Sessions: ${sessionCount}
+Active Sessions: ${sessionCount} (${anonymousSessionCount} anonymous, ${sessionsCreated} created since startup, about ${averageSessionSize} bytes each)
 JVM free memory: ${jvmFreeMemory?string.number} MB; total memory: ${jvmTotalMemory?string.number} MB, max memory: ${jvmMaxMemory?string.number} MB
 DB URL: ${dbUrl}, user ${dbUser}
 SOLR URL: <a href="${solrUrl}">${solrUrl}</a>
@@ -18,6 +18,9 @@ Filestore: ${filestore}
 
 <@s.url id="processDumpUrl" action="processDump" namespace="/debug" />
   <a href="${processDumpUrl}">Process Dump</a>
+
+<@s.url id="cacheStatsUrl" action="cacheStats" namespace="/debug" />
+  <a href="${cacheStatsUrl}">Cache Statistics</a>
 </p>
 
 <pre>
@@ -33,7 +33,7 @@
       <div id="user" class="nav">
         <ul>
           <li><a href="/">Ambra</a></li>
-        <#if Session["AMBRA_USER"]?exists>
+        <#if (Session["AMBRA_USER"])?exists>
           <@s.url id="editProfileURL" includeParams="none" namespace="/user/secure" action="editProfile"/>
           <li><a href="${freemarker_config.nedProfileURL}" title="Edit your account profile and alert
           settings">preferences</a></li>
@@ -19,9 +19,9 @@
 <@s.url action="privacy" namespace="/static" includeParams="none" id="privacyURL"/>
 
 <#assign moodleUser = false>
-<#list currentUser.roles as role>
-  <#if role.roleName="AE-PLOSONE" || role.roleName="Editor-BIO" || role.roleName="Editor-CB" || role.roleName="Editor-Gen" || role.roleName="Editor-MED" ||
-       role.roleName="Editor-NTDs" || role.roleName="Editor-Pathog">
+<#list (currentUser.roleNames)?default([]) as role>
+  <#if role="AE-PLOSONE" || role="Editor-BIO" || role="Editor-CB" || role="Editor-Gen" || role="Editor-MED" ||
+       role="Editor-NTDs" || role="Editor-Pathog">
     <#assign moodleUser = true>
     <#break>
   </#if>
@@ -65,8 +65,8 @@
         <#assign countRoles = 0>
 
 	<#assign myRoles = []>
-        <#list currentUser.roles as role>
-	  <#assign myRoles = myRoles + [role.roleName]>
+        <#list (currentUser.roleNames)?default([]) as role>
+	  <#assign myRoles = myRoles + [role]>
 	</#list>
 
         <#list myRoles?sort as role>
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2006-2014 by Public Library of Science
+ *
+ * http://plos.org
+ * http://ambraproject.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ambraproject.action.article;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ArticlePageAssemblerTest {
+
+  private ArticlePageAssembler assembler;
+
+  @BeforeClass
+  public void setUp() {
+    assembler = new ArticlePageAssembler();
+    assembler.setThreads(4);
+    assembler.setBranchTimeout(500);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    assembler.shutdown();
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(new ArticlePageAssembler().isEnabled(), "assembler should be off without threads");
+    assertTrue(assembler.isEnabled(), "assembler should be on with threads");
+  }
+
+  @Test
+  public void testBranchesRunConcurrently() throws InterruptedException {
+    //each branch waits for the other, so this only finishes if they run at the same time
+    final CountDownLatch latch = new CountDownLatch(2);
+    Callable<String> task = new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        latch.countDown();
+        return latch.await(400, TimeUnit.MILLISECONDS) ? "done" : "alone";
+      }
+    };
+
+    ArticlePageAssembler.Assembly assembly = assembler.start("id:doi-concurrent-branches");
+    ArticlePageAssembler.Branch<String> first = assembly.fork("first", task, "fallback");
+    ArticlePageAssembler.Branch<String> second = assembly.fork("second", task, "fallback");
+
+    assertEquals(first.get(), "done", "first branch didn't run concurrently");
+    assertEquals(second.get(), "done", "second branch didn't run concurrently");
+    assembly.finish();
+
+    assertTrue(assembly.getDegraded().isEmpty(), "no branch should have degraded");
+    assertEquals(assembly.getTimings().keySet().size(), 2, "didn't record a time for each branch");
+    assertTrue(assembly.getTimings().keySet().containsAll(Arrays.asList("first", "second")),
+        "recorded times for the wrong branches");
+  }
+
+  @Test
+  public void testFailedBranchDegrades() {
+    ArticlePageAssembler.Assembly assembly = assembler.start("id:doi-failed-branch");
+    ArticlePageAssembler.Branch<Integer> failed = assembly.fork("failed", new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        throw new IllegalStateException("lookup failed");
+      }
+    }, -1);
+    ArticlePageAssembler.Branch<Integer> ok = assembly.fork("ok", new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        return 1;
+      }
+    }, -1);
+
+    assertEquals(failed.get(), Integer.valueOf(-1), "failed branch didn't fall back");
+    assertEquals(ok.get(), Integer.valueOf(1), "a failed branch shouldn't affect the others");
+    assembly.finish();
+
+    assertEquals(assembly.getDegraded(), Collections.singletonList("failed"), "incorrect degraded branches");
+    assertTrue(assembly.getTimings().containsKey("failed"), "didn't record a time for the failed branch");
+  }
+
+  @Test
+  public void testSlowBranchTimesOut() {
+    ArticlePageAssembler.Assembly assembly = assembler.start("id:doi-slow-branch");
+    ArticlePageAssembler.Branch<String> slow = assembly.fork("slow", new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        Thread.sleep(5000);
+        return "too late";
+      }
+    }, "fallback");
+
+    long start = System.currentTimeMillis();
+    assertEquals(slow.get(), "fallback", "slow branch didn't fall back");
+    assertTrue(System.currentTimeMillis() - start < 2000, "waited too long for the slow branch");
+    assembly.finish();
+
+    assertEquals(assembly.getDegraded(), Collections.singletonList("slow"), "incorrect degraded branches");
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testPropagatedException() throws IOException {
+    ArticlePageAssembler.Assembly assembly = assembler.start("id:doi-propagated-exception");
+    ArticlePageAssembler.Branch<String> missing = assembly.fork("missing", new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        throw new IOException("not found");
+      }
+    }, "fallback");
+
+    try {
+      missing.get(IOException.class);
+    } finally {
+      assembly.finish();
+    }
+  }
+
+  @Test
+  public void testSaturatedExecutorDegrades() throws InterruptedException {
+    ArticlePageAssembler saturated = new ArticlePageAssembler();
+    saturated.setThreads(1);
+    saturated.setBranchTimeout(500);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Thread requestThread = Thread.currentThread();
+    final AtomicBoolean ranOnRequestThread = new AtomicBoolean();
+
+    try {
+      ArticlePageAssembler.Assembly assembly = saturated.start("id:doi-saturated");
+      Callable<String> blocked = new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          if (Thread.currentThread() == requestThread) {
+            ranOnRequestThread.set(true);
+          }
+          release.await(5, TimeUnit.SECONDS);
+          return "done";
+        }
+      };
+
+      //one running and four queued fill the executor
+      for (int i = 0; i < 5; i++) {
+        assembly.fork("blocked" + i, blocked, "fallback");
+      }
+      long start = System.currentTimeMillis();
+      ArticlePageAssembler.Branch<String> rejected = assembly.fork("rejected", blocked, "fallback");
+
+      assertTrue(System.currentTimeMillis() - start < 1000, "rejected branch ran on the request thread");
+      assertFalse(ranOnRequestThread.get(), "rejected branch ran on the request thread");
+      assertEquals(rejected.get(), "fallback", "rejected branch didn't fall back");
+      assertEquals(assembly.getDegraded(), Collections.singletonList("rejected"), "incorrect degraded branches");
+      assembly.finish();
+    } finally {
+      release.countDown();
+      saturated.shutdown();
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.ambraproject.action.BaseActionSupport;
 import org.ambraproject.models.SavedSearch;
 import org.ambraproject.models.SavedSearchQuery;
 import org.ambraproject.models.UserProfile;
+import org.ambraproject.views.UserLoginView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.Test;
 
@@ -63,7 +64,7 @@ public class SaveSearchActionTest extends AmbraWebTest {
     dummyDataStore.store(user);
 
     ActionContext.getContext().getSession().put(Constants.AUTH_KEY, user.getAuthId());
-    ActionContext.getContext().getSession().put(Constants.AMBRA_USER_KEY, user);
+    ActionContext.getContext().getSession().put(Constants.AMBRA_USER_KEY, new UserLoginView(user));
 
     action.setQuery("Test");
     action.setSearchName(null);
@@ -99,7 +100,7 @@ public class SaveSearchActionTest extends AmbraWebTest {
     dummyDataStore.store(user);
 
     ActionContext.getContext().getSession().put(Constants.AUTH_KEY, user.getAuthId());
-    ActionContext.getContext().getSession().put(Constants.AMBRA_USER_KEY, user);
+    ActionContext.getContext().getSession().put(Constants.AMBRA_USER_KEY, new UserLoginView(user));
 
     action.setQuery("TestSearch");
     action.setSearchName("TestWithSearchName");
@@ -9,6 +9,7 @@ import org.ambraproject.models.UserProfile;
 import org.ambraproject.models.UserRole;
 import org.ambraproject.service.user.UserAlert;
 import org.ambraproject.service.user.UserService;
+import org.ambraproject.views.UserLoginView;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.annotations.BeforeMethod;
@@ -216,12 +217,11 @@ public class EditUserActionTest extends AmbraWebTest {
 
     assertTrue(savedUser.getLastModified().getTime() >= testStart, "user didn't have lastmodified date updated");
 
-    UserProfile cachedUser = (UserProfile) getFromSession(Constants.AMBRA_USER_KEY);
+    UserLoginView cachedUser = (UserLoginView) getFromSession(Constants.AMBRA_USER_KEY);
     assertNotNull(cachedUser, "user didn't get cached in session");
     assertEquals(cachedUser.getID(), savedUser.getID(), "incorrect user got cached in session");
-    assertEquals(cachedUser.getOrganizationType(), newOrganizationType, "cached user didn't have new organization type");
-    assertEquals(cachedUser.getPositionType(), newPositionType, "cached user didn't have new position type");
-    assertTrue(cachedUser.getOrganizationVisibility(), "cached user user didn't have new organization visibility");
+    assertEquals(cachedUser.getDisplayName(), savedUser.getDisplayName(), "cached user had incorrect display name");
+    assertEquals(cachedUser.getEmail(), savedUser.getEmail(), "cached user had incorrect email");
   }
 
   @Test